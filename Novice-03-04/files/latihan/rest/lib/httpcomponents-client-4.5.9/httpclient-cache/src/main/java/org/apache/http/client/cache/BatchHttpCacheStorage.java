@@ -0,0 +1,61 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.cache;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link HttpCacheStorage} that can operate on several cache entries at once.
+ * Storage backends that incur a round trip per operation should implement
+ * this interface, so that the caching module can look up related entries,
+ * such as the variants of a resource, with a single request. Callers fall
+ * back to the single key operations for storages that do not implement it.
+ *
+ * @since 4.5.10
+ */
+public interface BatchHttpCacheStorage extends HttpCacheStorage {
+
+    /**
+     * Retrieves the cache entries stored under the given keys.
+     * @param keys cache keys
+     * @return the entries found, by key; keys with no entry
+     *   are not present in the returned map.
+     * @throws IOException
+     */
+    Map<String, HttpCacheEntry> getEntries(Collection<String> keys) throws IOException;
+
+    /**
+     * Deletes/invalidates/removes any cache entries currently
+     * stored under the given keys.
+     * @param keys cache keys
+     * @throws IOException
+     */
+    void removeEntries(Collection<String> keys) throws IOException;
+
+}
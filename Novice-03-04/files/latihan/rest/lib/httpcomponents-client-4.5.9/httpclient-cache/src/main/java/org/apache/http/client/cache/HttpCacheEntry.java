@@ -315,9 +315,12 @@ public class HttpCacheEntry implements Serializable {
      * {@link org.apache.http.client.cache.HttpCacheStorage} where that
      * particular variant is stored. The first variant returned is used as
      * the "parent" entry to hold this index of the other variants.
+     * The index is empty if the entry was created without one.
      */
     public Map<String, String> getVariantMap() {
-        return Collections.unmodifiableMap(variantMap);
+        return variantMap != null
+            ? Collections.unmodifiableMap(variantMap)
+            : Collections.<String, String>emptyMap();
     }
 
     /**
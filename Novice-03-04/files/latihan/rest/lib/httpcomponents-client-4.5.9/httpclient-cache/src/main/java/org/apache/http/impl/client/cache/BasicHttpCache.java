@@ -28,6 +28,7 @@ package org.apache.http.impl.client.cache;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,6 +43,7 @@ import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
 import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.cache.HttpCacheInvalidator;
@@ -369,18 +371,33 @@ class BasicHttpCache implements HttpCache {
         if (root == null || !root.hasVariants()) {
             return variants;
         }
-        for(final Map.Entry<String, String> variant : root.getVariantMap().entrySet()) {
+        final Map<String, String> variantMap = root.getVariantMap();
+        final Map<String, HttpCacheEntry> entries = getEntries(variantMap.values());
+        for(final Map.Entry<String, String> variant : variantMap.entrySet()) {
             final String variantKey = variant.getKey();
             final String variantCacheKey = variant.getValue();
-            addVariantWithEtag(variantKey, variantCacheKey, variants);
+            addVariantWithEtag(variantKey, variantCacheKey, entries.get(variantCacheKey), variants);
         }
         return variants;
     }
 
+    private Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) throws IOException {
+        if (storage instanceof BatchHttpCacheStorage) {
+            return ((BatchHttpCacheStorage) storage).getEntries(keys);
+        }
+        final Map<String, HttpCacheEntry> entries = new HashMap<String, HttpCacheEntry>();
+        for (final String key : keys) {
+            final HttpCacheEntry entry = storage.getEntry(key);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        }
+        return entries;
+    }
+
     private void addVariantWithEtag(final String variantKey,
-            final String variantCacheKey, final Map<String, Variant> variants)
-            throws IOException {
-        final HttpCacheEntry entry = storage.getEntry(variantCacheKey);
+            final String variantCacheKey, final HttpCacheEntry entry,
+            final Map<String, Variant> variants) {
         if (entry == null) {
             return;
         }
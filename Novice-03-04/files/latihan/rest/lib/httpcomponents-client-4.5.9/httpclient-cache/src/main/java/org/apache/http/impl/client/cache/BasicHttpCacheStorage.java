@@ -27,9 +27,14 @@
 package org.apache.http.impl.client.cache;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.cache.HttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheUpdateCallback;
@@ -45,13 +50,15 @@ import org.apache.http.client.cache.HttpCacheUpdateCallback;
  * @since 4.1
  */
 @Contract(threading = ThreadingBehavior.SAFE)
-public class BasicHttpCacheStorage implements HttpCacheStorage {
+public class BasicHttpCacheStorage implements BatchHttpCacheStorage {
 
     private final CacheMap entries;
+    private final ReentrantLock lock;
 
     public BasicHttpCacheStorage(final CacheConfig config) {
         super();
         this.entries = new CacheMap(config.getMaxCacheEntries());
+        this.lock = new ReentrantLock();
     }
 
     /**
@@ -63,8 +70,13 @@ public class BasicHttpCacheStorage implements HttpCacheStorage {
      *            HttpCacheEntry to place in the cache
      */
     @Override
-    public synchronized void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
-        entries.put(url, entry);
+    public void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
+        lock.lock();
+        try {
+            entries.put(url, entry);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -75,8 +87,39 @@ public class BasicHttpCacheStorage implements HttpCacheStorage {
      * @return HttpCacheEntry if one exists, or null for cache miss
      */
     @Override
-    public synchronized HttpCacheEntry getEntry(final String url) throws IOException {
-        return entries.get(url);
+    public HttpCacheEntry getEntry(final String url) throws IOException {
+        lock.lock();
+        try {
+            return entries.get(url);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the entries that exist in the cache for the given keys
+     *
+     * @param urls
+     *            Urls that are the cache keys
+     * @return entries found, by cache key
+     *
+     * @since 4.5.10
+     */
+    @Override
+    public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+        final Map<String, HttpCacheEntry> result = new HashMap<String, HttpCacheEntry>(urls.size() * 2);
+        lock.lock();
+        try {
+            for (final String url : urls) {
+                final HttpCacheEntry entry = entries.get(url);
+                if (entry != null) {
+                    result.put(url, entry);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
     }
 
     /**
@@ -86,16 +129,46 @@ public class BasicHttpCacheStorage implements HttpCacheStorage {
      *            Url that is the cache key
      */
     @Override
-    public synchronized void removeEntry(final String url) throws IOException {
-        entries.remove(url);
+    public void removeEntry(final String url) throws IOException {
+        lock.lock();
+        try {
+            entries.remove(url);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the HttpCacheEntries for the given keys from the cache
+     *
+     * @param urls
+     *            Urls that are the cache keys
+     *
+     * @since 4.5.10
+     */
+    @Override
+    public void removeEntries(final Collection<String> urls) throws IOException {
+        lock.lock();
+        try {
+            for (final String url : urls) {
+                entries.remove(url);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
-    public synchronized void updateEntry(
+    public void updateEntry(
             final String url,
             final HttpCacheUpdateCallback callback) throws IOException {
-        final HttpCacheEntry existingEntry = entries.get(url);
-        entries.put(url, callback.update(existingEntry));
+        lock.lock();
+        try {
+            final HttpCacheEntry existingEntry = entries.get(url);
+            entries.put(url, callback.update(existingEntry));
+        } finally {
+            lock.unlock();
+        }
     }
 
 }
@@ -0,0 +1,505 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.HeaderConstants;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializationException;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.client.cache.ResourceFactory;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
+
+/**
+ * {@link HttpCacheEntrySerializer} implementation that uses a compact,
+ * versioned binary format instead of the Java serialization.
+ * <p>
+ * Integers and lengths are written as variable length quantities and
+ * common header names are encoded as a single byte. The message head is
+ * written as a length prefixed block followed by the response body, which
+ * is streamed from and to the {@link Resource} as is. By default response
+ * bodies are read into a {@link HeapResource}. If a {@link ResourceFactory}
+ * is given, bodies are streamed into resources generated by that factory
+ * without an intermediate copy.
+ * </p>
+ * <p>
+ * The format is not compatible with that of {@link DefaultHttpCacheEntrySerializer}.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE_CONDITIONAL)
+public class BinaryHttpCacheEntrySerializer implements HttpCacheEntrySerializer {
+
+    private static final int MAGIC = 0x4843; // 'HC'
+    private static final int VERSION = 1;
+
+    // Must be kept in sync with HttpCacheEntry
+    private static final String REQUEST_METHOD_HEADER_NAME = "Hc-Request-Method";
+
+    /**
+     * Common header names. Append only; indexes are part of the format.
+     */
+    private static final String[] HEADER_NAMES = {
+        "Date",
+        "Content-Type",
+        "Content-Length",
+        "Content-Encoding",
+        "Content-Language",
+        "Content-Location",
+        "Content-MD5",
+        "Content-Range",
+        "Content-Disposition",
+        "Cache-Control",
+        "Expires",
+        "Last-Modified",
+        "ETag",
+        "Vary",
+        "Age",
+        "Pragma",
+        "Warning",
+        "Via",
+        "Server",
+        "Connection",
+        "Keep-Alive",
+        "Transfer-Encoding",
+        "Accept-Ranges",
+        "Allow",
+        "Location",
+        "Set-Cookie",
+        "Link",
+        "Access-Control-Allow-Origin",
+        "Strict-Transport-Security",
+        "X-Content-Type-Options",
+        "X-Frame-Options",
+        "X-XSS-Protection"
+    };
+
+    private static final Map<String, Integer> HEADER_INDEX;
+
+    static {
+        HEADER_INDEX = new HashMap<String, Integer>(HEADER_NAMES.length * 2);
+        for (int i = 0; i < HEADER_NAMES.length; i++) {
+            HEADER_INDEX.put(HEADER_NAMES[i], Integer.valueOf(i));
+        }
+    }
+
+    private final ResourceFactory resourceFactory;
+    private final BasicIdGenerator idGenerator;
+
+    /**
+     * @param resourceFactory the factory used to store response bodies
+     *   or {@code null} to keep response bodies in {@link HeapResource}s.
+     */
+    public BinaryHttpCacheEntrySerializer(final ResourceFactory resourceFactory) {
+        super();
+        this.resourceFactory = resourceFactory;
+        this.idGenerator = resourceFactory != null ? new BasicIdGenerator() : null;
+    }
+
+    public BinaryHttpCacheEntrySerializer() {
+        this(null);
+    }
+
+    @Override
+    public void writeTo(final HttpCacheEntry entry, final OutputStream os) throws IOException {
+        write(entry, os, true);
+    }
+
+    /**
+     * Writes the given cache entry without its response body, which is
+     * expected to be stored separately.
+     */
+    void writeHeadTo(final HttpCacheEntry entry, final OutputStream os) throws IOException {
+        write(entry, os, false);
+    }
+
+    private void write(final HttpCacheEntry entry, final OutputStream os, final boolean withBody) throws IOException {
+        Args.notNull(entry, "Cache entry");
+        Args.notNull(os, "Output stream");
+        final ByteArrayBuffer head = new ByteArrayBuffer(512);
+        writeVarLong(head, entry.getRequestDate().getTime());
+        writeVarLong(head, entry.getResponseDate().getTime());
+
+        final StatusLine statusLine = entry.getStatusLine();
+        final ProtocolVersion version = statusLine.getProtocolVersion();
+        writeString(head, version.getProtocol());
+        writeVarLong(head, version.getMajor());
+        writeVarLong(head, version.getMinor());
+        writeVarLong(head, statusLine.getStatusCode());
+        writeNullableString(head, statusLine.getReasonPhrase());
+
+        final Header[] headers = entry.getAllHeaders();
+        writeVarLong(head, headers.length);
+        for (final Header header: headers) {
+            final Integer index = HEADER_INDEX.get(header.getName());
+            if (index != null) {
+                writeVarLong(head, index.intValue() + 1);
+            } else {
+                head.append(0);
+                writeString(head, header.getName());
+            }
+            writeString(head, header.getValue());
+        }
+        writeNullableString(head, getRequestMethod(entry));
+
+        final Map<String, String> variantMap = entry.getVariantMap();
+        writeVarLong(head, variantMap.size() + 1);
+        for (final Map.Entry<String, String> variant: variantMap.entrySet()) {
+            writeString(head, variant.getKey());
+            writeString(head, variant.getValue());
+        }
+
+        final Resource resource = withBody ? entry.getResource() : null;
+        if (resource == null) {
+            head.append(0);
+        } else {
+            writeVarLong(head, resource.length() + 1);
+        }
+
+        final ByteArrayBuffer prefix = new ByteArrayBuffer(8);
+        writeVarLong(prefix, MAGIC);
+        writeVarLong(prefix, VERSION);
+        writeVarLong(prefix, head.length());
+        os.write(prefix.buffer(), 0, prefix.length());
+        os.write(head.buffer(), 0, head.length());
+        if (resource != null) {
+            writeBody(resource, os);
+        }
+        os.flush();
+    }
+
+    private static String getRequestMethod(final HttpCacheEntry entry) {
+        final String method = entry.getRequestMethod();
+        return HeaderConstants.GET_METHOD.equals(method) ? null : method;
+    }
+
+    private static void writeBody(final Resource resource, final OutputStream os) throws IOException {
+        final long length = resource.length();
+        if (resource instanceof HeapResource) {
+            os.write(((HeapResource) resource).getByteArray());
+            return;
+        }
+        final InputStream inStream = resource.getInputStream();
+        try {
+            final byte[] buf = new byte[(int) Math.min(length, 4096)];
+            long total = 0;
+            int l;
+            while (total < length && (l = inStream.read(buf, 0, (int) Math.min(buf.length, length - total))) != -1) {
+                os.write(buf, 0, l);
+                total += l;
+            }
+            if (total != length) {
+                throw new HttpCacheEntrySerializationException("Resource length mismatch: expected "
+                        + length + ", read " + total);
+            }
+        } finally {
+            inStream.close();
+        }
+    }
+
+    @Override
+    public HttpCacheEntry readFrom(final InputStream is) throws IOException {
+        return read(is, null);
+    }
+
+    /**
+     * Reads a cache entry written by {@link #writeHeadTo(HttpCacheEntry, OutputStream)}
+     * and attaches the given response body to it.
+     */
+    HttpCacheEntry readHeadFrom(final InputStream is, final Resource body) throws IOException {
+        return read(is, body);
+    }
+
+    private HttpCacheEntry read(final InputStream is, final Resource body) throws IOException {
+        Args.notNull(is, "Input stream");
+        if (readVarLong(is) != MAGIC) {
+            throw new HttpCacheEntrySerializationException("Invalid cache entry format");
+        }
+        final long formatVersion = readVarLong(is);
+        if (formatVersion != VERSION) {
+            throw new HttpCacheEntrySerializationException(
+                    "Unsupported cache entry format version: " + formatVersion);
+        }
+        final long headLen = readVarLong(is);
+        if (headLen > Integer.MAX_VALUE) {
+            throw new HttpCacheEntrySerializationException("Invalid cache entry head length: " + headLen);
+        }
+        final Cursor head = new Cursor(readBlock(is, (int) headLen));
+
+        final Date requestDate = new Date(head.readVarLong());
+        final Date responseDate = new Date(head.readVarLong());
+        final String protocol = head.readString();
+        final int major = head.readVarInt();
+        final int minor = head.readVarInt();
+        final ProtocolVersion version = HttpVersion.HTTP.equals(protocol)
+                ? HttpVersion.HTTP_1_1.forVersion(major, minor)
+                : new ProtocolVersion(protocol, major, minor);
+        final StatusLine statusLine = new BasicStatusLine(
+                version, head.readVarInt(), head.readNullableString());
+
+        final int headerCount = head.readVarInt();
+        final Header[] headers = new Header[headerCount];
+        for (int i = 0; i < headerCount; i++) {
+            final int index = head.readVarInt();
+            final String name;
+            if (index == 0) {
+                name = head.readString();
+            } else if (index <= HEADER_NAMES.length) {
+                name = HEADER_NAMES[index - 1];
+            } else {
+                throw new HttpCacheEntrySerializationException("Invalid header name index: " + index);
+            }
+            headers[i] = new BasicHeader(name, head.readString());
+        }
+        final String method = head.readNullableString();
+        final Header[] allHeaders;
+        if (method != null) {
+            allHeaders = new Header[headerCount + 1];
+            System.arraycopy(headers, 0, allHeaders, 0, headerCount);
+            allHeaders[headerCount] = new BasicHeader(REQUEST_METHOD_HEADER_NAME, method);
+        } else {
+            allHeaders = headers;
+        }
+
+        final int variantCount = head.readVarInt();
+        final Map<String, String> variantMap;
+        if (variantCount == 0) {
+            variantMap = null;
+        } else {
+            variantMap = new HashMap<String, String>(variantCount * 2);
+            for (int i = 1; i < variantCount; i++) {
+                variantMap.put(head.readString(), head.readString());
+            }
+        }
+
+        final long bodyLen = head.readVarLong();
+        final Resource resource = bodyLen == 0 ? body : readBody(is, bodyLen - 1);
+        return new HttpCacheEntry(requestDate, responseDate, statusLine, allHeaders, resource, variantMap);
+    }
+
+    private Resource readBody(final InputStream is, final long length) throws IOException {
+        if (this.resourceFactory == null) {
+            if (length > Integer.MAX_VALUE) {
+                throw new HttpCacheEntrySerializationException("Response body too large: " + length);
+            }
+            return new HeapResource(readBlock(is, (int) length));
+        }
+        final Resource resource = this.resourceFactory.generate(
+                this.idGenerator.generate(), new BoundedInputStream(is, length), null);
+        if (resource.length() != length) {
+            resource.dispose();
+            throw new EOFException("Unexpected end of response body");
+        }
+        return resource;
+    }
+
+    static void writeVarLong(final ByteArrayBuffer buffer, final long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.append((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.append((int) v);
+    }
+
+    private static void writeString(final ByteArrayBuffer buffer, final String s) {
+        final byte[] b = s.getBytes(Consts.UTF_8);
+        writeVarLong(buffer, b.length);
+        buffer.append(b, 0, b.length);
+    }
+
+    private static void writeNullableString(final ByteArrayBuffer buffer, final String s) {
+        if (s == null) {
+            buffer.append(0);
+        } else {
+            final byte[] b = s.getBytes(Consts.UTF_8);
+            writeVarLong(buffer, b.length + 1);
+            buffer.append(b, 0, b.length);
+        }
+    }
+
+    static long readVarLong(final InputStream is) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = is.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of cache entry");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new HttpCacheEntrySerializationException("Malformed variable length quantity");
+    }
+
+    /**
+     * Reads the given number of bytes. The array is grown as data arrives
+     * so that a corrupt length cannot cause a huge allocation up front.
+     */
+    private static byte[] readBlock(final InputStream is, final int len) throws IOException {
+        byte[] b = new byte[Math.min(len, 8192)];
+        int total = 0;
+        while (total < len) {
+            if (total == b.length) {
+                final byte[] tmp = new byte[(int) Math.min((long) b.length * 2, len)];
+                System.arraycopy(b, 0, tmp, 0, total);
+                b = tmp;
+            }
+            final int l = is.read(b, total, b.length - total);
+            if (l == -1) {
+                throw new EOFException("Unexpected end of cache entry");
+            }
+            total += l;
+        }
+        return b;
+    }
+
+    /**
+     * Reads values from the message head block.
+     */
+    static class Cursor {
+
+        private final byte[] b;
+        private int pos;
+
+        Cursor(final byte[] b) {
+            this.b = b;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (this.pos >= this.b.length) {
+                    throw new HttpCacheEntrySerializationException("Truncated cache entry head");
+                }
+                final int v = this.b[this.pos++];
+                value |= (long) (v & 0x7F) << shift;
+                if ((v & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new HttpCacheEntrySerializationException("Malformed variable length quantity");
+        }
+
+        int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new HttpCacheEntrySerializationException("Value out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        private String readString(final int len) throws IOException {
+            if (len > this.b.length - this.pos) {
+                throw new HttpCacheEntrySerializationException("Truncated cache entry head");
+            }
+            final String s = new String(this.b, this.pos, len, Consts.UTF_8);
+            this.pos += len;
+            return s;
+        }
+
+        String readString() throws IOException {
+            return readString(readVarInt());
+        }
+
+        String readNullableString() throws IOException {
+            final int len = readVarInt();
+            return len == 0 ? null : readString(len - 1);
+        }
+
+    }
+
+    /**
+     * Limits the response body to the number of bytes stated in the head.
+     */
+    static class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(final InputStream in, final long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            final int b = this.in.read();
+            if (b != -1) {
+                this.remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.remaining <= 0) {
+                return -1;
+            }
+            final int l = this.in.read(b, off, (int) Math.min(len, this.remaining));
+            if (l > 0) {
+                this.remaining -= l;
+            }
+            return l;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(this.in.available(), this.remaining);
+        }
+
+        @Override
+        public void close() {
+            // the underlying stream is owned by the caller
+        }
+
+    }
+
+}
@@ -99,6 +99,12 @@ import org.apache.http.util.Args;
  * can be idle before being reclaimed}. You can also control the {@link
  * CacheConfig#getRevalidationQueueSize() size of the queue} used for
  * revalidations when there aren't enough workers to keep up with demand.</p>
+ *
+ * <p><b>Collapsed forwarding</b>. When a popular resource is missing from the
+ * cache or has become stale, concurrent requests for it would all be sent to
+ * the origin. With a {@link Builder#setCollapsedForwardingTimeout(int)
+ * collapsed forwarding timeout} set, only the first of them is forwarded and
+ * the others wait up to the given time for its response to be cached.</p>
  */
 public class CacheConfig implements Cloneable {
 
@@ -158,6 +164,13 @@ public class CacheConfig implements Cloneable {
      */
     public static final int DEFAULT_REVALIDATION_QUEUE_SIZE = 100;
 
+    /** Default timeout in milliseconds for requests waiting on a collapsed
+     * request, which disables collapsed forwarding.
+     *
+     * @since 4.5.10
+     */
+    public static final int DEFAULT_COLLAPSED_FORWARDING_TIMEOUT = 0;
+
     public static final CacheConfig DEFAULT = new Builder().build();
 
     // TODO: make final
@@ -175,6 +188,7 @@ public class CacheConfig implements Cloneable {
     private int asynchronousWorkerIdleLifetimeSecs;
     private int revalidationQueueSize;
     private boolean neverCacheHTTP10ResponsesWithQuery;
+    private final int collapsedForwardingTimeout;
 
     /**
      * @deprecated (4.3) use {@link Builder}.
@@ -195,6 +209,7 @@ public class CacheConfig implements Cloneable {
         this.asynchronousWorkersCore = DEFAULT_ASYNCHRONOUS_WORKERS_CORE;
         this.asynchronousWorkerIdleLifetimeSecs = DEFAULT_ASYNCHRONOUS_WORKER_IDLE_LIFETIME_SECS;
         this.revalidationQueueSize = DEFAULT_REVALIDATION_QUEUE_SIZE;
+        this.collapsedForwardingTimeout = DEFAULT_COLLAPSED_FORWARDING_TIMEOUT;
     }
 
     CacheConfig(
@@ -211,7 +226,8 @@ public class CacheConfig implements Cloneable {
             final int asynchronousWorkersCore,
             final int asynchronousWorkerIdleLifetimeSecs,
             final int revalidationQueueSize,
-            final boolean neverCacheHTTP10ResponsesWithQuery) {
+            final boolean neverCacheHTTP10ResponsesWithQuery,
+            final int collapsedForwardingTimeout) {
         super();
         this.maxObjectSize = maxObjectSize;
         this.maxCacheEntries = maxCacheEntries;
@@ -226,6 +242,7 @@ public class CacheConfig implements Cloneable {
         this.asynchronousWorkersCore = asynchronousWorkersCore;
         this.asynchronousWorkerIdleLifetimeSecs = asynchronousWorkerIdleLifetimeSecs;
         this.revalidationQueueSize = revalidationQueueSize;
+        this.collapsedForwardingTimeout = collapsedForwardingTimeout;
     }
 
     /**
@@ -510,6 +527,17 @@ public class CacheConfig implements Cloneable {
         this.revalidationQueueSize = size;
     }
 
+    /**
+     * Returns the maximum time in milliseconds requests wait for a concurrent
+     * request for the same resource that has been forwarded to the origin.
+     * {@code 0} means collapsed forwarding is disabled.
+     *
+     * @since 4.5.10
+     */
+    public int getCollapsedForwardingTimeout() {
+        return collapsedForwardingTimeout;
+    }
+
     @Override
     protected CacheConfig clone() throws CloneNotSupportedException {
         return (CacheConfig) super.clone();
@@ -533,7 +561,8 @@ public class CacheConfig implements Cloneable {
             .setAsynchronousWorkersCore(config.getAsynchronousWorkersCore())
             .setAsynchronousWorkerIdleLifetimeSecs(config.getAsynchronousWorkerIdleLifetimeSecs())
             .setRevalidationQueueSize(config.getRevalidationQueueSize())
-            .setNeverCacheHTTP10ResponsesWithQueryString(config.isNeverCacheHTTP10ResponsesWithQuery());
+            .setNeverCacheHTTP10ResponsesWithQueryString(config.isNeverCacheHTTP10ResponsesWithQuery())
+            .setCollapsedForwardingTimeout(config.getCollapsedForwardingTimeout());
     }
 
 
@@ -553,6 +582,7 @@ public class CacheConfig implements Cloneable {
         private int asynchronousWorkerIdleLifetimeSecs;
         private int revalidationQueueSize;
         private boolean neverCacheHTTP10ResponsesWithQuery;
+        private int collapsedForwardingTimeout;
 
         Builder() {
             this.maxObjectSize = DEFAULT_MAX_OBJECT_SIZE_BYTES;
@@ -568,6 +598,7 @@ public class CacheConfig implements Cloneable {
             this.asynchronousWorkersCore = DEFAULT_ASYNCHRONOUS_WORKERS_CORE;
             this.asynchronousWorkerIdleLifetimeSecs = DEFAULT_ASYNCHRONOUS_WORKER_IDLE_LIFETIME_SECS;
             this.revalidationQueueSize = DEFAULT_REVALIDATION_QUEUE_SIZE;
+            this.collapsedForwardingTimeout = DEFAULT_COLLAPSED_FORWARDING_TIMEOUT;
         }
 
         /**
@@ -720,6 +751,22 @@ public class CacheConfig implements Cloneable {
             return this;
         }
 
+        /**
+         * Enables collapsed forwarding. Requests that cannot be served from
+         * the cache while a request for the same resource is being forwarded
+         * to the origin wait up to the given time for that request to
+         * complete, and are then served from the cache if its response has
+         * been cached. Otherwise they are forwarded to the origin as usual.
+         * @param collapsedForwardingTimeout timeout in milliseconds; a value
+         *   of {@code 0} disables collapsed forwarding.
+         *
+         * @since 4.5.10
+         */
+        public Builder setCollapsedForwardingTimeout(final int collapsedForwardingTimeout) {
+            this.collapsedForwardingTimeout = collapsedForwardingTimeout;
+            return this;
+        }
+
         public CacheConfig build() {
             return new CacheConfig(
                     maxObjectSize,
@@ -735,7 +782,8 @@ public class CacheConfig implements Cloneable {
                     asynchronousWorkersCore,
                     asynchronousWorkerIdleLifetimeSecs,
                     revalidationQueueSize,
-                    neverCacheHTTP10ResponsesWithQuery);
+                    neverCacheHTTP10ResponsesWithQuery,
+                    collapsedForwardingTimeout);
         }
 
     }
@@ -757,6 +805,7 @@ public class CacheConfig implements Cloneable {
                 .append(", asynchronousWorkerIdleLifetimeSecs=").append(this.asynchronousWorkerIdleLifetimeSecs)
                 .append(", revalidationQueueSize=").append(this.revalidationQueueSize)
                 .append(", neverCacheHTTP10ResponsesWithQuery=").append(this.neverCacheHTTP10ResponsesWithQuery)
+                .append(", collapsedForwardingTimeout=").append(this.collapsedForwardingTimeout)
                 .append("]");
         return builder.toString();
     }
@@ -29,7 +29,10 @@ package org.apache.http.impl.client.cache;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -39,6 +42,7 @@ import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
 import org.apache.http.client.cache.HeaderConstants;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.cache.HttpCacheInvalidator;
@@ -89,10 +93,7 @@ class CacheInvalidator implements HttpCacheInvalidator {
         if (requestShouldNotBeCached(req) || shouldInvalidateHeadCacheEntry(req, parent)) {
             log.debug("Invalidating parent cache entry: " + parent);
             if (parent != null) {
-                for (final String variantURI : parent.getVariantMap().values()) {
-                    flushEntry(variantURI);
-                }
-                flushEntry(theUri);
+                flushEntries(parent.getVariantMap().values(), theUri);
             }
             final URL reqURL = getAbsoluteURL(theUri);
             if (reqURL == null) {
@@ -133,6 +134,24 @@ class CacheInvalidator implements HttpCacheInvalidator {
         }
     }
 
+    private void flushEntries(final Collection<String> variantURIs, final String uri) {
+        if (storage instanceof BatchHttpCacheStorage) {
+            final List<String> uris = new ArrayList<String>(variantURIs.size() + 1);
+            uris.addAll(variantURIs);
+            uris.add(uri);
+            try {
+                ((BatchHttpCacheStorage) storage).removeEntries(uris);
+            } catch (final IOException ioe) {
+                log.warn("unable to flush cache entries", ioe);
+            }
+        } else {
+            for (final String variantURI : variantURIs) {
+                flushEntry(variantURI);
+            }
+            flushEntry(uri);
+        }
+    }
+
     private HttpCacheEntry getEntry(final String theUri) {
         try {
             return storage.getEntry(theUri);
@@ -33,6 +33,8 @@ import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.http.Consts;
 import org.apache.http.Header;
@@ -52,11 +54,20 @@ import org.apache.http.util.Args;
 /**
  * @since 4.1
  */
-@Contract(threading = ThreadingBehavior.IMMUTABLE)
+@Contract(threading = ThreadingBehavior.SAFE)
 class CacheKeyGenerator {
 
     private static final URI BASE_URI = URI.create("http://example.com/");
 
+    private static final int MAX_MEMOIZED = 1024;
+
+    private final ConcurrentMap<String, String[]> variantHeaderNames =
+            new ConcurrentHashMap<String, String[]>();
+    private final ConcurrentMap<String, String> encodedNames =
+            new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<String, String> encodedValues =
+            new ConcurrentHashMap<String, String>();
+
     static URIBuilder getRequestUriBuilder(final HttpRequest request) throws URISyntaxException {
         if (request instanceof HttpUriRequest) {
             final URI uri = ((HttpUriRequest) request).getURI();
@@ -176,33 +187,74 @@ class CacheKeyGenerator {
      * @return a {@code String} variant key
      */
     public String getVariantKey(final HttpRequest req, final HttpCacheEntry entry) {
-        final List<String> variantHeaderNames = new ArrayList<String>();
-        for (final Header varyHdr : entry.getHeaders(HeaderConstants.VARY)) {
-            for (final HeaderElement elt : varyHdr.getElements()) {
-                variantHeaderNames.add(elt.getName());
+        final String[] variantHeaderNames = getVariantHeaderNames(entry.getHeaders(HeaderConstants.VARY));
+        final StringBuilder buf = new StringBuilder("{");
+        for (int i = 0; i < variantHeaderNames.length; i++) {
+            final String headerName = variantHeaderNames[i];
+            if (i > 0) {
+                buf.append("&");
             }
+            buf.append(encode(this.encodedNames, headerName));
+            buf.append("=");
+            buf.append(encode(this.encodedValues, getFullHeaderValue(req.getHeaders(headerName))));
         }
-        Collections.sort(variantHeaderNames);
+        buf.append("}");
+        return buf.toString();
+    }
 
-        final StringBuilder buf;
-        try {
-            buf = new StringBuilder("{");
-            boolean first = true;
-            for (final String headerName : variantHeaderNames) {
-                if (!first) {
-                    buf.append("&");
+    /**
+     * Returns the sorted names of the headers covered by the given Vary
+     * headers. Resources vary on few distinct header combinations, so the
+     * result is memoized by the Vary header values.
+     */
+    private String[] getVariantHeaderNames(final Header[] varyHeaders) {
+        final String vary;
+        if (varyHeaders.length == 1) {
+            vary = varyHeaders[0].getValue();
+        } else {
+            final StringBuilder buf = new StringBuilder();
+            for (final Header varyHdr : varyHeaders) {
+                if (buf.length() > 0) {
+                    buf.append(",");
                 }
-                buf.append(URLEncoder.encode(headerName, Consts.UTF_8.name()));
-                buf.append("=");
-                buf.append(URLEncoder.encode(getFullHeaderValue(req.getHeaders(headerName)),
-                        Consts.UTF_8.name()));
-                first = false;
+                buf.append(varyHdr.getValue());
             }
-            buf.append("}");
-        } catch (final UnsupportedEncodingException uee) {
-            throw new RuntimeException("couldn't encode to UTF-8", uee);
+            vary = buf.toString();
         }
-        return buf.toString();
+        String[] names = this.variantHeaderNames.get(vary);
+        if (names == null) {
+            final List<String> variantHeaderNames = new ArrayList<String>();
+            for (final Header varyHdr : varyHeaders) {
+                for (final HeaderElement elt : varyHdr.getElements()) {
+                    variantHeaderNames.add(elt.getName());
+                }
+            }
+            Collections.sort(variantHeaderNames);
+            names = variantHeaderNames.toArray(new String[variantHeaderNames.size()]);
+            put(this.variantHeaderNames, vary, names);
+        }
+        return names;
+    }
+
+    private static String encode(final ConcurrentMap<String, String> encoded, final String s) {
+        String result = encoded.get(s);
+        if (result == null) {
+            try {
+                result = URLEncoder.encode(s, Consts.UTF_8.name());
+            } catch (final UnsupportedEncodingException uee) {
+                throw new RuntimeException("couldn't encode to UTF-8", uee);
+            }
+            put(encoded, s, result);
+        }
+        return result;
+    }
+
+    private static <T> void put(final ConcurrentMap<String, T> memo, final String key, final T value) {
+        if (memo.size() >= MAX_MEMOIZED) {
+            // Crude bound for high cardinality values such as User-Agent
+            memo.clear();
+        }
+        memo.put(key, value);
     }
 
 }
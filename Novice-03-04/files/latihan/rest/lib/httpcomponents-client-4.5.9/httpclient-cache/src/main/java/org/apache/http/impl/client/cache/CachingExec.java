@@ -33,6 +33,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
@@ -124,6 +125,8 @@ public class CachingExec implements ClientExecChain {
     private final ResponseCachingPolicy responseCachingPolicy;
 
     private final AsynchronousValidator asynchRevalidator;
+    private final CollapsedRequests collapsedRequests;
+    private final CacheKeyGenerator uriExtractor;
 
     private final Log log = LogFactory.getLog(getClass());
 
@@ -156,6 +159,8 @@ public class CachingExec implements ClientExecChain {
                 this.cacheConfig.getMaxObjectSize(), this.cacheConfig.isSharedCache(),
                 this.cacheConfig.isNeverCacheHTTP10ResponsesWithQuery(), this.cacheConfig.is303CachingEnabled());
         this.asynchRevalidator = asynchRevalidator;
+        this.collapsedRequests = createCollapsedRequests(this.cacheConfig);
+        this.uriExtractor = new CacheKeyGenerator();
     }
 
     public CachingExec(
@@ -195,6 +200,13 @@ public class CachingExec implements ClientExecChain {
         this.responseCompliance = responseCompliance;
         this.requestCompliance = requestCompliance;
         this.asynchRevalidator = asynchRevalidator;
+        this.collapsedRequests = createCollapsedRequests(this.cacheConfig);
+        this.uriExtractor = new CacheKeyGenerator();
+    }
+
+    private static CollapsedRequests createCollapsedRequests(final CacheConfig config) {
+        final int timeout = config.getCollapsedForwardingTimeout();
+        return timeout > 0 ? new CollapsedRequests(timeout) : null;
     }
 
     /**
@@ -294,22 +306,105 @@ public class CachingExec implements ClientExecChain {
         } else if (!mayCallBackend(request)) {
             log.debug("Cache entry not suitable but only-if-cached requested");
             out = generateGatewayTimeout(context);
-        } else if (!(entry.getStatusCode() == HttpStatus.SC_NOT_MODIFIED
-                && !suitabilityChecker.isConditional(request))) {
-            log.debug("Revalidating cache entry");
-            return revalidateCacheEntry(route, request, context, execAware, entry, now);
         } else {
-            log.debug("Cache entry not usable; calling backend");
-            return callBackend(route, request, context, execAware);
+            return forwardCollapsed(route, request, context, execAware, entry, now);
         }
+        setCachedResponseContext(route, request, context, out);
+        return out;
+    }
+
+    private void setCachedResponseContext(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context,
+            final CloseableHttpResponse out) {
         context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
-        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, target);
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, context.getTargetHost());
         context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
         context.setAttribute(HttpCoreContext.HTTP_RESPONSE, out);
         context.setAttribute(HttpCoreContext.HTTP_REQ_SENT, Boolean.TRUE);
+    }
+
+    /**
+     * Forwards a request that cannot be served from the cache, unless collapsed
+     * forwarding is enabled and a request for the same resource is or was just
+     * in flight. In that case, waits for it to complete and serves the response
+     * from the cache if it has been cached.
+     */
+    private CloseableHttpResponse forwardCollapsed(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context,
+            final HttpExecutionAware execAware,
+            final HttpCacheEntry entry,
+            final Date now) throws IOException, HttpException {
+        if (collapsedRequests != null) {
+            final HttpHost target = context.getTargetHost();
+            final String key = uriExtractor.getURI(target, request);
+            final CountDownLatch inFlight = collapsedRequests.join(key);
+            if (inFlight == null) {
+                try {
+                    // A previous request may have completed since the cache was looked up
+                    final CloseableHttpResponse out = reuseCollapsedResponse(route, request, context);
+                    if (out != null) {
+                        return out;
+                    }
+                    return forward(route, request, context, execAware, entry, now);
+                } finally {
+                    collapsedRequests.complete(key);
+                }
+            }
+            log.debug("Waiting for collapsed request");
+            if (collapsedRequests.await(inFlight)) {
+                final CloseableHttpResponse out = reuseCollapsedResponse(route, request, context);
+                if (out != null) {
+                    return out;
+                }
+            }
+        }
+        return forward(route, request, context, execAware, entry, now);
+    }
+
+    private CloseableHttpResponse reuseCollapsedResponse(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context) {
+        final HttpHost target = context.getTargetHost();
+        final HttpCacheEntry entry = satisfyFromCache(target, request);
+        final Date now = getCurrentDate();
+        if (entry == null || !suitabilityChecker.canCachedResponseBeUsed(target, request, entry, now)) {
+            return null;
+        }
+        log.debug("Cache hit after collapsed request");
+        final CloseableHttpResponse out = generateCachedResponse(request, context, entry, now);
+        setCachedResponseContext(route, request, context, out);
         return out;
     }
 
+    private CloseableHttpResponse forward(
+            final HttpRoute route,
+            final HttpRequestWrapper request,
+            final HttpClientContext context,
+            final HttpExecutionAware execAware,
+            final HttpCacheEntry entry,
+            final Date now) throws IOException, HttpException {
+        if (entry == null) {
+            final Map<String, Variant> variants = getExistingCacheVariants(context.getTargetHost(), request);
+            if (variants != null && !variants.isEmpty()) {
+                return negotiateResponseFromVariants(route, request, context,
+                        execAware, variants);
+            }
+            return callBackend(route, request, context, execAware);
+        }
+        if (!(entry.getStatusCode() == HttpStatus.SC_NOT_MODIFIED
+                && !suitabilityChecker.isConditional(request))) {
+            log.debug("Revalidating cache entry");
+            return revalidateCacheEntry(route, request, context, execAware, entry, now);
+        }
+        log.debug("Cache entry not usable; calling backend");
+        return callBackend(route, request, context, execAware);
+    }
+
     private CloseableHttpResponse revalidateCacheEntry(
             final HttpRoute route,
             final HttpRequestWrapper request,
@@ -347,13 +442,7 @@ public class CachingExec implements ClientExecChain {
                             HttpVersion.HTTP_1_1, HttpStatus.SC_GATEWAY_TIMEOUT, "Gateway Timeout"));
         }
 
-        final Map<String, Variant> variants = getExistingCacheVariants(target, request);
-        if (variants != null && !variants.isEmpty()) {
-            return negotiateResponseFromVariants(route, request, context,
-                    execAware, variants);
-        }
-
-        return callBackend(route, request, context, execAware);
+        return forwardCollapsed(route, request, context, execAware, null, null);
     }
 
     private HttpCacheEntry satisfyFromCache(
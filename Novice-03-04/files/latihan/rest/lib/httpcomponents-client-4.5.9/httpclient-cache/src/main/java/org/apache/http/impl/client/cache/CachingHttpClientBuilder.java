@@ -51,6 +51,7 @@ public class CachingHttpClientBuilder extends HttpClientBuilder {
     private SchedulingStrategy schedulingStrategy;
     private HttpCacheInvalidator httpCacheInvalidator;
     private boolean deleteCache;
+    private long maxCacheBytes;
 
     public static CachingHttpClientBuilder create() {
         return new CachingHttpClientBuilder();
@@ -102,6 +103,21 @@ public class CachingHttpClientBuilder extends HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum total size of response bodies held by the default in-memory
+     * cache storage. If set to a positive value and neither a storage nor a cache
+     * directory have been given, {@link SegmentedHttpCacheStorage} bounded by both
+     * the {@link CacheConfig#getMaxCacheEntries() maximum number of entries} and
+     * this size is used instead of {@link BasicHttpCacheStorage}. The size may not
+     * be less than the {@link CacheConfig#getMaxObjectSize() maximum object size}.
+     *
+     * @since 4.5.10
+     */
+    public final CachingHttpClientBuilder setMaxCacheBytes(final long maxCacheBytes) {
+        this.maxCacheBytes = maxCacheBytes;
+        return this;
+    }
+
     @Override
     protected ClientExecChain decorateMainExec(final ClientExecChain mainExec) {
         final CacheConfig config = this.cacheConfig != null ? this.cacheConfig : CacheConfig.DEFAULT;
@@ -117,7 +133,11 @@ public class CachingHttpClientBuilder extends HttpClientBuilder {
         HttpCacheStorage storageCopy = this.storage;
         if (storageCopy == null) {
             if (this.cacheDir == null) {
-                storageCopy = new BasicHttpCacheStorage(config);
+                if (this.maxCacheBytes > 0) {
+                    storageCopy = new SegmentedHttpCacheStorage(config, this.maxCacheBytes);
+                } else {
+                    storageCopy = new BasicHttpCacheStorage(config);
+                }
             } else {
                 final ManagedHttpCacheStorage managedStorage = new ManagedHttpCacheStorage(config);
                 if (this.deleteCache) {
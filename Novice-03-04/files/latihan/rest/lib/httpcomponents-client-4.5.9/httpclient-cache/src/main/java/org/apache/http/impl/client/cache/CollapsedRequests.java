@@ -0,0 +1,100 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+
+/**
+ * Keeps track of requests forwarded to the origin by cache key, so that
+ * concurrent requests for the same resource can wait for their outcome
+ * rather than being forwarded as well.
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+class CollapsedRequests {
+
+    private final ConcurrentMap<String, CountDownLatch> inFlight;
+    private final long timeout;
+
+    /**
+     * @param timeout maximum time in milliseconds to wait for a request in flight.
+     */
+    CollapsedRequests(final long timeout) {
+        super();
+        this.inFlight = new ConcurrentHashMap<String, CountDownLatch>();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Joins the request in flight for the given key.
+     *
+     * @return {@code null} if there is no request in flight, in which case the
+     *   caller's request is registered as such and the caller must forward it
+     *   and then call {@link #complete(String)}; otherwise the latch released
+     *   once the request in flight completes.
+     */
+    CountDownLatch join(final String key) {
+        return this.inFlight.putIfAbsent(key, new CountDownLatch(1));
+    }
+
+    /**
+     * Waits for the request in flight to complete.
+     *
+     * @return {@code true} if it completed, {@code false} on timeout.
+     */
+    boolean await(final CountDownLatch latch) throws InterruptedIOException {
+        try {
+            return latch.await(this.timeout, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Marks the request in flight for the given key as completed.
+     */
+    void complete(final String key) {
+        final CountDownLatch latch = this.inFlight.remove(key);
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
+    int getInFlightCount() {
+        return this.inFlight.size();
+    }
+
+}
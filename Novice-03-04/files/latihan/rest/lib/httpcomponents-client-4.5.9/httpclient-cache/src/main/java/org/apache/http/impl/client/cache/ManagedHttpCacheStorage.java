@@ -29,12 +29,17 @@ package org.apache.http.impl.client.cache;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.ref.ReferenceQueue;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.cache.HttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheUpdateCallback;
@@ -72,12 +77,13 @@ import org.apache.http.util.Args;
  * @since 4.1
  */
 @Contract(threading = ThreadingBehavior.SAFE)
-public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
+public class ManagedHttpCacheStorage implements BatchHttpCacheStorage, Closeable {
 
     private final CacheMap entries;
     private final ReferenceQueue<HttpCacheEntry> morque;
     private final Set<ResourceReference> resources;
     private final AtomicBoolean active;
+    private final ReentrantLock lock;
 
     public ManagedHttpCacheStorage(final CacheConfig config) {
         super();
@@ -85,6 +91,7 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
         this.morque = new ReferenceQueue<HttpCacheEntry>();
         this.resources = new HashSet<ResourceReference>();
         this.active = new AtomicBoolean(true);
+        this.lock = new ReentrantLock();
     }
 
     private void ensureValidState() throws IllegalStateException {
@@ -107,9 +114,12 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
         Args.notNull(url, "URL");
         Args.notNull(entry, "Cache entry");
         ensureValidState();
-        synchronized (this) {
+        this.lock.lock();
+        try {
             this.entries.put(url, entry);
             keepResourceReference(entry);
+        } finally {
+            this.lock.unlock();
         }
     }
 
@@ -117,19 +127,66 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
     public HttpCacheEntry getEntry(final String url) throws IOException {
         Args.notNull(url, "URL");
         ensureValidState();
-        synchronized (this) {
+        this.lock.lock();
+        try {
             return this.entries.get(url);
+        } finally {
+            this.lock.unlock();
         }
     }
 
+    /**
+     * @since 4.5.10
+     */
+    @Override
+    public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+        Args.notNull(urls, "URLs");
+        ensureValidState();
+        final Map<String, HttpCacheEntry> result = new HashMap<String, HttpCacheEntry>(urls.size() * 2);
+        this.lock.lock();
+        try {
+            for (final String url: urls) {
+                final HttpCacheEntry entry = this.entries.get(url);
+                if (entry != null) {
+                    result.put(url, entry);
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return result;
+    }
+
     @Override
     public void removeEntry(final String url) throws IOException {
         Args.notNull(url, "URL");
         ensureValidState();
-        synchronized (this) {
+        this.lock.lock();
+        try {
             // Cannot deallocate the associated resources immediately as the
             // cache entry may still be in use
             this.entries.remove(url);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @since 4.5.10
+     */
+    @Override
+    public void removeEntries(final Collection<String> urls) throws IOException {
+        Args.notNull(urls, "URLs");
+        ensureValidState();
+        this.lock.lock();
+        try {
+            for (final String url: urls) {
+                // Cannot deallocate the associated resources immediately as the
+                // cache entry may still be in use
+                this.entries.remove(url);
+            }
+        } finally {
+            this.lock.unlock();
         }
     }
 
@@ -140,13 +197,16 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
         Args.notNull(url, "URL");
         Args.notNull(callback, "Callback");
         ensureValidState();
-        synchronized (this) {
+        this.lock.lock();
+        try {
             final HttpCacheEntry existing = this.entries.get(url);
             final HttpCacheEntry updated = callback.update(existing);
             this.entries.put(url, updated);
             if (existing != updated) {
                 keepResourceReference(updated);
             }
+        } finally {
+            this.lock.unlock();
         }
     }
 
@@ -154,8 +214,11 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
         if (this.active.get()) {
             ResourceReference ref;
             while ((ref = (ResourceReference) this.morque.poll()) != null) {
-                synchronized (this) {
+                this.lock.lock();
+                try {
                     this.resources.remove(ref);
+                } finally {
+                    this.lock.unlock();
                 }
                 ref.getResource().dispose();
             }
@@ -164,7 +227,8 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
 
     public void shutdown() {
         if (this.active.compareAndSet(true, false)) {
-            synchronized (this) {
+            this.lock.lock();
+            try {
                 this.entries.clear();
                 for (final ResourceReference ref: this.resources) {
                     ref.getResource().dispose();
@@ -172,6 +236,8 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
                 this.resources.clear();
                 while (this.morque.poll() != null) {
                 }
+            } finally {
+                this.lock.unlock();
             }
         }
     }
@@ -179,12 +245,15 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
     @Override
     public void close() {
         if (this.active.compareAndSet(true, false)) {
-            synchronized (this) {
+            this.lock.lock();
+            try {
                 ResourceReference ref;
                 while ((ref = (ResourceReference) this.morque.poll()) != null) {
                     this.resources.remove(ref);
                     ref.getResource().dispose();
                 }
+            } finally {
+                this.lock.unlock();
             }
         }
     }
@@ -0,0 +1,791 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Consts;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializationException;
+import org.apache.http.client.cache.HttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.client.cache.HttpCacheUpdateException;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.util.Args;
+import org.apache.http.util.ByteArrayBuffer;
+
+/**
+ * {@link HttpCacheStorage} implementation that survives restarts.
+ * <p>
+ * Response bodies are kept as {@link FileResource}s in the cache directory.
+ * Entries whose bodies are held elsewhere are copied into the directory
+ * when stored, so this storage is best used together with a
+ * {@link FileResourceFactory} pointing at the same directory. The metadata
+ * of the entries is recorded in an append-only log next to the body files,
+ * from which the index is rebuilt when the storage is opened again. A torn
+ * record at the end of the log, as left by a crash, is discarded. Body
+ * files not referenced by the rebuilt index are deleted, so the cache
+ * directory must not be shared with other content.
+ * </p>
+ * <p>
+ * Replaced and removed entries leave obsolete records in the log, which
+ * is compacted in the background once they outnumber the live entries.
+ * Like {@link ManagedHttpCacheStorage}, this storage does not dispose of
+ * the bodies of removed entries while the entries may still be in use; this
+ * happens on compaction or when {@link #cleanResources()} is called.
+ * </p>
+ * <p>
+ * Bodies are copied into the cache directory without holding the lock that
+ * guards the index. {@link #updateEntry(String, HttpCacheUpdateCallback)}
+ * therefore stores the updated entry only if the entry it was derived from
+ * has not been replaced in the meantime, and retries up to
+ * {@link CacheConfig#getMaxUpdateRetries()} times otherwise.
+ * </p>
+ * <p>
+ * Records are not forced to the storage device as they are appended;
+ * {@link #close()} must be called to make sure all of them are persisted.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class PersistentHttpCacheStorage implements BatchHttpCacheStorage, Closeable {
+
+    static final String LOG_NAME = "httpcache.log";
+    static final String COMPACTED_LOG_NAME = "httpcache.log.compact";
+
+    private static final int MAGIC = 0x48434C47; // 'HCLG'
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    private static final int OP_PUT = 1;
+    private static final int OP_REMOVE = 2;
+
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final File cacheDir;
+    private final File logFile;
+    private final int maxEntries;
+    private final int maxUpdateRetries;
+    private final FileResourceFactory resourceFactory;
+    private final BinaryHttpCacheEntrySerializer serializer;
+    private final Map<String, HttpCacheEntry> entries;
+    private final ReferenceQueue<HttpCacheEntry> morque;
+    private final Set<ResourceReference> resources;
+    private final AtomicBoolean active;
+    private final AtomicBoolean compacting;
+    private final ReentrantLock lock;
+
+    private RandomAccessFile logAccess;
+    private FileChannel logChannel;
+    private long logRecords;
+    private List<byte[]> pendingRecords;
+
+    /**
+     * Opens the storage in the given directory, rebuilding the index of the
+     * entries stored by a previous instance, if any.
+     *
+     * @param config cache configuration
+     * @param cacheDir directory holding the log and the response bodies;
+     *   created if it does not exist.
+     */
+    public PersistentHttpCacheStorage(final CacheConfig config, final File cacheDir) throws IOException {
+        super();
+        Args.notNull(config, "Cache config");
+        Args.notNull(cacheDir, "Cache directory");
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("Unable to create cache directory " + cacheDir);
+        }
+        this.cacheDir = cacheDir;
+        this.logFile = new File(cacheDir, LOG_NAME);
+        this.maxEntries = config.getMaxCacheEntries();
+        this.maxUpdateRetries = config.getMaxUpdateRetries();
+        this.resourceFactory = new FileResourceFactory(cacheDir);
+        this.serializer = new BinaryHttpCacheEntrySerializer();
+        this.entries = new LinkedHashMap<String, HttpCacheEntry>(20, 0.75f, true);
+        this.morque = new ReferenceQueue<HttpCacheEntry>();
+        this.resources = new HashSet<ResourceReference>();
+        this.active = new AtomicBoolean(true);
+        this.compacting = new AtomicBoolean(false);
+        this.lock = new ReentrantLock();
+
+        final File compactedLogFile = new File(cacheDir, COMPACTED_LOG_NAME);
+        if (compactedLogFile.exists() && !compactedLogFile.delete()) {
+            throw new IOException("Unable to delete " + compactedLogFile);
+        }
+        final long validLength = replay();
+        this.logAccess = new RandomAccessFile(this.logFile, "rw");
+        this.logChannel = this.logAccess.getChannel();
+        if (validLength < HEADER_LENGTH) {
+            this.logChannel.truncate(0);
+            writeFully(this.logChannel, logHeader());
+        } else if (this.logChannel.size() > validLength) {
+            this.logChannel.truncate(validLength);
+        }
+        this.logChannel.position(this.logChannel.size());
+
+        deleteOrphans();
+        for (final HttpCacheEntry entry: this.entries.values()) {
+            keepResourceReference(entry);
+        }
+        if (needsCompaction()) {
+            scheduleCompaction();
+        }
+    }
+
+    private void ensureValidState() throws IllegalStateException {
+        if (!this.active.get()) {
+            throw new IllegalStateException("Cache has been shut down");
+        }
+    }
+
+    private static ByteBuffer logHeader() {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.flip();
+        return header;
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the log.
+     *
+     * @return the length of the valid part of the log.
+     */
+    private long replay() throws IOException {
+        if (!this.logFile.exists()) {
+            return 0;
+        }
+        final RandomAccessFile raf = new RandomAccessFile(this.logFile, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            if (size < HEADER_LENGTH) {
+                return 0;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new HttpCacheEntrySerializationException("Cache log too large: " + size);
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                this.log.warn("Unrecognized cache log format; discarding " + this.logFile);
+                return 0;
+            }
+            long validLength = buffer.position();
+            final CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_LENGTH) {
+                final int len = buffer.getInt();
+                final int checksum = buffer.getInt();
+                if (len <= 0 || len > buffer.remaining()) {
+                    break;
+                }
+                final byte[] payload = new byte[len];
+                buffer.get(payload);
+                crc.reset();
+                crc.update(payload, 0, len);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                validLength = buffer.position();
+                this.logRecords++;
+                try {
+                    apply(payload);
+                } catch (final IOException ex) {
+                    this.log.warn("Skipping unreadable cache log record", ex);
+                }
+            }
+            // Evictions are recorded in the log, so only entries in excess
+            // of a reduced limit are left to evict
+            evictExcess(false);
+            if (validLength < size) {
+                this.log.warn("Discarding " + (size - validLength) + " bytes at the end of the cache log");
+            }
+            return validLength;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void apply(final byte[] payload) throws IOException {
+        final InputStream in = new ByteArrayInputStream(payload);
+        final int op = in.read();
+        final String key = readString(in);
+        if (op == OP_REMOVE) {
+            this.entries.remove(key);
+        } else if (op == OP_PUT) {
+            final String fileName = readNullableString(in);
+            Resource resource = null;
+            if (fileName != null) {
+                final File file = new File(this.cacheDir, fileName);
+                if (!file.isFile()) {
+                    this.entries.remove(key);
+                    return;
+                }
+                resource = new FileResource(file);
+            }
+            this.entries.put(key, this.serializer.readHeadFrom(in, resource));
+        } else {
+            throw new HttpCacheEntrySerializationException("Invalid cache log record type: " + op);
+        }
+    }
+
+    private Set<String> getReferencedFileNames() {
+        final Set<String> fileNames = new HashSet<String>();
+        for (final HttpCacheEntry entry: this.entries.values()) {
+            final String fileName = getFileName(entry);
+            if (fileName != null) {
+                fileNames.add(fileName);
+            }
+        }
+        return fileNames;
+    }
+
+    private void deleteOrphans() {
+        final Set<String> referenced = getReferencedFileNames();
+        final File[] files = this.cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (final File file: files) {
+            final String name = file.getName();
+            if (file.isFile() && !LOG_NAME.equals(name) && !referenced.contains(name)) {
+                if (this.log.isDebugEnabled()) {
+                    this.log.debug("Deleting orphaned cache file " + name);
+                }
+                file.delete();
+            }
+        }
+    }
+
+    private static String getFileName(final HttpCacheEntry entry) {
+        final Resource resource = entry.getResource();
+        return resource instanceof FileResource ? ((FileResource) resource).getFile().getName() : null;
+    }
+
+    private boolean isStoredInCacheDir(final Resource resource) {
+        if (!(resource instanceof FileResource)) {
+            return false;
+        }
+        final File dir = ((FileResource) resource).getFile().getAbsoluteFile().getParentFile();
+        return this.cacheDir.getAbsoluteFile().equals(dir);
+    }
+
+    private void keepResourceReference(final HttpCacheEntry entry) {
+        if (entry.getResource() != null) {
+            // Must deallocate the resource when the entry is no longer in used
+            this.resources.add(new ResourceReference(entry, this.morque));
+        }
+    }
+
+    private boolean persistable(final HttpCacheEntry entry) {
+        final Resource resource = entry.getResource();
+        return resource == null || isStoredInCacheDir(resource);
+    }
+
+    /**
+     * Returns an equivalent entry whose response body is stored in the cache directory.
+     */
+    private HttpCacheEntry persistable(final String url, final HttpCacheEntry entry) throws IOException {
+        if (persistable(entry)) {
+            return entry;
+        }
+        final Resource resource = entry.getResource();
+        final Resource copy = this.resourceFactory.copy(url, resource);
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        this.serializer.writeHeadTo(entry, head);
+        return this.serializer.readHeadFrom(new ByteArrayInputStream(head.toByteArray()), copy);
+    }
+
+    private byte[] encodePut(final String url, final HttpCacheEntry entry) throws IOException {
+        final ByteArrayBuffer payload = new ByteArrayBuffer(512);
+        payload.append(OP_PUT);
+        writeString(payload, url);
+        writeNullableString(payload, getFileName(entry));
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        this.serializer.writeHeadTo(entry, head);
+        final byte[] b = head.toByteArray();
+        payload.append(b, 0, b.length);
+        return encodeRecord(payload);
+    }
+
+    private static byte[] encodeRemove(final String url) {
+        final ByteArrayBuffer payload = new ByteArrayBuffer(64);
+        payload.append(OP_REMOVE);
+        writeString(payload, url);
+        return encodeRecord(payload);
+    }
+
+    private static byte[] encodeRecord(final ByteArrayBuffer payload) {
+        final CRC32 crc = new CRC32();
+        crc.update(payload.buffer(), 0, payload.length());
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + payload.length());
+        record.putInt(payload.length());
+        record.putInt((int) crc.getValue());
+        record.put(payload.buffer(), 0, payload.length());
+        return record.array();
+    }
+
+    private static void writeString(final ByteArrayBuffer buffer, final String s) {
+        final byte[] b = s.getBytes(Consts.UTF_8);
+        BinaryHttpCacheEntrySerializer.writeVarLong(buffer, b.length);
+        buffer.append(b, 0, b.length);
+    }
+
+    private static void writeNullableString(final ByteArrayBuffer buffer, final String s) {
+        if (s == null) {
+            buffer.append(0);
+        } else {
+            final byte[] b = s.getBytes(Consts.UTF_8);
+            BinaryHttpCacheEntrySerializer.writeVarLong(buffer, b.length + 1);
+            buffer.append(b, 0, b.length);
+        }
+    }
+
+    private static String readString(final InputStream in, final long len) throws IOException {
+        if (len > in.available()) {
+            throw new EOFException("Truncated cache log record");
+        }
+        final byte[] b = new byte[(int) len];
+        if (in.read(b) != b.length) {
+            throw new EOFException("Truncated cache log record");
+        }
+        return new String(b, Consts.UTF_8);
+    }
+
+    private static String readString(final InputStream in) throws IOException {
+        return readString(in, BinaryHttpCacheEntrySerializer.readVarLong(in));
+    }
+
+    private static String readNullableString(final InputStream in) throws IOException {
+        final long len = BinaryHttpCacheEntrySerializer.readVarLong(in);
+        return len == 0 ? null : readString(in, len - 1);
+    }
+
+    private void append(final byte[] record) throws IOException {
+        writeFully(this.logChannel, ByteBuffer.wrap(record));
+        this.logRecords++;
+        if (this.pendingRecords != null) {
+            this.pendingRecords.add(record);
+        }
+    }
+
+    private void evictExcess(final boolean record) throws IOException {
+        final Iterator<Map.Entry<String, HttpCacheEntry>> it = this.entries.entrySet().iterator();
+        while (this.entries.size() > this.maxEntries && it.hasNext()) {
+            final String url = it.next().getKey();
+            it.remove();
+            if (record) {
+                append(encodeRemove(url));
+            }
+        }
+    }
+
+    private boolean needsCompaction() {
+        return this.logRecords > MIN_COMPACTION_RECORDS && this.logRecords > 2L * this.entries.size();
+    }
+
+    private void scheduleCompaction() {
+        if (!this.compacting.compareAndSet(false, true)) {
+            return;
+        }
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    compact();
+                } catch (final IOException ex) {
+                    log.warn("Cache log compaction failed", ex);
+                } catch (final IllegalStateException ignore) {
+                    // closed in the meantime
+                } finally {
+                    compacting.set(false);
+                }
+            }
+
+        }, "httpclient-cache-compaction");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void store(final String url, final HttpCacheEntry entry) throws IOException {
+        append(encodePut(url, entry));
+        this.entries.put(url, entry);
+        keepResourceReference(entry);
+        evictExcess(true);
+    }
+
+    private boolean remove(final String url) throws IOException {
+        if (this.entries.remove(url) == null) {
+            return false;
+        }
+        append(encodeRemove(url));
+        return true;
+    }
+
+    @Override
+    public void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
+        Args.notNull(url, "URL");
+        Args.notNull(entry, "Cache entry");
+        ensureValidState();
+        final HttpCacheEntry stored = persistable(url, entry);
+        final boolean compact;
+        this.lock.lock();
+        try {
+            ensureValidState();
+            store(url, stored);
+            compact = needsCompaction();
+        } finally {
+            this.lock.unlock();
+        }
+        if (compact) {
+            scheduleCompaction();
+        }
+    }
+
+    @Override
+    public HttpCacheEntry getEntry(final String url) throws IOException {
+        Args.notNull(url, "URL");
+        ensureValidState();
+        this.lock.lock();
+        try {
+            return this.entries.get(url);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+        Args.notNull(urls, "URLs");
+        ensureValidState();
+        final Map<String, HttpCacheEntry> result = new HashMap<String, HttpCacheEntry>(urls.size() * 2);
+        this.lock.lock();
+        try {
+            for (final String url: urls) {
+                final HttpCacheEntry entry = this.entries.get(url);
+                if (entry != null) {
+                    result.put(url, entry);
+                }
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void removeEntry(final String url) throws IOException {
+        Args.notNull(url, "URL");
+        ensureValidState();
+        final boolean compact;
+        this.lock.lock();
+        try {
+            ensureValidState();
+            // Cannot deallocate the associated resources immediately as the
+            // cache entry may still be in use
+            compact = remove(url) && needsCompaction();
+        } finally {
+            this.lock.unlock();
+        }
+        if (compact) {
+            scheduleCompaction();
+        }
+    }
+
+    @Override
+    public void removeEntries(final Collection<String> urls) throws IOException {
+        Args.notNull(urls, "URLs");
+        ensureValidState();
+        boolean compact = false;
+        this.lock.lock();
+        try {
+            ensureValidState();
+            for (final String url: urls) {
+                compact |= remove(url);
+            }
+            compact = compact && needsCompaction();
+        } finally {
+            this.lock.unlock();
+        }
+        if (compact) {
+            scheduleCompaction();
+        }
+    }
+
+    @Override
+    public void updateEntry(
+            final String url,
+            final HttpCacheUpdateCallback callback) throws IOException, HttpCacheUpdateException {
+        Args.notNull(url, "URL");
+        Args.notNull(callback, "Callback");
+        ensureValidState();
+        int numRetries = 0;
+        do {
+            final HttpCacheEntry existing;
+            final HttpCacheEntry updated;
+            boolean done = false;
+            boolean compact = false;
+            this.lock.lock();
+            try {
+                ensureValidState();
+                existing = this.entries.get(url);
+                updated = callback.update(existing);
+                if (updated == null) {
+                    compact = remove(url) && needsCompaction();
+                    done = true;
+                } else if (updated == existing) {
+                    done = true;
+                } else if (persistable(updated)) {
+                    store(url, updated);
+                    compact = needsCompaction();
+                    done = true;
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            if (!done) {
+                // Copy the body without blocking access to other entries
+                final HttpCacheEntry stored = persistable(url, updated);
+                this.lock.lock();
+                try {
+                    ensureValidState();
+                    if (this.entries.get(url) == existing) {
+                        store(url, stored);
+                        compact = needsCompaction();
+                        done = true;
+                    }
+                } finally {
+                    this.lock.unlock();
+                }
+                if (!done) {
+                    stored.getResource().dispose();
+                }
+            }
+            if (done) {
+                if (compact) {
+                    scheduleCompaction();
+                }
+                return;
+            }
+            numRetries++;
+        } while (numRetries <= this.maxUpdateRetries);
+        throw new HttpCacheUpdateException("Failed to update");
+    }
+
+    /**
+     * Rewrites the log so that it contains a single record for each entry
+     * currently in the cache. The storage remains usable while the new log
+     * is being written; records appended in the meantime are carried over
+     * before the new log replaces the current one.
+     */
+    public void compact() throws IOException {
+        final List<String> urls;
+        final List<HttpCacheEntry> snapshot;
+        this.lock.lock();
+        try {
+            ensureValidState();
+            if (this.pendingRecords != null) {
+                return;
+            }
+            urls = new ArrayList<String>(this.entries.keySet());
+            snapshot = new ArrayList<HttpCacheEntry>(this.entries.values());
+            this.pendingRecords = new ArrayList<byte[]>();
+        } finally {
+            this.lock.unlock();
+        }
+        final File compactedLogFile = new File(this.cacheDir, COMPACTED_LOG_NAME);
+        boolean replaced = false;
+        try {
+            final FileOutputStream fileStream = new FileOutputStream(compactedLogFile);
+            try {
+                final OutputStream out = new BufferedOutputStream(fileStream, 8192);
+                final ByteBuffer header = logHeader();
+                out.write(header.array(), 0, header.limit());
+                for (int i = 0; i < urls.size(); i++) {
+                    out.write(encodePut(urls.get(i), snapshot.get(i)));
+                }
+                out.flush();
+            } finally {
+                fileStream.close();
+            }
+            this.lock.lock();
+            try {
+                ensureValidState();
+                final RandomAccessFile compactedAccess = new RandomAccessFile(compactedLogFile, "rw");
+                try {
+                    final FileChannel channel = compactedAccess.getChannel();
+                    channel.position(channel.size());
+                    for (final byte[] record: this.pendingRecords) {
+                        writeFully(channel, ByteBuffer.wrap(record));
+                    }
+                    channel.force(true);
+                } finally {
+                    compactedAccess.close();
+                }
+                this.logAccess.close();
+                if (!compactedLogFile.renameTo(this.logFile)) {
+                    // Cannot replace an existing file on some platforms
+                    this.logFile.delete();
+                    replaced = compactedLogFile.renameTo(this.logFile);
+                } else {
+                    replaced = true;
+                }
+                this.logAccess = new RandomAccessFile(this.logFile, "rw");
+                this.logChannel = this.logAccess.getChannel();
+                if (this.logChannel.size() == 0) {
+                    writeFully(this.logChannel, logHeader());
+                }
+                this.logChannel.position(this.logChannel.size());
+                if (!replaced) {
+                    throw new IOException("Unable to replace " + this.logFile);
+                }
+                this.logRecords = urls.size() + this.pendingRecords.size();
+            } finally {
+                this.pendingRecords = null;
+                this.lock.unlock();
+            }
+        } finally {
+            if (!replaced) {
+                compactedLogFile.delete();
+            }
+        }
+        cleanResources();
+    }
+
+    /**
+     * Deletes the response bodies of entries that have been removed from the
+     * cache and are no longer in use.
+     */
+    public void cleanResources() {
+        if (!this.active.get()) {
+            return;
+        }
+        final List<ResourceReference> released = new ArrayList<ResourceReference>();
+        ResourceReference ref;
+        while ((ref = (ResourceReference) this.morque.poll()) != null) {
+            released.add(ref);
+        }
+        if (released.isEmpty()) {
+            return;
+        }
+        final Set<String> referenced;
+        this.lock.lock();
+        try {
+            for (final ResourceReference releasedRef: released) {
+                this.resources.remove(releasedRef);
+            }
+            referenced = getReferencedFileNames();
+        } finally {
+            this.lock.unlock();
+        }
+        for (final ResourceReference releasedRef: released) {
+            final Resource resource = releasedRef.getResource();
+            // The body file may have been stored again under another key
+            if (!(resource instanceof FileResource)
+                    || !referenced.contains(((FileResource) resource).getFile().getName())) {
+                resource.dispose();
+            }
+        }
+    }
+
+    int getEntryCount() {
+        this.lock.lock();
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    long getLogRecordCount() {
+        this.lock.lock();
+        try {
+            return this.logRecords;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the log. Cached entries and their response bodies are retained
+     * for the next instance opened on the same directory.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.active.compareAndSet(true, false)) {
+            this.lock.lock();
+            try {
+                this.logChannel.force(true);
+                this.logAccess.close();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.util.Args;
+
+/**
+ * In-memory {@link HttpCacheStorage} implementation intended for highly
+ * concurrent use.
+ * <p>
+ * Cache entries are held in a {@link ConcurrentHashMap} and looked up without
+ * locking. The key space is split into a number of segments, each with its own
+ * lock, which guards updates and evictions of the entries of that segment only.
+ * Each segment evicts its entries using the CLOCK algorithm: a cache hit merely
+ * marks the entry as recently used, which approximates LRU order without
+ * re-linking entries on every read.
+ * </p>
+ * <p>
+ * The storage is bounded both by the {@link CacheConfig#getMaxCacheEntries()
+ * maximum number of cache entries} and, optionally, by the total size of the
+ * cached response bodies. Both limits are divided evenly among the segments;
+ * fewer segments are used where necessary so that the share of each segment
+ * can hold an object of the {@link CacheConfig#getMaxObjectSize() maximum
+ * object size}.
+ * </p>
+ * <p>
+ * Like {@link BasicHttpCacheStorage} this storage does NOT deallocate resources
+ * associated with the cache entries; it is intended for use with
+ * {@link HeapResource} and similar.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class SegmentedHttpCacheStorage implements HttpCacheStorage {
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final ConcurrentMap<String, Node> entries;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
+
+    /**
+     * @param config cache configuration
+     * @param maxTotalBytes maximum total size of cached response bodies
+     *   or a non-positive value for no limit. A positive limit may not be less
+     *   than {@link CacheConfig#getMaxObjectSize()}; the number of segments is
+     *   reduced as needed so that each segment can hold an object of that size.
+     * @param concurrencyLevel estimated number of concurrently updating threads.
+     * @throws IllegalArgumentException if the limit is less than the maximum
+     *   object size.
+     */
+    public SegmentedHttpCacheStorage(
+            final CacheConfig config, final long maxTotalBytes, final int concurrencyLevel) {
+        super();
+        Args.notNull(config, "Cache config");
+        Args.positive(concurrencyLevel, "Concurrency level");
+        final long maxObjectSize = config.getMaxObjectSize();
+        if (maxTotalBytes > 0) {
+            Args.check(maxTotalBytes >= maxObjectSize,
+                    "Max total bytes (%s) may not be less than max object size (%s)",
+                    Long.valueOf(maxTotalBytes), Long.valueOf(maxObjectSize));
+        }
+        final int maxEntries = Math.max(config.getMaxCacheEntries(), 1);
+        final long maxBytes = maxTotalBytes > 0 ? maxTotalBytes : Long.MAX_VALUE;
+        int segmentCount = 1;
+        // A segment whose byte share is smaller than an object would evict it right away
+        while (segmentCount < concurrencyLevel && segmentCount * 2 <= maxEntries
+                && maxBytes / (segmentCount * 2) >= maxObjectSize) {
+            segmentCount <<= 1;
+        }
+        this.entries = new ConcurrentHashMap<String, Node>(
+                Math.min(maxEntries, 1024), 0.75f, segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            final int segmentEntries = maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0);
+            final long segmentBytes = maxBytes == Long.MAX_VALUE ? Long.MAX_VALUE :
+                maxBytes / segmentCount + (i < maxBytes % segmentCount ? 1 : 0);
+            this.segments[i] = new Segment(segmentEntries, segmentBytes);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictionCount = new AtomicLong();
+    }
+
+    /**
+     * @param config cache configuration
+     * @param maxTotalBytes maximum total size of cached response bodies
+     *   or a non-positive value for no limit.
+     */
+    public SegmentedHttpCacheStorage(final CacheConfig config, final long maxTotalBytes) {
+        this(config, maxTotalBytes, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public SegmentedHttpCacheStorage(final CacheConfig config) {
+        this(config, -1, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    private Segment segmentFor(final String key) {
+        final int h = key.hashCode();
+        return this.segments[(h ^ (h >>> 16)) & this.segmentMask];
+    }
+
+    private static long weigh(final HttpCacheEntry entry) {
+        final Resource resource = entry.getResource();
+        return resource != null ? resource.length() : 0;
+    }
+
+    @Override
+    public void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
+        Args.notNull(url, "URL");
+        Args.notNull(entry, "Cache entry");
+        final Segment segment = segmentFor(url);
+        segment.lock.lock();
+        try {
+            segment.put(url, entry);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public HttpCacheEntry getEntry(final String url) throws IOException {
+        final Node node = this.entries.get(url);
+        if (node == null) {
+            this.missCount.incrementAndGet();
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        this.hitCount.incrementAndGet();
+        return node.entry;
+    }
+
+    @Override
+    public void removeEntry(final String url) throws IOException {
+        final Segment segment = segmentFor(url);
+        segment.lock.lock();
+        try {
+            final Node node = this.entries.remove(url);
+            if (node != null) {
+                segment.unlink(node);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEntry(
+            final String url,
+            final HttpCacheUpdateCallback callback) throws IOException {
+        final Segment segment = segmentFor(url);
+        segment.lock.lock();
+        try {
+            final Node node = this.entries.get(url);
+            final HttpCacheEntry updatedEntry = callback.update(node != null ? node.entry : null);
+            if (updatedEntry != null) {
+                segment.put(url, updatedEntry);
+            } else if (node != null) {
+                this.entries.remove(url, node);
+                segment.unlink(node);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found an entry.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find an entry.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to stay within the configured limits.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns the current number of entries.
+     */
+    public int getEntryCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the current total size of cached response bodies.
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (final Segment segment: this.segments) {
+            total += segment.totalBytes;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[entries: ");
+        buffer.append(getEntryCount());
+        buffer.append("; bytes: ");
+        buffer.append(getTotalBytes());
+        buffer.append("; hits: ");
+        buffer.append(getHitCount());
+        buffer.append("; misses: ");
+        buffer.append(getMissCount());
+        buffer.append("; evictions: ");
+        buffer.append(getEvictionCount());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    static final class Node {
+
+        final String key;
+
+        volatile HttpCacheEntry entry;
+        volatile boolean referenced;
+
+        // guarded by the segment lock
+        long weight;
+        Node prev;
+        Node next;
+
+        Node(final String key) {
+            this.key = key;
+        }
+
+    }
+
+    final class Segment {
+
+        private final ReentrantLock lock;
+        private final int maxEntries;
+        private final long maxBytes;
+
+        // guarded by lock
+        private Node hand;
+        private int count;
+        private volatile long totalBytes;
+
+        Segment(final int maxEntries, final long maxBytes) {
+            super();
+            this.lock = new ReentrantLock();
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        void put(final String key, final HttpCacheEntry entry) {
+            final long weight = weigh(entry);
+            Node node = entries.get(key);
+            if (node != null) {
+                this.totalBytes += weight - node.weight;
+                node.weight = weight;
+                node.entry = entry;
+                node.referenced = true;
+            } else {
+                node = new Node(key);
+                node.entry = entry;
+                node.weight = weight;
+                link(node);
+                entries.put(key, node);
+            }
+            evict();
+        }
+
+        private void link(final Node node) {
+            if (this.hand == null) {
+                node.prev = node;
+                node.next = node;
+                this.hand = node;
+            } else {
+                // Insert behind the hand so that the new entry is inspected last
+                node.next = this.hand;
+                node.prev = this.hand.prev;
+                this.hand.prev.next = node;
+                this.hand.prev = node;
+            }
+            this.count++;
+            this.totalBytes += node.weight;
+        }
+
+        void unlink(final Node node) {
+            if (node.next == null) {
+                return;
+            }
+            if (node.next == node) {
+                this.hand = null;
+            } else {
+                node.prev.next = node.next;
+                node.next.prev = node.prev;
+                if (this.hand == node) {
+                    this.hand = node.next;
+                }
+            }
+            node.prev = null;
+            node.next = null;
+            this.count--;
+            this.totalBytes -= node.weight;
+        }
+
+        private void evict() {
+            while (this.hand != null && (this.count > this.maxEntries || this.totalBytes > this.maxBytes)) {
+                final Node candidate = this.hand;
+                if (candidate.referenced && this.count > 1) {
+                    candidate.referenced = false;
+                    this.hand = candidate.next;
+                } else {
+                    entries.remove(candidate.key, candidate);
+                    unlink(candidate);
+                    evictionCount.incrementAndGet();
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.util.Args;
+
+/**
+ * Fixed size chunk allocator over a number of large {@link ByteBuffer} slabs
+ * that reside either in direct memory or in a memory mapped file.
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+class SlabAllocator {
+
+    private static final int MAX_SLAB_SIZE = 1 << 30;
+
+    private final ByteBuffer[] slabs;
+    private final int chunkSize;
+    private final int chunksPerSlab;
+    private final int chunkCount;
+    private final int[] freeChunks;
+
+    private int freeCount;
+
+    private SlabAllocator(final ByteBuffer[] slabs, final int chunkSize, final int chunksPerSlab, final int chunkCount) {
+        super();
+        this.slabs = slabs;
+        this.chunkSize = chunkSize;
+        this.chunksPerSlab = chunksPerSlab;
+        this.chunkCount = chunkCount;
+        this.freeChunks = new int[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            this.freeChunks[i] = chunkCount - 1 - i;
+        }
+        this.freeCount = chunkCount;
+    }
+
+    private static int chunkCount(final long capacity, final int chunkSize) {
+        Args.positive(capacity, "Capacity");
+        Args.positive(chunkSize, "Chunk size");
+        final long count = capacity / chunkSize;
+        Args.check(count > 0 && count <= Integer.MAX_VALUE, "Capacity out of range: " + capacity);
+        return (int) count;
+    }
+
+    private static int chunksPerSlab(final int chunkSize) {
+        return Math.max(MAX_SLAB_SIZE / chunkSize, 1);
+    }
+
+    static SlabAllocator allocateDirect(final long capacity, final int chunkSize) {
+        final int chunkCount = chunkCount(capacity, chunkSize);
+        final int chunksPerSlab = chunksPerSlab(chunkSize);
+        final int slabCount = (chunkCount + chunksPerSlab - 1) / chunksPerSlab;
+        final ByteBuffer[] slabs = new ByteBuffer[slabCount];
+        for (int i = 0; i < slabCount; i++) {
+            final int chunks = Math.min(chunksPerSlab, chunkCount - i * chunksPerSlab);
+            slabs[i] = ByteBuffer.allocateDirect(chunks * chunkSize);
+        }
+        return new SlabAllocator(slabs, chunkSize, chunksPerSlab, chunkCount);
+    }
+
+    static SlabAllocator map(final File file, final long capacity, final int chunkSize) throws IOException {
+        Args.notNull(file, "File");
+        final int chunkCount = chunkCount(capacity, chunkSize);
+        final int chunksPerSlab = chunksPerSlab(chunkSize);
+        final int slabCount = (chunkCount + chunksPerSlab - 1) / chunksPerSlab;
+        final ByteBuffer[] slabs = new ByteBuffer[slabCount];
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength((long) chunkCount * chunkSize);
+            final FileChannel channel = raf.getChannel();
+            for (int i = 0; i < slabCount; i++) {
+                final int chunks = Math.min(chunksPerSlab, chunkCount - i * chunksPerSlab);
+                slabs[i] = channel.map(
+                        FileChannel.MapMode.READ_WRITE,
+                        (long) i * chunksPerSlab * chunkSize,
+                        (long) chunks * chunkSize);
+            }
+        } finally {
+            // Mapped regions remain valid after the file has been closed
+            raf.close();
+        }
+        return new SlabAllocator(slabs, chunkSize, chunksPerSlab, chunkCount);
+    }
+
+    int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    synchronized int getFreeCount() {
+        return this.freeCount;
+    }
+
+    /**
+     * Allocates a chunk or returns {@code -1} if the allocator is exhausted.
+     */
+    synchronized int allocate() {
+        if (this.freeCount == 0) {
+            return -1;
+        }
+        this.freeCount--;
+        return this.freeChunks[this.freeCount];
+    }
+
+    synchronized void free(final int[] chunks, final int count) {
+        for (int i = 0; i < count; i++) {
+            this.freeChunks[this.freeCount] = chunks[i];
+            this.freeCount++;
+        }
+    }
+
+    /**
+     * Returns a view of the given chunk positioned at its start. The view has
+     * its own position and limit and can be used by a single thread.
+     */
+    ByteBuffer chunk(final int chunk) {
+        final ByteBuffer slab = this.slabs[chunk / this.chunksPerSlab].duplicate();
+        final int offset = (chunk % this.chunksPerSlab) * this.chunkSize;
+        slab.limit(offset + this.chunkSize);
+        slab.position(offset);
+        return slab;
+    }
+
+}
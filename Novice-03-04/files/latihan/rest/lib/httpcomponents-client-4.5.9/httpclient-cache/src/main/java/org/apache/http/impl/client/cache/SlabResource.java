@@ -0,0 +1,249 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.Resource;
+
+/**
+ * Cache resource backed by chunks of a {@link SlabResourceFactory}.
+ * <p>
+ * Chunks are reference counted. Each resource and each open
+ * {@link #getInputStream() input stream} holds a reference, so the chunks
+ * are returned to the allocator only once the resource has been
+ * {@link #dispose() disposed} and all its streams have been closed.
+ * Resources {@link SlabResourceFactory#copy(String, Resource) copied} by
+ * the same factory share their chunks.
+ * </p>
+ * <p>
+ * The content of this resource is serialized as a {@link HeapResource}.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class SlabResource implements Resource {
+
+    private static final long serialVersionUID = 4510193542416937112L;
+
+    private final transient Chunks chunks;
+    private final transient AtomicBoolean disposed;
+
+    SlabResource(final Chunks chunks) {
+        super();
+        this.chunks = chunks;
+        this.disposed = new AtomicBoolean(false);
+    }
+
+    Chunks getChunks() {
+        return this.chunks;
+    }
+
+    /**
+     * Returns a stream that reads the content directly from the slab memory.
+     *
+     * @throws IOException if the resource has already been disposed of.
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        if (this.disposed.get() || !this.chunks.retain()) {
+            throw new IOException("Resource has been disposed");
+        }
+        return new ChunkInputStream(this.chunks);
+    }
+
+    @Override
+    public long length() {
+        return this.chunks.length;
+    }
+
+    @Override
+    public void dispose() {
+        if (this.disposed.compareAndSet(false, true)) {
+            this.chunks.release();
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        final byte[] b = new byte[(int) this.chunks.length];
+        if (!this.chunks.retain()) {
+            throw new IllegalStateException("Resource has been disposed");
+        }
+        try {
+            int off = 0;
+            for (int i = 0; off < b.length; i++) {
+                final ByteBuffer buf = this.chunks.allocator.chunk(this.chunks.ids[i]);
+                final int len = Math.min(buf.remaining(), b.length - off);
+                buf.get(b, off, len);
+                off += len;
+            }
+        } finally {
+            this.chunks.release();
+        }
+        return new HeapResource(b);
+    }
+
+    /**
+     * Reference counted set of chunks holding the content of one or more resources.
+     */
+    static class Chunks {
+
+        final SlabAllocator allocator;
+        final int[] ids;
+        final int count;
+        final long length;
+
+        private final AtomicInteger refCount;
+
+        Chunks(final SlabAllocator allocator, final int[] ids, final int count, final long length) {
+            super();
+            this.allocator = allocator;
+            this.ids = ids;
+            this.count = count;
+            this.length = length;
+            this.refCount = new AtomicInteger(1);
+        }
+
+        boolean retain() {
+            for (;;) {
+                final int current = this.refCount.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (this.refCount.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (this.refCount.decrementAndGet() == 0) {
+                this.allocator.free(this.ids, this.count);
+            }
+        }
+
+    }
+
+    static class ChunkInputStream extends InputStream {
+
+        private final Chunks chunks;
+
+        private ByteBuffer current;
+        private int index;
+        private long remaining;
+        private boolean closed;
+
+        ChunkInputStream(final Chunks chunks) {
+            super();
+            this.chunks = chunks;
+            this.remaining = chunks.length;
+        }
+
+        private ByteBuffer buffer() {
+            if (this.remaining <= 0) {
+                return null;
+            }
+            if (this.current == null || !this.current.hasRemaining()) {
+                this.current = this.chunks.allocator.chunk(this.chunks.ids[this.index++]);
+                if (this.current.remaining() > this.remaining) {
+                    this.current.limit(this.current.position() + (int) this.remaining);
+                }
+            }
+            return this.current;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+            final ByteBuffer buf = buffer();
+            if (buf == null) {
+                return -1;
+            }
+            this.remaining--;
+            return buf.get() & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            final ByteBuffer buf = buffer();
+            if (buf == null) {
+                return -1;
+            }
+            final int chunk = Math.min(len, buf.remaining());
+            buf.get(b, off, chunk);
+            this.remaining -= chunk;
+            return chunk;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n) {
+                final ByteBuffer buf = buffer();
+                if (buf == null) {
+                    break;
+                }
+                final int chunk = (int) Math.min(n - skipped, buf.remaining());
+                buf.position(buf.position() + chunk);
+                this.remaining -= chunk;
+                skipped += chunk;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(this.remaining, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!this.closed) {
+                this.closed = true;
+                this.chunks.release();
+            }
+        }
+
+    }
+
+}
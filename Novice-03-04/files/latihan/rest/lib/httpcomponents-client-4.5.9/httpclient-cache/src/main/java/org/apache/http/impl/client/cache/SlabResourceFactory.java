@@ -0,0 +1,222 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.InputLimit;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.client.cache.ResourceFactory;
+
+/**
+ * Generates {@link Resource} instances stored outside of the Java heap.
+ * <p>
+ * Response bodies are held in fixed size chunks carved out of a few large
+ * slabs, either allocated in direct memory or mapped from a single file. This
+ * keeps large caches out of reach of the garbage collector and avoids creating
+ * one file per cache entry.
+ * </p>
+ * <p>
+ * Resources generated by this factory must be {@link Resource#dispose() disposed}
+ * of in order for their chunks to be reused. This factory is therefore intended
+ * for use with {@link ManagedHttpCacheStorage} and similar. Input streams obtained
+ * from the resources must be closed. Response bodies that do not fit into the
+ * remaining slab capacity are kept on the heap as {@link HeapResource}s.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class SlabResourceFactory implements ResourceFactory {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+    private final SlabAllocator allocator;
+    private final AtomicLong overflowCount;
+
+    /**
+     * Creates a factory backed by direct memory.
+     *
+     * @param capacity total capacity in bytes.
+     * @param chunkSize the unit of allocation in bytes.
+     */
+    public SlabResourceFactory(final long capacity, final int chunkSize) {
+        this(SlabAllocator.allocateDirect(capacity, chunkSize));
+    }
+
+    /**
+     * Creates a factory backed by direct memory.
+     *
+     * @param capacity total capacity in bytes.
+     */
+    public SlabResourceFactory(final long capacity) {
+        this(capacity, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a factory backed by a memory mapped file. The content of the file
+     * is not retained across restarts.
+     *
+     * @param file the file to map. Created if it does not exist.
+     * @param capacity total capacity in bytes.
+     * @param chunkSize the unit of allocation in bytes.
+     */
+    public SlabResourceFactory(final File file, final long capacity, final int chunkSize) throws IOException {
+        this(SlabAllocator.map(file, capacity, chunkSize));
+    }
+
+    SlabResourceFactory(final SlabAllocator allocator) {
+        super();
+        this.allocator = allocator;
+        this.overflowCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the total capacity in bytes.
+     */
+    public long getCapacity() {
+        return (long) this.allocator.getChunkCount() * this.allocator.getChunkSize();
+    }
+
+    /**
+     * Returns the capacity in bytes currently not in use.
+     */
+    public long getFreeCapacity() {
+        return (long) this.allocator.getFreeCount() * this.allocator.getChunkSize();
+    }
+
+    /**
+     * Returns the number of response bodies that had to be kept on the heap
+     * because the slab capacity was exhausted.
+     */
+    public long getOverflowCount() {
+        return this.overflowCount.get();
+    }
+
+    @Override
+    public Resource generate(
+            final String requestId,
+            final InputStream inStream,
+            final InputLimit limit) throws IOException {
+        final int chunkSize = this.allocator.getChunkSize();
+        final byte[] buf = new byte[Math.min(chunkSize, 8 * 1024)];
+        int[] ids = new int[4];
+        int count = 0;
+        ByteBuffer current = null;
+        long total = 0;
+        boolean complete = false;
+        try {
+            int l;
+            while ((l = inStream.read(buf)) != -1) {
+                int off = 0;
+                while (off < l) {
+                    if (current == null || !current.hasRemaining()) {
+                        final int id = this.allocator.allocate();
+                        if (id == -1) {
+                            // The chunks taken so far are released by overflow
+                            complete = true;
+                            return overflow(ids, count, total, buf, off, l, inStream, limit);
+                        }
+                        if (count == ids.length) {
+                            final int[] tmp = new int[ids.length * 2];
+                            System.arraycopy(ids, 0, tmp, 0, count);
+                            ids = tmp;
+                        }
+                        ids[count++] = id;
+                        current = this.allocator.chunk(id);
+                    }
+                    final int n = Math.min(l - off, current.remaining());
+                    current.put(buf, off, n);
+                    off += n;
+                }
+                total += l;
+                if (limit != null && total > limit.getValue()) {
+                    limit.reached();
+                    break;
+                }
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                this.allocator.free(ids, count);
+            }
+        }
+        return new SlabResource(new SlabResource.Chunks(this.allocator, ids, count, total));
+    }
+
+    /**
+     * Moves the content read so far to the heap and reads the rest of the
+     * response body there.
+     */
+    private Resource overflow(
+            final int[] ids, final int count, final long total,
+            final byte[] buf, final int off, final int len,
+            final InputStream inStream, final InputLimit limit) throws IOException {
+        this.overflowCount.incrementAndGet();
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        final SlabResource.Chunks chunks = new SlabResource.Chunks(this.allocator, ids, count, total + off);
+        IOUtils.copyAndClose(new SlabResource.ChunkInputStream(chunks), outStream);
+        outStream.write(buf, off, len - off);
+        long n = total + len;
+        if (limit != null && n > limit.getValue()) {
+            limit.reached();
+        } else {
+            int l;
+            while ((l = inStream.read(buf)) != -1) {
+                outStream.write(buf, 0, l);
+                n += l;
+                if (limit != null && n > limit.getValue()) {
+                    limit.reached();
+                    break;
+                }
+            }
+        }
+        return new HeapResource(outStream.toByteArray());
+    }
+
+    @Override
+    public Resource copy(
+            final String requestId,
+            final Resource resource) throws IOException {
+        if (resource instanceof SlabResource) {
+            final SlabResource.Chunks chunks = ((SlabResource) resource).getChunks();
+            // Resources are immutable; share the chunks of the same allocator
+            if (chunks.allocator == this.allocator && chunks.retain()) {
+                return new SlabResource(chunks);
+            }
+        }
+        return generate(requestId, resource.getInputStream(), null);
+    }
+
+}
@@ -0,0 +1,498 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.cache.BatchHttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.client.cache.HttpCacheUpdateException;
+import org.apache.http.util.Args;
+
+/**
+ * {@link HttpCacheStorage} implementation that keeps a bounded in-process
+ * first tier of recently used entries in front of another, typically remote,
+ * storage such as {@link org.apache.http.impl.client.cache.memcached.MemcachedHttpCacheStorage}.
+ * Hits in the first tier cost neither a round trip nor deserialization.
+ * <p>
+ * Lookups that miss in both tiers are remembered for a short while as well
+ * (negative caching). Every first tier slot carries a version stamp; entries
+ * read from the second tier are only kept if no write to the same key began
+ * after the read, so a slow read never replaces a newer entry. Writes,
+ * including all compare-and-swap attempts of
+ * {@link #updateEntry(String, HttpCacheUpdateCallback)}, go to the second tier
+ * first, and the first tier keeps the outcome of the attempt that succeeded.
+ * Changes made by other processes sharing the second tier become visible
+ * once the first tier slot expires.
+ * </p>
+ * <p>
+ * The first tier shares cache entries with the second tier and therefore
+ * should be used with storages that do not deallocate resources of entries
+ * they have handed out, for instance ones backed by {@link HeapResource}.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class TieredHttpCacheStorage implements BatchHttpCacheStorage {
+
+    /**
+     * Default time in milliseconds entries are kept in the first tier.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 10000;
+
+    /**
+     * Default time in milliseconds lookup misses are kept in the first tier.
+     */
+    public static final long DEFAULT_NEGATIVE_TIME_TO_LIVE = 1000;
+
+    private final HttpCacheStorage backend;
+    private final long timeToLive;
+    private final long negativeTimeToLive;
+    private final SlotMap slots;
+    private final Map<String, Write> writes;
+    private final ReentrantLock lock;
+    private final AtomicLong l1HitCount;
+    private final AtomicLong l1MissCount;
+    private final AtomicLong l2HitCount;
+    private final AtomicLong l2MissCount;
+
+    // guarded by lock
+    private long clock;
+    // guarded by lock; highest version of slots removed from the first tier
+    private long removedVersion;
+
+    /**
+     * @param backend second tier storage.
+     * @param maxEntries maximum number of entries kept in the first tier.
+     * @param timeToLive time entries are kept in the first tier.
+     * @param negativeTimeToLive time lookup misses are kept in the first tier,
+     *   {@code 0} to disable negative caching.
+     * @param timeUnit unit of the time values.
+     */
+    public TieredHttpCacheStorage(
+            final HttpCacheStorage backend,
+            final int maxEntries,
+            final long timeToLive,
+            final long negativeTimeToLive,
+            final TimeUnit timeUnit) {
+        super();
+        Args.notNull(backend, "Backend storage");
+        Args.positive(maxEntries, "Max entries");
+        Args.notNegative(timeToLive, "Time to live");
+        Args.notNegative(negativeTimeToLive, "Negative time to live");
+        Args.notNull(timeUnit, "Time unit");
+        this.backend = backend;
+        this.timeToLive = timeUnit.toNanos(timeToLive);
+        this.negativeTimeToLive = timeUnit.toNanos(negativeTimeToLive);
+        this.slots = new SlotMap(maxEntries);
+        this.writes = new HashMap<String, Write>();
+        this.lock = new ReentrantLock();
+        this.l1HitCount = new AtomicLong();
+        this.l1MissCount = new AtomicLong();
+        this.l2HitCount = new AtomicLong();
+        this.l2MissCount = new AtomicLong();
+    }
+
+    /**
+     * Creates a storage that keeps up to {@link CacheConfig#getMaxCacheEntries()}
+     * entries in the first tier for {@link #DEFAULT_TIME_TO_LIVE} milliseconds
+     * and lookup misses for {@link #DEFAULT_NEGATIVE_TIME_TO_LIVE} milliseconds.
+     *
+     * @param backend second tier storage.
+     * @param config cache configuration.
+     */
+    public TieredHttpCacheStorage(final HttpCacheStorage backend, final CacheConfig config) {
+        this(backend, Args.notNull(config, "Cache config").getMaxCacheEntries(),
+                DEFAULT_TIME_TO_LIVE, DEFAULT_NEGATIVE_TIME_TO_LIVE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public HttpCacheEntry getEntry(final String url) throws IOException {
+        final long stamp;
+        lock.lock();
+        try {
+            final Slot slot = lookup(url);
+            if (slot != null) {
+                l1HitCount.incrementAndGet();
+                return slot.entry;
+            }
+            stamp = clock;
+        } finally {
+            lock.unlock();
+        }
+        l1MissCount.incrementAndGet();
+        final HttpCacheEntry entry = backend.getEntry(url);
+        (entry != null ? l2HitCount : l2MissCount).incrementAndGet();
+        lock.lock();
+        try {
+            fill(url, entry, stamp);
+        } finally {
+            lock.unlock();
+        }
+        return entry;
+    }
+
+    @Override
+    public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+        final Map<String, HttpCacheEntry> result = new HashMap<String, HttpCacheEntry>(urls.size() * 2);
+        final List<String> misses = new ArrayList<String>(urls.size());
+        final long stamp;
+        lock.lock();
+        try {
+            for (final String url : urls) {
+                final Slot slot = lookup(url);
+                if (slot != null) {
+                    if (slot.entry != null) {
+                        result.put(url, slot.entry);
+                    }
+                } else {
+                    misses.add(url);
+                }
+            }
+            stamp = clock;
+        } finally {
+            lock.unlock();
+        }
+        l1HitCount.addAndGet(urls.size() - misses.size());
+        if (misses.isEmpty()) {
+            return result;
+        }
+        l1MissCount.addAndGet(misses.size());
+        final Map<String, HttpCacheEntry> found;
+        if (backend instanceof BatchHttpCacheStorage) {
+            found = ((BatchHttpCacheStorage) backend).getEntries(misses);
+        } else {
+            found = new HashMap<String, HttpCacheEntry>(misses.size() * 2);
+            for (final String url : misses) {
+                final HttpCacheEntry entry = backend.getEntry(url);
+                if (entry != null) {
+                    found.put(url, entry);
+                }
+            }
+        }
+        l2HitCount.addAndGet(found.size());
+        l2MissCount.addAndGet(misses.size() - found.size());
+        lock.lock();
+        try {
+            for (final String url : misses) {
+                final HttpCacheEntry entry = found.get(url);
+                if (entry != null) {
+                    result.put(url, entry);
+                }
+                fill(url, entry, stamp);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
+        beginWrite(url);
+        boolean success = false;
+        try {
+            backend.putEntry(url, entry);
+            success = true;
+        } finally {
+            endWrite(url, entry, success);
+        }
+    }
+
+    @Override
+    public void removeEntry(final String url) throws IOException {
+        beginWrite(url);
+        boolean success = false;
+        try {
+            backend.removeEntry(url);
+            success = true;
+        } finally {
+            endWrite(url, null, success);
+        }
+    }
+
+    @Override
+    public void removeEntries(final Collection<String> urls) throws IOException {
+        for (final String url : urls) {
+            beginWrite(url);
+        }
+        boolean success = false;
+        try {
+            if (backend instanceof BatchHttpCacheStorage) {
+                ((BatchHttpCacheStorage) backend).removeEntries(urls);
+            } else {
+                for (final String url : urls) {
+                    backend.removeEntry(url);
+                }
+            }
+            success = true;
+        } finally {
+            for (final String url : urls) {
+                endWrite(url, null, success);
+            }
+        }
+    }
+
+    @Override
+    public void updateEntry(
+            final String url,
+            final HttpCacheUpdateCallback callback) throws IOException, HttpCacheUpdateException {
+        final HttpCacheEntry[] updated = new HttpCacheEntry[1];
+        beginWrite(url);
+        boolean success = false;
+        try {
+            backend.updateEntry(url, new HttpCacheUpdateCallback() {
+
+                @Override
+                public HttpCacheEntry update(final HttpCacheEntry existing) throws IOException {
+                    // Invoked once per compare-and-swap attempt; the last one wins
+                    updated[0] = callback.update(existing);
+                    return updated[0];
+                }
+
+            });
+            success = true;
+        } finally {
+            endWrite(url, updated[0], success);
+        }
+    }
+
+    /**
+     * Returns the current first tier slot of the given key, if any.
+     * Must be called while holding the lock.
+     */
+    private Slot lookup(final String url) {
+        final Slot slot = slots.get(url);
+        if (slot != null && System.nanoTime() - slot.expiry >= 0) {
+            slots.remove(url);
+            removed(slot.version);
+            return null;
+        }
+        return slot;
+    }
+
+    /**
+     * Keeps an entry read from the second tier at the given version stamp
+     * unless the key has been written since. Must be called while holding
+     * the lock.
+     */
+    private void fill(final String url, final HttpCacheEntry entry, final long stamp) {
+        final long ttl = entry != null ? timeToLive : negativeTimeToLive;
+        if (ttl == 0 || writes.containsKey(url)) {
+            return;
+        }
+        final Slot current = slots.get(url);
+        if ((current != null ? current.version : removedVersion) > stamp) {
+            return;
+        }
+        slots.put(url, new Slot(entry, stamp, System.nanoTime() + ttl));
+    }
+
+    private void beginWrite(final String url) {
+        lock.lock();
+        try {
+            Write write = writes.get(url);
+            if (write == null) {
+                write = new Write();
+                writes.put(url, write);
+            } else {
+                // The order concurrent writes reach the second tier is unknown
+                write.conflict = true;
+            }
+            write.count++;
+            final Slot slot = slots.remove(url);
+            if (slot != null) {
+                removed(slot.version);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void endWrite(final String url, final HttpCacheEntry entry, final boolean success) {
+        lock.lock();
+        try {
+            final Write write = writes.get(url);
+            if (--write.count > 0) {
+                return;
+            }
+            writes.remove(url);
+            // Advance the clock so that reads begun before this point cannot fill the slot
+            final long version = ++clock;
+            final long ttl = entry != null ? timeToLive : negativeTimeToLive;
+            if (success && !write.conflict && ttl > 0) {
+                slots.put(url, new Slot(entry, version, System.nanoTime() + ttl));
+            } else {
+                removed(version);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removed(final long version) {
+        if (version > removedVersion) {
+            removedVersion = version;
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered by the first tier, including
+     * remembered misses.
+     */
+    public long getL1HitCount() {
+        return l1HitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups passed on to the second tier.
+     */
+    public long getL1MissCount() {
+        return l1MissCount.get();
+    }
+
+    /**
+     * Returns the number of second tier lookups that found an entry.
+     */
+    public long getL2HitCount() {
+        return l2HitCount.get();
+    }
+
+    /**
+     * Returns the number of second tier lookups that did not find an entry.
+     */
+    public long getL2MissCount() {
+        return l2MissCount.get();
+    }
+
+    /**
+     * Returns the fraction of lookups answered by the first tier.
+     */
+    public double getL1HitRatio() {
+        return ratio(getL1HitCount(), getL1MissCount());
+    }
+
+    /**
+     * Returns the fraction of second tier lookups that found an entry.
+     */
+    public double getL2HitRatio() {
+        return ratio(getL2HitCount(), getL2MissCount());
+    }
+
+    private static double ratio(final long hits, final long misses) {
+        final long total = hits + misses;
+        return total > 0 ? (double) hits / total : 0.0;
+    }
+
+    /**
+     * Returns the current number of first tier slots, including remembered misses.
+     */
+    public int getL1EntryCount() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[l1 entries: ");
+        buffer.append(getL1EntryCount());
+        buffer.append("; l1 hits: ");
+        buffer.append(getL1HitCount());
+        buffer.append("; l1 misses: ");
+        buffer.append(getL1MissCount());
+        buffer.append("; l2 hits: ");
+        buffer.append(getL2HitCount());
+        buffer.append("; l2 misses: ");
+        buffer.append(getL2MissCount());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    static final class Slot {
+
+        // null for a remembered miss
+        final HttpCacheEntry entry;
+        final long version;
+        final long expiry;
+
+        Slot(final HttpCacheEntry entry, final long version, final long expiry) {
+            this.entry = entry;
+            this.version = version;
+            this.expiry = expiry;
+        }
+
+    }
+
+    static final class Write {
+
+        int count;
+        boolean conflict;
+
+    }
+
+    final class SlotMap extends LinkedHashMap<String, Slot> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        SlotMap(final int maxEntries) {
+            super(20, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Slot> eldest) {
+            if (size() > maxEntries) {
+                removed(eldest.getValue().version);
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
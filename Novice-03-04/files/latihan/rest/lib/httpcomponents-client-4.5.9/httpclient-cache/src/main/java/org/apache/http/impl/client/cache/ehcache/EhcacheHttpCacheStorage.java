@@ -29,13 +29,16 @@ package org.apache.http.impl.client.cache.ehcache;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 
+import org.apache.http.client.cache.BatchHttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheEntry;
 import org.apache.http.client.cache.HttpCacheEntrySerializer;
-import org.apache.http.client.cache.HttpCacheStorage;
 import org.apache.http.client.cache.HttpCacheUpdateCallback;
 import org.apache.http.client.cache.HttpCacheUpdateException;
 import org.apache.http.impl.client.cache.CacheConfig;
@@ -58,7 +61,7 @@ import org.apache.http.impl.client.cache.DefaultHttpCacheEntrySerializer;
  * itself.</p>
  * @since 4.1
  */
-public class EhcacheHttpCacheStorage implements HttpCacheStorage {
+public class EhcacheHttpCacheStorage implements BatchHttpCacheStorage {
 
     private final Ehcache cache;
     private final HttpCacheEntrySerializer serializer;
@@ -119,11 +122,35 @@ public class EhcacheHttpCacheStorage implements HttpCacheStorage {
         return serializer.readFrom(new ByteArrayInputStream(data));
     }
 
+    /**
+     * @since 4.5.10
+     */
+    @Override
+    public synchronized Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) throws IOException {
+        final Map<String, HttpCacheEntry> entries = new HashMap<String, HttpCacheEntry>(keys.size() * 2);
+        for (final Map.Entry<Object, Element> e : cache.getAll(keys).entrySet()) {
+            final Element element = e.getValue();
+            if (element != null) {
+                final byte[] data = (byte[])element.getValue();
+                entries.put((String) e.getKey(), serializer.readFrom(new ByteArrayInputStream(data)));
+            }
+        }
+        return entries;
+    }
+
     @Override
     public synchronized void removeEntry(final String key) {
         cache.remove(key);
     }
 
+    /**
+     * @since 4.5.10
+     */
+    @Override
+    public synchronized void removeEntries(final Collection<String> keys) {
+        cache.removeAll(keys);
+    }
+
     @Override
     public synchronized void updateEntry(final String key, final HttpCacheUpdateCallback callback)
             throws IOException, HttpCacheUpdateException {
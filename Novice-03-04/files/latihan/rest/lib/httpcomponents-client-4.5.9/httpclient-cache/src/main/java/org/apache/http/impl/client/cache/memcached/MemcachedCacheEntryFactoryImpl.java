@@ -27,19 +27,36 @@
 package org.apache.http.impl.client.cache.memcached;
 
 import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
 
 /**
  * Default implementation of {@link MemcachedCacheEntryFactory}.
  */
 public class MemcachedCacheEntryFactoryImpl implements MemcachedCacheEntryFactory {
 
+    private final HttpCacheEntrySerializer serializer;
+
+    /**
+     * @param serializer serializer for cache entries or {@code null}
+     *   to use the Java serialization.
+     *
+     * @since 4.5.10
+     */
+    public MemcachedCacheEntryFactoryImpl(final HttpCacheEntrySerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    public MemcachedCacheEntryFactoryImpl() {
+        this(null);
+    }
+
     @Override
     public MemcachedCacheEntry getMemcachedCacheEntry(final String key, final HttpCacheEntry entry) {
-        return new MemcachedCacheEntryImpl(key, entry);
+        return new MemcachedCacheEntryImpl(key, entry, this.serializer);
     }
 
     @Override
     public MemcachedCacheEntry getUnsetCacheEntry() {
-        return new MemcachedCacheEntryImpl(null, null);
+        return new MemcachedCacheEntryImpl(null, null, this.serializer);
     }
 }
@@ -28,28 +28,44 @@ package org.apache.http.impl.client.cache.memcached;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 
 import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
 
 /**
  * Default implementation of {@link MemcachedCacheEntry}. This implementation
  * simply uses Java serialization to serialize the storage key followed by
- * the {@link HttpCacheEntry} into a byte array.
+ * the {@link HttpCacheEntry} into a byte array. If a {@link HttpCacheEntrySerializer}
+ * is given, the storage key is written in modified UTF-8 followed by the
+ * {@link HttpCacheEntry} in the representation of that serializer.
  */
 public class MemcachedCacheEntryImpl implements MemcachedCacheEntry {
 
+    private final HttpCacheEntrySerializer serializer;
     private String key;
     private HttpCacheEntry httpCacheEntry;
 
-    public MemcachedCacheEntryImpl(final String key, final HttpCacheEntry httpCacheEntry) {
+    /**
+     * @since 4.5.10
+     */
+    public MemcachedCacheEntryImpl(
+            final String key, final HttpCacheEntry httpCacheEntry, final HttpCacheEntrySerializer serializer) {
         this.key = key;
         this.httpCacheEntry = httpCacheEntry;
+        this.serializer = serializer;
+    }
+
+    public MemcachedCacheEntryImpl(final String key, final HttpCacheEntry httpCacheEntry) {
+        this(key, httpCacheEntry, null);
     }
 
     public MemcachedCacheEntryImpl() {
+        this(null, null, null);
     }
 
     /* (non-Javadoc)
@@ -58,6 +74,17 @@ public class MemcachedCacheEntryImpl implements MemcachedCacheEntry {
     @Override
     synchronized public byte[] toByteArray() {
         final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        if (this.serializer != null) {
+            try {
+                final DataOutputStream dos = new DataOutputStream(bos);
+                dos.writeUTF(this.key);
+                this.serializer.writeTo(this.httpCacheEntry, dos);
+                dos.close();
+            } catch (final IOException ioe) {
+                throw new MemcachedSerializationException(ioe);
+            }
+            return bos.toByteArray();
+        }
         final ObjectOutputStream oos;
         try {
             oos = new ObjectOutputStream(bos);
@@ -92,6 +119,18 @@ public class MemcachedCacheEntryImpl implements MemcachedCacheEntry {
     @Override
     synchronized public void set(final byte[] bytes) {
         final ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+        if (this.serializer != null) {
+            try {
+                final DataInputStream dis = new DataInputStream(bis);
+                final String s = dis.readUTF();
+                final HttpCacheEntry entry = this.serializer.readFrom(dis);
+                this.key = s;
+                this.httpCacheEntry = entry;
+            } catch (final IOException ioe) {
+                throw new MemcachedSerializationException(ioe);
+            }
+            return;
+        }
         final ObjectInputStream ois;
         final String s;
         final HttpCacheEntry entry;
@@ -283,6 +283,14 @@ public class TestHttpCacheEntry {
         assertEquals("D", result.get("C"));
     }
 
+    @Test
+    public void variantMapIsEmptyIfCreatedWithoutOne() {
+        entry = new HttpCacheEntry(new Date(), new Date(), statusLine,
+                new Header[]{}, mockResource,
+                null, HeaderConstants.GET_METHOD);
+        assertTrue(entry.getVariantMap().isEmpty());
+    }
+
     @Test
     public void retrievedVariantMapIsNotModifiable() {
         final Map<String,String> variantMap = new HashMap<String,String>();
@@ -37,9 +37,11 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -498,6 +500,98 @@ public class TestBasicHttpCache {
 
     }
 
+    @Test
+    public void testGetVariantCacheEntriesLooksUpVariantsInOneBatch() throws Exception {
+        final AtomicInteger gets = new AtomicInteger();
+        final AtomicInteger batchGets = new AtomicInteger();
+        final BasicHttpCacheStorage storage = new BasicHttpCacheStorage(CacheConfig.DEFAULT) {
+
+            @Override
+            public HttpCacheEntry getEntry(final String url) throws IOException {
+                gets.incrementAndGet();
+                return super.getEntry(url);
+            }
+
+            @Override
+            public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+                batchGets.incrementAndGet();
+                return super.getEntries(urls);
+            }
+
+        };
+        impl = new BasicHttpCache(new HeapResourceFactory(), storage, CacheConfig.DEFAULT);
+
+        final HttpHost host = new HttpHost("foo.example.com");
+        final String[] encodings = { "gzip", "identity", "deflate", "br" };
+        for (int i = 0; i < encodings.length; i++) {
+            final HttpRequest req = new HttpGet("http://foo.example.com/bar");
+            req.setHeader("Accept-Encoding", encodings[i]);
+            final HttpResponse resp = HttpTestUtils.make200Response();
+            resp.setHeader("Date", DateUtils.formatDate(new Date()));
+            resp.setHeader("Cache-Control", "max-age=3600, public");
+            resp.setHeader("ETag", "\"etag" + i + "\"");
+            resp.setHeader("Vary", "Accept-Encoding");
+            impl.cacheAndReturnResponse(host, req, resp, new Date(), new Date());
+        }
+        gets.set(0);
+
+        final HttpRequest request = new HttpGet("http://foo.example.com/bar");
+        request.setHeader("Accept-Encoding", "compress");
+        final Map<String,Variant> variants = impl.getVariantCacheEntriesWithEtags(host, request);
+
+        assertEquals(encodings.length, variants.size());
+        for (int i = 0; i < encodings.length; i++) {
+            final Variant variant = variants.get("\"etag" + i + "\"");
+            assertNotNull(variant);
+            assertEquals("{Accept-Encoding=" + encodings[i] + "}", variant.getVariantKey());
+        }
+        assertEquals(1, gets.get());
+        assertEquals(1, batchGets.get());
+    }
+
+    @Test
+    public void testUnsafeRequestFlushesVariantsInOneBatch() throws Exception {
+        final AtomicInteger removes = new AtomicInteger();
+        final AtomicInteger batchRemoves = new AtomicInteger();
+        final BasicHttpCacheStorage storage = new BasicHttpCacheStorage(CacheConfig.DEFAULT) {
+
+            @Override
+            public void removeEntry(final String url) throws IOException {
+                removes.incrementAndGet();
+                super.removeEntry(url);
+            }
+
+            @Override
+            public void removeEntries(final Collection<String> urls) throws IOException {
+                batchRemoves.incrementAndGet();
+                super.removeEntries(urls);
+            }
+
+        };
+        impl = new BasicHttpCache(new HeapResourceFactory(), storage, CacheConfig.DEFAULT);
+
+        final HttpHost host = new HttpHost("foo.example.com");
+        final String[] encodings = { "gzip", "identity", "deflate" };
+        for (final String encoding : encodings) {
+            final HttpRequest req = new HttpGet("http://foo.example.com/bar");
+            req.setHeader("Accept-Encoding", encoding);
+            final HttpResponse resp = HttpTestUtils.make200Response();
+            resp.setHeader("Date", DateUtils.formatDate(new Date()));
+            resp.setHeader("Cache-Control", "max-age=3600, public");
+            resp.setHeader("Vary", "Accept-Encoding");
+            impl.cacheAndReturnResponse(host, req, resp, new Date(), new Date());
+        }
+
+        impl.flushInvalidatedCacheEntriesFor(host, new HttpPost("http://foo.example.com/bar"));
+
+        assertEquals(0, removes.get());
+        assertEquals(1, batchRemoves.get());
+        final HttpRequest req = new HttpGet("http://foo.example.com/bar");
+        req.setHeader("Accept-Encoding", "gzip");
+        assertNull(impl.getCacheEntry(host, req));
+        assertTrue(impl.getVariantCacheEntriesWithEtags(host, req).isEmpty());
+    }
+
     @Test
     public void testOriginalResponseWithNoContentSizeHeaderIsReleased() throws Exception {
         final HttpHost host = new HttpHost("foo.example.com");
@@ -0,0 +1,196 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.HeaderConstants;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializationException;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBinaryHttpCacheEntrySerializer {
+
+    private static byte[] write(final BinaryHttpCacheEntrySerializer serializer,
+            final HttpCacheEntry entry) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.writeTo(entry, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] toBytes(final Resource resource) throws IOException {
+        final InputStream inStream = resource.getInputStream();
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buf = new byte[1024];
+            int l;
+            while ((l = inStream.read(buf)) != -1) {
+                out.write(buf, 0, l);
+            }
+            return out.toByteArray();
+        } finally {
+            inStream.close();
+        }
+    }
+
+    private static void assertEntryEquals(final HttpCacheEntry expected, final HttpCacheEntry actual)
+            throws IOException {
+        Assert.assertEquals(expected.getRequestDate(), actual.getRequestDate());
+        Assert.assertEquals(expected.getResponseDate(), actual.getResponseDate());
+        Assert.assertEquals(expected.getProtocolVersion(), actual.getProtocolVersion());
+        Assert.assertEquals(expected.getStatusCode(), actual.getStatusCode());
+        Assert.assertEquals(expected.getReasonPhrase(), actual.getReasonPhrase());
+        final Header[] expectedHeaders = expected.getAllHeaders();
+        final Header[] actualHeaders = actual.getAllHeaders();
+        Assert.assertEquals(expectedHeaders.length, actualHeaders.length);
+        for (int i = 0; i < expectedHeaders.length; i++) {
+            Assert.assertEquals(expectedHeaders[i].getName(), actualHeaders[i].getName());
+            Assert.assertEquals(expectedHeaders[i].getValue(), actualHeaders[i].getValue());
+        }
+        Assert.assertEquals(expected.getRequestMethod(), actual.getRequestMethod());
+        if (expected.getResource() == null) {
+            Assert.assertNull(actual.getResource());
+        } else {
+            Assert.assertArrayEquals(toBytes(expected.getResource()), toBytes(actual.getResource()));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        final Map<String, String> variantMap = new HashMap<String, String>();
+        variantMap.put("{Accept-Encoding=gzip}", "{Accept-Encoding=gzip}http://foo/");
+        variantMap.put("{Accept-Encoding=identity}", "{Accept-Encoding=identity}http://foo/");
+        final Header[] headers = new Header[] {
+                new BasicHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT"),
+                new BasicHeader("Content-Type", "text/plain; charset=UTF-8"),
+                new BasicHeader("X-Custom", "été"),
+                new BasicHeader("cache-control", "max-age=3600"),
+                new BasicHeader("Vary", "Accept-Encoding") };
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(1000L), new Date(2345L),
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"), headers,
+                new HeapResource(HttpTestUtils.getRandomBytes(10000)), variantMap);
+        final HttpCacheEntry copy = serializer.readFrom(new ByteArrayInputStream(write(serializer, entry)));
+        assertEntryEquals(entry, copy);
+        Assert.assertEquals(variantMap, copy.getVariantMap());
+        Assert.assertEquals(entry.getDate(), copy.getDate());
+    }
+
+    @Test
+    public void testEntryWithoutBodyOrVariantsOrReason() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(), new Date(),
+                new BasicStatusLine(HttpVersion.HTTP_1_0, 204, null),
+                new Header[] { new BasicHeader("Server", "test") }, null, (Map<String, String>) null);
+        final HttpCacheEntry copy = serializer.readFrom(new ByteArrayInputStream(write(serializer, entry)));
+        assertEntryEquals(entry, copy);
+        Assert.assertNull(copy.getReasonPhrase());
+    }
+
+    @Test
+    public void testRequestMethodPreserved() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(), new Date(),
+                new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"),
+                new Header[] {
+                        new BasicHeader("Content-Length", "0"),
+                        new BasicHeader("Hc-Request-Method", HeaderConstants.HEAD_METHOD) },
+                null, (Map<String, String>) null);
+        final HttpCacheEntry copy = serializer.readFrom(new ByteArrayInputStream(write(serializer, entry)));
+        Assert.assertEquals(HeaderConstants.HEAD_METHOD, copy.getRequestMethod());
+        Assert.assertEquals(1, copy.getAllHeaders().length);
+    }
+
+    @Test
+    public void testMoreCompactThanDefault() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DefaultHttpCacheEntrySerializer().writeTo(entry, out);
+        final byte[] binary = write(new BinaryHttpCacheEntrySerializer(), entry);
+        Assert.assertTrue(binary.length < out.size() / 2);
+    }
+
+    @Test
+    public void testStreamBodyIntoResourceFactory() throws Exception {
+        final SlabResourceFactory resourceFactory = new SlabResourceFactory(64 * 1024, 1024);
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer(resourceFactory);
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry(HttpTestUtils.getRandomBytes(5000));
+        final HttpCacheEntry copy = serializer.readFrom(new ByteArrayInputStream(write(serializer, entry)));
+        Assert.assertTrue(copy.getResource() instanceof SlabResource);
+        assertEntryEquals(entry, copy);
+        // the serialized form of a slab resource is streamed from the slab
+        final HttpCacheEntry copy2 = serializer.readFrom(new ByteArrayInputStream(write(serializer, copy)));
+        assertEntryEquals(entry, copy2);
+    }
+
+    @Test
+    public void testConsecutiveEntries() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry(HttpTestUtils.getRandomBytes(100));
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry(HttpTestUtils.getRandomBytes(200));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.writeTo(entry1, out);
+        serializer.writeTo(entry2, out);
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEntryEquals(entry1, serializer.readFrom(in));
+        assertEntryEquals(entry2, serializer.readFrom(in));
+        Assert.assertEquals(-1, in.read());
+    }
+
+    @Test(expected = HttpCacheEntrySerializationException.class)
+    public void testRejectsJavaSerializedEntry() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new DefaultHttpCacheEntrySerializer().writeTo(HttpTestUtils.makeCacheEntry(), out);
+        new BinaryHttpCacheEntrySerializer().readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testTruncatedBody() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        final byte[] b = write(serializer, HttpTestUtils.makeCacheEntry(HttpTestUtils.getRandomBytes(100)));
+        try {
+            serializer.readFrom(new ByteArrayInputStream(Arrays.copyOf(b, b.length - 10)));
+            Assert.fail("EOFException expected");
+        } catch (final EOFException expected) {
+        }
+    }
+
+}
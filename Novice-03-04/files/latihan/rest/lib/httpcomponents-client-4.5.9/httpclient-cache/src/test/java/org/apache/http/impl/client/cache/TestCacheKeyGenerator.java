@@ -421,4 +421,34 @@ public class TestCacheKeyGenerator {
         final HttpRequest req2 = new BasicHttpRequest("GET", "/%7Esmith%2Fhome%20folder.html", HttpVersion.HTTP_1_1);
         Assert.assertEquals(extractor.getURI(host, req1), extractor.getURI(host, req2));
     }
+
+    @Test
+    public void testVariantKeysAreMemoizedPerVaryHeaderValue() {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry(new Header[] {
+                new BasicHeader("Vary", "User-Agent, Accept-Encoding") });
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry(new Header[] {
+                new BasicHeader("Vary", "Accept-Encoding"),
+                new BasicHeader("Vary", "User-Agent") });
+        final HttpCacheEntry entry3 = HttpTestUtils.makeCacheEntry(new Header[] {
+                new BasicHeader("Vary", "Accept-Language") });
+        final HttpRequest req1 = new BasicHttpRequest("GET", "/", HttpVersion.HTTP_1_1);
+        req1.addHeader("User-Agent", "browser");
+        req1.addHeader("Accept-Encoding", "gzip, deflate");
+        req1.addHeader("Accept-Language", "en");
+        final HttpRequest req2 = new BasicHttpRequest("GET", "/", HttpVersion.HTTP_1_1);
+        req2.addHeader("User-Agent", "other browser");
+        req2.addHeader("Accept-Encoding", "gzip");
+        req2.addHeader("Accept-Encoding", "deflate");
+
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("{Accept-Encoding=gzip%2C+deflate&User-Agent=browser}",
+                    extractor.getVariantKey(req1, entry1));
+            Assert.assertEquals("{Accept-Encoding=gzip%2C+deflate&User-Agent=browser}",
+                    extractor.getVariantKey(req1, entry2));
+            Assert.assertEquals("{Accept-Encoding=gzip%2C+deflate&User-Agent=other+browser}",
+                    extractor.getVariantKey(req2, entry1));
+            Assert.assertEquals("{Accept-Language=en}", extractor.getVariantKey(req1, entry3));
+            Assert.assertEquals("{Accept-Language=}", extractor.getVariantKey(req2, entry3));
+        }
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.CacheResponseStatus;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheContext;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCollapsedForwarding {
+
+    private static final int CONCURRENCY = 20;
+
+    private HttpHost host;
+    private HttpRoute route;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        host = new HttpHost("foo.example.com", 80);
+        route = new HttpRoute(host);
+        executor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    static class SlowBackend implements ClientExecChain {
+
+        private final String cacheControl;
+        private final AtomicInteger executions;
+
+        SlowBackend(final String cacheControl) {
+            this.cacheControl = cacheControl;
+            this.executions = new AtomicInteger();
+        }
+
+        @Override
+        public CloseableHttpResponse execute(
+                final HttpRoute route,
+                final HttpRequestWrapper request,
+                final HttpClientContext clientContext,
+                final HttpExecutionAware execAware) throws IOException, HttpException {
+            executions.incrementAndGet();
+            try {
+                Thread.sleep(250);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+            response.setHeader("Date", DateUtils.formatDate(new Date()));
+            response.setHeader("Cache-Control", cacheControl);
+            response.setEntity(new StringEntity("stuff"));
+            return Proxies.enhanceResponse(response);
+        }
+
+        int getExecutions() {
+            return executions.get();
+        }
+
+    }
+
+    private List<CacheResponseStatus> executeConcurrently(final CachingExec impl) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<CacheResponseStatus>> futures = new ArrayList<Future<CacheResponseStatus>>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            futures.add(executor.submit(new Callable<CacheResponseStatus>() {
+
+                @Override
+                public CacheResponseStatus call() throws Exception {
+                    final HttpRequestWrapper request = HttpRequestWrapper.wrap(
+                            new BasicHttpRequest("GET", "/stuff", HttpVersion.HTTP_1_1));
+                    final HttpCacheContext context = HttpCacheContext.create();
+                    context.setTargetHost(host);
+                    start.await();
+                    final CloseableHttpResponse response = impl.execute(route, request, context, null);
+                    try {
+                        Assert.assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                        Assert.assertEquals("stuff", EntityUtils.toString(response.getEntity()));
+                        return context.getCacheResponseStatus();
+                    } finally {
+                        response.close();
+                    }
+                }
+
+            }));
+        }
+        start.countDown();
+        final List<CacheResponseStatus> statuses = new ArrayList<CacheResponseStatus>();
+        for (final Future<CacheResponseStatus> future: futures) {
+            statuses.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return statuses;
+    }
+
+    @Test
+    public void testConcurrentMissesAreForwardedOnce() throws Exception {
+        final SlowBackend backend = new SlowBackend("max-age=3600");
+        final CacheConfig config = CacheConfig.custom()
+                .setCollapsedForwardingTimeout(5000)
+                .build();
+        final CachingExec impl = new CachingExec(backend, new BasicHttpCache(config), config);
+
+        int hits = 0;
+        for (final CacheResponseStatus status: executeConcurrently(impl)) {
+            if (status == CacheResponseStatus.CACHE_HIT) {
+                hits++;
+            }
+        }
+        Assert.assertEquals(1, backend.getExecutions());
+        Assert.assertEquals(CONCURRENCY - 1, hits);
+    }
+
+    @Test
+    public void testUncacheableResponsesAreForwardedForEachRequest() throws Exception {
+        final SlowBackend backend = new SlowBackend("no-store");
+        final CacheConfig config = CacheConfig.custom()
+                .setCollapsedForwardingTimeout(5000)
+                .build();
+        final CachingExec impl = new CachingExec(backend, new BasicHttpCache(config), config);
+
+        for (final CacheResponseStatus status: executeConcurrently(impl)) {
+            Assert.assertEquals(CacheResponseStatus.CACHE_MISS, status);
+        }
+        Assert.assertEquals(CONCURRENCY, backend.getExecutions());
+    }
+
+    @Test
+    public void testLateArrivalIsServedFromCache() throws Exception {
+        final SlowBackend backend = new SlowBackend("max-age=3600");
+        final CacheConfig config = CacheConfig.custom()
+                .setCollapsedForwardingTimeout(5000)
+                .build();
+        final CountDownLatch missed = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final BasicHttpCache cache = new BasicHttpCache(config) {
+
+            private final AtomicInteger lookups = new AtomicInteger();
+
+            @Override
+            public HttpCacheEntry getCacheEntry(final HttpHost host, final HttpRequest request) throws IOException {
+                final HttpCacheEntry entry = super.getCacheEntry(host, request);
+                if (Thread.currentThread().getName().equals("late") && lookups.getAndIncrement() == 0) {
+                    // Let the other request complete between the cache miss and joining
+                    missed.countDown();
+                    try {
+                        completed.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return entry;
+            }
+
+        };
+        final CachingExec impl = new CachingExec(backend, cache, config);
+
+        final HttpCacheContext lateContext = HttpCacheContext.create();
+        lateContext.setTargetHost(host);
+        final Thread late = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    impl.execute(route, HttpRequestWrapper.wrap(
+                            new BasicHttpRequest("GET", "/stuff", HttpVersion.HTTP_1_1)), lateContext, null).close();
+                } catch (final Exception ignore) {
+                }
+            }
+
+        }, "late");
+        late.start();
+        missed.await();
+
+        final HttpCacheContext context = HttpCacheContext.create();
+        context.setTargetHost(host);
+        impl.execute(route, HttpRequestWrapper.wrap(
+                new BasicHttpRequest("GET", "/stuff", HttpVersion.HTTP_1_1)), context, null).close();
+        Assert.assertEquals(CacheResponseStatus.CACHE_MISS, context.getCacheResponseStatus());
+        completed.countDown();
+        late.join();
+
+        Assert.assertEquals(1, backend.getExecutions());
+        Assert.assertEquals(CacheResponseStatus.CACHE_HIT, lateContext.getCacheResponseStatus());
+    }
+
+    @Test
+    public void testWaitingForCollapsedRequestTimesOut() throws Exception {
+        final CollapsedRequests collapsedRequests = new CollapsedRequests(50);
+        Assert.assertNull(collapsedRequests.join("key"));
+        final CountDownLatch latch = collapsedRequests.join("key");
+        Assert.assertNotNull(latch);
+        Assert.assertFalse(collapsedRequests.await(latch));
+        collapsedRequests.complete("key");
+        Assert.assertTrue(collapsedRequests.await(latch));
+        Assert.assertEquals(0, collapsedRequests.getInFlightCount());
+        Assert.assertNull(collapsedRequests.join("key"));
+    }
+
+}
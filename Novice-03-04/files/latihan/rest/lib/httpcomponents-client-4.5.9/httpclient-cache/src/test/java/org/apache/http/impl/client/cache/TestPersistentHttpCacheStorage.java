@@ -0,0 +1,343 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.http.Header;
+import org.apache.http.client.cache.HeaderConstants;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.client.cache.HttpCacheUpdateException;
+import org.apache.http.client.cache.Resource;
+import org.apache.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPersistentHttpCacheStorage {
+
+    private File cacheDir;
+    private CacheConfig config;
+    private PersistentHttpCacheStorage impl;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheDir = File.createTempFile("cachedir", "");
+        if (cacheDir.exists()) {
+            cacheDir.delete();
+        }
+        cacheDir.mkdir();
+        config = CacheConfig.custom().setMaxCacheEntries(100).build();
+        impl = new PersistentHttpCacheStorage(config, cacheDir);
+    }
+
+    @After
+    public void cleanUp() throws Exception {
+        impl.close();
+        final File[] files = cacheDir.listFiles();
+        for (final File cacheFile : files) {
+            cacheFile.delete();
+        }
+        cacheDir.delete();
+    }
+
+    private PersistentHttpCacheStorage reopen() throws IOException {
+        impl.close();
+        impl = new PersistentHttpCacheStorage(config, cacheDir);
+        return impl;
+    }
+
+    private static byte[] readBody(final HttpCacheEntry entry) throws IOException {
+        final InputStream in = entry.getResource().getInputStream();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.copyAndClose(in, out);
+        return out.toByteArray();
+    }
+
+    private static void assertEquivalent(final HttpCacheEntry expected, final HttpCacheEntry actual) throws IOException {
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getRequestDate(), actual.getRequestDate());
+        Assert.assertEquals(expected.getResponseDate(), actual.getResponseDate());
+        Assert.assertEquals(expected.getStatusLine().toString(), actual.getStatusLine().toString());
+        Assert.assertEquals(expected.getRequestMethod(), actual.getRequestMethod());
+        final Header[] expectedHeaders = expected.getAllHeaders();
+        final Header[] actualHeaders = actual.getAllHeaders();
+        Assert.assertEquals(expectedHeaders.length, actualHeaders.length);
+        for (int i = 0; i < expectedHeaders.length; i++) {
+            Assert.assertEquals(expectedHeaders[i].toString(), actualHeaders[i].toString());
+        }
+        Assert.assertEquals(expected.getVariantMap(), actual.getVariantMap());
+        if (expected.getResource() == null) {
+            Assert.assertNull(actual.getResource());
+        } else {
+            Assert.assertArrayEquals(readBody(expected), readBody(actual));
+        }
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final Map<String, String> variantMap = new HashMap<String, String>();
+        variantMap.put("{Accept-Encoding=gzip}", "{Accept-Encoding=gzip}http://foo.example.com/");
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry(variantMap);
+        final HttpCacheEntry entry3 = HttpTestUtils.makeHeadCacheEntry(new Header[] {
+                new BasicHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT"),
+                new BasicHeader("Hc-Request-Method", HeaderConstants.HEAD_METHOD) });
+        impl.putEntry("http://foo.example.com/1", entry1);
+        impl.putEntry("http://foo.example.com/2", entry2);
+        impl.putEntry("http://foo.example.com/3", entry3);
+
+        final PersistentHttpCacheStorage reopened = reopen();
+        Assert.assertEquals(3, reopened.getEntryCount());
+        assertEquivalent(entry1, reopened.getEntry("http://foo.example.com/1"));
+        assertEquivalent(entry2, reopened.getEntry("http://foo.example.com/2"));
+        final HttpCacheEntry restored3 = reopened.getEntry("http://foo.example.com/3");
+        assertEquivalent(entry3, restored3);
+        Assert.assertEquals(HeaderConstants.HEAD_METHOD, restored3.getRequestMethod());
+    }
+
+    @Test
+    public void testBodiesAreCopiedIntoCacheDir() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("http://foo.example.com/", entry);
+        final HttpCacheEntry stored = impl.getEntry("http://foo.example.com/");
+        Assert.assertTrue(stored.getResource() instanceof FileResource);
+        Assert.assertEquals(cacheDir, ((FileResource) stored.getResource()).getFile().getParentFile());
+        assertEquivalent(entry, stored);
+    }
+
+    @Test
+    public void testFileResourcesInCacheDirAreNotCopied() throws Exception {
+        final FileResourceFactory resourceFactory = new FileResourceFactory(cacheDir);
+        final FileResource resource = (FileResource) resourceFactory.copy(
+                "http://foo.example.com/", new HeapResource(HttpTestUtils.getRandomBytes(64)));
+        final Date now = new Date();
+        final HttpCacheEntry entry = new HttpCacheEntry(now, now, HttpTestUtils.makeStatusLine(),
+                HttpTestUtils.getStockHeaders(now), resource);
+        impl.putEntry("http://foo.example.com/", entry);
+        Assert.assertSame(entry, impl.getEntry("http://foo.example.com/"));
+
+        final HttpCacheEntry restored = reopen().getEntry("http://foo.example.com/");
+        Assert.assertEquals(resource.getFile(), ((FileResource) restored.getResource()).getFile());
+        assertEquivalent(entry, restored);
+    }
+
+    @Test
+    public void testRemovalsAndUpdatesSurviveRestart() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry updated = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("http://foo.example.com/1", entry1);
+        impl.putEntry("http://foo.example.com/2", entry2);
+        impl.removeEntry("http://foo.example.com/1");
+        impl.updateEntry("http://foo.example.com/2", new HttpCacheUpdateCallback() {
+
+            @Override
+            public HttpCacheEntry update(final HttpCacheEntry existing) {
+                return updated;
+            }
+
+        });
+
+        final PersistentHttpCacheStorage reopened = reopen();
+        Assert.assertEquals(1, reopened.getEntryCount());
+        Assert.assertNull(reopened.getEntry("http://foo.example.com/1"));
+        assertEquivalent(updated, reopened.getEntry("http://foo.example.com/2"));
+    }
+
+    @Test(timeout = 10000)
+    public void testUpdateCopiesBodyWithoutBlockingAndRetries() throws Exception {
+        final String url = "http://foo.example.com/";
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        final CountDownLatch copying = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final Resource blockingResource = new HeapResource(HttpTestUtils.getRandomBytes(128)) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public InputStream getInputStream() {
+                copying.countDown();
+                try {
+                    proceed.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getInputStream();
+            }
+
+        };
+        final Date now = new Date();
+        final HttpCacheEntry blocked = new HttpCacheEntry(now, now, HttpTestUtils.makeStatusLine(),
+                HttpTestUtils.getStockHeaders(now), blockingResource);
+        final HttpCacheEntry updated = HttpTestUtils.makeCacheEntry();
+        final List<HttpCacheEntry> seen = new CopyOnWriteArrayList<HttpCacheEntry>();
+        impl.putEntry(url, entry1);
+
+        final Thread updater = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    impl.updateEntry(url, new HttpCacheUpdateCallback() {
+
+                        @Override
+                        public HttpCacheEntry update(final HttpCacheEntry existing) {
+                            seen.add(existing);
+                            return seen.size() == 1 ? blocked : updated;
+                        }
+
+                    });
+                } catch (final IOException ignore) {
+                } catch (final HttpCacheUpdateException ignore) {
+                }
+            }
+
+        });
+        updater.start();
+        copying.await();
+        // Neither lookups nor other writers wait for the body to be copied
+        assertEquivalent(entry1, impl.getEntry(url));
+        impl.putEntry(url, entry2);
+        proceed.countDown();
+        updater.join();
+
+        Assert.assertEquals(2, seen.size());
+        assertEquivalent(entry1, seen.get(0));
+        assertEquivalent(entry2, seen.get(1));
+        assertEquivalent(updated, impl.getEntry(url));
+        assertEquivalent(updated, reopen().getEntry(url));
+    }
+
+    @Test
+    public void testTornRecordIsDiscarded() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("http://foo.example.com/", entry);
+        impl.close();
+        final File logFile = new File(cacheDir, PersistentHttpCacheStorage.LOG_NAME);
+        final long length = logFile.length();
+        final FileOutputStream out = new FileOutputStream(logFile, true);
+        try {
+            out.write(new byte[] { 0, 0, 1, 0, 1, 2, 3, 4, 5, 6 });
+        } finally {
+            out.close();
+        }
+
+        final PersistentHttpCacheStorage reopened = reopen();
+        Assert.assertEquals(length, logFile.length());
+        assertEquivalent(entry, reopened.getEntry("http://foo.example.com/"));
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        reopened.putEntry("http://foo.example.com/2", entry2);
+        assertEquivalent(entry2, reopen().getEntry("http://foo.example.com/2"));
+    }
+
+    @Test
+    public void testOrphanedBodiesAreDeletedOnStart() throws Exception {
+        impl.putEntry("http://foo.example.com/", HttpTestUtils.makeCacheEntry());
+        final File orphan = new File(cacheDir, "orphan");
+        final FileOutputStream out = new FileOutputStream(orphan);
+        try {
+            out.write(HttpTestUtils.getRandomBytes(16));
+        } finally {
+            out.close();
+        }
+        reopen();
+        Assert.assertFalse(orphan.exists());
+        // log and one body file
+        Assert.assertEquals(2, cacheDir.listFiles().length);
+        Assert.assertNotNull(impl.getEntry("http://foo.example.com/"));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            impl.putEntry("http://foo.example.com/" + (i % 5), HttpTestUtils.makeCacheEntry());
+        }
+        impl.removeEntry("http://foo.example.com/0");
+        final HttpCacheEntry last = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("http://foo.example.com/4", last);
+        Assert.assertEquals(52, impl.getLogRecordCount());
+
+        impl.compact();
+        Assert.assertEquals(4, impl.getLogRecordCount());
+        Assert.assertFalse(new File(cacheDir, PersistentHttpCacheStorage.COMPACTED_LOG_NAME).exists());
+
+        final PersistentHttpCacheStorage reopened = reopen();
+        Assert.assertEquals(4, reopened.getLogRecordCount());
+        Assert.assertEquals(4, reopened.getEntryCount());
+        Assert.assertNull(reopened.getEntry("http://foo.example.com/0"));
+        assertEquivalent(last, reopened.getEntry("http://foo.example.com/4"));
+        // log and four body files
+        Assert.assertEquals(5, cacheDir.listFiles().length);
+    }
+
+    @Test
+    public void testLogIsCompactedInBackground() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntryWithNoRequestMethodOrEntity(
+                HttpTestUtils.getStockHeaders(new Date()));
+        for (int i = 0; i < 2000; i++) {
+            impl.putEntry("http://foo.example.com/" + (i % 10), entry);
+        }
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (impl.getLogRecordCount() >= 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(impl.getLogRecordCount() < 1000);
+        Assert.assertEquals(10, reopen().getEntryCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntries() throws Exception {
+        config = CacheConfig.custom().setMaxCacheEntries(3).build();
+        reopen();
+        impl.putEntry("http://foo.example.com/1", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("http://foo.example.com/2", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("http://foo.example.com/3", HttpTestUtils.makeCacheEntry());
+        impl.getEntry("http://foo.example.com/1");
+        impl.putEntry("http://foo.example.com/4", HttpTestUtils.makeCacheEntry());
+        Assert.assertNull(impl.getEntry("http://foo.example.com/2"));
+
+        final PersistentHttpCacheStorage reopened = reopen();
+        Assert.assertEquals(3, reopened.getEntryCount());
+        Assert.assertNotNull(reopened.getEntry("http://foo.example.com/1"));
+        Assert.assertNull(reopened.getEntry("http://foo.example.com/2"));
+    }
+
+}
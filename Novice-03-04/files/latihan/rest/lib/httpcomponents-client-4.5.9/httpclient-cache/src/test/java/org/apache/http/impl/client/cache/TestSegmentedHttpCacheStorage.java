@@ -0,0 +1,183 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSegmentedHttpCacheStorage {
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(CacheConfig.DEFAULT);
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        storage.putEntry("foo", entry);
+        Assert.assertSame(entry, storage.getEntry("foo"));
+        Assert.assertNull(storage.getEntry("bar"));
+        Assert.assertEquals(1, storage.getHitCount());
+        Assert.assertEquals(1, storage.getMissCount());
+
+        storage.removeEntry("foo");
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertEquals(0, storage.getEntryCount());
+        Assert.assertEquals(0, storage.getTotalBytes());
+    }
+
+    @Test
+    public void testUpdateEntry() throws Exception {
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(CacheConfig.DEFAULT);
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry(new byte[10]);
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry(new byte[20]);
+        storage.putEntry("foo", entry1);
+        storage.updateEntry("foo", new HttpCacheUpdateCallback() {
+
+            @Override
+            public HttpCacheEntry update(final HttpCacheEntry existing) {
+                Assert.assertSame(entry1, existing);
+                return entry2;
+            }
+
+        });
+        Assert.assertSame(entry2, storage.getEntry("foo"));
+        Assert.assertEquals(20, storage.getTotalBytes());
+    }
+
+    @Test
+    public void testEvictionByCount() throws Exception {
+        final CacheConfig config = CacheConfig.custom().setMaxCacheEntries(4).build();
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(config, -1, 1);
+        for (int i = 0; i < 4; i++) {
+            storage.putEntry("key" + i, HttpTestUtils.makeCacheEntry());
+        }
+        // Recently read entries get a second chance
+        Assert.assertNotNull(storage.getEntry("key0"));
+        storage.putEntry("key4", HttpTestUtils.makeCacheEntry());
+
+        Assert.assertEquals(4, storage.getEntryCount());
+        Assert.assertEquals(1, storage.getEvictionCount());
+        Assert.assertNotNull(storage.getEntry("key0"));
+        Assert.assertNull(storage.getEntry("key1"));
+        Assert.assertNotNull(storage.getEntry("key4"));
+    }
+
+    @Test
+    public void testEvictionByBytes() throws Exception {
+        final CacheConfig config = CacheConfig.custom()
+                .setMaxCacheEntries(100)
+                .setMaxObjectSize(30)
+                .build();
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(config, 100, 1);
+        for (int i = 0; i < 5; i++) {
+            storage.putEntry("key" + i, HttpTestUtils.makeCacheEntry(new byte[30]));
+        }
+        Assert.assertEquals(3, storage.getEntryCount());
+        Assert.assertEquals(90, storage.getTotalBytes());
+        Assert.assertEquals(2, storage.getEvictionCount());
+        Assert.assertNull(storage.getEntry("key0"));
+        Assert.assertNull(storage.getEntry("key1"));
+        Assert.assertNotNull(storage.getEntry("key4"));
+    }
+
+    @Test
+    public void testSegmentsCanHoldObjectsOfMaxSize() throws Exception {
+        final CacheConfig config = CacheConfig.custom()
+                .setMaxCacheEntries(1000)
+                .setMaxObjectSize(8000)
+                .build();
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(config, 16000, 16);
+        for (int i = 0; i < 16; i++) {
+            storage.putEntry("key" + i, HttpTestUtils.makeCacheEntry(new byte[8000]));
+        }
+        Assert.assertNotNull(storage.getEntry("key15"));
+        Assert.assertTrue(storage.getTotalBytes() <= 16000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxTotalBytesLessThanMaxObjectSizeRejected() {
+        final CacheConfig config = CacheConfig.custom().setMaxObjectSize(8000).build();
+        new SegmentedHttpCacheStorage(config, 4000);
+    }
+
+    @Test
+    public void testLimitsAreSharedAmongSegments() throws Exception {
+        final CacheConfig config = CacheConfig.custom().setMaxCacheEntries(64).build();
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(config);
+        for (int i = 0; i < 1000; i++) {
+            storage.putEntry("key" + i, HttpTestUtils.makeCacheEntry());
+        }
+        Assert.assertTrue(storage.getEntryCount() <= 64);
+        Assert.assertEquals(1000 - storage.getEntryCount(), storage.getEvictionCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final CacheConfig config = CacheConfig.custom().setMaxCacheEntries(100).build();
+        final SegmentedHttpCacheStorage storage = new SegmentedHttpCacheStorage(config, 100 * 128);
+        final int threadCount = 8;
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final int seed = i;
+            final Thread t = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 2000; n++) {
+                            final String key = "key" + ((n * 31 + seed) % 300);
+                            if (storage.getEntry(key) == null) {
+                                storage.putEntry(key, HttpTestUtils.makeCacheEntry(new byte[128]));
+                            } else if (n % 7 == 0) {
+                                storage.removeEntry(key);
+                            }
+                        }
+                    } catch (final Exception ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+
+            };
+            threads.add(t);
+            t.start();
+        }
+        latch.await();
+        Assert.assertNull(failure.get());
+        Assert.assertTrue(storage.getEntryCount() <= 100);
+        Assert.assertEquals(storage.getEntryCount() * 128L, storage.getTotalBytes());
+    }
+
+}
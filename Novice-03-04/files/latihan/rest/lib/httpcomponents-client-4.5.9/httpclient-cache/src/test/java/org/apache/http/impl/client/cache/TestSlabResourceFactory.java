@@ -0,0 +1,184 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.http.client.cache.InputLimit;
+import org.apache.http.client.cache.Resource;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSlabResourceFactory {
+
+    private static byte[] content(final int len) {
+        final byte[] b = new byte[len];
+        for (int i = 0; i < len; i++) {
+            b[i] = (byte) (i * 31);
+        }
+        return b;
+    }
+
+    private static byte[] read(final Resource resource) throws IOException {
+        final InputStream inStream = resource.getInputStream();
+        try {
+            final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            final byte[] buf = new byte[100];
+            int l;
+            while ((l = inStream.read(buf)) != -1) {
+                outStream.write(buf, 0, l);
+            }
+            return outStream.toByteArray();
+        } finally {
+            inStream.close();
+        }
+    }
+
+    @Test
+    public void testGenerateAndRead() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final byte[] b = content(1000);
+        final Resource resource = factory.generate("id", new ByteArrayInputStream(b), null);
+        Assert.assertTrue(resource instanceof SlabResource);
+        Assert.assertEquals(1000, resource.length());
+        Assert.assertArrayEquals(b, read(resource));
+        Assert.assertEquals(4096 - 4 * 256, factory.getFreeCapacity());
+
+        resource.dispose();
+        Assert.assertEquals(4096, factory.getFreeCapacity());
+    }
+
+    @Test
+    public void testEmptyContent() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final Resource resource = factory.generate("id", new ByteArrayInputStream(new byte[0]), null);
+        Assert.assertEquals(0, resource.length());
+        Assert.assertEquals(0, read(resource).length);
+        Assert.assertEquals(4096, factory.getFreeCapacity());
+    }
+
+    @Test
+    public void testInputLimit() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(8192, 256);
+        final InputLimit limit = new InputLimit(100);
+        factory.generate("id", new ByteArrayInputStream(content(5000)), limit);
+        Assert.assertTrue(limit.isReached());
+    }
+
+    @Test
+    public void testCopySharesChunks() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final byte[] b = content(600);
+        final Resource resource = factory.generate("id", new ByteArrayInputStream(b), null);
+        final long free = factory.getFreeCapacity();
+        final Resource copy = factory.copy("id", resource);
+        Assert.assertEquals(free, factory.getFreeCapacity());
+
+        resource.dispose();
+        Assert.assertArrayEquals(b, read(copy));
+        Assert.assertEquals(free, factory.getFreeCapacity());
+        copy.dispose();
+        Assert.assertEquals(4096, factory.getFreeCapacity());
+    }
+
+    @Test
+    public void testCopyFromOtherFactory() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final byte[] b = content(600);
+        final Resource copy = factory.copy("id", new HeapResource(b));
+        Assert.assertTrue(copy instanceof SlabResource);
+        Assert.assertArrayEquals(b, read(copy));
+    }
+
+    @Test
+    public void testDisposeWithOpenStream() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final byte[] b = content(300);
+        final Resource resource = factory.generate("id", new ByteArrayInputStream(b), null);
+        final InputStream inStream = resource.getInputStream();
+        resource.dispose();
+        Assert.assertEquals(4096 - 2 * 256, factory.getFreeCapacity());
+        Assert.assertEquals(b[0], (byte) inStream.read());
+        inStream.close();
+        Assert.assertEquals(4096, factory.getFreeCapacity());
+        try {
+            resource.getInputStream();
+            Assert.fail("IOException expected");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testOverflowToHeap() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(1024, 256);
+        final Resource resource1 = factory.generate("id", new ByteArrayInputStream(content(700)), null);
+        Assert.assertTrue(resource1 instanceof SlabResource);
+        final byte[] b = content(1000);
+        final Resource resource2 = factory.generate("id", new ByteArrayInputStream(b), null);
+        Assert.assertTrue(resource2 instanceof HeapResource);
+        Assert.assertArrayEquals(b, read(resource2));
+        Assert.assertEquals(1, factory.getOverflowCount());
+        Assert.assertEquals(256, factory.getFreeCapacity());
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        final File file = File.createTempFile("httpclient", ".slab");
+        try {
+            final SlabResourceFactory factory = new SlabResourceFactory(file, 64 * 1024, 1024);
+            Assert.assertEquals(64 * 1024, factory.getCapacity());
+            final byte[] b = content(5000);
+            final Resource resource = factory.generate("id", new ByteArrayInputStream(b), null);
+            Assert.assertArrayEquals(b, read(resource));
+            resource.dispose();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSerializesAsHeapResource() throws Exception {
+        final SlabResourceFactory factory = new SlabResourceFactory(4096, 256);
+        final byte[] b = content(700);
+        final Resource resource = factory.generate("id", new ByteArrayInputStream(b), null);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final ObjectOutputStream outStream = new ObjectOutputStream(buf);
+        outStream.writeObject(resource);
+        outStream.close();
+        final ObjectInputStream inStream = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()));
+        final Object copy = inStream.readObject();
+        Assert.assertTrue(copy instanceof HeapResource);
+        Assert.assertArrayEquals(b, read((Resource) copy));
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheStorage;
+import org.apache.http.client.cache.HttpCacheUpdateCallback;
+import org.apache.http.client.cache.HttpCacheUpdateException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTieredHttpCacheStorage {
+
+    static class CountingStorage extends BasicHttpCacheStorage {
+
+        final AtomicInteger gets = new AtomicInteger();
+
+        CountingStorage() {
+            super(CacheConfig.DEFAULT);
+        }
+
+        @Override
+        public HttpCacheEntry getEntry(final String url) throws IOException {
+            gets.incrementAndGet();
+            return super.getEntry(url);
+        }
+
+        @Override
+        public Map<String, HttpCacheEntry> getEntries(final Collection<String> urls) throws IOException {
+            gets.incrementAndGet();
+            return super.getEntries(urls);
+        }
+
+    }
+
+    private CountingStorage backend;
+    private TieredHttpCacheStorage storage;
+
+    @Before
+    public void setUp() {
+        backend = new CountingStorage();
+        storage = new TieredHttpCacheStorage(backend, 100, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void testWritesAreServedFromFirstTier() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        storage.putEntry("foo", entry);
+        Assert.assertSame(entry, backend.getEntry("foo"));
+        backend.gets.set(0);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertSame(entry, storage.getEntry("foo"));
+        }
+        Assert.assertEquals(0, backend.gets.get());
+        Assert.assertEquals(3, storage.getL1HitCount());
+        Assert.assertEquals(1.0, storage.getL1HitRatio(), 0.0);
+    }
+
+    @Test
+    public void testSecondTierHitsAreKept() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        backend.putEntry("foo", entry);
+        Assert.assertSame(entry, storage.getEntry("foo"));
+        Assert.assertSame(entry, storage.getEntry("foo"));
+        Assert.assertEquals(1, backend.gets.get());
+        Assert.assertEquals(0.5, storage.getL1HitRatio(), 0.0);
+        Assert.assertEquals(1.0, storage.getL2HitRatio(), 0.0);
+    }
+
+    @Test
+    public void testMissesAreRemembered() throws Exception {
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertEquals(1, backend.gets.get());
+        Assert.assertEquals(1, storage.getL2MissCount());
+
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        storage.putEntry("foo", entry);
+        Assert.assertSame(entry, storage.getEntry("foo"));
+        storage.removeEntry("foo");
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertEquals(1, backend.gets.get());
+        Assert.assertNull(backend.getEntry("foo"));
+    }
+
+    @Test
+    public void testNegativeCachingCanBeDisabled() throws Exception {
+        storage = new TieredHttpCacheStorage(backend, 100, 1, 0, TimeUnit.MINUTES);
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertNull(storage.getEntry("foo"));
+        Assert.assertEquals(2, backend.gets.get());
+    }
+
+    @Test
+    public void testChangesOfOtherNodesVisibleAfterExpiry() throws Exception {
+        storage = new TieredHttpCacheStorage(backend, 100, 20, 20, TimeUnit.MILLISECONDS);
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        storage.putEntry("foo", entry1);
+        backend.putEntry("foo", entry2);
+        Assert.assertSame(entry1, storage.getEntry("foo"));
+        Thread.sleep(50);
+        Assert.assertSame(entry2, storage.getEntry("foo"));
+    }
+
+    @Test
+    public void testFirstTierIsBounded() throws Exception {
+        storage = new TieredHttpCacheStorage(backend, 2, 1, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 5; i++) {
+            storage.putEntry("foo" + i, HttpTestUtils.makeCacheEntry());
+        }
+        Assert.assertEquals(2, storage.getL1EntryCount());
+        Assert.assertNotNull(storage.getEntry("foo0"));
+        Assert.assertEquals(1, backend.gets.get());
+    }
+
+    @Test
+    public void testUpdateKeepsOutcomeOfLastAttempt() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry concurrent = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry updated = HttpTestUtils.makeCacheEntry();
+        final BasicHttpCacheStorage casBackend = new BasicHttpCacheStorage(CacheConfig.DEFAULT) {
+
+            @Override
+            public void updateEntry(
+                    final String url, final HttpCacheUpdateCallback callback) throws IOException {
+                // The first attempt loses against a concurrent writer on another node
+                callback.update(getEntry(url));
+                putEntry(url, concurrent);
+                super.updateEntry(url, callback);
+            }
+
+        };
+        storage = new TieredHttpCacheStorage(casBackend, 100, 1, 1, TimeUnit.MINUTES);
+        storage.putEntry("foo", entry1);
+        storage.updateEntry("foo", new HttpCacheUpdateCallback() {
+
+            @Override
+            public HttpCacheEntry update(final HttpCacheEntry existing) {
+                return existing == concurrent ? updated : entry2;
+            }
+
+        });
+        Assert.assertSame(updated, casBackend.getEntry("foo"));
+        Assert.assertSame(updated, storage.getEntry("foo"));
+    }
+
+    @Test
+    public void testFailedUpdateInvalidatesFirstTier() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        final SimpleHttpCacheStorage simpleBackend = new SimpleHttpCacheStorage();
+        final HttpCacheStorage casBackend = new HttpCacheStorage() {
+
+            @Override
+            public void putEntry(final String url, final HttpCacheEntry entry) throws IOException {
+                simpleBackend.putEntry(url, entry);
+            }
+
+            @Override
+            public HttpCacheEntry getEntry(final String url) throws IOException {
+                return simpleBackend.getEntry(url);
+            }
+
+            @Override
+            public void removeEntry(final String url) throws IOException {
+                simpleBackend.removeEntry(url);
+            }
+
+            @Override
+            public void updateEntry(
+                    final String url,
+                    final HttpCacheUpdateCallback callback) throws IOException, HttpCacheUpdateException {
+                putEntry(url, entry2);
+                throw new HttpCacheUpdateException("Failed to update");
+            }
+
+        };
+        storage = new TieredHttpCacheStorage(casBackend, 100, 1, 1, TimeUnit.MINUTES);
+        storage.putEntry("foo", entry1);
+        try {
+            storage.updateEntry("foo", new HttpCacheUpdateCallback() {
+
+                @Override
+                public HttpCacheEntry update(final HttpCacheEntry existing) {
+                    return existing;
+                }
+
+            });
+            Assert.fail("HttpCacheUpdateException expected");
+        } catch (final HttpCacheUpdateException expected) {
+        }
+        Assert.assertSame(entry2, storage.getEntry("foo"));
+    }
+
+    @Test
+    public void testSlowReadDoesNotReplaceNewerEntry() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        final CountDownLatch read = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        final BasicHttpCacheStorage slowBackend = new BasicHttpCacheStorage(CacheConfig.DEFAULT) {
+
+            @Override
+            public HttpCacheEntry getEntry(final String url) throws IOException {
+                final HttpCacheEntry entry = super.getEntry(url);
+                if (Thread.currentThread().getName().equals("slow-reader")) {
+                    read.countDown();
+                    try {
+                        written.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return entry;
+            }
+
+        };
+        slowBackend.putEntry("foo", entry1);
+        storage = new TieredHttpCacheStorage(slowBackend, 100, 1, 1, TimeUnit.MINUTES);
+        final Thread reader = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    storage.getEntry("foo");
+                } catch (final IOException ignore) {
+                }
+            }
+
+        }, "slow-reader");
+        reader.start();
+        read.await();
+        storage.putEntry("foo", entry2);
+        written.countDown();
+        reader.join();
+        Assert.assertSame(entry2, storage.getEntry("foo"));
+    }
+
+    @Test
+    public void testGetEntriesLooksUpMissesInOneBatch() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        storage.putEntry("foo", entry1);
+        backend.putEntry("bar", entry2);
+        final Map<String, HttpCacheEntry> entries = storage.getEntries(Arrays.asList("foo", "bar", "baz"));
+        Assert.assertEquals(2, entries.size());
+        Assert.assertSame(entry1, entries.get("foo"));
+        Assert.assertSame(entry2, entries.get("bar"));
+        Assert.assertEquals(1, backend.gets.get());
+
+        Assert.assertEquals(1, storage.getEntries(Arrays.asList("bar", "baz")).size());
+        Assert.assertEquals(1, backend.gets.get());
+
+        storage.removeEntries(Arrays.asList("foo", "bar"));
+        Assert.assertTrue(storage.getEntries(Arrays.asList("foo", "bar")).isEmpty());
+        Assert.assertNull(backend.getEntry("foo"));
+        Assert.assertEquals(2, backend.gets.get());
+    }
+
+}
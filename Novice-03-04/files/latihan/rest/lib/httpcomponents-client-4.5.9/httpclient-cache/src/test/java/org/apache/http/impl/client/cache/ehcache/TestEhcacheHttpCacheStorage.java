@@ -36,6 +36,10 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import junit.framework.TestCase;
 import net.sf.ehcache.Ehcache;
@@ -244,4 +248,34 @@ public class TestEhcacheHttpCacheStorage extends TestCase {
         verify(mockSerializer, times(2)).writeTo(same(updatedValue), isA(OutputStream.class));
         verify(mockCache, times(2)).replace(same(existingElement), isA(Element.class));
     }
+
+    @Test
+    public void testCacheGetEntriesUsesSingleBulkLookup() throws IOException {
+        final HttpCacheEntry cachedValue = HttpTestUtils.makeCacheEntry();
+        final List<String> keys = Arrays.asList("foo", "bar");
+        final Map<Object, Element> elements = new HashMap<Object, Element>();
+        elements.put("foo", new Element("foo", new byte[]{}));
+        elements.put("bar", null);
+
+        when(mockCache.getAll(keys)).thenReturn(elements);
+        when(mockSerializer.readFrom(isA(InputStream.class)))
+                .thenReturn(cachedValue);
+
+        final Map<String, HttpCacheEntry> resultingEntries = impl.getEntries(keys);
+
+        verify(mockCache).getAll(keys);
+        verify(mockSerializer).readFrom(isA(InputStream.class));
+
+        assertEquals(1, resultingEntries.size());
+        assertSame(cachedValue, resultingEntries.get("foo"));
+    }
+
+    @Test
+    public void testCacheRemoveEntries() {
+        final List<String> keys = Arrays.asList("foo", "bar");
+
+        impl.removeEntries(keys);
+
+        verify(mockCache).removeAll(keys);
+    }
 }
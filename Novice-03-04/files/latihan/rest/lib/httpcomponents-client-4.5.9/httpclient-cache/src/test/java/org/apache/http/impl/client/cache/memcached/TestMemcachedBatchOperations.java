@@ -0,0 +1,179 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.cache.memcached;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.spy.memcached.MemcachedClientIF;
+
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.impl.client.cache.CacheConfig;
+import org.apache.http.impl.client.cache.HttpTestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs the batch operations of {@link MemcachedHttpCacheStorage} against a
+ * local stand-in for a <i>memcached</i> client that counts the blocking
+ * requests, each of which would take a network round trip.
+ */
+public class TestMemcachedBatchOperations {
+
+    private static final int VARIANTS = 8;
+
+    private MemcachedStandIn standIn;
+    private MemcachedHttpCacheStorage impl;
+    private List<String> urls;
+
+    static class MemcachedStandIn implements InvocationHandler {
+
+        final Map<String, Object> data = new ConcurrentHashMap<String, Object>();
+        final AtomicInteger roundTrips = new AtomicInteger();
+
+        private void roundTrip() {
+            roundTrips.incrementAndGet();
+        }
+
+        private static <T> Future<T> completed(final T result) {
+            final FutureTask<T> future = new FutureTask<T>(new Runnable() {
+
+                @Override
+                public void run() {
+                }
+
+            }, result);
+            future.run();
+            return future;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (name.equals("get") && args.length == 1 && args[0] instanceof String) {
+                roundTrip();
+                return data.get(args[0]);
+            } else if (name.equals("getBulk") && args.length == 1 && args[0] instanceof Collection) {
+                roundTrip();
+                final Map<String, Object> result = new HashMap<String, Object>();
+                for (final Object key : (Collection<?>) args[0]) {
+                    final Object value = data.get(key);
+                    if (value != null) {
+                        result.put((String) key, value);
+                    }
+                }
+                return result;
+            } else if (name.equals("set") && args.length == 3) {
+                data.put((String) args[0], args[2]);
+                return completed(Boolean.TRUE);
+            } else if (name.equals("delete") && args.length == 1) {
+                // Asynchronous; the caller does not wait for the response
+                return completed(Boolean.valueOf(data.remove(args[0]) != null));
+            }
+            throw new UnsupportedOperationException(method.toString());
+        }
+
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new MemcachedStandIn();
+        final MemcachedClientIF client = (MemcachedClientIF) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { MemcachedClientIF.class }, standIn);
+        final KeyHashingScheme keyHashingScheme = new KeyHashingScheme() {
+
+            @Override
+            public String hash(final String storageKey) {
+                return "k" + storageKey.hashCode();
+            }
+
+        };
+        impl = new MemcachedHttpCacheStorage(client, CacheConfig.DEFAULT,
+                new MemcachedCacheEntryFactoryImpl(), keyHashingScheme);
+        urls = new ArrayList<String>();
+        for (int i = 0; i < VARIANTS; i++) {
+            final String url = "{Accept-Encoding=enc" + i + "}http://foo.example.com/";
+            impl.putEntry(url, HttpTestUtils.makeCacheEntry());
+            urls.add(url);
+        }
+    }
+
+    @Test
+    public void testGetEntriesTakesOneRoundTrip() throws IOException {
+        final Map<String, HttpCacheEntry> individual = new HashMap<String, HttpCacheEntry>();
+        for (final String url : urls) {
+            individual.put(url, impl.getEntry(url));
+        }
+        Assert.assertEquals(VARIANTS, standIn.roundTrips.get());
+
+        standIn.roundTrips.set(0);
+        final List<String> keys = new ArrayList<String>(urls);
+        keys.add("http://foo.example.com/missing");
+        final Map<String, HttpCacheEntry> batch = impl.getEntries(keys);
+        Assert.assertEquals(1, standIn.roundTrips.get());
+
+        Assert.assertEquals(VARIANTS, batch.size());
+        for (final String url : urls) {
+            Assert.assertNotNull(batch.get(url));
+            Assert.assertEquals(individual.get(url).getRequestDate(), batch.get(url).getRequestDate());
+        }
+    }
+
+    @Test
+    public void testGetEntriesIgnoresEntriesStoredUnderAnotherKey() throws IOException {
+        final String url = urls.get(0);
+        // Simulate a hash collision
+        standIn.data.put("k" + url.hashCode(), standIn.data.get("k" + urls.get(1).hashCode()));
+
+        Assert.assertTrue(impl.getEntries(Collections.singleton(url)).isEmpty());
+    }
+
+    @Test
+    public void testRemoveEntriesDoesNotWaitForEachDelete() throws IOException {
+        impl.removeEntries(urls.subList(0, VARIANTS / 2));
+        Assert.assertEquals(0, standIn.roundTrips.get());
+        final Map<String, HttpCacheEntry> remaining = impl.getEntries(urls);
+        Assert.assertEquals(VARIANTS / 2, remaining.size());
+        for (final String url : urls.subList(VARIANTS / 2, VARIANTS)) {
+            Assert.assertTrue(remaining.containsKey(url));
+        }
+    }
+
+}
@@ -26,6 +26,7 @@
  */
 package org.apache.http.impl.client.cache.memcached;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -35,6 +36,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.impl.client.cache.BinaryHttpCacheEntrySerializer;
 import org.apache.http.impl.client.cache.DefaultHttpCacheEntrySerializer;
 import org.apache.http.impl.client.cache.HttpTestUtils;
 import org.junit.Before;
@@ -88,6 +90,30 @@ public class TestMemcachedCacheEntryImpl {
         assertEquivalent(entry1, impl.getHttpCacheEntry());
     }
 
+    @Test
+    public void canBeReconstitutedWithSerializer() throws Exception {
+        final BinaryHttpCacheEntrySerializer serializer = new BinaryHttpCacheEntrySerializer();
+        impl = new MemcachedCacheEntryImpl("foo", entry, serializer);
+        final byte[] bytes = impl.toByteArray();
+        impl = new MemcachedCacheEntryImpl(null, null, serializer);
+        impl.set(bytes);
+
+        assertEquals("foo", impl.getStorageKey());
+        // Java serialization of equivalent entries may differ in shared references
+        final ByteArrayOutputStream bos1 = new ByteArrayOutputStream();
+        serializer.writeTo(entry, bos1);
+        final ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
+        serializer.writeTo(impl.getHttpCacheEntry(), bos2);
+        assertArrayEquals(bos1.toByteArray(), bos2.toByteArray());
+    }
+
+    @Test(expected=MemcachedSerializationException.class)
+    public void cannotReconstituteFromGarbageWithSerializer() {
+        impl = new MemcachedCacheEntryImpl(null, null, new BinaryHttpCacheEntrySerializer());
+        final byte[] bytes = HttpTestUtils.getRandomBytes(128);
+        impl.set(bytes);
+    }
+
     @Test(expected=MemcachedSerializationException.class)
     public void cannotReconstituteFromGarbage() {
         impl = new MemcachedCacheEntryImpl();
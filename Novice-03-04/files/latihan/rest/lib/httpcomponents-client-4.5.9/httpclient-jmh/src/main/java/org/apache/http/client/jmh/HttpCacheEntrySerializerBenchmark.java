@@ -0,0 +1,124 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.cache.HttpCacheEntry;
+import org.apache.http.client.cache.HttpCacheEntrySerializer;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.cache.BinaryHttpCacheEntrySerializer;
+import org.apache.http.impl.client.cache.DefaultHttpCacheEntrySerializer;
+import org.apache.http.impl.client.cache.HeapResource;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicStatusLine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link DefaultHttpCacheEntrySerializer} and {@link BinaryHttpCacheEntrySerializer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpCacheEntrySerializerBenchmark {
+
+    @Param({"default", "binary"})
+    public String serializerType;
+
+    @Param({"128", "16384"})
+    public int bodySize;
+
+    private HttpCacheEntrySerializer serializer;
+    private HttpCacheEntry entry;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        this.serializer = "binary".equals(this.serializerType)
+                ? new BinaryHttpCacheEntrySerializer()
+                : new DefaultHttpCacheEntrySerializer();
+        final byte[] body = new byte[this.bodySize];
+        new Random(42).nextBytes(body);
+        final Date now = new Date();
+        final Header[] headers = {
+                new BasicHeader("Date", DateUtils.formatDate(now)),
+                new BasicHeader("Server", "Apache/2.4.29 (Ubuntu)"),
+                new BasicHeader("Last-Modified", DateUtils.formatDate(new Date(now.getTime() - 3600000L))),
+                new BasicHeader("ETag", "\"2aa6-5788b9f3ac0c0\""),
+                new BasicHeader("Accept-Ranges", "bytes"),
+                new BasicHeader("Content-Length", Integer.toString(this.bodySize)),
+                new BasicHeader("Cache-Control", "public, max-age=3600"),
+                new BasicHeader("Expires", DateUtils.formatDate(new Date(now.getTime() + 3600000L))),
+                new BasicHeader("Vary", "Accept-Encoding"),
+                new BasicHeader("Content-Type", "text/html; charset=UTF-8"),
+                new BasicHeader("X-Request-Id", "3f2a1c7e-9b0d-4e55-8d1a-6c0e8f7b2a91") };
+        final Map<String, String> variantMap = new HashMap<String, String>();
+        variantMap.put("{Accept-Encoding=gzip}", "{Accept-Encoding=gzip}http://example.com:80/index.html");
+        this.entry = new HttpCacheEntry(now, now, new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"),
+                headers, new HeapResource(body), variantMap);
+        this.serialized = write();
+    }
+
+    private byte[] write() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(this.bodySize + 1024);
+        this.serializer.writeTo(this.entry, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return write();
+    }
+
+    @Benchmark
+    public HttpCacheEntry deserialize() throws IOException {
+        return this.serializer.readFrom(new ByteArrayInputStream(this.serialized));
+    }
+
+}
@@ -125,14 +125,21 @@ public final class DateUtils {
         Args.notNull(dateValue, "Date value");
         final String[] localDateFormats = dateFormats != null ? dateFormats : DEFAULT_PATTERNS;
         final Date localStartDate = startDate != null ? startDate : DEFAULT_TWO_DIGIT_YEAR_START;
-        String v = dateValue;
         // trim single quotes around date if present
         // see issue #5279
-        if (v.length() > 1 && v.startsWith("'") && v.endsWith("'")) {
-            v = v.substring (1, v.length() - 1);
-        }
+        final boolean quoted = dateValue.length() > 1 && dateValue.startsWith("'") && dateValue.endsWith("'");
+        final int start = quoted ? 1 : 0;
+        final int end = quoted ? dateValue.length() - 1 : dateValue.length();
+        String v = null;
 
         for (final String dateFormat : localDateFormats) {
+            final Date date = FastHttpDateFormat.parse(dateValue, start, end, dateFormat, localStartDate);
+            if (date != null) {
+                return date;
+            }
+            if (v == null) {
+                v = dateValue.substring(start, end);
+            }
             final SimpleDateFormat dateParser = DateFormatHolder.formatFor(dateFormat);
             dateParser.set2DigitYearStart(localStartDate);
             final ParsePosition pos = new ParsePosition(0);
@@ -172,6 +179,12 @@ public final class DateUtils {
     public static String formatDate(final Date date, final String pattern) {
         Args.notNull(date, "Date");
         Args.notNull(pattern, "Pattern");
+        if (PATTERN_RFC1123.equals(pattern)) {
+            final String s = FastHttpDateFormat.formatRfc1123(date);
+            if (s != null) {
+                return s;
+            }
+        }
         final SimpleDateFormat formatter = DateFormatHolder.formatFor(pattern);
         return formatter.format(date);
     }
@@ -0,0 +1,408 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.utils;
+
+import java.util.Date;
+
+/**
+ * Parser and formatter of the HTTP date formats supported by {@link DateUtils}
+ * that does not use {@link java.text.SimpleDateFormat}.
+ * <p>
+ * Only strictly well-formed dates in the GMT time zone are handled. For any
+ * other input the parse methods return {@code null}, in which case
+ * {@link DateUtils} falls back to {@link java.text.SimpleDateFormat}. Dates
+ * accepted here are parsed to the same value as {@code SimpleDateFormat}
+ * would. Years before 1600 are left to {@code SimpleDateFormat} as it uses
+ * the Julian calendar for dates before the Gregorian cutover.
+ * </p>
+ */
+final class FastHttpDateFormat {
+
+    private static final String[] DAYS = {
+        "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"
+    };
+    private static final String[] LONG_DAYS = {
+        "Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"
+    };
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 9999;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private FastHttpDateFormat() {
+    }
+
+    /**
+     * Parses the given region of {@code s} according to the given pattern.
+     *
+     * @return the date or {@code null} if the pattern is not supported or
+     *   the input is not a well-formed date in the given format.
+     */
+    static Date parse(
+            final String s, final int start, final int end,
+            final String pattern, final Date twoDigitYearStart) {
+        if (DateUtils.PATTERN_RFC1123.equals(pattern)) {
+            return parseRfc1123(s, start, end);
+        } else if (DateUtils.PATTERN_RFC1036.equals(pattern)) {
+            return parseRfc1036(s, start, end, twoDigitYearStart);
+        } else if (DateUtils.PATTERN_ASCTIME.equals(pattern)) {
+            return parseAsctime(s, start, end);
+        }
+        return null;
+    }
+
+    // EEE, dd MMM yyyy HH:mm:ss zzz
+    private static Date parseRfc1123(final String s, final int start, final int end) {
+        int pos = skipDayName(s, start, end);
+        if (pos < 0 || !expect(s, pos, end, ',') || !expect(s, pos + 1, end, ' ')) {
+            return null;
+        }
+        pos += 2;
+        final int day = digits(s, pos, end, 2);
+        pos += 2;
+        if (day < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int month = month(s, pos, end);
+        pos += 3;
+        if (month < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int year = digits(s, pos, end, 4);
+        pos += 4;
+        if (year < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int secondOfDay = time(s, pos, end);
+        pos += 8;
+        if (secondOfDay < 0 || !expect(s, pos, end, ' ') || !gmt(s, pos + 1, end)) {
+            return null;
+        }
+        return toDate(year, month, day, secondOfDay);
+    }
+
+    // EEE, dd-MMM-yy HH:mm:ss zzz
+    private static Date parseRfc1036(
+            final String s, final int start, final int end, final Date twoDigitYearStart) {
+        int pos = skipDayName(s, start, end);
+        if (pos < 0 || !expect(s, pos, end, ',') || !expect(s, pos + 1, end, ' ')) {
+            return null;
+        }
+        pos += 2;
+        final int day = digits(s, pos, end, 2);
+        pos += 2;
+        if (day < 0 || !expect(s, pos, end, '-')) {
+            return null;
+        }
+        pos++;
+        final int month = month(s, pos, end);
+        pos += 3;
+        if (month < 0 || !expect(s, pos, end, '-')) {
+            return null;
+        }
+        pos++;
+        final int twoDigitYear = digits(s, pos, end, 2);
+        pos += 2;
+        if (twoDigitYear < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int secondOfDay = time(s, pos, end);
+        pos += 8;
+        if (secondOfDay < 0 || !expect(s, pos, end, ' ') || !gmt(s, pos + 1, end)) {
+            return null;
+        }
+        // Place the year within 100 years from the start date the same way
+        // SimpleDateFormat does
+        final long startMillis = twoDigitYearStart.getTime();
+        final int startYear = yearOf(startMillis);
+        if (startYear < MIN_YEAR || startYear > MAX_YEAR - 100) {
+            return null;
+        }
+        final int ambiguousYear = startYear % 100;
+        int year = (startYear / 100) * 100 + twoDigitYear + (twoDigitYear < ambiguousYear ? 100 : 0);
+        if (twoDigitYear == ambiguousYear) {
+            final Date date = toDate(year, month, day, secondOfDay);
+            if (date == null || date.getTime() >= startMillis) {
+                return date;
+            }
+            year += 100;
+        }
+        return toDate(year, month, day, secondOfDay);
+    }
+
+    // EEE MMM d HH:mm:ss yyyy
+    private static Date parseAsctime(final String s, final int start, final int end) {
+        int pos = skipDayName(s, start, end);
+        if (pos < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int month = month(s, pos, end);
+        pos += 3;
+        if (month < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        // The day of month is padded with either a space or a zero
+        if (expect(s, pos, end, ' ')) {
+            pos++;
+        }
+        int day = digits(s, pos, end, 2);
+        if (day >= 0) {
+            pos += 2;
+        } else {
+            day = digits(s, pos, end, 1);
+            pos++;
+        }
+        if (day < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int secondOfDay = time(s, pos, end);
+        pos += 8;
+        if (secondOfDay < 0 || !expect(s, pos, end, ' ')) {
+            return null;
+        }
+        pos++;
+        final int year = digits(s, pos, end, 4);
+        if (year < 0) {
+            return null;
+        }
+        return toDate(year, month, day, secondOfDay);
+    }
+
+    private static boolean expect(final String s, final int pos, final int end, final char ch) {
+        return pos < end && s.charAt(pos) == ch;
+    }
+
+    private static boolean isDigit(final String s, final int pos, final int end) {
+        if (pos >= end) {
+            return false;
+        }
+        final char ch = s.charAt(pos);
+        return ch >= '0' && ch <= '9';
+    }
+
+    /**
+     * Parses exactly {@code count} digits not followed by another digit.
+     *
+     * @return the value or {@code -1}.
+     */
+    private static int digits(final String s, final int pos, final int end, final int count) {
+        if (pos + count > end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = pos; i < pos + count; i++) {
+            final char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return -1;
+            }
+            value = value * 10 + (ch - '0');
+        }
+        return isDigit(s, pos + count, end) ? -1 : value;
+    }
+
+    /**
+     * Parses {@code HH:mm:ss}.
+     *
+     * @return the second of the day or {@code -1}.
+     */
+    private static int time(final String s, final int pos, final int end) {
+        final int hour = digits(s, pos, end, 2);
+        if (hour < 0 || hour > 23 || !expect(s, pos + 2, end, ':')) {
+            return -1;
+        }
+        final int minute = digits(s, pos + 3, end, 2);
+        if (minute < 0 || minute > 59 || !expect(s, pos + 5, end, ':')) {
+            return -1;
+        }
+        final int second = digits(s, pos + 6, end, 2);
+        if (second < 0 || second > 59) {
+            return -1;
+        }
+        return (hour * 60 + minute) * 60 + second;
+    }
+
+    /**
+     * @return the month from 1 to 12 or {@code -1}.
+     */
+    private static int month(final String s, final int pos, final int end) {
+        if (pos + 3 > end) {
+            return -1;
+        }
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (s.startsWith(MONTHS[i], pos)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips a short or long day name. The day of week is not checked against
+     * the date, as {@code SimpleDateFormat} ignores it as well.
+     *
+     * @return the position after the name or {@code -1}.
+     */
+    private static int skipDayName(final String s, final int pos, final int end) {
+        for (int i = 0; i < DAYS.length; i++) {
+            if (s.startsWith(DAYS[i], pos)) {
+                final String longName = LONG_DAYS[i];
+                if (pos + longName.length() <= end && s.startsWith(longName, pos)) {
+                    return pos + longName.length();
+                }
+                return pos + 3 <= end ? pos + 3 : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks for the {@code GMT} zone not followed by an offset.
+     */
+    private static boolean gmt(final String s, final int pos, final int end) {
+        if (pos + 3 > end || !s.startsWith("GMT", pos)) {
+            return false;
+        }
+        return !expect(s, pos + 3, end, '+') && !expect(s, pos + 3, end, '-');
+    }
+
+    private static Date toDate(final int year, final int month, final int day, final int secondOfDay) {
+        if (year < MIN_YEAR || year > MAX_YEAR || day < 1 || day > lengthOfMonth(year, month)) {
+            return null;
+        }
+        return new Date(daysFromCivil(year, month, day) * MILLIS_PER_DAY + secondOfDay * 1000L);
+    }
+
+    private static int lengthOfMonth(final int year, final int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the number of days since 1970-01-01 of the given date
+     * in the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(final int year, final int month, final int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static long floorDiv(final long x, final long y) {
+        final long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    /**
+     * Returns the date of the given number of days since 1970-01-01 in the
+     * proleptic Gregorian calendar as {@code year * 10000 + month * 100 + day}.
+     */
+    private static long civilFromDays(final long days) {
+        final long z = days + 719468;
+        final long era = (z >= 0 ? z : z - 146096) / 146097;
+        final int dayOfEra = (int) (z - era * 146097);
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int mp = (5 * dayOfYear + 2) / 153;
+        final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int yearOf(final long millis) {
+        return (int) floorDiv(civilFromDays(floorDiv(millis, MILLIS_PER_DAY)), 10000);
+    }
+
+    /**
+     * Formats the given date according to {@link DateUtils#PATTERN_RFC1123}.
+     *
+     * @return the formatted date or {@code null} if the year is out of
+     *   the supported range.
+     */
+    static String formatRfc1123(final Date date) {
+        final long millis = date.getTime();
+        final long days = floorDiv(millis, MILLIS_PER_DAY);
+        final int secondOfDay = (int) ((millis - days * MILLIS_PER_DAY) / 1000);
+        final long civil = civilFromDays(days);
+        final long year = floorDiv(civil, 10000);
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return null;
+        }
+        final int month = (int) (civil / 100 % 100);
+        final int day = (int) (civil % 100);
+        // 1970-01-01 was a Thursday
+        final int dayOfWeek = (int) ((days % 7 + 11) % 7);
+
+        final char[] buf = new char[29];
+        DAYS[dayOfWeek].getChars(0, 3, buf, 0);
+        buf[3] = ',';
+        buf[4] = ' ';
+        put2(buf, 5, day);
+        buf[7] = ' ';
+        MONTHS[month - 1].getChars(0, 3, buf, 8);
+        buf[11] = ' ';
+        put2(buf, 12, (int) year / 100);
+        put2(buf, 14, (int) year % 100);
+        buf[16] = ' ';
+        put2(buf, 17, secondOfDay / 3600);
+        buf[19] = ':';
+        put2(buf, 20, secondOfDay / 60 % 60);
+        buf[22] = ':';
+        put2(buf, 23, secondOfDay % 60);
+        buf[25] = ' ';
+        "GMT".getChars(0, 3, buf, 26);
+        return new String(buf);
+    }
+
+    private static void put2(final char[] buf, final int pos, final int value) {
+        buf[pos] = (char) ('0' + value / 10);
+        buf[pos + 1] = (char) ('0' + value % 10);
+    }
+
+}
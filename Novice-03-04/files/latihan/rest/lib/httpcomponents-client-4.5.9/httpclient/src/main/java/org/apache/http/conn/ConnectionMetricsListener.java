@@ -0,0 +1,103 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.conn;
+
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * Listener notified of connection management events along with their
+ * timing. Implementations are invoked by the threads executing requests
+ * and therefore must be thread safe and return quickly.
+ * <p>
+ * All durations are given in nanoseconds.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+public interface ConnectionMetricsListener {
+
+    /**
+     * Called when a connection has been leased from the pool.
+     *
+     * @param route the route of the connection.
+     * @param waitTime time elapsed since the connection was requested.
+     */
+    void connectionLeased(HttpRoute route, long waitTime);
+
+    /**
+     * Called when a connection request timed out, has been cancelled or
+     * interrupted.
+     *
+     * @param route the requested route.
+     * @param waitTime time elapsed since the connection was requested.
+     */
+    void connectionLeaseFailed(HttpRoute route, long waitTime);
+
+    /**
+     * Called when a socket has been connected to the target or proxy host.
+     *
+     * @param route the route being established.
+     * @param connectTime time taken to connect the socket, excluding TLS
+     *   handshake time if that is reported separately.
+     */
+    void connectionEstablished(HttpRoute route, long connectTime);
+
+    /**
+     * Called when all attempts to connect a socket have failed.
+     *
+     * @param route the route being established.
+     * @param connectTime time spent trying to connect.
+     */
+    void connectionFailed(HttpRoute route, long connectTime);
+
+    /**
+     * Called when a TLS handshake has completed.
+     *
+     * @param route the route being established.
+     * @param handshakeTime time taken by the handshake.
+     */
+    void tlsHandshakeCompleted(HttpRoute route, long handshakeTime);
+
+    /**
+     * Called when a request is about to be sent.
+     *
+     * @param route the route of the request.
+     * @param reused {@code true} if the request is sent over a connection
+     *   that has been used before, {@code false} if over a new one.
+     */
+    void requestSubmitted(HttpRoute route, boolean reused);
+
+    /**
+     * Called when an available connection has been closed by the pool.
+     *
+     * @param route the route of the connection.
+     * @param expired {@code true} if the connection has expired,
+     *   {@code false} if it has been idle for too long.
+     */
+    void connectionEvicted(HttpRoute route, boolean expired);
+
+}
@@ -68,11 +68,13 @@ import org.apache.http.client.protocol.RequestDefaultHeaders;
 import org.apache.http.client.protocol.RequestExpectContinue;
 import org.apache.http.client.protocol.ResponseContentEncoding;
 import org.apache.http.client.protocol.ResponseProcessCookies;
+import org.apache.http.concurrent.VirtualThreads;
 import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.Lookup;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionMetricsListener;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.SchemePortResolver;
@@ -92,6 +94,7 @@ import org.apache.http.impl.auth.DigestSchemeFactory;
 import org.apache.http.impl.auth.KerberosSchemeFactory;
 import org.apache.http.impl.auth.NTLMSchemeFactory;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
+import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
 import org.apache.http.impl.conn.DefaultProxyRoutePlanner;
 import org.apache.http.impl.conn.DefaultRoutePlanner;
 import org.apache.http.impl.conn.DefaultSchemePortResolver;
@@ -104,6 +107,7 @@ import org.apache.http.impl.execchain.ProtocolExec;
 import org.apache.http.impl.execchain.RedirectExec;
 import org.apache.http.impl.execchain.RetryExec;
 import org.apache.http.impl.execchain.ServiceUnavailableRetryExec;
+import org.apache.http.pool.PoolConcurrencyPolicy;
 import org.apache.http.protocol.HttpProcessor;
 import org.apache.http.protocol.HttpProcessorBuilder;
 import org.apache.http.protocol.HttpRequestExecutor;
@@ -181,6 +185,7 @@ public class HttpClientBuilder {
     private RedirectStrategy redirectStrategy;
     private ConnectionBackoffStrategy connectionBackoffStrategy;
     private BackoffManager backoffManager;
+    private ConnectionMetricsListener connectionMetricsListener;
     private ServiceUnavailableRetryStrategy serviceUnavailStrategy;
     private Lookup<AuthSchemeProvider> authSchemeRegistry;
     private Lookup<CookieSpecProvider> cookieSpecRegistry;
@@ -199,6 +204,7 @@ public class HttpClientBuilder {
     private TimeUnit maxIdleTimeUnit;
 
     private boolean systemProperties;
+    private boolean virtualThreads;
     private boolean redirectHandlingDisabled;
     private boolean automaticRetriesDisabled;
     private boolean contentCompressionDisabled;
@@ -613,6 +619,23 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Assigns {@link ConnectionMetricsListener} instance.
+     * <p>
+     * The listener receives connection lease, connect, TLS handshake and
+     * eviction events only if the connection manager is created by this builder.
+     * Please note the connection manager can be overridden by the
+     * {@link #setConnectionManager(HttpClientConnectionManager)} method.
+     * </p>
+     *
+     * @since 4.5.10
+     */
+    public final HttpClientBuilder setConnectionMetricsListener(
+            final ConnectionMetricsListener connectionMetricsListener) {
+        this.connectionMetricsListener = connectionMetricsListener;
+        return this;
+    }
+
     /**
      * Assigns {@link DnsResolver} instance.
      * <p>
@@ -782,6 +805,20 @@ public class HttpClientBuilder {
         return this;
     }
 
+    /**
+     * Makes this instance of HttpClient run its background tasks such as
+     * connection eviction on virtual threads. Requests are executed by
+     * the calling threads, which can be virtual threads as well. Requires
+     * Java 21 or newer.
+     *
+     * @see org.apache.http.concurrent.VirtualThreads#isSupported()
+     * @since 4.5.10
+     */
+    public final HttpClientBuilder useVirtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+
     /**
      * Makes this instance of HttpClient proactively evict expired connections from the
      * connection pool using a background thread.
@@ -904,7 +941,8 @@ public class HttpClientBuilder {
                 proxyHttpProcessor,
                 targetAuthStrategy,
                 proxyAuthStrategy,
-                userTokenHandler);
+                userTokenHandler,
+                connectionMetricsListener);
     }
 
     /**
@@ -982,15 +1020,19 @@ public class HttpClientBuilder {
             }
             @SuppressWarnings("resource")
             final PoolingHttpClientConnectionManager poolingmgr = new PoolingHttpClientConnectionManager(
-                    RegistryBuilder.<ConnectionSocketFactory>create()
-                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
-                        .register("https", sslSocketFactoryCopy)
-                        .build(),
-                    null,
+                    new DefaultHttpClientConnectionOperator(
+                            RegistryBuilder.<ConnectionSocketFactory>create()
+                                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                                .register("https", sslSocketFactoryCopy)
+                                .build(),
+                            null,
+                            dnsResolver,
+                            connectionMetricsListener),
                     null,
-                    dnsResolver,
                     connTimeToLive,
-                    connTimeToLiveTimeUnit != null ? connTimeToLiveTimeUnit : TimeUnit.MILLISECONDS);
+                    connTimeToLiveTimeUnit != null ? connTimeToLiveTimeUnit : TimeUnit.MILLISECONDS,
+                    PoolConcurrencyPolicy.STRICT,
+                    connectionMetricsListener);
             if (defaultSocketConfig != null) {
                 poolingmgr.setDefaultSocketConfig(defaultSocketConfig);
             }
@@ -1220,6 +1262,7 @@ public class HttpClientBuilder {
 
             if (evictExpiredConnections || evictIdleConnections) {
                 final IdleConnectionEvictor connectionEvictor = new IdleConnectionEvictor(cm,
+                        virtualThreads ? VirtualThreads.newThreadFactory("Connection evictor") : null,
                         maxIdleTime > 0 ? maxIdleTime : 10, maxIdleTimeUnit != null ? maxIdleTimeUnit : TimeUnit.SECONDS,
                         maxIdleTime, maxIdleTimeUnit);
                 closeablesCopy.add(new Closeable() {
@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.execchain.PipeliningClientExec;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.Args;
+
+/**
+ * Blocking client that executes batches of idempotent requests using
+ * HTTP/1.1 request pipelining. All requests of a batch are sent to the same
+ * target over a single persistent connection leased from the given
+ * connection manager, without waiting for the responses to the preceding
+ * requests. The responses are returned in the order of the requests with
+ * their content buffered in memory.
+ * <p>
+ * Requests that have not been responded to when the connection gets closed
+ * or reset are re-sent over a new connection. Only requests with idempotent
+ * methods that enclose no entity can be pipelined.
+ * </p>
+ * <p>
+ * The client does not take ownership of the connection manager, which can be
+ * shared with other clients.
+ * </p>
+ *
+ * @see PipeliningClientExec
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE_CONDITIONAL)
+public class PipeliningHttpClient {
+
+    public static final int DEFAULT_MAX_PIPELINE_DEPTH = 16;
+
+    private final PipeliningClientExec requestExecutor;
+
+    public PipeliningHttpClient(
+            final HttpClientConnectionManager connManager,
+            final int maxPipelineDepth) {
+        super();
+        Args.notNull(connManager, "HTTP connection manager");
+        this.requestExecutor = new PipeliningClientExec(
+                connManager,
+                DefaultClientConnectionReuseStrategy.INSTANCE,
+                DefaultConnectionKeepAliveStrategy.INSTANCE,
+                maxPipelineDepth);
+    }
+
+    public PipeliningHttpClient(final HttpClientConnectionManager connManager) {
+        this(connManager, DEFAULT_MAX_PIPELINE_DEPTH);
+    }
+
+    /**
+     * Executes the requests against the given target using request pipelining.
+     *
+     * @param target    the target host
+     * @param requests  the requests to execute
+     * @param context   the context to use for the execution, or
+     *                  {@code null} to use the default context
+     * @return  the responses in the order of the requests
+     * @throws IOException in case of a problem or the connection was aborted
+     * @throws ClientProtocolException in case of an http protocol error
+     * @throws IllegalArgumentException if any of the requests cannot be pipelined
+     */
+    public List<HttpResponse> execute(
+            final HttpHost target,
+            final List<? extends HttpRequest> requests,
+            final HttpContext context) throws IOException, ClientProtocolException {
+        Args.notNull(target, "Target host");
+        Args.notNull(requests, "HTTP requests");
+        final List<HttpRequestWrapper> wrappers = new ArrayList<HttpRequestWrapper>(requests.size());
+        for (final HttpRequest request : requests) {
+            Args.notNull(request, "HTTP request");
+            wrappers.add(HttpRequestWrapper.wrap(request, target));
+        }
+        final HttpClientContext localcontext = HttpClientContext.adapt(
+                context != null ? context : new BasicHttpContext());
+        try {
+            return this.requestExecutor.execute(new HttpRoute(target), wrappers, localcontext);
+        } catch (final HttpException httpException) {
+            throw new ClientProtocolException(httpException);
+        }
+    }
+
+    /**
+     * Executes the requests against the given target using request pipelining
+     * and the default context.
+     *
+     * @see #execute(HttpHost, List, HttpContext)
+     */
+    public List<HttpResponse> execute(
+            final HttpHost target,
+            final List<? extends HttpRequest> requests) throws IOException, ClientProtocolException {
+        return execute(target, requests, null);
+    }
+
+}
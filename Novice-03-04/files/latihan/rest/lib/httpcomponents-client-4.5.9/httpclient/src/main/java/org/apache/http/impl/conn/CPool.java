@@ -43,7 +43,8 @@ import org.apache.http.pool.PoolEntryCallback;
  * @since 4.3
  */
 @Contract(threading = ThreadingBehavior.SAFE)
-class CPool extends AbstractConnPool<HttpRoute, ManagedHttpClientConnection, CPoolEntry> {
+class CPool extends AbstractConnPool<HttpRoute, ManagedHttpClientConnection, CPoolEntry>
+        implements ManagedCPool {
 
     private static final AtomicLong COUNTER = new AtomicLong();
 
@@ -72,12 +73,12 @@ class CPool extends AbstractConnPool<HttpRoute, ManagedHttpClientConnection, CPo
     }
 
     @Override
-    protected void enumAvailable(final PoolEntryCallback<HttpRoute, ManagedHttpClientConnection> callback) {
+    public void enumAvailable(final PoolEntryCallback<HttpRoute, ManagedHttpClientConnection> callback) {
         super.enumAvailable(callback);
     }
 
     @Override
-    protected void enumLeased(final PoolEntryCallback<HttpRoute, ManagedHttpClientConnection> callback) {
+    public void enumLeased(final PoolEntryCallback<HttpRoute, ManagedHttpClientConnection> callback) {
         super.enumLeased(callback);
     }
 
@@ -29,6 +29,7 @@ package org.apache.http.impl.conn;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import javax.net.ssl.SSLSession;
 
@@ -46,6 +47,9 @@ import org.apache.http.protocol.HttpContext;
  */
 class CPoolProxy implements ManagedHttpClientConnection, HttpContext {
 
+    private static final AtomicReferenceFieldUpdater<CPoolProxy, CPoolEntry> POOL_ENTRY =
+            AtomicReferenceFieldUpdater.newUpdater(CPoolProxy.class, CPoolEntry.class, "poolEntry");
+
     private volatile CPoolEntry poolEntry;
 
     CPoolProxy(final CPoolEntry entry) {
@@ -58,9 +62,7 @@ class CPoolProxy implements ManagedHttpClientConnection, HttpContext {
     }
 
     CPoolEntry detach() {
-        final CPoolEntry local = this.poolEntry;
-        this.poolEntry = null;
-        return local;
+        return POOL_ENTRY.getAndSet(this, null);
     }
 
     ManagedHttpClientConnection getConnection() {
@@ -0,0 +1,197 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+
+/**
+ * Connection metrics of a single route or of all routes, as gathered
+ * by {@link ConnectionMetricsCollector}.
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class ConnectionMetrics {
+
+    private final TimingHistogram leaseWaitTime;
+    private final TimingHistogram connectTime;
+    private final TimingHistogram tlsHandshakeTime;
+    private final AtomicLong leaseFailureCount;
+    private final AtomicLong connectFailureCount;
+    private final AtomicLong requestCount;
+    private final AtomicLong reusedRequestCount;
+    private final AtomicLong idleEvictionCount;
+    private final AtomicLong expiredEvictionCount;
+
+    ConnectionMetrics() {
+        super();
+        this.leaseWaitTime = new TimingHistogram();
+        this.connectTime = new TimingHistogram();
+        this.tlsHandshakeTime = new TimingHistogram();
+        this.leaseFailureCount = new AtomicLong();
+        this.connectFailureCount = new AtomicLong();
+        this.requestCount = new AtomicLong();
+        this.reusedRequestCount = new AtomicLong();
+        this.idleEvictionCount = new AtomicLong();
+        this.expiredEvictionCount = new AtomicLong();
+    }
+
+    void leased(final long waitTime) {
+        this.leaseWaitTime.record(waitTime);
+    }
+
+    void leaseFailed() {
+        this.leaseFailureCount.incrementAndGet();
+    }
+
+    void connected(final long time) {
+        this.connectTime.record(time);
+    }
+
+    void connectFailed() {
+        this.connectFailureCount.incrementAndGet();
+    }
+
+    void handshakeCompleted(final long time) {
+        this.tlsHandshakeTime.record(time);
+    }
+
+    void requestSubmitted(final boolean reused) {
+        this.requestCount.incrementAndGet();
+        if (reused) {
+            this.reusedRequestCount.incrementAndGet();
+        }
+    }
+
+    void evicted(final boolean expired) {
+        if (expired) {
+            this.expiredEvictionCount.incrementAndGet();
+        } else {
+            this.idleEvictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the time requests waited for a connection to be leased from the pool.
+     */
+    public TimingHistogram getLeaseWaitTime() {
+        return this.leaseWaitTime;
+    }
+
+    /**
+     * Returns the time taken to connect sockets, excluding TLS handshakes.
+     */
+    public TimingHistogram getConnectTime() {
+        return this.connectTime;
+    }
+
+    /**
+     * Returns the time taken by TLS handshakes.
+     */
+    public TimingHistogram getTlsHandshakeTime() {
+        return this.tlsHandshakeTime;
+    }
+
+    /**
+     * Returns the number of connection requests that timed out or were aborted.
+     */
+    public long getLeaseFailureCount() {
+        return this.leaseFailureCount.get();
+    }
+
+    /**
+     * Returns the number of failed attempts to establish a connection.
+     */
+    public long getConnectFailureCount() {
+        return this.connectFailureCount.get();
+    }
+
+    /**
+     * Returns the number of requests sent.
+     */
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    /**
+     * Returns the number of requests sent over a previously used connection.
+     */
+    public long getReusedRequestCount() {
+        return this.reusedRequestCount.get();
+    }
+
+    /**
+     * Returns the fraction of requests sent over a previously used connection.
+     */
+    public double getReuseRatio() {
+        final long total = this.requestCount.get();
+        return total > 0 ? (double) this.reusedRequestCount.get() / total : 0;
+    }
+
+    /**
+     * Returns the number of available connections closed for being idle too long.
+     */
+    public long getIdleEvictionCount() {
+        return this.idleEvictionCount.get();
+    }
+
+    /**
+     * Returns the number of available connections closed after having expired.
+     */
+    public long getExpiredEvictionCount() {
+        return this.expiredEvictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[lease wait: ");
+        buffer.append(this.leaseWaitTime);
+        buffer.append("; lease failures: ");
+        buffer.append(getLeaseFailureCount());
+        buffer.append("; connect: ");
+        buffer.append(this.connectTime);
+        buffer.append("; connect failures: ");
+        buffer.append(getConnectFailureCount());
+        buffer.append("; tls handshake: ");
+        buffer.append(this.tlsHandshakeTime);
+        buffer.append("; requests: ");
+        buffer.append(getRequestCount());
+        buffer.append("; reused: ");
+        buffer.append(getReusedRequestCount());
+        buffer.append("; idle evictions: ");
+        buffer.append(getIdleEvictionCount());
+        buffer.append("; expired evictions: ");
+        buffer.append(getExpiredEvictionCount());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
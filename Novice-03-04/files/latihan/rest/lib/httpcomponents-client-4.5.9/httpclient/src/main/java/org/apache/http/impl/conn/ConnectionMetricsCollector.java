@@ -0,0 +1,138 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.conn.ConnectionMetricsListener;
+import org.apache.http.conn.routing.HttpRoute;
+
+/**
+ * {@link ConnectionMetricsListener} that aggregates events into
+ * {@link ConnectionMetrics} per route and for all routes.
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class ConnectionMetricsCollector implements ConnectionMetricsListener {
+
+    private final ConcurrentMap<HttpRoute, ConnectionMetrics> routeMetrics;
+    private final ConnectionMetrics totals;
+
+    public ConnectionMetricsCollector() {
+        super();
+        this.routeMetrics = new ConcurrentHashMap<HttpRoute, ConnectionMetrics>();
+        this.totals = new ConnectionMetrics();
+    }
+
+    private ConnectionMetrics metricsFor(final HttpRoute route) {
+        ConnectionMetrics metrics = this.routeMetrics.get(route);
+        if (metrics == null) {
+            final ConnectionMetrics newMetrics = new ConnectionMetrics();
+            metrics = this.routeMetrics.putIfAbsent(route, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public void connectionLeased(final HttpRoute route, final long waitTime) {
+        metricsFor(route).leased(waitTime);
+        this.totals.leased(waitTime);
+    }
+
+    @Override
+    public void connectionLeaseFailed(final HttpRoute route, final long waitTime) {
+        metricsFor(route).leaseFailed();
+        this.totals.leaseFailed();
+    }
+
+    @Override
+    public void connectionEstablished(final HttpRoute route, final long connectTime) {
+        metricsFor(route).connected(connectTime);
+        this.totals.connected(connectTime);
+    }
+
+    @Override
+    public void connectionFailed(final HttpRoute route, final long connectTime) {
+        metricsFor(route).connectFailed();
+        this.totals.connectFailed();
+    }
+
+    @Override
+    public void tlsHandshakeCompleted(final HttpRoute route, final long handshakeTime) {
+        metricsFor(route).handshakeCompleted(handshakeTime);
+        this.totals.handshakeCompleted(handshakeTime);
+    }
+
+    @Override
+    public void requestSubmitted(final HttpRoute route, final boolean reused) {
+        metricsFor(route).requestSubmitted(reused);
+        this.totals.requestSubmitted(reused);
+    }
+
+    @Override
+    public void connectionEvicted(final HttpRoute route, final boolean expired) {
+        metricsFor(route).evicted(expired);
+        this.totals.evicted(expired);
+    }
+
+    /**
+     * Returns the routes for which events have been recorded.
+     */
+    public Set<HttpRoute> getRoutes() {
+        return Collections.unmodifiableSet(this.routeMetrics.keySet());
+    }
+
+    /**
+     * Returns the metrics of the given route or {@code null} if no events
+     * have been recorded for the route.
+     */
+    public ConnectionMetrics getMetrics(final HttpRoute route) {
+        return this.routeMetrics.get(route);
+    }
+
+    /**
+     * Returns the metrics of all routes combined.
+     */
+    public ConnectionMetrics getTotals() {
+        return this.totals;
+    }
+
+    @Override
+    public String toString() {
+        return this.totals.toString();
+    }
+
+}
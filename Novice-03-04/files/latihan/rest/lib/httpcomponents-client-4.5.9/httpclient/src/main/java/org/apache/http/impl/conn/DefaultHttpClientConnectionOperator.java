@@ -43,14 +43,18 @@ import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.Lookup;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionMetricsListener;
 import org.apache.http.conn.DnsResolver;
 import org.apache.http.conn.HttpClientConnectionOperator;
 import org.apache.http.conn.HttpHostConnectException;
 import org.apache.http.conn.ManagedHttpClientConnection;
 import org.apache.http.conn.SchemePortResolver;
 import org.apache.http.conn.UnsupportedSchemeException;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.RouteInfo;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.Args;
 
@@ -71,11 +75,16 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
     private final Lookup<ConnectionSocketFactory> socketFactoryRegistry;
     private final SchemePortResolver schemePortResolver;
     private final DnsResolver dnsResolver;
+    private final ConnectionMetricsListener metricsListener;
 
+    /**
+     * @since 4.5.10
+     */
     public DefaultHttpClientConnectionOperator(
             final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
             final SchemePortResolver schemePortResolver,
-            final DnsResolver dnsResolver) {
+            final DnsResolver dnsResolver,
+            final ConnectionMetricsListener metricsListener) {
         super();
         Args.notNull(socketFactoryRegistry, "Socket factory registry");
         this.socketFactoryRegistry = socketFactoryRegistry;
@@ -83,6 +92,15 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
             DefaultSchemePortResolver.INSTANCE;
         this.dnsResolver = dnsResolver != null ? dnsResolver :
             SystemDefaultDnsResolver.INSTANCE;
+        this.metricsListener = metricsListener != null ? metricsListener :
+            NoopConnectionMetricsListener.INSTANCE;
+    }
+
+    public DefaultHttpClientConnectionOperator(
+            final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
+            final SchemePortResolver schemePortResolver,
+            final DnsResolver dnsResolver) {
+        this(socketFactoryRegistry, schemePortResolver, dnsResolver, null);
     }
 
     @SuppressWarnings("unchecked")
@@ -95,6 +113,11 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
         return reg;
     }
 
+    private static HttpRoute getRoute(final HttpHost host, final HttpContext context) {
+        final RouteInfo route = HttpClientContext.adapt(context).getHttpRoute();
+        return route instanceof HttpRoute ? (HttpRoute) route : new HttpRoute(host);
+    }
+
     @Override
     public void connect(
             final ManagedHttpClientConnection conn,
@@ -112,59 +135,80 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
         final InetAddress[] addresses = host.getAddress() != null ?
                 new InetAddress[] { host.getAddress() } : this.dnsResolver.resolve(host.getHostName());
         final int port = this.schemePortResolver.resolve(host);
-        for (int i = 0; i < addresses.length; i++) {
-            final InetAddress address = addresses[i];
-            final boolean last = i == addresses.length - 1;
-
-            Socket sock = sf.createSocket(context);
-            sock.setSoTimeout(socketConfig.getSoTimeout());
-            sock.setReuseAddress(socketConfig.isSoReuseAddress());
-            sock.setTcpNoDelay(socketConfig.isTcpNoDelay());
-            sock.setKeepAlive(socketConfig.isSoKeepAlive());
-            if (socketConfig.getRcvBufSize() > 0) {
-                sock.setReceiveBufferSize(socketConfig.getRcvBufSize());
-            }
-            if (socketConfig.getSndBufSize() > 0) {
-                sock.setSendBufferSize(socketConfig.getSndBufSize());
-            }
+        final long start = System.nanoTime();
+        boolean connected = false;
+        context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
+        try {
+            for (int i = 0; i < addresses.length; i++) {
+                final InetAddress address = addresses[i];
+                final boolean last = i == addresses.length - 1;
 
-            final int linger = socketConfig.getSoLinger();
-            if (linger >= 0) {
-                sock.setSoLinger(true, linger);
-            }
-            conn.bind(sock);
+                Socket sock = sf.createSocket(context);
+                sock.setSoTimeout(socketConfig.getSoTimeout());
+                sock.setReuseAddress(socketConfig.isSoReuseAddress());
+                sock.setTcpNoDelay(socketConfig.isTcpNoDelay());
+                sock.setKeepAlive(socketConfig.isSoKeepAlive());
+                if (socketConfig.getRcvBufSize() > 0) {
+                    sock.setReceiveBufferSize(socketConfig.getRcvBufSize());
+                }
+                if (socketConfig.getSndBufSize() > 0) {
+                    sock.setSendBufferSize(socketConfig.getSndBufSize());
+                }
 
-            final InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
-            if (this.log.isDebugEnabled()) {
-                this.log.debug("Connecting to " + remoteAddress);
-            }
-            try {
-                sock = sf.connectSocket(
-                        connectTimeout, sock, host, remoteAddress, localAddress, context);
+                final int linger = socketConfig.getSoLinger();
+                if (linger >= 0) {
+                    sock.setSoLinger(true, linger);
+                }
                 conn.bind(sock);
+
+                final InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
                 if (this.log.isDebugEnabled()) {
-                    this.log.debug("Connection established " + conn);
-                }
-                return;
-            } catch (final SocketTimeoutException ex) {
-                if (last) {
-                    throw new ConnectTimeoutException(ex, host, addresses);
+                    this.log.debug("Connecting to " + remoteAddress);
                 }
-            } catch (final ConnectException ex) {
-                if (last) {
-                    final String msg = ex.getMessage();
-                    throw "Connection timed out".equals(msg)
-                                    ? new ConnectTimeoutException(ex, host, addresses)
-                                    : new HttpHostConnectException(ex, host, addresses);
+                try {
+                    sock = sf.connectSocket(
+                            connectTimeout, sock, host, remoteAddress, localAddress, context);
+                    conn.bind(sock);
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug("Connection established " + conn);
+                    }
+                    connected = true;
+                    return;
+                } catch (final SocketTimeoutException ex) {
+                    if (last) {
+                        throw new ConnectTimeoutException(ex, host, addresses);
+                    }
+                } catch (final ConnectException ex) {
+                    if (last) {
+                        final String msg = ex.getMessage();
+                        throw "Connection timed out".equals(msg)
+                                        ? new ConnectTimeoutException(ex, host, addresses)
+                                        : new HttpHostConnectException(ex, host, addresses);
+                    }
+                } catch (final NoRouteToHostException ex) {
+                    if (last) {
+                        throw ex;
+                    }
                 }
-            } catch (final NoRouteToHostException ex) {
-                if (last) {
-                    throw ex;
+                if (this.log.isDebugEnabled()) {
+                    this.log.debug("Connect to " + remoteAddress + " timed out. " +
+                            "Connection will be retried using another IP address");
                 }
             }
-            if (this.log.isDebugEnabled()) {
-                this.log.debug("Connect to " + remoteAddress + " timed out. " +
-                        "Connection will be retried using another IP address");
+        } finally {
+            final long elapsed = System.nanoTime() - start;
+            final HttpRoute route = getRoute(host, context);
+            if (connected) {
+                final Object handshakeTime = context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
+                if (handshakeTime instanceof Long) {
+                    final long t = ((Long) handshakeTime).longValue();
+                    this.metricsListener.connectionEstablished(route, elapsed - t);
+                    this.metricsListener.tlsHandshakeCompleted(route, t);
+                } else {
+                    this.metricsListener.connectionEstablished(route, elapsed);
+                }
+            } else {
+                this.metricsListener.connectionFailed(route, elapsed);
             }
         }
     }
@@ -188,7 +232,9 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
         final LayeredConnectionSocketFactory lsf = (LayeredConnectionSocketFactory) sf;
         Socket sock = conn.getSocket();
         final int port = this.schemePortResolver.resolve(host);
+        final long start = System.nanoTime();
         sock = lsf.createLayeredSocket(sock, host.getHostName(), port, context);
+        this.metricsListener.tlsHandshakeCompleted(getRoute(host, context), System.nanoTime() - start);
         conn.bind(sock);
     }
 
@@ -49,6 +49,7 @@ import org.apache.http.config.Lookup;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionMetricsListener;
 import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.DnsResolver;
@@ -63,6 +64,8 @@ import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.pool.ConnFactory;
 import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolConcurrencyPolicy;
+import org.apache.http.pool.PoolEntry;
 import org.apache.http.pool.PoolEntryCallback;
 import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HttpContext;
@@ -107,8 +110,9 @@ public class PoolingHttpClientConnectionManager
     private final Log log = LogFactory.getLog(getClass());
 
     private final ConfigData configData;
-    private final CPool pool;
+    private final ManagedCPool pool;
     private final HttpClientConnectionOperator connectionOperator;
+    private final ConnectionMetricsListener metricsListener;
     private final AtomicBoolean isShutDown;
 
     private static Registry<ConnectionSocketFactory> getDefaultRegistry() {
@@ -175,12 +179,50 @@ public class PoolingHttpClientConnectionManager
         final HttpClientConnectionOperator httpClientConnectionOperator,
         final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connFactory,
         final long timeToLive, final TimeUnit timeUnit) {
+        this(httpClientConnectionOperator, connFactory, timeToLive, timeUnit, PoolConcurrencyPolicy.STRICT);
+    }
+
+    /**
+     * @param poolConcurrencyPolicy {@link PoolConcurrencyPolicy#STRIPED} to guard each route
+     *   with its own lock, which reduces contention when connections to many routes are
+     *   leased concurrently, or {@link PoolConcurrencyPolicy#STRICT} to use a single
+     *   pool-wide lock.
+     *
+     * @since 4.5.10
+     */
+    public PoolingHttpClientConnectionManager(
+        final HttpClientConnectionOperator httpClientConnectionOperator,
+        final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connFactory,
+        final long timeToLive, final TimeUnit timeUnit,
+        final PoolConcurrencyPolicy poolConcurrencyPolicy) {
+        this(httpClientConnectionOperator, connFactory, timeToLive, timeUnit, poolConcurrencyPolicy, null);
+    }
+
+    /**
+     * @param metricsListener listener notified of connection leases and evictions.
+     *   The listener should also be passed to the connection operator
+     *   in order to receive connect and TLS handshake events.
+     *
+     * @since 4.5.10
+     */
+    public PoolingHttpClientConnectionManager(
+        final HttpClientConnectionOperator httpClientConnectionOperator,
+        final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connFactory,
+        final long timeToLive, final TimeUnit timeUnit,
+        final PoolConcurrencyPolicy poolConcurrencyPolicy,
+        final ConnectionMetricsListener metricsListener) {
         super();
         this.configData = new ConfigData();
-        this.pool = new CPool(new InternalConnectionFactory(
-                this.configData, connFactory), 2, 20, timeToLive, timeUnit);
+        final InternalConnectionFactory internalConnFactory = new InternalConnectionFactory(
+                this.configData, connFactory);
+        if (poolConcurrencyPolicy == PoolConcurrencyPolicy.STRIPED) {
+            this.pool = new StripedCPool(internalConnFactory, 2, 20, timeToLive, timeUnit);
+        } else {
+            this.pool = new CPool(internalConnFactory, 2, 20, timeToLive, timeUnit);
+        }
         this.pool.setValidateAfterInactivity(2000);
         this.connectionOperator = Args.notNull(httpClientConnectionOperator, "HttpClientConnectionOperator");
+        this.metricsListener = metricsListener != null ? metricsListener : NoopConnectionMetricsListener.INSTANCE;
         this.isShutDown = new AtomicBoolean(false);
     }
 
@@ -188,7 +230,7 @@ public class PoolingHttpClientConnectionManager
      * Visible for test.
      */
     PoolingHttpClientConnectionManager(
-            final CPool pool,
+            final ManagedCPool pool,
             final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
             final SchemePortResolver schemePortResolver,
             final DnsResolver dnsResolver) {
@@ -197,6 +239,7 @@ public class PoolingHttpClientConnectionManager
         this.pool = pool;
         this.connectionOperator = new DefaultHttpClientConnectionOperator(
                 socketFactoryRegistry, schemePortResolver, dnsResolver);
+        this.metricsListener = NoopConnectionMetricsListener.INSTANCE;
         this.isShutDown = new AtomicBoolean(false);
     }
 
@@ -265,6 +308,7 @@ public class PoolingHttpClientConnectionManager
         if (this.log.isDebugEnabled()) {
             this.log.debug("Connection request: " + format(route, state) + formatStats(route));
         }
+        final long requestTime = System.nanoTime();
         final Future<CPoolEntry> future = this.pool.lease(route, state, null);
         return new ConnectionRequest() {
 
@@ -277,7 +321,19 @@ public class PoolingHttpClientConnectionManager
             public HttpClientConnection get(
                     final long timeout,
                     final TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
-                final HttpClientConnection conn = leaseConnection(future, timeout, timeUnit);
+                final HttpClientConnection conn;
+                boolean leased = false;
+                try {
+                    conn = leaseConnection(future, timeout, timeUnit);
+                    leased = true;
+                } finally {
+                    final long waitTime = System.nanoTime() - requestTime;
+                    if (leased) {
+                        metricsListener.connectionLeased(route, waitTime);
+                    } else {
+                        metricsListener.connectionLeaseFailed(route, waitTime);
+                    }
+                }
                 if (conn.isOpen()) {
                     final HttpHost host;
                     if (route.getProxyHost() != null) {
@@ -321,33 +377,31 @@ public class PoolingHttpClientConnectionManager
             final Object state,
             final long keepalive, final TimeUnit timeUnit) {
         Args.notNull(managedConn, "Managed connection");
-        synchronized (managedConn) {
-            final CPoolEntry entry = CPoolProxy.detach(managedConn);
-            if (entry == null) {
-                return;
-            }
-            final ManagedHttpClientConnection conn = entry.getConnection();
-            try {
-                if (conn.isOpen()) {
-                    final TimeUnit effectiveUnit = timeUnit != null ? timeUnit : TimeUnit.MILLISECONDS;
-                    entry.setState(state);
-                    entry.updateExpiry(keepalive, effectiveUnit);
-                    if (this.log.isDebugEnabled()) {
-                        final String s;
-                        if (keepalive > 0) {
-                            s = "for " + (double) effectiveUnit.toMillis(keepalive) / 1000 + " seconds";
-                        } else {
-                            s = "indefinitely";
-                        }
-                        this.log.debug("Connection " + format(entry) + " can be kept alive " + s);
-                    }
-                    conn.setSocketTimeout(0);
-                }
-            } finally {
-                this.pool.release(entry, conn.isOpen() && entry.isRouteComplete());
+        final CPoolEntry entry = CPoolProxy.detach(managedConn);
+        if (entry == null) {
+            return;
+        }
+        final ManagedHttpClientConnection conn = entry.getConnection();
+        try {
+            if (conn.isOpen()) {
+                final TimeUnit effectiveUnit = timeUnit != null ? timeUnit : TimeUnit.MILLISECONDS;
+                entry.setState(state);
+                entry.updateExpiry(keepalive, effectiveUnit);
                 if (this.log.isDebugEnabled()) {
-                    this.log.debug("Connection released: " + format(entry) + formatStats(entry.getRoute()));
+                    final String s;
+                    if (keepalive > 0) {
+                        s = "for " + (double) effectiveUnit.toMillis(keepalive) / 1000 + " seconds";
+                    } else {
+                        s = "indefinitely";
+                    }
+                    this.log.debug("Connection " + format(entry) + " can be kept alive " + s);
                 }
+                conn.setSocketTimeout(0);
+            }
+        } finally {
+            this.pool.release(entry, conn.isOpen() && entry.isRouteComplete());
+            if (this.log.isDebugEnabled()) {
+                this.log.debug("Connection released: " + format(entry) + formatStats(entry.getRoute()));
             }
         }
     }
@@ -360,11 +414,7 @@ public class PoolingHttpClientConnectionManager
             final HttpContext context) throws IOException {
         Args.notNull(managedConn, "Managed Connection");
         Args.notNull(route, "HTTP route");
-        final ManagedHttpClientConnection conn;
-        synchronized (managedConn) {
-            final CPoolEntry entry = CPoolProxy.getPoolEntry(managedConn);
-            conn = entry.getConnection();
-        }
+        final ManagedHttpClientConnection conn = CPoolProxy.getPoolEntry(managedConn).getConnection();
         final HttpHost host;
         if (route.getProxyHost() != null) {
             host = route.getProxyHost();
@@ -382,11 +432,7 @@ public class PoolingHttpClientConnectionManager
             final HttpContext context) throws IOException {
         Args.notNull(managedConn, "Managed Connection");
         Args.notNull(route, "HTTP route");
-        final ManagedHttpClientConnection conn;
-        synchronized (managedConn) {
-            final CPoolEntry entry = CPoolProxy.getPoolEntry(managedConn);
-            conn = entry.getConnection();
-        }
+        final ManagedHttpClientConnection conn = CPoolProxy.getPoolEntry(managedConn).getConnection();
         this.connectionOperator.upgrade(conn, route.getTargetHost(), context);
     }
 
@@ -397,10 +443,8 @@ public class PoolingHttpClientConnectionManager
             final HttpContext context) throws IOException {
         Args.notNull(managedConn, "Managed Connection");
         Args.notNull(route, "HTTP route");
-        synchronized (managedConn) {
-            final CPoolEntry entry = CPoolProxy.getPoolEntry(managedConn);
-            entry.markRouteComplete();
-        }
+        final CPoolEntry entry = CPoolProxy.getPoolEntry(managedConn);
+        entry.markRouteComplete();
     }
 
     @Override
@@ -421,13 +465,40 @@ public class PoolingHttpClientConnectionManager
         if (this.log.isDebugEnabled()) {
             this.log.debug("Closing connections idle longer than " + idleTimeout + " " + timeUnit);
         }
-        this.pool.closeIdle(idleTimeout, timeUnit);
+        Args.notNull(timeUnit, "Time unit");
+        long time = timeUnit.toMillis(idleTimeout);
+        if (time < 0) {
+            time = 0;
+        }
+        final long deadline = System.currentTimeMillis() - time;
+        this.pool.enumAvailable(new PoolEntryCallback<HttpRoute, ManagedHttpClientConnection>() {
+
+            @Override
+            public void process(final PoolEntry<HttpRoute, ManagedHttpClientConnection> entry) {
+                if (entry.getUpdated() <= deadline) {
+                    entry.close();
+                    metricsListener.connectionEvicted(entry.getRoute(), false);
+                }
+            }
+
+        });
     }
 
     @Override
     public void closeExpiredConnections() {
         this.log.debug("Closing expired connections");
-        this.pool.closeExpired();
+        final long now = System.currentTimeMillis();
+        this.pool.enumAvailable(new PoolEntryCallback<HttpRoute, ManagedHttpClientConnection>() {
+
+            @Override
+            public void process(final PoolEntry<HttpRoute, ManagedHttpClientConnection> entry) {
+                if (entry.isExpired(now)) {
+                    entry.close();
+                    metricsListener.connectionEvicted(entry.getRoute(), true);
+                }
+            }
+
+        });
     }
 
     protected void enumAvailable(final PoolEntryCallback<HttpRoute, ManagedHttpClientConnection> callback) {
@@ -0,0 +1,168 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.util.Args;
+
+/**
+ * Histogram of durations with microsecond resolution. Each power of two
+ * range of values is divided into eight buckets, which bounds the error
+ * of reported percentiles to 12.5%.
+ * <p>
+ * Values are recorded without locking, so percentiles reported while
+ * values are being recorded are approximate.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class TimingHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS << 1;
+    private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+    private static final int BUCKETS = LINEAR_BUCKETS + (63 - LINEAR_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong totalTime;
+    private final AtomicLong maxTime;
+
+    public TimingHistogram() {
+        super();
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.totalCount = new AtomicLong();
+        this.totalTime = new AtomicLong();
+        this.maxTime = new AtomicLong();
+    }
+
+    static int bucketOf(final long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        final int exp = 63 - Long.numberOfLeadingZeros(micros);
+        final int sub = (int) (micros >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exp - LINEAR_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(final int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        final int exp = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_BITS;
+        final int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exp - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos duration in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(final long nanos) {
+        final long value = nanos > 0 ? nanos : 0;
+        this.counts.incrementAndGet(bucketOf(value / 1000));
+        this.totalCount.incrementAndGet();
+        this.totalTime.addAndGet(value);
+        for (;;) {
+            final long max = this.maxTime.get();
+            if (value <= max || this.maxTime.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     */
+    public long getCount() {
+        return this.totalCount.get();
+    }
+
+    /**
+     * Returns the mean duration in nanoseconds or {@code 0} if no values have been recorded.
+     */
+    public long getMean() {
+        final long count = this.totalCount.get();
+        return count > 0 ? this.totalTime.get() / count : 0;
+    }
+
+    /**
+     * Returns the longest recorded duration in nanoseconds.
+     */
+    public long getMax() {
+        return this.maxTime.get();
+    }
+
+    /**
+     * Returns an estimate of the duration in nanoseconds which the given
+     * percentage of recorded durations did not exceed.
+     *
+     * @param percentile percentile between {@code 0} and {@code 100}.
+     */
+    public long getPercentile(final double percentile) {
+        Args.check(percentile >= 0 && percentile <= 100, "Percentile out of range");
+        final long count = this.totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+        final long max = this.maxTime.get();
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += this.counts.get(i);
+            if (seen >= target) {
+                return Math.min((lowerBoundOf(i + 1) - 1) * 1000 + 999, max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[count: ");
+        buffer.append(getCount());
+        buffer.append("; mean: ");
+        buffer.append(getMean() / 1000);
+        buffer.append(" us; p50: ");
+        buffer.append(getPercentile(50) / 1000);
+        buffer.append(" us; p99: ");
+        buffer.append(getPercentile(99) / 1000);
+        buffer.append(" us; max: ");
+        buffer.append(getMax() / 1000);
+        buffer.append(" us]");
+        return buffer.toString();
+    }
+
+}
@@ -31,6 +31,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.http.HttpClientConnection;
@@ -53,6 +55,7 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
     private final HttpClientConnectionManager manager;
     private final HttpClientConnection managedConn;
     private final AtomicBoolean released;
+    private final Lock lock;
     private volatile boolean reusable;
     private volatile Object state;
     private volatile long validDuration;
@@ -67,6 +70,7 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
         this.manager = manager;
         this.managedConn = managedConn;
         this.released = new AtomicBoolean(false);
+        this.lock = new ReentrantLock();
     }
 
     public boolean isReusable() {
@@ -86,15 +90,19 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
     }
 
     public void setValidFor(final long duration, final TimeUnit timeUnit) {
-        synchronized (this.managedConn) {
+        this.lock.lock();
+        try {
             this.validDuration = duration;
             this.timeUnit = timeUnit;
+        } finally {
+            this.lock.unlock();
         }
     }
 
     private void releaseConnection(final boolean reusable) {
         if (this.released.compareAndSet(false, true)) {
-            synchronized (this.managedConn) {
+            this.lock.lock();
+            try {
                 if (reusable) {
                     this.manager.releaseConnection(this.managedConn,
                             this.state, this.validDuration, this.timeUnit);
@@ -111,6 +119,8 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
                                 this.managedConn, null, 0, TimeUnit.MILLISECONDS);
                     }
                 }
+            } finally {
+                this.lock.unlock();
             }
         }
     }
@@ -123,7 +133,8 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
     @Override
     public void abortConnection() {
         if (this.released.compareAndSet(false, true)) {
-            synchronized (this.managedConn) {
+            this.lock.lock();
+            try {
                 try {
                     this.managedConn.shutdown();
                     log.debug("Connection discarded");
@@ -135,6 +146,8 @@ class ConnectionHolder implements ConnectionReleaseTrigger, Cancellable, Closeab
                     this.manager.releaseConnection(
                             this.managedConn, null, 0, TimeUnit.MILLISECONDS);
                 }
+            } finally {
+                this.lock.unlock();
             }
         }
     }
@@ -56,6 +56,7 @@ import org.apache.http.client.methods.HttpExecutionAware;
 import org.apache.http.client.methods.HttpRequestWrapper;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionMetricsListener;
 import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.routing.BasicRouteDirector;
@@ -65,6 +66,7 @@ import org.apache.http.conn.routing.RouteTracker;
 import org.apache.http.entity.BufferedHttpEntity;
 import org.apache.http.impl.auth.HttpAuthenticator;
 import org.apache.http.impl.conn.ConnectionShutdownException;
+import org.apache.http.impl.conn.NoopConnectionMetricsListener;
 import org.apache.http.message.BasicHttpRequest;
 import org.apache.http.protocol.HttpCoreContext;
 import org.apache.http.protocol.HttpProcessor;
@@ -100,9 +102,10 @@ public class MainClientExec implements ClientExecChain {
     private final HttpAuthenticator authenticator;
     private final UserTokenHandler userTokenHandler;
     private final HttpRouteDirector routeDirector;
+    private final ConnectionMetricsListener metricsListener;
 
     /**
-     * @since 4.4
+     * @since 4.5.10
      */
     public MainClientExec(
             final HttpRequestExecutor requestExecutor,
@@ -112,7 +115,8 @@ public class MainClientExec implements ClientExecChain {
             final HttpProcessor proxyHttpProcessor,
             final AuthenticationStrategy targetAuthStrategy,
             final AuthenticationStrategy proxyAuthStrategy,
-            final UserTokenHandler userTokenHandler) {
+            final UserTokenHandler userTokenHandler,
+            final ConnectionMetricsListener metricsListener) {
         Args.notNull(requestExecutor, "HTTP request executor");
         Args.notNull(connManager, "Client connection manager");
         Args.notNull(reuseStrategy, "Connection reuse strategy");
@@ -131,6 +135,24 @@ public class MainClientExec implements ClientExecChain {
         this.targetAuthStrategy = targetAuthStrategy;
         this.proxyAuthStrategy  = proxyAuthStrategy;
         this.userTokenHandler   = userTokenHandler;
+        this.metricsListener    = metricsListener != null ? metricsListener :
+            NoopConnectionMetricsListener.INSTANCE;
+    }
+
+    /**
+     * @since 4.4
+     */
+    public MainClientExec(
+            final HttpRequestExecutor requestExecutor,
+            final HttpClientConnectionManager connManager,
+            final ConnectionReuseStrategy reuseStrategy,
+            final ConnectionKeepAliveStrategy keepAliveStrategy,
+            final HttpProcessor proxyHttpProcessor,
+            final AuthenticationStrategy targetAuthStrategy,
+            final AuthenticationStrategy proxyAuthStrategy,
+            final UserTokenHandler userTokenHandler) {
+        this(requestExecutor, connManager, reuseStrategy, keepAliveStrategy, proxyHttpProcessor,
+                targetAuthStrategy, proxyAuthStrategy, userTokenHandler, null);
     }
 
     public MainClientExec(
@@ -230,7 +252,8 @@ public class MainClientExec implements ClientExecChain {
                     throw new RequestAbortedException("Request aborted");
                 }
 
-                if (!managedConn.isOpen()) {
+                final boolean reused = managedConn.isOpen();
+                if (!reused) {
                     this.log.debug("Opening connection " + route);
                     try {
                         establishRoute(proxyAuthState, managedConn, route, request, context);
@@ -269,6 +292,7 @@ public class MainClientExec implements ClientExecChain {
                 }
 
                 context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+                this.metricsListener.requestSubmitted(route, reused);
                 response = requestExecutor.execute(request, managedConn, context);
 
                 // The connection is in or can be brought to a re-usable state.
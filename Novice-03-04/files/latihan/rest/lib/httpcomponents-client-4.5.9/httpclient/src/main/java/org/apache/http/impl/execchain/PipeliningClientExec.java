@@ -0,0 +1,282 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.execchain;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.protocol.RequestClientConnControl;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.conn.ConnectionShutdownException;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.http.protocol.RequestUserAgent;
+import org.apache.http.util.Args;
+import org.apache.http.util.VersionInfo;
+
+/**
+ * Request executor that pipelines a batch of idempotent requests over
+ * a single persistent connection and returns the responses in the order
+ * of the requests. Response content is buffered in memory.
+ * <p>
+ * Should the connection be closed by the opposite endpoint or fail with
+ * an I/O error, the requests that have not been responded to yet are
+ * re-sent over a new connection. This executor does not support execution
+ * via proxy and will make no attempts to follow redirects or to respond to
+ * authentication challenges.
+ * </p>
+ *
+ * @since 4.5.10
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE_CONDITIONAL)
+public class PipeliningClientExec {
+
+    private final Log log = LogFactory.getLog(getClass());
+
+    private final HttpClientConnectionManager connManager;
+    private final ConnectionReuseStrategy reuseStrategy;
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+    private final HttpProcessor httpProcessor;
+    private final int maxPipelineDepth;
+
+    /**
+     * @param maxPipelineDepth the maximum number of requests awaiting
+     *   a response on the connection at any time.
+     */
+    public PipeliningClientExec(
+            final HttpClientConnectionManager connManager,
+            final ConnectionReuseStrategy reuseStrategy,
+            final ConnectionKeepAliveStrategy keepAliveStrategy,
+            final int maxPipelineDepth) {
+        Args.notNull(connManager, "Client connection manager");
+        Args.notNull(reuseStrategy, "Connection reuse strategy");
+        Args.notNull(keepAliveStrategy, "Connection keep alive strategy");
+        Args.positive(maxPipelineDepth, "Max pipeline depth");
+        this.httpProcessor = new ImmutableHttpProcessor(
+                new RequestContent(),
+                new RequestTargetHost(),
+                new RequestClientConnControl(),
+                new RequestUserAgent(VersionInfo.getUserAgent(
+                        "Apache-HttpClient", "org.apache.http.client", getClass())));
+        this.connManager        = connManager;
+        this.reuseStrategy      = reuseStrategy;
+        this.keepAliveStrategy  = keepAliveStrategy;
+        this.maxPipelineDepth   = maxPipelineDepth;
+    }
+
+    /**
+     * Determines whether the request can be pipelined, that is whether its
+     * method is idempotent and it encloses no entity, so that it can be
+     * safely re-sent.
+     */
+    public static boolean isPipelinable(final HttpRequest request) {
+        final String method = request.getRequestLine().getMethod().toUpperCase(Locale.ROOT);
+        if (!method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")
+                && !method.equals("TRACE") && !method.equals("DELETE")) {
+            return false;
+        }
+        return !(request instanceof HttpEntityEnclosingRequest)
+                || ((HttpEntityEnclosingRequest) request).getEntity() == null;
+    }
+
+    static boolean canResponseHaveBody(final HttpRequest request, final HttpResponse response) {
+        if ("HEAD".equalsIgnoreCase(request.getRequestLine().getMethod())) {
+            return false;
+        }
+        final int status = response.getStatusLine().getStatusCode();
+        return status >= HttpStatus.SC_OK
+            && status != HttpStatus.SC_NO_CONTENT
+            && status != HttpStatus.SC_NOT_MODIFIED
+            && status != HttpStatus.SC_RESET_CONTENT;
+    }
+
+    public List<HttpResponse> execute(
+            final HttpRoute route,
+            final List<HttpRequestWrapper> requests,
+            final HttpClientContext context) throws IOException, HttpException {
+        Args.notNull(route, "HTTP route");
+        Args.notNull(requests, "HTTP requests");
+        Args.notNull(context, "HTTP context");
+
+        final RequestConfig config = context.getRequestConfig();
+        context.setAttribute(HttpCoreContext.HTTP_TARGET_HOST, route.getTargetHost());
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, route);
+        for (final HttpRequestWrapper request : requests) {
+            Args.check(isPipelinable(request), "Request cannot be pipelined: " + request.getRequestLine());
+            MinimalClientExec.rewriteRequestURI(request, route, config.isNormalizeUri());
+            context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+            this.httpProcessor.process(request, context);
+        }
+
+        final int count = requests.size();
+        final List<HttpResponse> responses = new ArrayList<HttpResponse>(count);
+        while (responses.size() < count) {
+            final HttpClientConnection managedConn = leaseConnection(route, config);
+            final ConnectionHolder releaseTrigger = new ConnectionHolder(log, connManager, managedConn);
+            final boolean reused = managedConn.isOpen();
+            final int start = responses.size();
+            try {
+                if (!managedConn.isOpen()) {
+                    final int timeout = config.getConnectTimeout();
+                    this.connManager.connect(
+                        managedConn,
+                        route,
+                        timeout > 0 ? timeout : 0,
+                        context);
+                    this.connManager.routeComplete(managedConn, route, context);
+                }
+                final int timeout = config.getSocketTimeout();
+                if (timeout >= 0) {
+                    managedConn.setSocketTimeout(timeout);
+                }
+                context.setAttribute(HttpCoreContext.HTTP_CONNECTION, managedConn);
+
+                int sent = start;
+                boolean keepAlive = true;
+                while (keepAlive && responses.size() < count) {
+                    final int completed = responses.size();
+                    while (sent < count && sent - completed < this.maxPipelineDepth) {
+                        managedConn.sendRequestHeader(requests.get(sent));
+                        sent++;
+                    }
+                    managedConn.flush();
+
+                    final HttpRequestWrapper request = requests.get(completed);
+                    final HttpResponse response = receiveResponse(managedConn, request);
+                    context.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+                    context.setAttribute(HttpCoreContext.HTTP_RESPONSE, response);
+                    this.httpProcessor.process(response, context);
+                    responses.add(response);
+
+                    // Requests sent after this response will be re-sent over a new connection
+                    keepAlive = this.reuseStrategy.keepAlive(response, context);
+                    if (keepAlive) {
+                        final long duration = this.keepAliveStrategy.getKeepAliveDuration(response, context);
+                        releaseTrigger.setValidFor(duration, TimeUnit.MILLISECONDS);
+                    }
+                }
+                if (keepAlive) {
+                    releaseTrigger.markReusable();
+                } else {
+                    releaseTrigger.markNonReusable();
+                }
+                releaseTrigger.releaseConnection();
+            } catch (final ConnectionShutdownException ex) {
+                final InterruptedIOException ioex = new InterruptedIOException(
+                        "Connection has been shut down");
+                ioex.initCause(ex);
+                throw ioex;
+            } catch (final HttpException ex) {
+                releaseTrigger.abortConnection();
+                throw ex;
+            } catch (final IOException ex) {
+                releaseTrigger.abortConnection();
+                // Give up on timeouts or if a new connection failed to make any progress
+                if (ex instanceof InterruptedIOException || (!reused && responses.size() == start)) {
+                    throw ex;
+                }
+                if (this.log.isDebugEnabled()) {
+                    this.log.debug("I/O exception (" + ex.getClass().getName()
+                            + ") caught when processing pipelined requests; re-sending "
+                            + (count - responses.size()) + " request(s): " + ex.getMessage());
+                }
+            } catch (final RuntimeException ex) {
+                releaseTrigger.abortConnection();
+                throw ex;
+            } catch (final Error error) {
+                connManager.shutdown();
+                throw error;
+            }
+        }
+        return responses;
+    }
+
+    private HttpClientConnection leaseConnection(
+            final HttpRoute route,
+            final RequestConfig config) throws IOException {
+        final ConnectionRequest connRequest = connManager.requestConnection(route, null);
+        try {
+            final int timeout = config.getConnectionRequestTimeout();
+            return connRequest.get(timeout > 0 ? timeout : 0, TimeUnit.MILLISECONDS);
+        } catch(final InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new RequestAbortedException("Request aborted", interrupted);
+        } catch(final ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause == null) {
+                cause = ex;
+            }
+            throw new RequestAbortedException("Request execution failed", cause);
+        }
+    }
+
+    private static HttpResponse receiveResponse(
+            final HttpClientConnection conn,
+            final HttpRequest request) throws IOException, HttpException {
+        HttpResponse response;
+        do {
+            response = conn.receiveResponseHeader();
+        } while (response.getStatusLine().getStatusCode() < HttpStatus.SC_OK);
+        if (canResponseHaveBody(request, response)) {
+            conn.receiveResponseEntity(response);
+            final HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                // The content has to be consumed before the next response can be read
+                response.setEntity(new BufferedHttpEntity(entity));
+            }
+        }
+        return response;
+    }
+
+}
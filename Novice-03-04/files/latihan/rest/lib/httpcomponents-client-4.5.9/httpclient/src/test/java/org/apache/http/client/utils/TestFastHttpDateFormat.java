@@ -0,0 +1,150 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.client.utils;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks {@link FastHttpDateFormat} against {@link SimpleDateFormat}.
+ */
+public class TestFastHttpDateFormat {
+
+    // 1600-01-01 to 9999-12-31
+    private static final long MIN_MILLIS = -11676096000000L;
+    private static final long MAX_MILLIS = 253402300799000L;
+
+    private static SimpleDateFormat dateFormat(final String pattern, final Date startDate) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.US);
+        dateFormat.setTimeZone(DateUtils.GMT);
+        if (startDate != null) {
+            dateFormat.set2DigitYearStart(startDate);
+        }
+        return dateFormat;
+    }
+
+    private static Date randomDate(final Random random, final long min, final long max) {
+        final long millis = min + (long) (random.nextDouble() * (max - min));
+        return new Date(millis - millis % 1000);
+    }
+
+    private static Date parse(final String s, final String pattern, final Date startDate) {
+        return FastHttpDateFormat.parse(s, 0, s.length(), pattern, startDate);
+    }
+
+    @Test
+    public void testFormatRfc1123() throws Exception {
+        final SimpleDateFormat dateFormat = dateFormat(DateUtils.PATTERN_RFC1123, null);
+        final Random random = new Random(1L);
+        for (int i = 0; i < 10000; i++) {
+            final Date date = randomDate(random, MIN_MILLIS, MAX_MILLIS);
+            Assert.assertEquals(dateFormat.format(date), FastHttpDateFormat.formatRfc1123(date));
+        }
+        Assert.assertEquals(dateFormat.format(new Date(0)), FastHttpDateFormat.formatRfc1123(new Date(0)));
+        Assert.assertNull(FastHttpDateFormat.formatRfc1123(new Date(MIN_MILLIS - 1)));
+        Assert.assertNull(FastHttpDateFormat.formatRfc1123(new Date(MAX_MILLIS + 1000)));
+    }
+
+    @Test
+    public void testParseRfc1123AndAsctime() throws Exception {
+        final Random random = new Random(2L);
+        for (final String pattern : new String[] { DateUtils.PATTERN_RFC1123, DateUtils.PATTERN_ASCTIME }) {
+            final SimpleDateFormat dateFormat = dateFormat(pattern, null);
+            for (int i = 0; i < 10000; i++) {
+                final Date date = randomDate(random, MIN_MILLIS, MAX_MILLIS);
+                final String s = dateFormat.format(date);
+                Assert.assertEquals(s, date, parse(s, pattern, null));
+            }
+        }
+    }
+
+    @Test
+    public void testParseRfc1036() throws Exception {
+        final Random random = new Random(3L);
+        for (int i = 0; i < 100; i++) {
+            final Date startDate = randomDate(random, MIN_MILLIS, MAX_MILLIS - 200L * 365 * 24 * 3600 * 1000);
+            final SimpleDateFormat dateFormat = dateFormat(DateUtils.PATTERN_RFC1036, startDate);
+            final long startMillis = startDate.getTime();
+            for (int j = 0; j < 100; j++) {
+                // Dates around both ends of the two digit year window
+                final long base = j % 2 == 0 ? startMillis : startMillis + 100L * 365 * 24 * 3600 * 1000;
+                final Date date = randomDate(random, base - 400L * 24 * 3600 * 1000, base + 400L * 24 * 3600 * 1000);
+                final String s = dateFormat.format(date);
+                final Date expected = dateFormat.parse(s, new ParsePosition(0));
+                Assert.assertEquals(s, expected, parse(s, DateUtils.PATTERN_RFC1036, startDate));
+            }
+        }
+    }
+
+    @Test
+    public void testParseLongDayNames() throws Exception {
+        final Date expected = dateFormat(DateUtils.PATTERN_RFC1123, null).parse("Sun, 06 Nov 1994 08:49:37 GMT");
+        Assert.assertEquals(expected, parse("Sunday, 06 Nov 1994 08:49:37 GMT", DateUtils.PATTERN_RFC1123, null));
+        Assert.assertEquals(expected, parse(
+                "Sunday, 06-Nov-94 08:49:37 GMT", DateUtils.PATTERN_RFC1036, DateUtils.parseDate("Thu, 01 Jan 1970 00:00:00 GMT")));
+        Assert.assertEquals(expected, parse("Sun Nov  6 08:49:37 1994", DateUtils.PATTERN_ASCTIME, null));
+        Assert.assertEquals(expected, parse("Sun Nov 6 08:49:37 1994", DateUtils.PATTERN_ASCTIME, null));
+        Assert.assertEquals(expected, parse("Sun Nov 06 08:49:37 1994", DateUtils.PATTERN_ASCTIME, null));
+    }
+
+    @Test
+    public void testUnsupportedInput() throws Exception {
+        final String[] inputs = {
+                "Sun, 06 Nov 1994 08:49:37 GMT+01:00",
+                "Sun, 06 Nov 1994 08:49:37 PST",
+                "Sun, 31 Feb 1994 08:49:37 GMT",
+                "Sun, 06 Nov 1994 24:49:37 GMT",
+                "Sun, 6 Nov 1994 08:49:37 GMT",
+                "sun, 06 nov 1994 08:49:37 GMT",
+                "Sun, 06 Nov 19945 08:49:37 GMT",
+                "Sun, 06 Nov 1500 08:49:37 GMT",
+                "Sun, 06 Nov 1994 08:49:37",
+                " Sun, 06 Nov 1994 08:49:37 GMT"
+        };
+        for (final String s : inputs) {
+            Assert.assertNull(s, parse(s, DateUtils.PATTERN_RFC1123, null));
+            // Left to SimpleDateFormat
+            final SimpleDateFormat dateFormat = dateFormat(DateUtils.PATTERN_RFC1123, null);
+            Assert.assertEquals(s, dateFormat.parse(s, new ParsePosition(0)), DateUtils.parseDate(s));
+        }
+        Assert.assertNull(parse("Sun, 06 Nov 1994 08:49:37 GMT", "EEE, dd MMM yyyy HH:mm:ss z", null));
+    }
+
+    @Test
+    public void testTrailingContentIgnored() throws Exception {
+        final String s = "Sun, 06 Nov 1994 08:49:37 GMT; more";
+        final SimpleDateFormat dateFormat = dateFormat(DateUtils.PATTERN_RFC1123, null);
+        Assert.assertEquals(dateFormat.parse(s, new ParsePosition(0)), parse(s, DateUtils.PATTERN_RFC1123, null));
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.integration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.ConnectionMetrics;
+import org.apache.http.impl.conn.ConnectionMetricsCollector;
+import org.apache.http.impl.conn.DefaultHttpClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.localserver.LocalServerTestBase;
+import org.apache.http.localserver.SSLTestContexts;
+import org.apache.http.pool.PoolConcurrencyPolicy;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConnectionMetrics extends LocalServerTestBase {
+
+    private ConnectionMetricsCollector metrics;
+
+    @Before @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        this.metrics = new ConnectionMetricsCollector();
+        this.connManager = new PoolingHttpClientConnectionManager(
+                new DefaultHttpClientConnectionOperator(
+                        RegistryBuilder.<ConnectionSocketFactory>create()
+                            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                            .register("https", new SSLConnectionSocketFactory(
+                                    SSLTestContexts.createClientSSLContext()))
+                            .build(),
+                        null, null, this.metrics),
+                null,
+                -1, TimeUnit.MILLISECONDS,
+                PoolConcurrencyPolicy.STRICT,
+                this.metrics);
+        this.clientBuilder
+                .setConnectionManager(this.connManager)
+                .setConnectionMetricsListener(this.metrics);
+    }
+
+    private void execute(final HttpHost target, final int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            final CloseableHttpResponse response = this.httpclient.execute(target, new HttpGet("/random/1024"));
+            try {
+                Assert.assertEquals(200, response.getStatusLine().getStatusCode());
+                EntityUtils.consume(response.getEntity());
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    @Test
+    public void testPlainConnectionMetrics() throws Exception {
+        final HttpHost target = start();
+        execute(target, 5);
+
+        final HttpRoute route = new HttpRoute(target);
+        final ConnectionMetrics routeMetrics = this.metrics.getMetrics(route);
+        Assert.assertNotNull(routeMetrics);
+        Assert.assertEquals(5, routeMetrics.getLeaseWaitTime().getCount());
+        Assert.assertEquals(0, routeMetrics.getLeaseFailureCount());
+        Assert.assertEquals(1, routeMetrics.getConnectTime().getCount());
+        Assert.assertTrue(routeMetrics.getConnectTime().getMax() > 0);
+        Assert.assertEquals(0, routeMetrics.getTlsHandshakeTime().getCount());
+        Assert.assertEquals(5, routeMetrics.getRequestCount());
+        Assert.assertEquals(4, routeMetrics.getReusedRequestCount());
+        Assert.assertEquals(0.8, routeMetrics.getReuseRatio(), 0.001);
+
+        this.connManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1, routeMetrics.getIdleEvictionCount());
+        Assert.assertEquals(0, this.connManager.getTotalStats().getAvailable());
+
+        execute(target, 1);
+        Assert.assertEquals(2, routeMetrics.getConnectTime().getCount());
+        Assert.assertEquals(6, this.metrics.getTotals().getRequestCount());
+        Assert.assertEquals(4, this.metrics.getTotals().getReusedRequestCount());
+    }
+
+    @Test
+    public void testTlsHandshakeMetrics() throws Exception {
+        this.serverBootstrap.setSslContext(SSLTestContexts.createServerSSLContext());
+        final HttpHost plainTarget = start();
+        final HttpHost target = new HttpHost(plainTarget.getHostName(), plainTarget.getPort(), "https");
+        execute(target, 3);
+
+        final ConnectionMetrics routeMetrics = this.metrics.getMetrics(new HttpRoute(target, null, true));
+        Assert.assertNotNull(routeMetrics);
+        Assert.assertEquals(1, routeMetrics.getConnectTime().getCount());
+        Assert.assertEquals(1, routeMetrics.getTlsHandshakeTime().getCount());
+        Assert.assertTrue(routeMetrics.getTlsHandshakeTime().getMax() > 0);
+        Assert.assertEquals(3, routeMetrics.getRequestCount());
+        Assert.assertEquals(2, routeMetrics.getReusedRequestCount());
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.integration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpInetConnection;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.PipeliningHttpClient;
+import org.apache.http.localserver.LocalServerTestBase;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Request pipelining tests for {@link PipeliningHttpClient}.
+ */
+public class TestPipeliningClientRequestExecution extends LocalServerTestBase {
+
+    private static class UriService implements HttpRequestHandler {
+
+        private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+        private final AtomicInteger count = new AtomicInteger();
+        private final int closeAfter;
+
+        UriService(final int closeAfter) {
+            super();
+            this.closeAfter = closeAfter;
+        }
+
+        @Override
+        public void handle(
+                final HttpRequest request,
+                final HttpResponse response,
+                final HttpContext context) throws HttpException, IOException {
+            final HttpInetConnection conn = (HttpInetConnection) context.getAttribute(
+                    HttpCoreContext.HTTP_CONNECTION);
+            this.clientPorts.add(conn.getRemotePort());
+            response.setStatusCode(HttpStatus.SC_OK);
+            response.setEntity(new StringEntity(request.getRequestLine().getUri()));
+            if (this.closeAfter > 0 && this.count.incrementAndGet() % this.closeAfter == 0) {
+                response.setHeader(HttpHeaders.CONNECTION, HTTP.CONN_CLOSE);
+            }
+        }
+
+    }
+
+    private static List<HttpGet> createRequests(final int count) {
+        final List<HttpGet> requests = new ArrayList<HttpGet>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new HttpGet("/uri/" + i));
+        }
+        return requests;
+    }
+
+    private static void assertResponses(final List<HttpResponse> responses, final int count) throws IOException {
+        Assert.assertEquals(count, responses.size());
+        for (int i = 0; i < count; i++) {
+            final HttpResponse response = responses.get(i);
+            Assert.assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+            Assert.assertEquals("/uri/" + i, EntityUtils.toString(response.getEntity()));
+        }
+    }
+
+    @Test
+    public void testPipelinedRequestsInOrder() throws Exception {
+        final UriService service = new UriService(0);
+        this.serverBootstrap.registerHandler("*", service);
+        final HttpHost target = start();
+
+        final PipeliningHttpClient client = new PipeliningHttpClient(this.connManager, 4);
+        final List<HttpResponse> responses = client.execute(target, createRequests(20));
+        assertResponses(responses, 20);
+        Assert.assertEquals(1, service.clientPorts.size());
+        Assert.assertEquals(1, this.connManager.getTotalStats().getAvailable());
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testPipelinedRequestsConnectionClose() throws Exception {
+        final UriService service = new UriService(5);
+        this.serverBootstrap.registerHandler("*", service);
+        final HttpHost target = start();
+
+        final PipeliningHttpClient client = new PipeliningHttpClient(this.connManager);
+        final List<HttpResponse> responses = client.execute(target, createRequests(12));
+        assertResponses(responses, 12);
+        Assert.assertEquals(3, service.clientPorts.size());
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    public void testPipelinedRequestsConnectionReset() throws Exception {
+        final AtomicBoolean reset = new AtomicBoolean(false);
+        this.serverBootstrap.registerHandler("*", new HttpRequestHandler() {
+
+            @Override
+            public void handle(
+                    final HttpRequest request,
+                    final HttpResponse response,
+                    final HttpContext context) throws HttpException, IOException {
+                if (request.getRequestLine().getUri().equals("/uri/6") && reset.compareAndSet(false, true)) {
+                    final HttpInetConnection conn = (HttpInetConnection) context.getAttribute(
+                            HttpCoreContext.HTTP_CONNECTION);
+                    conn.shutdown();
+                    return;
+                }
+                response.setStatusCode(HttpStatus.SC_OK);
+                response.setEntity(new StringEntity(request.getRequestLine().getUri()));
+            }
+
+        });
+        final HttpHost target = start();
+
+        final PipeliningHttpClient client = new PipeliningHttpClient(this.connManager);
+        final List<HttpResponse> responses = client.execute(target, createRequests(10));
+        assertResponses(responses, 10);
+        Assert.assertTrue(reset.get());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNonIdempotentRequestRejected() throws Exception {
+        final HttpHost target = start();
+
+        final HttpPost post = new HttpPost("/echo/");
+        post.setEntity(new StringEntity("stuff"));
+        final List<HttpRequest> requests = new ArrayList<HttpRequest>();
+        requests.add(new HttpGet("/echo/"));
+        requests.add(post);
+        final PipeliningHttpClient client = new PipeliningHttpClient(this.connManager);
+        client.execute(target, requests);
+    }
+
+}
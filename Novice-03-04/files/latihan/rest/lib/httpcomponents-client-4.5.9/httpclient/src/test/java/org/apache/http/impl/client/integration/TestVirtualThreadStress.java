@@ -0,0 +1,119 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.client.integration;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.VirtualThreads;
+import org.apache.http.localserver.LocalServerTestBase;
+import org.apache.http.util.EntityUtils;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Executes a large number of concurrent requests from virtual threads
+ * against a local server that handles connections on virtual threads.
+ * <p>
+ * The connection pool wakes up all its waiters whenever a connection is released,
+ * so the number of threads waiting for a connection is bounded by a semaphore.
+ * The remaining threads park on the semaphore, which must not pin their carrier
+ * threads either.
+ * </p>
+ * <p>
+ * The number of requests can be set with the {@code httpclient.test.vthread.requests}
+ * system property.
+ * </p>
+ */
+public class TestVirtualThreadStress extends LocalServerTestBase {
+
+    @Test
+    public void testConcurrentRequestsOnVirtualThreads() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+
+        final int requestCount = Integer.getInteger("httpclient.test.vthread.requests", 100000).intValue();
+        this.serverBootstrap.setVirtualThreads(true);
+        this.connManager.setMaxTotal(200);
+        this.connManager.setDefaultMaxPerRoute(200);
+        this.clientBuilder.useVirtualThreads();
+        final HttpHost target = start();
+
+        final ThreadFactory threadFactory = VirtualThreads.newThreadFactory("stress");
+        final CountDownLatch latch = new CountDownLatch(requestCount);
+        final AtomicInteger successCount = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final Semaphore semaphore = new Semaphore(1000);
+        for (int i = 0; i < requestCount; i++) {
+            final HttpGet httpget = new HttpGet("/random/" + (i % 100));
+            threadFactory.newThread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        semaphore.acquire();
+                        try {
+                            final CloseableHttpResponse response = httpclient.execute(target, httpget);
+                            try {
+                                EntityUtils.consume(response.getEntity());
+                                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                                    successCount.incrementAndGet();
+                                }
+                            } finally {
+                                response.close();
+                            }
+                        } finally {
+                            semaphore.release();
+                        }
+                    } catch (final InterruptedException ex) {
+                        failure.compareAndSet(null, ex);
+                    } catch (final IOException ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+
+            }).start();
+        }
+
+        Assert.assertTrue("Requests timed out", latch.await(5, TimeUnit.MINUTES));
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(requestCount, successCount.get());
+        Assert.assertEquals(0, this.connManager.getTotalStats().getLeased());
+    }
+
+}
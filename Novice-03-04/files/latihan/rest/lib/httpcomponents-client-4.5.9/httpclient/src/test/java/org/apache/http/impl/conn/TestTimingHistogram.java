@@ -0,0 +1,87 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.conn;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimingHistogram {
+
+    @Test
+    public void testBuckets() {
+        for (long v = 0; v < 100000; v++) {
+            final int bucket = TimingHistogram.bucketOf(v);
+            Assert.assertTrue(TimingHistogram.lowerBoundOf(bucket) <= v);
+            Assert.assertTrue(TimingHistogram.lowerBoundOf(bucket + 1) > v);
+        }
+        Assert.assertEquals(Long.MAX_VALUE / 1000, TimingHistogram.lowerBoundOf(
+                TimingHistogram.bucketOf(Long.MAX_VALUE / 1000)) | (Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void testEmpty() {
+        final TimingHistogram histogram = new TimingHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMean());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final TimingHistogram histogram = new TimingHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000000L);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500500000L, histogram.getMean());
+        Assert.assertEquals(1000000000L, histogram.getMax());
+        assertWithin(500000000L, histogram.getPercentile(50));
+        assertWithin(990000000L, histogram.getPercentile(99));
+        Assert.assertEquals(1000000000L, histogram.getPercentile(100));
+        assertWithin(1000000L, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void testNegativeValue() {
+        final TimingHistogram histogram = new TimingHistogram();
+        histogram.record(-5);
+        Assert.assertEquals(1, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidPercentile() {
+        new TimingHistogram().getPercentile(101);
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        Assert.assertTrue("Expected " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 8);
+    }
+
+}
@@ -70,6 +70,13 @@ public class CommandLineUtils {
         copt.setRequired(false);
         copt.setArgName("concurrency");
 
+        final Option ropt = new Option("r", true, "Target request rate in requests per second. " +
+            "Sends the given number of requests in total at a fixed rate over up to " +
+            "'concurrency' non-blocking connections and reports latency percentiles " +
+            "corrected for coordinated omission");
+        ropt.setRequired(false);
+        ropt.setArgName("rate");
+
         final Option popt = new Option("p", true, "File containing data to POST or PUT");
         popt.setRequired(false);
         popt.setArgName("Payload file");
@@ -112,6 +119,7 @@ public class CommandLineUtils {
         options.addOption(kopt);
         options.addOption(nopt);
         options.addOption(copt);
+        options.addOption(ropt);
         options.addOption(popt);
         options.addOption(Topt);
         options.addOption(vopt);
@@ -145,6 +153,15 @@ public class CommandLineUtils {
             }
         }
 
+        if (cmd.hasOption('r')) {
+            final String s = cmd.getOptionValue('r');
+            try {
+                config.setRate(Integer.parseInt(s));
+            } catch (final NumberFormatException ex) {
+                printError("Invalid request rate: " + s);
+            }
+        }
+
         if (cmd.hasOption('n')) {
             final String s = cmd.getOptionValue('n');
             try {
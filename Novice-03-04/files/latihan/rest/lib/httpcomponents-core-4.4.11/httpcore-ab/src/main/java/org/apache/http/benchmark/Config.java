@@ -34,6 +34,7 @@ public class Config {
     private URL url;
     private int requests;
     private int threads;
+    private int rate;
     private boolean keepAlive;
     private int verbosity;
     private boolean headInsteadOfGet;
@@ -60,6 +61,7 @@ public class Config {
         this.url = null;
         this.requests = 1;
         this.threads = 1;
+        this.rate = 0;
         this.keepAlive = false;
         this.verbosity = 0;
         this.headInsteadOfGet = false;
@@ -95,6 +97,25 @@ public class Config {
         this.threads = threads;
     }
 
+    /**
+     * Returns the target request rate in requests per second. A positive
+     * rate makes the benchmark issue {@link #getRequests()} requests in
+     * total at that rate over up to {@link #getThreads()} non-blocking
+     * connections instead of running blocking workers.
+     *
+     * @since 4.4.12
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * @since 4.4.12
+     */
+    public void setRate(final int rate) {
+        this.rate = rate;
+    }
+
     public boolean isKeepAlive() {
         return keepAlive;
     }
@@ -253,6 +274,7 @@ public class Config {
         copy.url = this.url;
         copy.requests = this.requests;
         copy.threads = this.threads;
+        copy.rate = this.rate;
         copy.keepAlive = this.keepAlive;
         copy.verbosity = this.verbosity;
         copy.headInsteadOfGet = this.headInsteadOfGet;
@@ -157,6 +157,33 @@ public class HttpBenchmark {
         return request;
     }
 
+    private SSLContext createSSLContext() throws Exception {
+        final SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
+        sslContextBuilder.setProtocol("SSL");
+        if (config.isDisableSSLVerification()) {
+            sslContextBuilder.loadTrustMaterial(null, new TrustStrategy() {
+
+                @Override
+                public boolean isTrusted(
+                        final X509Certificate[] chain, final String authType) throws CertificateException {
+                    return true;
+                }
+
+            });
+        } else if (config.getTrustStorePath() != null) {
+            sslContextBuilder.loadTrustMaterial(
+                    new File(config.getTrustStorePath()),
+                    config.getTrustStorePassword() != null ? config.getTrustStorePassword().toCharArray() : null);
+        }
+        if (config.getIdentityStorePath() != null) {
+            sslContextBuilder.loadKeyMaterial(
+                    new File(config.getIdentityStorePath()),
+                    config.getIdentityStorePassword() != null ? config.getIdentityStorePassword().toCharArray() : null,
+                    config.getIdentityStorePassword() != null ? config.getIdentityStorePassword().toCharArray() : null);
+        }
+        return sslContextBuilder.build();
+    }
+
     public String execute() throws Exception {
         final Results results = doExecute();
         ResultProcessor.printResults(results);
@@ -168,6 +195,14 @@ public class HttpBenchmark {
         final URL url = config.getUrl();
         final HttpHost host = new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
 
+        final SSLContext sslContext = "https".equals(host.getSchemeName()) ? createSSLContext() : null;
+
+        if (config.getRate() > 0) {
+            final LoadGenerator generator = new LoadGenerator(createRequest(), host, sslContext, config);
+            generator.execute();
+            return ResultProcessor.collectResults(generator, host, config.getUrl().toString());
+        }
+
         final ThreadPoolExecutor workerPool = new ThreadPoolExecutor(
                 config.getThreads(), config.getThreads(), 5, TimeUnit.SECONDS,
             new LinkedBlockingQueue<Runnable>(),
@@ -181,34 +216,7 @@ public class HttpBenchmark {
             });
         workerPool.prestartAllCoreThreads();
 
-        SocketFactory socketFactory = null;
-        if ("https".equals(host.getSchemeName())) {
-            final SSLContextBuilder sslContextBuilder = new SSLContextBuilder();
-            sslContextBuilder.setProtocol("SSL");
-            if (config.isDisableSSLVerification()) {
-                sslContextBuilder.loadTrustMaterial(null, new TrustStrategy() {
-
-                    @Override
-                    public boolean isTrusted(
-                            final X509Certificate[] chain, final String authType) throws CertificateException {
-                        return true;
-                    }
-
-                });
-            } else if (config.getTrustStorePath() != null) {
-                sslContextBuilder.loadTrustMaterial(
-                        new File(config.getTrustStorePath()),
-                        config.getTrustStorePassword() != null ? config.getTrustStorePassword().toCharArray() : null);
-            }
-            if (config.getIdentityStorePath() != null) {
-                sslContextBuilder.loadKeyMaterial(
-                        new File(config.getIdentityStorePath()),
-                        config.getIdentityStorePassword() != null ? config.getIdentityStorePassword().toCharArray() : null,
-                        config.getIdentityStorePassword() != null ? config.getIdentityStorePassword().toCharArray() : null);
-            }
-            final SSLContext sslContext = sslContextBuilder.build();
-            socketFactory = sslContext.getSocketFactory();
-        }
+        final SocketFactory socketFactory = sslContext != null ? sslContext.getSocketFactory() : null;
 
         final BenchmarkWorker[] workers = new BenchmarkWorker[config.getThreads()];
         for (int i = 0; i < workers.length; i++) {
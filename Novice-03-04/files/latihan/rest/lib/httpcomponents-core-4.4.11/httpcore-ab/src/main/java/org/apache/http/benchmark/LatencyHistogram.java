@@ -0,0 +1,167 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of latency values with log-linear buckets in the
+ * manner of HdrHistogram. Values are recorded with a relative precision
+ * of better than 0.1% up to a fixed highest trackable value; larger values
+ * are recorded as the highest trackable value.
+ *
+ * @since 4.4.12
+ */
+public class LatencyHistogram {
+
+    // 2048 sub-buckets per bucket give three significant decimal digits
+    private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 10;
+    private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT << 1;
+    private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+    private static final int LEADING_ZERO_COUNT_BASE = 64 - SUB_BUCKET_HALF_COUNT_MAGNITUDE - 1;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount;
+    private final AtomicLong maxValue;
+
+    /**
+     * @param highestTrackableValue the highest value to be tracked
+     *   by the histogram.
+     */
+    public LatencyHistogram(final long highestTrackableValue) {
+        super();
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("Highest trackable value may not be less than "
+                    + SUB_BUCKET_COUNT);
+        }
+        int bucketCount = 1;
+        long smallestUntrackableValue = SUB_BUCKET_COUNT;
+        while (smallestUntrackableValue <= highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray((bucketCount + 1) * SUB_BUCKET_HALF_COUNT);
+        this.totalCount = new AtomicLong();
+        this.maxValue = new AtomicLong();
+    }
+
+    private static int bucketIndex(final long value) {
+        return LEADING_ZERO_COUNT_BASE - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+    }
+
+    private static int countsIndex(final long value) {
+        final int bucketIndex = bucketIndex(value);
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + subBucketIndex - SUB_BUCKET_HALF_COUNT;
+    }
+
+    private static long highestEquivalentValue(final int index) {
+        int bucketIndex = (index >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+        int subBucketIndex = (index & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+        if (bucketIndex < 0) {
+            subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+            bucketIndex = 0;
+        }
+        final long lowestEquivalentValue = (long) subBucketIndex << bucketIndex;
+        return lowestEquivalentValue + (1L << bucketIndex) - 1;
+    }
+
+    /**
+     * Records a single value. Negative values are recorded as zero.
+     */
+    public void recordValue(final long value) {
+        final long v = Math.min(Math.max(value, 0), this.highestTrackableValue);
+        this.counts.incrementAndGet(countsIndex(v));
+        this.totalCount.incrementAndGet();
+        for (;;) {
+            final long max = this.maxValue.get();
+            if (v <= max || this.maxValue.compareAndSet(max, v)) {
+                break;
+            }
+        }
+    }
+
+    public long getTotalCount() {
+        return this.totalCount.get();
+    }
+
+    public long getMaxValue() {
+        return this.maxValue.get();
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded
+     * values fall, as the highest value equivalent to it within the
+     * precision of the histogram.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long total = this.totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        final double p = Math.min(Math.max(percentile, 0.0), 100.0);
+        final long countAtPercentile = Math.max((long) Math.ceil(p / 100.0 * total), 1);
+        long count = 0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            count += this.counts.get(i);
+            if (count >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Returns the mean of the recorded values within the precision
+     * of the histogram.
+     */
+    public double getMean() {
+        final long total = this.totalCount.get();
+        if (total == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < this.counts.length(); i++) {
+            final long count = this.counts.get(i);
+            if (count > 0) {
+                sum += (double) count * highestEquivalentValue(i);
+            }
+        }
+        return sum / total;
+    }
+
+}
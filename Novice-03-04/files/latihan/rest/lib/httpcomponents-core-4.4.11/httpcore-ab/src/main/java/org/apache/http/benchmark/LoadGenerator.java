@@ -0,0 +1,320 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.ConnectionReuseStrategy;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.impl.DefaultConnectionReuseStrategy;
+import org.apache.http.impl.nio.DefaultHttpClientIODispatch;
+import org.apache.http.impl.nio.pool.BasicNIOConnFactory;
+import org.apache.http.impl.nio.pool.BasicNIOConnPool;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHttpEntityEnclosingRequest;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.protocol.HttpAsyncRequester;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.protocol.RequestConnControl;
+import org.apache.http.protocol.RequestContent;
+import org.apache.http.protocol.RequestExpectContinue;
+import org.apache.http.protocol.RequestTargetHost;
+import org.apache.http.protocol.RequestUserAgent;
+
+/**
+ * Open model load generator for the {@link HttpBenchmark HttpBenchmark}.
+ * <p>
+ * Requests are started at a fixed rate regardless of how fast the server
+ * responds and are executed over a pool of non-blocking connections driven
+ * by a {@link DefaultConnectingIOReactor}. Response times are measured from
+ * the time each request was scheduled to start rather than from the time it
+ * was actually sent, so that the delays of requests held back by a slow
+ * server, or waiting for a connection, are not omitted from the results.
+ * </p>
+ *
+ * @since 4.4.12
+ */
+class LoadGenerator {
+
+    // one hour in microseconds
+    private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.HOURS.toMicros(1);
+
+    // allowance for requests still in flight when no socket timeout is set
+    private static final long DEFAULT_DRAIN_MILLIS = 60000;
+
+    private final HttpRequest template;
+    private final HttpHost targetHost;
+    private final SSLContext sslContext;
+    private final Config config;
+    private final HttpProcessor httpProcessor;
+    private final ConnectionReuseStrategy connstrategy;
+    private final Stats stats;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram serviceTime;
+
+    public LoadGenerator(
+            final HttpRequest template,
+            final HttpHost targetHost,
+            final SSLContext sslContext,
+            final Config config) {
+        super();
+        this.template = template;
+        this.targetHost = targetHost;
+        this.sslContext = sslContext;
+        this.config = config;
+        this.httpProcessor = new ImmutableHttpProcessor(
+                new RequestContent(),
+                new RequestTargetHost(),
+                new RequestConnControl(),
+                new RequestUserAgent("HttpCore-AB/1.1"),
+                new RequestExpectContinue(this.config.isUseExpectContinue()));
+        this.connstrategy = DefaultConnectionReuseStrategy.INSTANCE;
+        this.stats = new Stats();
+        this.latency = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+        this.serviceTime = new LatencyHistogram(HIGHEST_TRACKABLE_LATENCY);
+    }
+
+    public Config getConfig() {
+        return this.config;
+    }
+
+    public Stats getStats() {
+        return this.stats;
+    }
+
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    public LatencyHistogram getServiceTime() {
+        return this.serviceTime;
+    }
+
+    public void execute() throws IOException, InterruptedException {
+        final int rate = this.config.getRate();
+        final int count = this.config.getRequests();
+        final int connections = Math.max(this.config.getThreads(), 1);
+
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(this.config.getSocketTimeout())
+                .setConnectTimeout(this.config.getSocketTimeout())
+                .build();
+        final DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(ioReactorConfig);
+        final BasicNIOConnPool pool = new BasicNIOConnPool(
+                ioReactor,
+                new BasicNIOConnFactory(this.sslContext, null, ConnectionConfig.DEFAULT),
+                this.config.getSocketTimeout());
+        pool.setDefaultMaxPerRoute(connections);
+        pool.setMaxTotal(connections);
+
+        final IOEventDispatch ioEventDispatch = new DefaultHttpClientIODispatch(
+                new HttpAsyncRequestExecutor(), ConnectionConfig.DEFAULT);
+        final Thread reactorThread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    ioReactor.execute(ioEventDispatch);
+                } catch (final IOException ex) {
+                    if (config.getVerbosity() >= 1) {
+                        System.err.println("I/O reactor terminated: " + ex.getMessage());
+                    }
+                }
+            }
+
+        }, "LoadGenerator");
+        reactorThread.start();
+
+        final HttpAsyncRequester requester = new HttpAsyncRequester(this.httpProcessor, this.connstrategy);
+        final CountDownLatch latch = new CountDownLatch(count);
+        try {
+            this.stats.start();
+            final long startTime = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                final long scheduledTime = startTime + i * TimeUnit.SECONDS.toNanos(1) / rate;
+                for (;;) {
+                    final long delay = scheduledTime - System.nanoTime();
+                    if (delay <= 0) {
+                        break;
+                    }
+                    LockSupport.parkNanos(delay);
+                }
+                submit(requester, pool, scheduledTime, latch);
+            }
+            // requests in flight get as long again as the schedule took,
+            // plus time to lease a connection and to read the response
+            final long socketTimeout = this.config.getSocketTimeout();
+            final long drainNanos = (System.nanoTime() - startTime) + TimeUnit.MILLISECONDS.toNanos(
+                    socketTimeout > 0 ? 2 * socketTimeout : DEFAULT_DRAIN_MILLIS);
+            await(latch, reactorThread, drainNanos);
+            this.stats.finish();
+        } finally {
+            pool.shutdown(2000);
+            reactorThread.join();
+        }
+        // requests that never completed, either because they timed out
+        // or because the I/O reactor terminated, count as failed
+        synchronized (this.stats) {
+            for (long i = latch.getCount(); i > 0; i--) {
+                this.stats.incFailureCount();
+                latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * Waits for all requests to complete, for the given time at most, or
+     * until the I/O reactor terminates.
+     */
+    private static void await(
+            final CountDownLatch latch,
+            final Thread reactorThread,
+            final long timeoutNanos) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        while (!latch.await(100, TimeUnit.MILLISECONDS)) {
+            if (!reactorThread.isAlive() || System.nanoTime() - deadline >= 0) {
+                return;
+            }
+        }
+    }
+
+    private void submit(
+            final HttpAsyncRequester requester,
+            final BasicNIOConnPool pool,
+            final long scheduledTime,
+            final CountDownLatch latch) {
+        final HttpRequest request = copy(this.template);
+        final HttpCoreContext context = HttpCoreContext.create();
+        final long submitTime = System.nanoTime();
+        requester.execute(
+                new BasicAsyncRequestProducer(this.targetHost, request),
+                new BasicAsyncResponseConsumer(),
+                pool,
+                context,
+                new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(final HttpResponse response) {
+                final long now = System.nanoTime();
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - scheduledTime));
+                serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - submitTime));
+                final boolean keepAlive = config.isKeepAlive() && connstrategy.keepAlive(response, context);
+                if (config.getVerbosity() >= 2) {
+                    System.out.println(response.getStatusLine().getStatusCode());
+                }
+                synchronized (stats) {
+                    if (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK) {
+                        stats.incSuccessCount();
+                    } else {
+                        stats.incFailureCount();
+                    }
+                    final HttpEntity entity = response.getEntity();
+                    if (entity != null) {
+                        stats.setContentLength(entity.getContentLength());
+                        stats.incTotalBytesRecv(entity.getContentLength());
+                    }
+                    if (request instanceof HttpEntityEnclosingRequest) {
+                        final HttpEntity requestEntity = ((HttpEntityEnclosingRequest) request).getEntity();
+                        if (requestEntity != null && requestEntity.getContentLength() > 0) {
+                            stats.incTotalBytesSent(requestEntity.getContentLength());
+                        }
+                    }
+                    if (keepAlive) {
+                        stats.incKeepAliveCount();
+                    }
+                    final Header header = response.getFirstHeader("Server");
+                    if (header != null) {
+                        stats.setServerName(header.getValue());
+                    }
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                final long now = System.nanoTime();
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(now - scheduledTime));
+                serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(now - submitTime));
+                if (config.getVerbosity() >= 2) {
+                    System.err.println("Failed HTTP request : " + ex.getMessage());
+                }
+                synchronized (stats) {
+                    stats.incFailureCount();
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void cancelled() {
+                synchronized (stats) {
+                    stats.incFailureCount();
+                }
+                latch.countDown();
+            }
+
+        });
+    }
+
+    /**
+     * Creates a copy of the request that can be processed independently
+     * of other requests in flight.
+     */
+    private static HttpRequest copy(final HttpRequest template) {
+        final HttpRequest request;
+        if (template instanceof HttpEntityEnclosingRequest) {
+            final BasicHttpEntityEnclosingRequest copy = new BasicHttpEntityEnclosingRequest(
+                    template.getRequestLine());
+            copy.setEntity(((HttpEntityEnclosingRequest) template).getEntity());
+            request = copy;
+        } else {
+            request = new BasicHttpRequest(template.getRequestLine());
+        }
+        request.setHeaders(template.getAllHeaders());
+        return request;
+    }
+
+}
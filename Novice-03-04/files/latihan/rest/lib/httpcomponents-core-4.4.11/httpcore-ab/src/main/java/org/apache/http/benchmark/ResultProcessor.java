@@ -86,9 +86,38 @@ public class ResultProcessor {
         return results;
     }
 
+    static Results collectResults(final LoadGenerator generator, final HttpHost host, final String uri) {
+        final Stats stats = generator.getStats();
+        final int connections = Math.max(generator.getConfig().getThreads(), 1);
+
+        final Results results = new Results();
+        results.serverName = stats.getServerName();
+        results.hostName = host.getHostName();
+        results.hostPort = host.getPort() > 0 ? host.getPort() :
+            host.getSchemeName().equalsIgnoreCase("https") ? 443 : 80;
+        results.documentPath = uri;
+        results.contentLength = stats.getContentLength();
+        results.concurrencyLevel = connections;
+        results.elapsedTimeNano = stats.getDuration();
+        results.successCount = stats.getSuccessCount();
+        results.failureCount = stats.getFailureCount();
+        results.writeErrors = stats.getWriteErrors();
+        results.keepAliveCount = stats.getKeepAliveCount();
+        results.totalBytesRcvd = stats.getTotalBytesRecv();
+        results.totalBytesSent = stats.getTotalBytesSent();
+        results.totalBytes = results.totalBytesRcvd + (results.totalBytesSent > 0 ? results.totalBytesSent : 0);
+        results.rate = generator.getConfig().getRate();
+        results.latency = generator.getLatency();
+        results.serviceTime = generator.getServiceTime();
+        return results;
+    }
+
     static void printResults(final Results results) {
         final int threads = results.getConcurrencyLevel();
-        final double totalTimeMs  = (results.getTotalTimeNano() / threads) / 1000000; // convert nano secs to milli secs
+        // workers of a closed model run in parallel, so the wall clock time is their mean
+        final long elapsedTimeNano = results.getElapsedTimeNano() > 0 ?
+            results.getElapsedTimeNano() : results.getTotalTimeNano() / threads;
+        final double totalTimeMs  = elapsedTimeNano / 1000000; // convert nano secs to milli secs
         final double timePerReqMs = totalTimeMs / results.getSuccessCount();
         final double totalTimeSec = totalTimeMs / 1000;
         final double reqsPerSec   = results.getSuccessCount() / totalTimeSec;
@@ -117,6 +146,27 @@ public class ResultProcessor {
                     / 1000 / totalTimeSec) : Integer.valueOf(-1)) + " kb/s sent");
         System.out.println( "\t\t\t\t" +
             nf2.format(results.getTotalBytes() / 1000 / totalTimeSec) + " kb/s total");
+        if (results.getLatency() != null) {
+            printLatency(results);
+        }
+    }
+
+    private static void printLatency(final Results results) {
+        final LatencyHistogram latency = results.getLatency();
+        final LatencyHistogram serviceTime = results.getServiceTime();
+        System.out.println( "\nTarget request rate:\t\t" + results.getRate() + " [#/sec]");
+        System.out.println( "Response time corrected for coordinated omission [ms], " +
+            "uncorrected in brackets");
+        System.out.println( "  mean\t\t\t\t" + nf3.format(latency.getMean() / 1000) +
+            " (" + nf3.format(serviceTime.getMean() / 1000) + ")");
+        final double[] percentiles = { 50.0, 90.0, 99.0, 99.9 };
+        for (final double percentile : percentiles) {
+            System.out.println( "  " + percentile + "%\t\t\t\t" +
+                nf3.format(latency.getValueAtPercentile(percentile) / 1000.0) +
+                " (" + nf3.format(serviceTime.getValueAtPercentile(percentile) / 1000.0) + ")");
+        }
+        System.out.println( "  max\t\t\t\t" + nf3.format(latency.getMaxValue() / 1000.0) +
+            " (" + nf3.format(serviceTime.getMaxValue() / 1000.0) + ")");
     }
 
 }
@@ -40,6 +40,7 @@ public final class Results {
     long contentLength;
     int concurrencyLevel;
     long totalTimeNano;
+    long elapsedTimeNano;
     long successCount;
     long failureCount;
     long writeErrors;
@@ -47,6 +48,9 @@ public final class Results {
     long totalBytesRcvd;
     long totalBytesSent;
     long totalBytes;
+    int rate;
+    LatencyHistogram latency;
+    LatencyHistogram serviceTime;
 
     Results() {
         super();
@@ -77,10 +81,24 @@ public final class Results {
         return concurrencyLevel;
     }
 
+    /**
+     * Returns the sum of the time taken by all workers or {@code 0} if the
+     * benchmark ran at a fixed rate.
+     */
     public long getTotalTimeNano() {
         return totalTimeNano;
     }
 
+    /**
+     * Returns the wall clock time taken by the benchmark if it ran at
+     * a fixed rate or {@code 0} otherwise.
+     *
+     * @since 4.4.12
+     */
+    public long getElapsedTimeNano() {
+        return elapsedTimeNano;
+    }
+
     public long getSuccessCount() {
         return successCount;
     }
@@ -109,6 +127,38 @@ public final class Results {
         return totalBytes;
     }
 
+    /**
+     * Returns the target request rate or {@code 0} if the benchmark
+     * did not run at a fixed rate.
+     *
+     * @since 4.4.12
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the response times in microseconds measured from the time
+     * each request was scheduled to be sent or {@code null} if the benchmark
+     * did not run at a fixed rate.
+     *
+     * @since 4.4.12
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the response times in microseconds measured from the time
+     * each request was actually submitted or {@code null} if the benchmark
+     * did not run at a fixed rate.
+     *
+     * @since 4.4.12
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
     @Override
     public String toString() {
         final StringBuilder builder = new StringBuilder();
@@ -119,6 +169,7 @@ public final class Results {
                 .append(", contentLength=").append(contentLength)
                 .append(", concurrencyLevel=").append(concurrencyLevel)
                 .append(", totalTimeNano=").append(totalTimeNano)
+                .append(", elapsedTimeNano=").append(elapsedTimeNano)
                 .append(", successCount=").append(successCount)
                 .append(", failureCount=").append(failureCount)
                 .append(", writeErrors=").append(writeErrors)
@@ -126,6 +177,7 @@ public final class Results {
                 .append(", totalBytesRcvd=").append(totalBytesRcvd)
                 .append(", totalBytesSent=").append(totalBytesSent)
                 .append(", totalBytes=").append(totalBytes)
+                .append(", rate=").append(rate)
                 .append("]");
         return builder.toString();
     }
@@ -88,4 +88,32 @@ public class SmokeTest {
         Assert.assertEquals(300 * 16, results.getTotalBytesRcvd());
     }
 
+    @Test
+    public void testFixedRate() throws Exception {
+        final Config config = new Config();
+        config.setKeepAlive(true);
+        config.setMethod("GET");
+        config.setUrl(new URL("http://localhost:" + server.getPort() + "/"));
+        config.setThreads(3);
+        config.setRequests(200);
+        config.setRate(1000);
+        final HttpBenchmark httpBenchmark = new HttpBenchmark(config);
+        final Results results = httpBenchmark.doExecute();
+        Assert.assertNotNull(results);
+        Assert.assertEquals(16, results.getContentLength());
+        Assert.assertEquals(3, results.getConcurrencyLevel());
+        Assert.assertEquals(1000, results.getRate());
+        Assert.assertTrue(results.getElapsedTimeNano() > 0);
+        Assert.assertEquals(0, results.getTotalTimeNano());
+        Assert.assertEquals(200, results.getSuccessCount());
+        Assert.assertEquals(0, results.getFailureCount());
+        Assert.assertEquals(200, results.getKeepAliveCount());
+        Assert.assertEquals(200 * 16, results.getTotalBytesRcvd());
+        Assert.assertNotNull(results.getLatency());
+        Assert.assertEquals(200, results.getLatency().getTotalCount());
+        Assert.assertEquals(200, results.getServiceTime().getTotalCount());
+        Assert.assertTrue(results.getLatency().getValueAtPercentile(99.0)
+                >= results.getServiceTime().getValueAtPercentile(99.0));
+    }
+
 }
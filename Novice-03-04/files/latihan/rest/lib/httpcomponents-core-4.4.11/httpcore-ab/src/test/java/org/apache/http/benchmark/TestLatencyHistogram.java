@@ -0,0 +1,88 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.benchmark;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLatencyHistogram {
+
+    @Test
+    public void testEmpty() {
+        final LatencyHistogram histogram = new LatencyHistogram(3600000000L);
+        Assert.assertEquals(0, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99.0));
+        Assert.assertEquals(0.0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram(3600000000L);
+        for (long i = 1; i <= 10000; i++) {
+            histogram.recordValue(i * 100);
+        }
+        Assert.assertEquals(10000, histogram.getTotalCount());
+        Assert.assertEquals(1000000, histogram.getMaxValue());
+        assertWithinPrecision(500000, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(900000, histogram.getValueAtPercentile(90.0));
+        assertWithinPrecision(990000, histogram.getValueAtPercentile(99.0));
+        assertWithinPrecision(999000, histogram.getValueAtPercentile(99.9));
+        Assert.assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+        assertWithinPrecision(500050, (long) histogram.getMean());
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final LatencyHistogram histogram = new LatencyHistogram(3600000000L);
+        for (long i = 0; i < 2048; i++) {
+            histogram.recordValue(i);
+        }
+        Assert.assertEquals(1023, histogram.getValueAtPercentile(50.0));
+        Assert.assertEquals(2047, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram(10000);
+        histogram.recordValue(-5);
+        histogram.recordValue(Long.MAX_VALUE);
+        Assert.assertEquals(2, histogram.getTotalCount());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50.0));
+        Assert.assertEquals(10000, histogram.getMaxValue());
+        Assert.assertEquals(10000, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHighestTrackableValue() {
+        new LatencyHistogram(10);
+    }
+
+    private static void assertWithinPrecision(final long expected, final long actual) {
+        Assert.assertEquals(expected, actual, expected / 1000.0);
+    }
+
+}
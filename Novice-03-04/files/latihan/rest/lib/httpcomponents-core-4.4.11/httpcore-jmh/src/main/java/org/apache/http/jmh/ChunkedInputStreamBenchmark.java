@@ -0,0 +1,102 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.apache.http.impl.io.ChunkedInputStream;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.io.SessionInputBufferImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks decoding of a 64 KiB chunk coded message body with {@link ChunkedInputStream}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkedInputStreamBenchmark {
+
+    private static final int CONTENT_LENGTH = 64 * 1024;
+
+    @Param({"256", "4096", "16384"})
+    public int chunkSize;
+
+    private byte[] encoded;
+    private byte[] readBuffer;
+    private SessionInputBufferImpl inBuffer;
+
+    @Setup
+    public void setup() throws IOException {
+        final byte[] content = new byte[CONTENT_LENGTH];
+        new Random(42).nextBytes(content);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int off = 0; off < content.length; off += this.chunkSize) {
+            final int len = Math.min(this.chunkSize, content.length - off);
+            out.write((Integer.toHexString(len) + "\r\n").getBytes(Consts.ASCII));
+            out.write(content, off, len);
+            out.write("\r\n".getBytes(Consts.ASCII));
+        }
+        out.write("0\r\nX-Checksum: 5d41402abc4b2a76\r\n\r\n".getBytes(Consts.ASCII));
+        this.encoded = out.toByteArray();
+        this.readBuffer = new byte[4096];
+        this.inBuffer = new SessionInputBufferImpl(new HttpTransportMetricsImpl(), 8 * 1024);
+    }
+
+    @Benchmark
+    public long decode() throws IOException {
+        this.inBuffer.clear();
+        this.inBuffer.bind(new ByteArrayInputStream(this.encoded));
+        final ChunkedInputStream inStream = new ChunkedInputStream(this.inBuffer);
+        long total = 0;
+        int l;
+        while ((l = inStream.read(this.readBuffer)) != -1) {
+            total += l;
+        }
+        inStream.close();
+        return total;
+    }
+
+}
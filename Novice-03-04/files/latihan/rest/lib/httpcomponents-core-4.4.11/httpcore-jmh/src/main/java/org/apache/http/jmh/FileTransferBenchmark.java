@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.codecs.AbstractContentEncoder;
+import org.apache.http.impl.nio.codecs.ChunkEncoder;
+import org.apache.http.impl.nio.codecs.LengthDelimitedEncoder;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
+import org.apache.http.nio.entity.NFileEntity;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks serving a file with {@link NFileEntity} over a loopback socket,
+ * either transferring the content directly from the file channel or copying
+ * it through the content encoder.
+ * <p>
+ * Besides throughput in files per second the benchmark reports the bytes
+ * served and the CPU time consumed by the serving thread, including time
+ * spent in the kernel, both per second. Dividing the latter by the former
+ * gives the CPU time per byte served.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileTransferBenchmark {
+
+    @Param({"65536", "16777216"})
+    public int fileSize;
+
+    @Param({"length", "chunked"})
+    public String coding;
+
+    @Param({"true", "false"})
+    public boolean zeroCopy;
+
+    private File file;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel channel;
+    private Thread drainer;
+    private SessionOutputBufferImpl outbuf;
+    private HttpTransportMetricsImpl metrics;
+    private ThreadMXBean threadMXBean;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long bytes;
+        public long cpuNanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+            this.cpuNanos = 0;
+        }
+
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        this.file = File.createTempFile("benchmark", ".bin");
+        final byte[] content = new byte[this.fileSize];
+        new Random(42).nextBytes(content);
+        final RandomAccessFile raFile = new RandomAccessFile(this.file, "rw");
+        try {
+            raFile.write(content);
+        } finally {
+            raFile.close();
+        }
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.channel = SocketChannel.open(this.serverChannel.socket().getLocalSocketAddress());
+        final SocketChannel peer = this.serverChannel.accept();
+        this.drainer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                try {
+                    while (peer.read(buffer) != -1) {
+                        buffer.clear();
+                    }
+                } catch (final IOException ignore) {
+                } finally {
+                    try {
+                        peer.close();
+                    } catch (final IOException ignore) {
+                    }
+                }
+            }
+
+        }, "drainer");
+        this.drainer.start();
+
+        this.outbuf = new SessionOutputBufferImpl(8 * 1024, 256);
+        this.metrics = new HttpTransportMetricsImpl();
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.channel.close();
+        this.drainer.join();
+        this.serverChannel.close();
+        this.file.delete();
+    }
+
+    @Benchmark
+    public long serve(final Counters counters) throws IOException {
+        final long cpuTime = this.threadMXBean.getCurrentThreadCpuTime();
+        final long bytesTransferred = this.metrics.getBytesTransferred();
+        final NFileEntity entity = new NFileEntity(this.file, ContentType.APPLICATION_OCTET_STREAM, this.zeroCopy);
+        final AbstractContentEncoder encoder;
+        if ("chunked".equals(this.coding)) {
+            encoder = new ChunkEncoder(this.channel, this.outbuf, this.metrics);
+        } else {
+            encoder = new LengthDelimitedEncoder(this.channel, this.outbuf, this.metrics, this.fileSize);
+        }
+        while (!encoder.isCompleted()) {
+            entity.produceContent(encoder, null);
+        }
+        while (this.outbuf.hasData()) {
+            this.outbuf.flush(this.channel);
+        }
+        counters.bytes += this.metrics.getBytesTransferred() - bytesTransferred;
+        counters.cpuNanos += this.threadMXBean.getCurrentThreadCpuTime() - cpuTime;
+        return this.metrics.getBytesTransferred();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.RequestLine;
+import org.apache.http.StatusLine;
+import org.apache.http.message.BasicLineParser;
+import org.apache.http.message.ParserCursor;
+import org.apache.http.util.CharArrayBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link BasicLineParser} on request lines, status lines
+ * and individual header lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineParserBenchmark {
+
+    private final BasicLineParser parser = BasicLineParser.INSTANCE;
+
+    private CharArrayBuffer requestLine;
+    private CharArrayBuffer statusLine;
+    private CharArrayBuffer headerLine;
+
+    private static CharArrayBuffer toBuffer(final String s) {
+        final CharArrayBuffer buffer = new CharArrayBuffer(s.length());
+        buffer.append(s);
+        return buffer;
+    }
+
+    @Setup
+    public void setup() {
+        this.requestLine = toBuffer(Messages.firstLine(Messages.BROWSER_REQUEST));
+        this.statusLine = toBuffer(Messages.firstLine(Messages.RESPONSE));
+        this.headerLine = toBuffer("Content-Type: text/html; charset=UTF-8");
+    }
+
+    @Benchmark
+    public RequestLine parseRequestLine() {
+        return this.parser.parseRequestLine(this.requestLine, new ParserCursor(0, this.requestLine.length()));
+    }
+
+    @Benchmark
+    public StatusLine parseStatusLine() {
+        return this.parser.parseStatusLine(this.statusLine, new ParserCursor(0, this.statusLine.length()));
+    }
+
+    @Benchmark
+    public String parseHeader() {
+        final Header header = this.parser.parseHeader(this.headerLine);
+        // BufferedHeader defers extracting the value until it is accessed
+        return header.getValue();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.impl.io.DefaultHttpRequestParser;
+import org.apache.http.impl.io.DefaultHttpResponseParser;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.io.SessionInputBufferImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks parsing of complete message heads through {@link SessionInputBufferImpl}
+ * and the default message parsers, as well as header lookups on the parsed message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageParserBenchmark {
+
+    /**
+     * {@code api} for a small API request, {@code browser} for a fat browser request.
+     */
+    @Param({"api", "browser"})
+    public String profile;
+
+    private byte[] request;
+    private byte[] response;
+    private SessionInputBufferImpl inBuffer;
+    private HttpRequest parsedRequest;
+
+    @Setup
+    public void setup() throws IOException, HttpException {
+        this.request = Messages.encode(Messages.request(this.profile));
+        this.response = Messages.encode(Messages.RESPONSE);
+        this.inBuffer = new SessionInputBufferImpl(new HttpTransportMetricsImpl(), 8 * 1024);
+        this.parsedRequest = parseRequest();
+    }
+
+    @Benchmark
+    public HttpRequest parseRequest() throws IOException, HttpException {
+        this.inBuffer.clear();
+        this.inBuffer.bind(new ByteArrayInputStream(this.request));
+        return new DefaultHttpRequestParser(this.inBuffer).parse();
+    }
+
+    @Benchmark
+    public HttpResponse parseResponse() throws IOException, HttpException {
+        this.inBuffer.clear();
+        this.inBuffer.bind(new ByteArrayInputStream(this.response));
+        return new DefaultHttpResponseParser(this.inBuffer).parse();
+    }
+
+    @Benchmark
+    public void parseRequestAndReadHeaders(final Blackhole blackhole) throws IOException, HttpException {
+        final HttpRequest request = parseRequest();
+        for (final Header header: request.getAllHeaders()) {
+            blackhole.consume(header.getValue());
+        }
+    }
+
+    @Benchmark
+    public void lookupHeaders(final Blackhole blackhole) {
+        blackhole.consume(this.parsedRequest.getFirstHeader("Host"));
+        blackhole.consume(this.parsedRequest.getFirstHeader("Content-Length"));
+        blackhole.consume(this.parsedRequest.getFirstHeader("Transfer-Encoding"));
+        blackhole.consume(this.parsedRequest.getHeaders("Accept"));
+        blackhole.consume(this.parsedRequest.containsHeader("Expect"));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.impl.io.DefaultHttpRequestParser;
+import org.apache.http.impl.io.DefaultHttpRequestWriter;
+import org.apache.http.impl.io.DefaultHttpResponseParser;
+import org.apache.http.impl.io.DefaultHttpResponseWriter;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.io.SessionInputBufferImpl;
+import org.apache.http.impl.io.SessionOutputBufferImpl;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks formatting of message heads with the default message writers.
+ * <p>
+ * The messages are built from {@link org.apache.http.message.BasicHeader}s,
+ * as is the case for messages composed by applications, rather than from
+ * the {@link org.apache.http.message.BufferedHeader}s produced by the parsers,
+ * which are written out verbatim.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageWriterBenchmark {
+
+    @Param({"api", "browser"})
+    public String profile;
+
+    private HttpRequest request;
+    private HttpResponse response;
+    private SessionOutputBufferImpl outBuffer;
+
+    @Setup
+    public void setup() throws IOException, HttpException {
+        final SessionInputBufferImpl inBuffer = new SessionInputBufferImpl(new HttpTransportMetricsImpl(), 8 * 1024);
+        inBuffer.bind(new ByteArrayInputStream(Messages.encode(Messages.request(this.profile))));
+        final HttpRequest parsedRequest = new DefaultHttpRequestParser(inBuffer).parse();
+        this.request = new BasicHttpRequest(parsedRequest.getRequestLine());
+        for (final Header header: parsedRequest.getAllHeaders()) {
+            this.request.addHeader(header.getName(), header.getValue());
+        }
+        inBuffer.clear();
+        inBuffer.bind(new ByteArrayInputStream(Messages.encode(Messages.RESPONSE)));
+        final HttpResponse parsedResponse = new DefaultHttpResponseParser(inBuffer).parse();
+        this.response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        for (final Header header: parsedResponse.getAllHeaders()) {
+            this.response.addHeader(header.getName(), header.getValue());
+        }
+        this.outBuffer = new SessionOutputBufferImpl(new HttpTransportMetricsImpl(), 8 * 1024);
+        this.outBuffer.bind(new NullOutputStream());
+    }
+
+    @Benchmark
+    public void writeRequest() throws IOException, HttpException {
+        new DefaultHttpRequestWriter(this.outBuffer).write(this.request);
+        this.outBuffer.flush();
+    }
+
+    @Benchmark
+    public void writeResponse() throws IOException, HttpException {
+        new DefaultHttpResponseWriter(this.outBuffer).write(this.response);
+        this.outBuffer.flush();
+    }
+
+    static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+        }
+
+    }
+
+}
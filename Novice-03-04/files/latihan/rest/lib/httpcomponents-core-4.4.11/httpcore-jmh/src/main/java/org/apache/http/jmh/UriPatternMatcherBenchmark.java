@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.protocol.RadixTreeUriPatternMatcher;
+import org.apache.http.protocol.UriPatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks request handler lookups with {@link UriPatternMatcher} and
+ * {@link RadixTreeUriPatternMatcher} over route tables of various sizes.
+ * Routes are a mix of exact URIs, prefix patterns and suffix patterns;
+ * lookups hit all three kinds as well as the catch-all pattern.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UriPatternMatcherBenchmark {
+
+    @Param({"20", "2000"})
+    public int routes;
+
+    /**
+     * {@code linear} for {@link UriPatternMatcher}, {@code radix} for
+     * {@link RadixTreeUriPatternMatcher}.
+     */
+    @Param({"linear", "radix"})
+    public String matcher;
+
+    private UriPatternMatcher<String> uriPatternMatcher;
+    private String[] paths;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+    }
+
+    @Setup
+    public void setup() {
+        this.uriPatternMatcher = this.matcher.equals("radix")
+                ? new RadixTreeUriPatternMatcher<String>()
+                : new UriPatternMatcher<String>();
+        this.uriPatternMatcher.register("*", "default");
+        for (int i = 0; i < this.routes; i++) {
+            final String route;
+            switch (i % 4) {
+                case 0:
+                    route = "/api/v1/service" + i + "/status";
+                    break;
+                case 1:
+                    route = "*.ext" + i;
+                    break;
+                default:
+                    route = "/api/v" + (i % 3) + "/resource" + i + "/*";
+            }
+            this.uriPatternMatcher.register(route, route);
+        }
+        final Random random = new Random(42);
+        this.paths = new String[1024];
+        for (int i = 0; i < this.paths.length; i++) {
+            // First of four consecutive routes: exact, suffix, prefix, prefix
+            final int route = random.nextInt(this.routes / 4) * 4;
+            switch (i % 4) {
+                case 0:
+                    this.paths[i] = "/api/v1/service" + route + "/status";
+                    break;
+                case 1:
+                    this.paths[i] = "/static/files/file" + i + ".ext" + (route + 1);
+                    break;
+                case 2:
+                    this.paths[i] = "/api/v" + ((route + 2) % 3) + "/resource" + (route + 2) + "/items/" + i;
+                    break;
+                default:
+                    this.paths[i] = "/unknown/path/" + i;
+            }
+        }
+    }
+
+    private String lookup(final Cursor cursor) {
+        final String path = this.paths[cursor.next];
+        cursor.next = (cursor.next + 1) & (this.paths.length - 1);
+        return this.uriPatternMatcher.lookup(path);
+    }
+
+    @Benchmark
+    public String lookupSingleThread(final Cursor cursor) {
+        return lookup(cursor);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String lookupFourThreads(final Cursor cursor) {
+        return lookup(cursor);
+    }
+
+}
@@ -211,6 +211,7 @@ public class DefaultHttpClientIODispatch<H extends NHttpClientEventHandler>
     @Override
     protected void onClosed(final DefaultNHttpClientConnection conn) {
         this.handler.closed(conn);
+        conn.releaseIdleBuffers();
     }
 
     @Override
@@ -231,6 +231,7 @@ public class DefaultHttpServerIODispatch<H extends NHttpServerEventHandler>
     @Override
     protected void onClosed(final DefaultNHttpServerConnection conn) {
         this.handler.closed(conn);
+        conn.releaseIdleBuffers();
     }
 
     @Override
@@ -277,6 +277,7 @@ public class DefaultNHttpClientConnection
         } finally {
             // Finally set buffered input flag
             this.hasBufferedInput = this.inbuf.hasData();
+            releaseIdleBuffers();
         }
     }
 
@@ -311,6 +312,7 @@ public class DefaultNHttpClientConnection
         } finally {
             // Finally set the buffered output flag
             this.hasBufferedOutput = this.outbuf.hasData();
+            releaseIdleBuffers();
         }
     }
 
@@ -297,6 +297,7 @@ public class DefaultNHttpServerConnection
         } finally {
             // Finally set buffered input flag
             this.hasBufferedInput = this.inbuf.hasData();
+            releaseIdleBuffers();
         }
     }
 
@@ -331,6 +332,7 @@ public class DefaultNHttpServerConnection
         } finally {
             // Finally set the buffered output flag
             this.hasBufferedOutput = this.outbuf.hasData();
+            releaseIdleBuffers();
         }
     }
 
@@ -491,6 +491,28 @@ public class NHttpConnectionBase
         return this.hasBufferedOutput;
     }
 
+    /**
+     * Returns empty session buffers to the pool they have been allocated from
+     * unless a message body is being transferred over a connection that is
+     * still open. Has no effect unless the buffers are backed by
+     * a {@link org.apache.http.nio.util.PooledByteBufferAllocator}.
+     * <p>
+     * The session buffers are used by the I/O dispatch thread, so this method
+     * may only be called by that thread.
+     * </p>
+     *
+     * @since 4.4.12
+     */
+    protected void releaseIdleBuffers() {
+        final boolean closed = this.status == CLOSED || this.session.isClosed();
+        if (this.contentDecoder == null || closed) {
+            this.inbuf.release();
+        }
+        if (this.contentEncoder == null || closed) {
+            this.outbuf.release();
+        }
+    }
+
     /**
      * Assets if the connection is still open.
      *
@@ -29,26 +29,40 @@ package org.apache.http.impl.nio.codecs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.io.BufferInfo;
+import org.apache.http.nio.FileContentEncoder;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.apache.http.util.Asserts;
 import org.apache.http.util.CharArrayBuffer;
 
 /**
  * Implements chunked transfer coding. The content is sent in small chunks.
  * Entities transferred using this decoder can be of unlimited length.
+ * <p>
+ * Content transferred from a {@link FileChannel} is sent as a single chunk
+ * per {@link #transfer(FileChannel, long, long)} call, whose data is written
+ * directly to the underlying I/O session's channel, bypassing the session
+ * buffer. Once such a chunk has been started, subsequent calls must continue
+ * the transfer from the position following the bytes already transferred
+ * until the chunk is complete.
+ * </p>
  *
  * @since 4.0
  */
-public class ChunkEncoder extends AbstractContentEncoder {
+public class ChunkEncoder extends AbstractContentEncoder implements FileContentEncoder {
 
     private final int fragHint;
     private final CharArrayBuffer lineBuffer;
 
     private final BufferInfo bufferinfo;
 
+    // remaining length of the chunk being transferred from a file
+    private long chunkRemaining;
+
     /**
      * @since 4.3
      *
@@ -87,6 +101,7 @@ public class ChunkEncoder extends AbstractContentEncoder {
             return 0;
         }
         assertNotCompleted();
+        Asserts.check(this.chunkRemaining == 0, "File transfer in progress");
 
         int total = 0;
         while (src.hasRemaining()) {
@@ -134,9 +149,52 @@ public class ChunkEncoder extends AbstractContentEncoder {
         return total;
     }
 
+    /**
+     * @since 4.4.12
+     */
+    @Override
+    public long transfer(
+            final FileChannel src,
+            final long position,
+            final long count) throws IOException {
+
+        if (src == null) {
+            return 0;
+        }
+        assertNotCompleted();
+
+        if (this.chunkRemaining == 0) {
+            final long chunk = Math.min(count, src.size() - position);
+            if (chunk <= 0) {
+                return 0;
+            }
+            this.lineBuffer.clear();
+            this.lineBuffer.append(Long.toHexString(chunk));
+            this.buffer.writeLine(this.lineBuffer);
+            this.chunkRemaining = chunk;
+        }
+        flushToChannel();
+        if (this.buffer.hasData()) {
+            return 0;
+        }
+
+        final long bytesWritten = src.transferTo(position, this.chunkRemaining, this.channel);
+        if (bytesWritten > 0) {
+            this.metrics.incrementBytesTransferred(bytesWritten);
+            this.chunkRemaining -= bytesWritten;
+        }
+        if (this.chunkRemaining == 0) {
+            this.lineBuffer.clear();
+            this.buffer.writeLine(this.lineBuffer);
+            flushToChannel();
+        }
+        return bytesWritten;
+    }
+
     @Override
     public void complete() throws IOException {
         assertNotCompleted();
+        Asserts.check(this.chunkRemaining == 0, "File transfer in progress");
         this.lineBuffer.clear();
         this.lineBuffer.append("0");
         this.buffer.writeLine(this.lineBuffer);
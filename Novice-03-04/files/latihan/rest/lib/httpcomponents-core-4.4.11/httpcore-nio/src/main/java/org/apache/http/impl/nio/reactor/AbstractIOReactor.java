@@ -34,6 +34,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashSet;
@@ -45,6 +46,7 @@ import org.apache.http.nio.reactor.IOReactor;
 import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.http.nio.reactor.IOReactorStatus;
 import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.util.PooledByteBufferAllocator;
 import org.apache.http.util.Args;
 import org.apache.http.util.Asserts;
 
@@ -57,6 +59,8 @@ import org.apache.http.util.Asserts;
  */
 public abstract class AbstractIOReactor implements IOReactor {
 
+    private static final long MAX_TIMEOUT_TICK = 100;
+
     private volatile IOReactorStatus status;
 
     private final Object statusMutex;
@@ -67,6 +71,12 @@ public abstract class AbstractIOReactor implements IOReactor {
     private final Queue<InterestOpEntry> interestOpsQueue;
     private final Queue<IOSession> closedSessions;
     private final Queue<ChannelEntry> newChannels;
+    private final Queue<ChannelAcceptor> newAcceptors;
+    private final Queue<IOSessionImpl> timeoutUpdates;
+    private final SessionTimeoutCallback sessionTimeoutCallback;
+    private final TimerWheel<IOSessionImpl> timeoutWheel;
+    private final IOReactorStats stats;
+    private final SelectorWakeup selectorWakeup;
 
     /**
      * Creates new AbstractIOReactor instance.
@@ -97,11 +107,25 @@ public abstract class AbstractIOReactor implements IOReactor {
         this.interestOpsQueue = new ConcurrentLinkedQueue<InterestOpEntry>();
         this.closedSessions = new ConcurrentLinkedQueue<IOSession>();
         this.newChannels = new ConcurrentLinkedQueue<ChannelEntry>();
+        this.newAcceptors = new ConcurrentLinkedQueue<ChannelAcceptor>();
+        this.timeoutUpdates = new ConcurrentLinkedQueue<IOSessionImpl>();
+        this.sessionTimeoutCallback = new SessionTimeoutCallback() {
+
+            @Override
+            public void socketTimeoutChanged(final IOSessionImpl session) {
+                timeoutUpdates.add(session);
+            }
+
+        };
+        this.timeoutWheel = new TimerWheel<IOSessionImpl>(
+                Math.min(selectTimeout, MAX_TIMEOUT_TICK), System.currentTimeMillis());
+        this.stats = new IOReactorStats();
         try {
             this.selector = Selector.open();
         } catch (final IOException ex) {
             throw new IOReactorException("Failure opening selector", ex);
         }
+        this.selectorWakeup = new SelectorWakeup(this.selector);
         this.statusMutex = new Object();
         this.status = IOReactorStatus.INACTIVE;
     }
@@ -210,6 +234,15 @@ public abstract class AbstractIOReactor implements IOReactor {
         return this.interestOpsQueueing;
     }
 
+    /**
+     * Returns statistics of this I/O reactor.
+     *
+     * @since 4.4.12
+     */
+    public IOReactorStats getStats() {
+        return this.stats;
+    }
+
     /**
      * Adds new channel entry. The channel will be asynchronously registered
      * with the selector.
@@ -218,8 +251,9 @@ public abstract class AbstractIOReactor implements IOReactor {
      */
     public void addChannel(final ChannelEntry channelEntry) {
         Args.notNull(channelEntry, "Channel entry");
+        this.stats.channelAdded();
         this.newChannels.add(channelEntry);
-        this.selector.wakeup();
+        this.selectorWakeup.wakeup();
     }
 
     /**
@@ -246,6 +280,8 @@ public abstract class AbstractIOReactor implements IOReactor {
      */
     protected void execute() throws InterruptedIOException, IOReactorException {
         this.status = IOReactorStatus.ACTIVE;
+        this.selectorWakeup.setSelectorThread(Thread.currentThread());
+        PooledByteBufferAllocator.markDispatchThread();
 
         try {
             for (;;) {
@@ -258,6 +294,8 @@ public abstract class AbstractIOReactor implements IOReactor {
                 } catch (final IOException ex) {
                     throw new IOReactorException("Unexpected selector failure", ex);
                 }
+                final long loopStart = System.nanoTime();
+                this.selectorWakeup.reset();
 
                 if (this.status == IOReactorStatus.SHUT_DOWN) {
                     // Hard shut down. Exit select loop immediately
@@ -276,6 +314,9 @@ public abstract class AbstractIOReactor implements IOReactor {
                     processEvents(this.selector.selectedKeys());
                 }
 
+                // Arm timeouts of sessions whose socket timeout has changed
+                processTimeoutUpdates();
+
                 // Validate active channels
                 validate(this.selector.keys());
 
@@ -284,6 +325,7 @@ public abstract class AbstractIOReactor implements IOReactor {
 
                 // If active process new channels
                 if (this.status == IOReactorStatus.ACTIVE) {
+                    processNewAcceptors();
                     processNewChannels();
                 }
 
@@ -298,10 +340,12 @@ public abstract class AbstractIOReactor implements IOReactor {
                     processPendingInterestOps();
                 }
 
+                this.stats.loopCompleted(readyCount, loopStart, System.nanoTime());
             }
 
         } catch (final ClosedSelectorException ignore) {
         } finally {
+            this.selectorWakeup.setSelectorThread(null);
             hardShutdown();
             synchronized (this.statusMutex) {
                 this.statusMutex.notifyAll();
@@ -324,7 +368,15 @@ public abstract class AbstractIOReactor implements IOReactor {
      * @param key the selection key that triggered an event.
      */
     protected void processEvent(final SelectionKey key) {
-        final IOSessionImpl session = (IOSessionImpl) key.attachment();
+        final Object attachment = key.attachment();
+        if (attachment instanceof ChannelAcceptor) {
+            // Server channel accepting connections on behalf of this I/O reactor
+            if (key.isValid() && key.isAcceptable()) {
+                ((ChannelAcceptor) attachment).accept(this);
+            }
+            return;
+        }
+        final IOSessionImpl session = (IOSessionImpl) attachment;
         try {
             if (key.isAcceptable()) {
                 acceptable(key);
@@ -357,6 +409,36 @@ public abstract class AbstractIOReactor implements IOReactor {
         }
     }
 
+    /**
+     * Adds a server channel whose incoming connections are to be accepted
+     * by this I/O reactor. The channel will be asynchronously registered
+     * with the selector.
+     */
+    void addChannelAcceptor(final ChannelAcceptor acceptor) {
+        Args.notNull(acceptor, "Channel acceptor");
+        this.newAcceptors.add(acceptor);
+        this.selectorWakeup.wakeup();
+    }
+
+    /**
+     * Wakes up the selector of this I/O reactor unless invoked by
+     * the I/O reactor thread.
+     */
+    void wakeup() {
+        this.selectorWakeup.wakeup();
+    }
+
+    private void processNewAcceptors() {
+        ChannelAcceptor acceptor;
+        while ((acceptor = this.newAcceptors.poll()) != null) {
+            try {
+                acceptor.getChannel().register(this.selector, SelectionKey.OP_ACCEPT, acceptor);
+            } catch (final ClosedChannelException ex) {
+                // Listener endpoint closed in the meantime
+            }
+        }
+    }
+
     private void processNewChannels() throws IOReactorException {
         ChannelEntry entry;
         while ((entry = this.newChannels.poll()) != null) {
@@ -372,9 +454,11 @@ public abstract class AbstractIOReactor implements IOReactor {
                 if (sessionRequest != null) {
                     sessionRequest.failed(ex);
                 }
+                this.stats.channelRemoved();
                 return;
 
             } catch (final IOException ex) {
+                this.stats.channelRemoved();
                 throw new IOReactorException("Failure registering channel " +
                         "with the selector", ex);
             }
@@ -402,7 +486,9 @@ public abstract class AbstractIOReactor implements IOReactor {
 
             final IOSession session;
             try {
-                session = new IOSessionImpl(key, interestOpsCallback, sessionClosedCallback);
+                session = new IOSessionImpl(
+                        key, interestOpsCallback, sessionClosedCallback, this.sessionTimeoutCallback,
+                        this.stats, this.selectorWakeup);
                 int timeout = 0;
                 try {
                     timeout = channel.socket().getSoTimeout();
@@ -415,10 +501,14 @@ public abstract class AbstractIOReactor implements IOReactor {
                 session.setAttribute(IOSession.ATTACHMENT_KEY, entry.getAttachment());
                 session.setSocketTimeout(timeout);
             } catch (final CancelledKeyException ex) {
+                this.stats.channelRemoved();
                 continue;
             }
             try {
                 this.sessions.add(session);
+                this.stats.sessionAdded();
+                // Pending channel count is decremented only now to keep the load steady
+                this.stats.channelRemoved();
                 final SessionRequestImpl sessionRequest = entry.getSessionRequest();
                 if (sessionRequest != null) {
                     sessionRequest.completed(session);
@@ -436,6 +526,10 @@ public abstract class AbstractIOReactor implements IOReactor {
         IOSession session;
         while ((session = this.closedSessions.poll()) != null) {
             if (this.sessions.remove(session)) {
+                this.stats.sessionRemoved();
+                if (session instanceof IOSessionImpl) {
+                    this.timeoutWheel.cancel(((IOSessionImpl) session).getTimeoutEntry());
+                }
                 try {
                     sessionClosed(session);
                 } catch (final CancelledKeyException ex) {
@@ -454,7 +548,7 @@ public abstract class AbstractIOReactor implements IOReactor {
         while ((entry = this.interestOpsQueue.poll()) != null) {
             // obtain the operation's details
             final SelectionKey key = entry.getSelectionKey();
-            final int eventMask = entry.getEventMask();
+            final int eventMask = entry.dequeue();
             if (key.isValid()) {
                 key.interestOps(eventMask);
             }
@@ -470,10 +564,62 @@ public abstract class AbstractIOReactor implements IOReactor {
 
         // add this operation to the interestOps() queue
         this.interestOpsQueue.add(entry);
+        this.selectorWakeup.wakeup();
 
         return true;
     }
 
+    private void processTimeoutUpdates() {
+        IOSessionImpl session = this.timeoutUpdates.poll();
+        if (session == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        do {
+            session.clearTimeoutUpdate();
+            scheduleTimeout(session, now);
+        } while ((session = this.timeoutUpdates.poll()) != null);
+    }
+
+    private void scheduleTimeout(final IOSessionImpl session, final long now) {
+        final TimerWheel.Entry<IOSessionImpl> entry = session.getTimeoutEntry();
+        final int timeout = session.getSocketTimeout();
+        if (timeout > 0 && !session.isClosed()) {
+            // The session times out once last access time + timeout < now
+            long deadline = session.getLastAccessTime() + timeout + 1;
+            if (deadline <= now) {
+                // Timed out but still open: check again after the select interval
+                deadline = now + this.selectTimeout;
+            }
+            this.timeoutWheel.schedule(entry, deadline);
+        } else {
+            this.timeoutWheel.cancel(entry);
+        }
+    }
+
+    /**
+     * Verifies whether any of the I/O sessions may have timed out by the given
+     * time by invoking the {@link #timeoutCheck(SelectionKey, long)} method.
+     * <p>
+     * Sessions are tracked by a timing wheel according to their socket timeout
+     * and last access time, so only sessions due for a check are visited.
+     *
+     * @param now current time as long value.
+     *
+     * @since 4.4.12
+     */
+    protected void processTimeouts(final long now) {
+        this.timeoutWheel.advance(now);
+        IOSessionImpl session;
+        while ((session = this.timeoutWheel.poll()) != null) {
+            if (session.isClosed()) {
+                continue;
+            }
+            timeoutCheck(session.getSelectionKey(), now);
+            scheduleTimeout(session, now);
+        }
+    }
+
     /**
      * Triggered to verify whether the I/O session associated with the
      * given selection key has not timed out.
@@ -512,8 +658,16 @@ public abstract class AbstractIOReactor implements IOReactor {
      * @throws IOReactorException - not thrown currently
      */
     protected void closeNewChannels() throws IOReactorException {
+        ChannelAcceptor acceptor;
+        while ((acceptor = this.newAcceptors.poll()) != null) {
+            try {
+                acceptor.getChannel().close();
+            } catch (final IOException ignore) {
+            }
+        }
         ChannelEntry entry;
         while ((entry = this.newChannels.poll()) != null) {
+            this.stats.channelRemoved();
             final SessionRequestImpl sessionRequest = entry.getSessionRequest();
             if (sessionRequest != null) {
                 sessionRequest.cancel();
@@ -535,6 +689,14 @@ public abstract class AbstractIOReactor implements IOReactor {
         try {
             final Set<SelectionKey> keys = this.selector.keys();
             for (final SelectionKey key : keys) {
+                if (key.attachment() instanceof ChannelAcceptor) {
+                    final ServerSocketChannel channel = ((ChannelAcceptor) key.attachment()).getChannel();
+                    try {
+                        channel.close();
+                    } catch (final IOException ignore) {
+                    }
+                    continue;
+                }
                 final IOSession session = getSession(key);
                 if (session != null) {
                     session.close();
@@ -37,6 +37,7 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ThreadFactory;
@@ -121,6 +122,8 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
     protected List<ExceptionEvent> auditLog;
 
     private int currentWorker = 0;
+    private volatile ChannelAssignmentPolicy channelAssignmentPolicy;
+    private volatile List<IOReactorStats> dispatcherStats;
 
     /**
      * Creates an instance of AbstractMultiworkerIOReactor with the given configuration.
@@ -156,6 +159,7 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
         this.dispatchers = new BaseIOReactor[workerCount];
         this.workers = new Worker[workerCount];
         this.threads = new Thread[workerCount];
+        this.dispatcherStats = Collections.emptyList();
         this.status = IOReactorStatus.INACTIVE;
     }
 
@@ -262,6 +266,30 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
         this.exceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Sets the policy used to assign new channels to the worker I/O reactors.
+     * New channels are assigned in a round-robin fashion if not set.
+     *
+     * @param channelAssignmentPolicy the channel assignment policy.
+     *   Can be {@code null}.
+     *
+     * @see ChannelAssignmentPolicies
+     * @since 4.4.12
+     */
+    public void setChannelAssignmentPolicy(final ChannelAssignmentPolicy channelAssignmentPolicy) {
+        this.channelAssignmentPolicy = channelAssignmentPolicy;
+    }
+
+    /**
+     * Returns statistics of the worker I/O reactors or an empty list
+     * if this I/O reactor has not been started yet.
+     *
+     * @since 4.4.12
+     */
+    public List<IOReactorStats> getDispatcherStats() {
+        return this.dispatcherStats;
+    }
+
     /**
      * Triggered to process I/O events registered by the main {@link Selector}.
      * <p>
@@ -322,6 +350,11 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
                 dispatcher.setExceptionHandler(exceptionHandler);
                 this.dispatchers[i] = dispatcher;
             }
+            final List<IOReactorStats> stats = new ArrayList<IOReactorStats>(this.workerCount);
+            for (int i = 0; i < this.workerCount; i++) {
+                stats.add(this.dispatchers[i].getStats());
+            }
+            this.dispatcherStats = Collections.unmodifiableList(stats);
             for (int i = 0; i < this.workerCount; i++) {
                 final BaseIOReactor dispatcher = this.dispatchers[i];
                 this.workers[i] = new Worker(dispatcher, eventDispatch);
@@ -473,10 +506,25 @@ public abstract class AbstractMultiworkerIOReactor implements IOReactor {
      */
     protected void addChannel(final ChannelEntry entry) {
         // Distribute new channels among the workers
-        final int i = Math.abs(this.currentWorker++ % this.workerCount);
+        final ChannelAssignmentPolicy policy = this.channelAssignmentPolicy;
+        final int i;
+        if (policy != null) {
+            i = policy.select(this.dispatcherStats);
+            Asserts.check(i >= 0 && i < this.workerCount, "Invalid worker index: %s", i);
+        } else {
+            i = Math.abs(this.currentWorker++ % this.workerCount);
+        }
         this.dispatchers[i].addChannel(entry);
     }
 
+    int getWorkerCount() {
+        return this.workerCount;
+    }
+
+    BaseIOReactor getDispatcher(final int i) {
+        return this.dispatchers[i];
+    }
+
     /**
      * Registers the given channel with the main {@link Selector}.
      *
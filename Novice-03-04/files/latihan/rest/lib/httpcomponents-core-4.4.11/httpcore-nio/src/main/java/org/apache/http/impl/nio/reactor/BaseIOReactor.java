@@ -195,9 +195,8 @@ public class BaseIOReactor extends AbstractIOReactor {
     }
 
     /**
-     * Verifies whether any of the sessions associated with the given selection
-     * keys timed out by invoking the {@link #timeoutCheck(SelectionKey, long)}
-     * method.
+     * Verifies whether any of the sessions due for a timeout check timed out
+     * by invoking the {@link #processTimeouts(long)} method.
      * <p>
      * This method will also invoke the
      * {@link IOEventDispatch#inputReady(IOSession)} method on all sessions
@@ -208,11 +207,7 @@ public class BaseIOReactor extends AbstractIOReactor {
         final long currentTime = System.currentTimeMillis();
         if( (currentTime - this.lastTimeoutCheck) >= this.timeoutCheckInterval) {
             this.lastTimeoutCheck = currentTime;
-            if (keys != null) {
-                for (final SelectionKey key : keys) {
-                    timeoutCheck(key, currentTime);
-                }
-            }
+            processTimeouts(currentTime);
         }
         if (!this.bufferingSessions.isEmpty()) {
             for (final Iterator<IOSession> it = this.bufferingSessions.iterator(); it.hasNext(); ) {
@@ -0,0 +1,48 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Callback interface used internally by I/O reactors that accept incoming
+ * connections on server channels of their own.
+ *
+ * @since 4.4.12
+ */
+interface ChannelAcceptor {
+
+    ServerSocketChannel getChannel();
+
+    /**
+     * Accepts pending connections and adds them to the given I/O reactor.
+     * Invoked by the I/O reactor thread when the server channel
+     * signals {@link java.nio.channels.SelectionKey#OP_ACCEPT} readiness.
+     */
+    void accept(AbstractIOReactor ioReactor);
+
+}
@@ -0,0 +1,112 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Standard {@link ChannelAssignmentPolicy} implementations.
+ *
+ * @since 4.4.12
+ */
+public enum ChannelAssignmentPolicies implements ChannelAssignmentPolicy {
+
+    /**
+     * Assigns new channels to the worker with the fewest active I/O sessions
+     * and pending new channels.
+     */
+    LEAST_SESSIONS {
+
+        @Override
+        public int select(final List<IOReactorStats> dispatchers) {
+            int selected = 0;
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < dispatchers.size(); i++) {
+                final int load = dispatchers.get(i).getLoad();
+                if (load < min) {
+                    min = load;
+                    selected = i;
+                }
+            }
+            return selected;
+        }
+
+    },
+
+    /**
+     * Assigns new channels to the worker with the fewest I/O sessions that have
+     * output pending. Ties are broken by the number of I/O sessions.
+     */
+    LEAST_PENDING_OUTPUT {
+
+        @Override
+        public int select(final List<IOReactorStats> dispatchers) {
+            int selected = 0;
+            int minPending = Integer.MAX_VALUE;
+            int minLoad = Integer.MAX_VALUE;
+            for (int i = 0; i < dispatchers.size(); i++) {
+                final IOReactorStats stats = dispatchers.get(i);
+                final int pending = stats.getPendingOutputCount();
+                final int load = stats.getLoad();
+                if (pending < minPending || (pending == minPending && load < minLoad)) {
+                    minPending = pending;
+                    minLoad = load;
+                    selected = i;
+                }
+            }
+            return selected;
+        }
+
+    },
+
+    /**
+     * Picks two workers at random and assigns new channels to the one with
+     * fewer active I/O sessions and pending new channels. This avoids herding
+     * onto the same worker while inspecting only two of them.
+     */
+    POWER_OF_TWO_CHOICES {
+
+        @Override
+        public int select(final List<IOReactorStats> dispatchers) {
+            final int n = dispatchers.size();
+            if (n < 2) {
+                return 0;
+            }
+            final int a = RANDOM.nextInt(n);
+            int b = RANDOM.nextInt(n - 1);
+            if (b >= a) {
+                b++;
+            }
+            return dispatchers.get(b).getLoad() < dispatchers.get(a).getLoad() ? b : a;
+        }
+
+    };
+
+    private static final Random RANDOM = new Random();
+
+}
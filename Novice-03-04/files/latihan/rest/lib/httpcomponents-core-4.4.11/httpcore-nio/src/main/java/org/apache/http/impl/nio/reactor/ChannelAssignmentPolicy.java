@@ -0,0 +1,48 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.List;
+
+/**
+ * Policy used by {@link AbstractMultiworkerIOReactor} to assign new channels
+ * to its worker I/O reactors.
+ *
+ * @see ChannelAssignmentPolicies
+ * @since 4.4.12
+ */
+public interface ChannelAssignmentPolicy {
+
+    /**
+     * Selects the worker I/O reactor to assign a new channel to.
+     *
+     * @param dispatchers statistics of the worker I/O reactors.
+     * @return index of the selected worker I/O reactor.
+     */
+    int select(List<IOReactorStats> dispatchers);
+
+}
@@ -28,6 +28,8 @@
 package org.apache.http.impl.nio.reactor;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.ServerSocket;
 import java.net.SocketAddress;
 import java.nio.channels.CancelledKeyException;
@@ -60,11 +62,36 @@ import org.apache.http.util.Asserts;
 public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         implements ListeningIOReactor {
 
+    // SO_REUSEPORT and NetworkChannel APIs are not available in Java 6
+    private static final Object SO_REUSEPORT;
+    private static final Method SET_OPTION;
+    private static final Method SUPPORTED_OPTIONS;
+
+    static {
+        Object option = null;
+        Method setOption = null;
+        Method supportedOptions = null;
+        try {
+            final Class<?> optionClass = Class.forName("java.net.SocketOption");
+            option = Class.forName("java.net.StandardSocketOptions").getField("SO_REUSEPORT").get(null);
+            setOption = ServerSocketChannel.class.getMethod("setOption", optionClass, Object.class);
+            supportedOptions = ServerSocketChannel.class.getMethod("supportedOptions");
+        } catch (final Exception ignore) {
+            option = null;
+        }
+        SO_REUSEPORT = option;
+        SET_OPTION = setOption;
+        SUPPORTED_OPTIONS = supportedOptions;
+    }
+
+    private static volatile Boolean reusePortSupported;
+
     private final Queue<ListenerEndpointImpl> requestQueue;
     private final Set<ListenerEndpointImpl> endpoints;
     private final Set<SocketAddress> pausedEndpoints;
 
     private volatile boolean paused;
+    private volatile IOReactorException acceptFailure;
 
     /**
      * Creates an instance of DefaultListeningIOReactor with the given configuration.
@@ -140,6 +167,10 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
 
     @Override
     protected void processEvents(final int readyCount) throws IOReactorException {
+        final IOReactorException failure = this.acceptFailure;
+        if (failure != null) {
+            throw failure;
+        }
         if (!this.paused) {
             processSessionRequests();
         }
@@ -198,16 +229,53 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
     }
 
     private ListenerEndpointImpl createEndpoint(final SocketAddress address) {
-        return new ListenerEndpointImpl(
-                address,
-                new ListenerEndpointClosedCallback() {
+        final ListenerEndpointClosedCallback callback = new ListenerEndpointClosedCallback() {
+
+            @Override
+            public void endpointClosed(final ListenerEndpoint endpoint) {
+                endpoints.remove(endpoint);
+            }
+
+        };
+        if (this.config.isSoReusePort() && isReusePortSupported()) {
+            return new ReusePortListenerEndpoint(address, callback);
+        }
+        return new ListenerEndpointImpl(address, callback);
+    }
 
-                    @Override
-                    public void endpointClosed(final ListenerEndpoint endpoint) {
-                        endpoints.remove(endpoint);
+    static boolean isReusePortSupported() {
+        Boolean supported = reusePortSupported;
+        if (supported == null) {
+            supported = Boolean.FALSE;
+            if (SO_REUSEPORT != null) {
+                try {
+                    final ServerSocketChannel channel = ServerSocketChannel.open();
+                    try {
+                        final Set<?> options = (Set<?>) SUPPORTED_OPTIONS.invoke(channel);
+                        supported = Boolean.valueOf(options.contains(SO_REUSEPORT));
+                    } finally {
+                        channel.close();
                     }
+                } catch (final Exception ignore) {
+                }
+            }
+            reusePortSupported = supported;
+        }
+        return supported.booleanValue();
+    }
 
-                });
+    private static void setReusePort(final ServerSocketChannel channel) throws IOException {
+        try {
+            SET_OPTION.invoke(channel, SO_REUSEPORT, Boolean.TRUE);
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failure enabling SO_REUSEPORT", cause);
+        } catch (final IllegalAccessException ex) {
+            throw new IOException("Failure enabling SO_REUSEPORT", ex);
+        }
     }
 
     @Override
@@ -223,6 +291,12 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
     private void processSessionRequests() throws IOReactorException {
         ListenerEndpointImpl request;
         while ((request = this.requestQueue.poll()) != null) {
+            if (request instanceof ReusePortListenerEndpoint) {
+                if (!bindReusePort((ReusePortListenerEndpoint) request)) {
+                    return;
+                }
+                continue;
+            }
             final SocketAddress address = request.getAddress();
             final ServerSocketChannel serverChannel;
             try {
@@ -231,16 +305,8 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
                 throw new IOReactorException("Failure opening server socket", ex);
             }
             try {
-                final ServerSocket socket = serverChannel.socket();
-                socket.setReuseAddress(this.config.isSoReuseAddress());
-                if (this.config.getSoTimeout() > 0) {
-                    socket.setSoTimeout(this.config.getSoTimeout());
-                }
-                if (this.config.getRcvBufSize() > 0) {
-                    socket.setReceiveBufferSize(this.config.getRcvBufSize());
-                }
-                serverChannel.configureBlocking(false);
-                socket.bind(address, this.config.getBacklogSize());
+                prepareServerSocket(serverChannel);
+                serverChannel.socket().bind(address, this.config.getBacklogSize());
             } catch (final IOException ex) {
                 closeChannel(serverChannel);
                 request.failed(ex);
@@ -265,6 +331,74 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         }
     }
 
+    private void prepareServerSocket(final ServerSocketChannel serverChannel) throws IOException {
+        final ServerSocket socket = serverChannel.socket();
+        socket.setReuseAddress(this.config.isSoReuseAddress());
+        if (this.config.getSoTimeout() > 0) {
+            socket.setSoTimeout(this.config.getSoTimeout());
+        }
+        if (this.config.getRcvBufSize() > 0) {
+            socket.setReceiveBufferSize(this.config.getRcvBufSize());
+        }
+        serverChannel.configureBlocking(false);
+    }
+
+    /**
+     * Binds a server channel per worker I/O reactor to the same address with
+     * SO_REUSEPORT enabled. Each worker accepts connections of its own channel
+     * and the kernel balances incoming connections among them.
+     */
+    private boolean bindReusePort(final ReusePortListenerEndpoint request) throws IOReactorException {
+        final int workerCount = getWorkerCount();
+        final ServerSocketChannel[] serverChannels = new ServerSocketChannel[workerCount];
+        SocketAddress address = request.getAddress();
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+                serverChannels[i] = serverChannel;
+                prepareServerSocket(serverChannel);
+                setReusePort(serverChannel);
+                serverChannel.socket().bind(address, this.config.getBacklogSize());
+                // Bind the remaining channels to the same port if an ephemeral one was requested
+                address = serverChannel.socket().getLocalSocketAddress();
+            }
+        } catch (final IOException ex) {
+            for (final ServerSocketChannel serverChannel : serverChannels) {
+                if (serverChannel != null) {
+                    closeChannel(serverChannel);
+                }
+            }
+            request.failed(ex);
+            if (this.exceptionHandler == null || !this.exceptionHandler.handle(ex)) {
+                throw new IOReactorException("Failure binding socket to address "
+                        + request.getAddress(), ex);
+            }
+            return false;
+        }
+        final BaseIOReactor[] dispatchers = new BaseIOReactor[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            dispatchers[i] = getDispatcher(i);
+        }
+        request.setChannels(serverChannels, dispatchers);
+        for (int i = 0; i < workerCount; i++) {
+            dispatchers[i].addChannelAcceptor(new ReusePortAcceptor(serverChannels[i]));
+        }
+        this.endpoints.add(request);
+        request.completed(address);
+        return true;
+    }
+
+    private boolean handleAcceptFailure(final IOException ex, final String message) {
+        if (this.exceptionHandler != null && this.exceptionHandler.handle(ex)) {
+            return true;
+        }
+        if (this.acceptFailure == null) {
+            this.acceptFailure = new IOReactorException(message, ex);
+        }
+        this.selector.wakeup();
+        return false;
+    }
+
     @Override
     public Set<ListenerEndpoint> getEndpoints() {
         final Set<ListenerEndpoint> set = new HashSet<ListenerEndpoint>();
@@ -313,4 +447,94 @@ public class DefaultListeningIOReactor extends AbstractMultiworkerIOReactor
         this.selector.wakeup();
     }
 
+    /**
+     * Accepts connections of a server channel bound with SO_REUSEPORT on
+     * the worker I/O reactor thread and registers them with the same worker.
+     */
+    class ReusePortAcceptor implements ChannelAcceptor {
+
+        private final ServerSocketChannel serverChannel;
+
+        ReusePortAcceptor(final ServerSocketChannel serverChannel) {
+            super();
+            this.serverChannel = serverChannel;
+        }
+
+        @Override
+        public ServerSocketChannel getChannel() {
+            return this.serverChannel;
+        }
+
+        @Override
+        public void accept(final AbstractIOReactor ioReactor) {
+            for (;;) {
+                SocketChannel socketChannel = null;
+                try {
+                    socketChannel = this.serverChannel.accept();
+                } catch (final IOException ex) {
+                    if (!handleAcceptFailure(ex, "Failure accepting connection")) {
+                        return;
+                    }
+                }
+                if (socketChannel == null) {
+                    break;
+                }
+                try {
+                    prepareSocket(socketChannel.socket());
+                } catch (final IOException ex) {
+                    if (!handleAcceptFailure(ex, "Failure initalizing socket")) {
+                        closeChannel(socketChannel);
+                        return;
+                    }
+                }
+                ioReactor.addChannel(new ChannelEntry(socketChannel));
+            }
+        }
+
+    }
+
+    static class ReusePortListenerEndpoint extends ListenerEndpointImpl {
+
+        private volatile ServerSocketChannel[] serverChannels;
+        private volatile BaseIOReactor[] dispatchers;
+
+        ReusePortListenerEndpoint(
+                final SocketAddress address,
+                final ListenerEndpointClosedCallback callback) {
+            super(address, callback);
+        }
+
+        void setChannels(final ServerSocketChannel[] serverChannels, final BaseIOReactor[] dispatchers) {
+            this.serverChannels = serverChannels;
+            this.dispatchers = dispatchers;
+        }
+
+        @Override
+        public boolean isClosed() {
+            if (super.isClosed()) {
+                return true;
+            }
+            final ServerSocketChannel[] channels = this.serverChannels;
+            return channels != null && !channels[0].isOpen();
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            final ServerSocketChannel[] channels = this.serverChannels;
+            final BaseIOReactor[] ioReactors = this.dispatchers;
+            if (channels != null) {
+                for (int i = 0; i < channels.length; i++) {
+                    try {
+                        channels[i].close();
+                    } catch (final IOException ignore) {
+                    }
+                    // Have the worker deregister the channel and release the socket
+                    ioReactors[i].wakeup();
+                }
+            }
+        }
+
+    }
+
 }
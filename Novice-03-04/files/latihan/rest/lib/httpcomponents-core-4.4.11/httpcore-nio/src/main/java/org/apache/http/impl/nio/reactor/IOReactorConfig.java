@@ -52,6 +52,7 @@ public final class IOReactorConfig implements Cloneable {
     private int sndBufSize;
     private int rcvBufSize;
     private final int backlogSize;
+    private final boolean soReusePort;
 
     /**
      * @deprecated Use {@link Builder}.
@@ -72,6 +73,7 @@ public final class IOReactorConfig implements Cloneable {
         this.sndBufSize = 0;
         this.rcvBufSize = 0;
         this.backlogSize = 0;
+        this.soReusePort = false;
     }
 
     IOReactorConfig(
@@ -87,7 +89,8 @@ public final class IOReactorConfig implements Cloneable {
             final int connectTimeout,
             final int sndBufSize,
             final int rcvBufSize,
-            final int backlogSize) {
+            final int backlogSize,
+            final boolean soReusePort) {
         super();
         this.selectInterval = selectInterval;
         this.shutdownGracePeriod = shutdownGracePeriod;
@@ -102,6 +105,7 @@ public final class IOReactorConfig implements Cloneable {
         this.sndBufSize = sndBufSize;
         this.rcvBufSize = rcvBufSize;
         this.backlogSize = backlogSize;
+        this.soReusePort = soReusePort;
     }
 
     /**
@@ -350,6 +354,21 @@ public final class IOReactorConfig implements Cloneable {
         return backlogSize;
     }
 
+    /**
+     * Determines whether each I/O dispatch thread of a listening I/O reactor binds
+     * a server socket of its own with {@code SO_REUSEPORT} enabled and accepts
+     * incoming connections itself rather than having them accepted by a single
+     * thread and handed off to I/O dispatch threads. This requires the JRE and the
+     * operating system to support {@code SO_REUSEPORT} and has no effect otherwise.
+     * <p>
+     * Default: {@code false}
+     *
+     * @since 4.4.12
+     */
+    public boolean isSoReusePort() {
+        return soReusePort;
+    }
+
     @Override
     protected IOReactorConfig clone() throws CloneNotSupportedException {
         return (IOReactorConfig) super.clone();
@@ -374,7 +393,8 @@ public final class IOReactorConfig implements Cloneable {
             .setConnectTimeout(config.getConnectTimeout())
             .setSndBufSize(config.getSndBufSize())
             .setRcvBufSize(config.getRcvBufSize())
-            .setBacklogSize(config.getBacklogSize());
+            .setBacklogSize(config.getBacklogSize())
+            .setSoReusePort(config.isSoReusePort());
     }
 
     public static class Builder {
@@ -419,6 +439,7 @@ public final class IOReactorConfig implements Cloneable {
         private int sndBufSize;
         private int rcvBufSize;
         private int backlogSize;
+        private boolean soReusePort;
 
         Builder() {
             this.selectInterval = 1000;
@@ -434,6 +455,7 @@ public final class IOReactorConfig implements Cloneable {
             this.sndBufSize = 0;
             this.rcvBufSize = 0;
             this.backlogSize = 0;
+            this.soReusePort = false;
         }
 
         public Builder setSelectInterval(final long selectInterval) {
@@ -501,11 +523,19 @@ public final class IOReactorConfig implements Cloneable {
             return this;
         }
 
+        /**
+         * @since 4.4.12
+         */
+        public Builder setSoReusePort(final boolean soReusePort) {
+            this.soReusePort = soReusePort;
+            return this;
+        }
+
         public IOReactorConfig build() {
             return new IOReactorConfig(
                     selectInterval, shutdownGracePeriod, interestOpQueued, ioThreadCount,
                     soTimeout, soReuseAddress, soLinger, soKeepAlive, tcpNoDelay,
-                    connectTimeout, sndBufSize, rcvBufSize, backlogSize);
+                    connectTimeout, sndBufSize, rcvBufSize, backlogSize, soReusePort);
         }
 
     }
@@ -526,6 +556,7 @@ public final class IOReactorConfig implements Cloneable {
                 .append(", sndBufSize=").append(this.sndBufSize)
                 .append(", rcvBufSize=").append(this.rcvBufSize)
                 .append(", backlogSize=").append(this.backlogSize)
+                .append(", soReusePort=").append(this.soReusePort)
                 .append("]");
         return builder.toString();
     }
@@ -0,0 +1,195 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+
+/**
+ * Statistics of an individual I/O reactor such as its number of I/O sessions,
+ * rate of I/O events and time spent processing them.
+ * <p>
+ * Counters other than the session counts are updated by the I/O reactor
+ * thread only and may be read by any thread.
+ * </p>
+ *
+ * @since 4.4.12
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class IOReactorStats {
+
+    private static final long RATE_INTERVAL = 1000000000L;
+
+    private final AtomicInteger sessionCount;
+    private final AtomicInteger pendingChannelCount;
+    private final AtomicInteger pendingOutputCount;
+
+    private volatile long eventCount;
+    private volatile long loopCount;
+    private volatile long loopTime;
+    private volatile long maxLoopTime;
+    private volatile long eventRate;
+
+    // confined to the I/O reactor thread
+    private long rateStart;
+    private long rateEventCount;
+
+    public IOReactorStats() {
+        super();
+        this.sessionCount = new AtomicInteger();
+        this.pendingChannelCount = new AtomicInteger();
+        this.pendingOutputCount = new AtomicInteger();
+        this.rateStart = System.nanoTime();
+    }
+
+    /**
+     * Returns the number of active I/O sessions.
+     */
+    public int getSessionCount() {
+        return this.sessionCount.get();
+    }
+
+    /**
+     * Returns the number of new channels assigned to the I/O reactor
+     * that have not been registered with its selector yet.
+     */
+    public int getPendingChannelCount() {
+        return this.pendingChannelCount.get();
+    }
+
+    /**
+     * Returns the number of I/O sessions that have output pending, that is
+     * I/O sessions with an interest in {@link java.nio.channels.SelectionKey#OP_WRITE}.
+     */
+    public int getPendingOutputCount() {
+        return this.pendingOutputCount.get();
+    }
+
+    /**
+     * Returns the number of active I/O sessions and pending new channels.
+     */
+    public int getLoad() {
+        return this.sessionCount.get() + this.pendingChannelCount.get();
+    }
+
+    /**
+     * Returns the total number of I/O events selected by the I/O reactor.
+     */
+    public long getEventCount() {
+        return this.eventCount;
+    }
+
+    /**
+     * Returns the number of I/O events per second measured over the last second.
+     */
+    public long getEventRate() {
+        return this.eventRate;
+    }
+
+    /**
+     * Returns the number of iterations of the select loop.
+     */
+    public long getLoopCount() {
+        return this.loopCount;
+    }
+
+    /**
+     * Returns the total time in nanoseconds spent processing events in the select
+     * loop, not including time spent waiting for I/O events.
+     */
+    public long getLoopTime() {
+        return this.loopTime;
+    }
+
+    /**
+     * Returns the longest time in nanoseconds spent in a single iteration of the
+     * select loop, not including time spent waiting for I/O events.
+     */
+    public long getMaxLoopTime() {
+        return this.maxLoopTime;
+    }
+
+    void sessionAdded() {
+        this.sessionCount.incrementAndGet();
+    }
+
+    void sessionRemoved() {
+        this.sessionCount.decrementAndGet();
+    }
+
+    void channelAdded() {
+        this.pendingChannelCount.incrementAndGet();
+    }
+
+    void channelRemoved() {
+        this.pendingChannelCount.decrementAndGet();
+    }
+
+    void outputPending(final boolean pending) {
+        if (pending) {
+            this.pendingOutputCount.incrementAndGet();
+        } else {
+            this.pendingOutputCount.decrementAndGet();
+        }
+    }
+
+    void loopCompleted(final int events, final long start, final long end) {
+        final long time = end - start;
+        this.eventCount += events;
+        this.loopCount++;
+        this.loopTime += time;
+        if (time > this.maxLoopTime) {
+            this.maxLoopTime = time;
+        }
+        final long elapsed = end - this.rateStart;
+        if (elapsed >= RATE_INTERVAL) {
+            this.eventRate = (this.eventCount - this.rateEventCount) * RATE_INTERVAL / elapsed;
+            this.rateStart = end;
+            this.rateEventCount = this.eventCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[sessions: ");
+        buffer.append(getSessionCount());
+        buffer.append("; pending channels: ");
+        buffer.append(getPendingChannelCount());
+        buffer.append("; pending output: ");
+        buffer.append(getPendingOutputCount());
+        buffer.append("; events/sec: ");
+        buffer.append(getEventRate());
+        buffer.append("; loop time: ");
+        buffer.append(getLoopTime() / 1000000);
+        buffer.append(" ms]");
+        return buffer.toString();
+    }
+
+}
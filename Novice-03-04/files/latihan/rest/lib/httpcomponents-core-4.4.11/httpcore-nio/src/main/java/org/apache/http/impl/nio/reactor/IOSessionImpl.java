@@ -37,6 +37,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
@@ -58,12 +59,20 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
     private final Map<String, Object> attributes;
     private final InterestOpsCallback interestOpsCallback;
     private final SessionClosedCallback sessionClosedCallback;
+    private final SessionTimeoutCallback sessionTimeoutCallback;
+    private final AtomicBoolean timeoutUpdatePending;
+    private final TimerWheel.Entry<IOSessionImpl> timeoutEntry;
+    private final IOReactorStats stats;
+    private final SelectorWakeup selectorWakeup;
+    private final InterestOpEntry interestOpEntry;
 
     private volatile int status;
-    private volatile int currentEventMask;
     private volatile SessionBufferStatus bufferStatus;
     private volatile int socketTimeout;
 
+    // guarded by this
+    private boolean outputPending;
+
     private final long startedTime;
 
     private volatile long lastReadTime;
@@ -83,14 +92,41 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
             final SelectionKey key,
             final InterestOpsCallback interestOpsCallback,
             final SessionClosedCallback sessionClosedCallback) {
+        this(key, interestOpsCallback, sessionClosedCallback, null, null, null);
+    }
+
+    /**
+     * Creates new instance of IOSessionImpl.
+     *
+     * @param key the selection key.
+     * @param interestOpsCallback interestOps callback.
+     * @param sessionClosedCallback session closed callback.
+     * @param sessionTimeoutCallback socket timeout change callback.
+     * @param stats statistics of the I/O reactor to update.
+     * @param selectorWakeup selector wakeup of the I/O reactor.
+     *
+     * @since 4.4.12
+     */
+    IOSessionImpl(
+            final SelectionKey key,
+            final InterestOpsCallback interestOpsCallback,
+            final SessionClosedCallback sessionClosedCallback,
+            final SessionTimeoutCallback sessionTimeoutCallback,
+            final IOReactorStats stats,
+            final SelectorWakeup selectorWakeup) {
         super();
         Args.notNull(key, "Selection key");
         this.key = key;
         this.channel = (ByteChannel) this.key.channel();
         this.interestOpsCallback = interestOpsCallback;
         this.sessionClosedCallback = sessionClosedCallback;
+        this.sessionTimeoutCallback = sessionTimeoutCallback;
+        this.timeoutUpdatePending = new AtomicBoolean(false);
+        this.timeoutEntry = TimerWheel.newEntry(this);
+        this.stats = stats;
+        this.selectorWakeup = selectorWakeup;
+        this.interestOpEntry = interestOpsCallback != null ? new InterestOpEntry(key, key.interestOps()) : null;
         this.attributes = Collections.synchronizedMap(new HashMap<String, Object>());
-        this.currentEventMask = key.interestOps();
         this.socketTimeout = 0;
         this.status = ACTIVE;
         final long now = System.currentTimeMillis();
@@ -133,69 +169,91 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
 
     @Override
     public int getEventMask() {
-        return this.interestOpsCallback != null ? this.currentEventMask : this.key.interestOps();
+        return this.interestOpEntry != null ? this.interestOpEntry.getEventMask() : this.key.interestOps();
     }
 
     @Override
-    public synchronized void setEventMask(final int ops) {
-        if (this.status == CLOSED) {
+    public void setEventMask(final int ops) {
+        if (this.interestOpEntry != null) {
+            updateEventMask(ops, ~ops);
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask = ops;
-
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
-
-            // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
-        } else {
+        synchronized (this) {
+            if (this.status == CLOSED) {
+                return;
+            }
             this.key.interestOps(ops);
+            updateOutputPending(ops);
         }
-        this.key.selector().wakeup();
+        wakeup();
     }
 
     @Override
-    public synchronized void setEvent(final int op) {
-        if (this.status == CLOSED) {
+    public void setEvent(final int op) {
+        if (this.interestOpEntry != null) {
+            updateEventMask(op, 0);
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask |= op;
-
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
-
-            // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
-        } else {
-            final int ops = this.key.interestOps();
-            this.key.interestOps(ops | op);
+        synchronized (this) {
+            if (this.status == CLOSED) {
+                return;
+            }
+            final int ops = this.key.interestOps() | op;
+            this.key.interestOps(ops);
+            updateOutputPending(ops);
         }
-        this.key.selector().wakeup();
+        wakeup();
     }
 
     @Override
-    public synchronized void clearEvent(final int op) {
-        if (this.status == CLOSED) {
+    public void clearEvent(final int op) {
+        if (this.interestOpEntry != null) {
+            updateEventMask(0, op);
             return;
         }
-        if (this.interestOpsCallback != null) {
-            // update the current event mask
-            this.currentEventMask &= ~op;
+        synchronized (this) {
+            if (this.status == CLOSED) {
+                return;
+            }
+            final int ops = this.key.interestOps() & ~op;
+            this.key.interestOps(ops);
+            updateOutputPending(ops);
+        }
+        wakeup();
+    }
 
-            // local variable
-            final InterestOpEntry entry = new InterestOpEntry(this.key, this.currentEventMask);
+    private void updateEventMask(final int set, final int clear) {
+        // update the current event mask
+        final int previous = this.interestOpEntry.update(set, clear);
+        if (previous == -1) {
+            return;
+        }
+        final int current = (previous | set) & ~clear;
+        if (current != previous) {
+            if (this.stats != null && ((previous ^ current) & SelectionKey.OP_WRITE) != 0) {
+                this.stats.outputPending((current & SelectionKey.OP_WRITE) != 0);
+            }
+            // add the entry to the interestOps() queue unless already there
+            if (this.interestOpEntry.enqueue()) {
+                this.interestOpsCallback.addInterestOps(this.interestOpEntry);
+            }
+        }
+    }
 
-            // add this operation to the interestOps() queue
-            this.interestOpsCallback.addInterestOps(entry);
+    private void updateOutputPending(final int ops) {
+        final boolean pending = (ops & SelectionKey.OP_WRITE) != 0;
+        if (this.stats != null && pending != this.outputPending) {
+            this.outputPending = pending;
+            this.stats.outputPending(pending);
+        }
+    }
+
+    private void wakeup() {
+        if (this.selectorWakeup != null) {
+            this.selectorWakeup.wakeup();
         } else {
-            final int ops = this.key.interestOps();
-            this.key.interestOps(ops & ~op);
+            this.key.selector().wakeup();
         }
-        this.key.selector().wakeup();
     }
 
     @Override
@@ -207,6 +265,9 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
     public void setSocketTimeout(final int timeout) {
         this.socketTimeout = timeout;
         this.lastAccessTime = System.currentTimeMillis();
+        if (this.sessionTimeoutCallback != null && this.timeoutUpdatePending.compareAndSet(false, true)) {
+            this.sessionTimeoutCallback.socketTimeoutChanged(this);
+        }
     }
 
     @Override
@@ -216,6 +277,14 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
                 return;
             }
             this.status = CLOSED;
+            if (this.interestOpEntry != null) {
+                final int ops = this.interestOpEntry.close();
+                if (this.stats != null && ops != -1 && (ops & SelectionKey.OP_WRITE) != 0) {
+                    this.stats.outputPending(false);
+                }
+            } else {
+                updateOutputPending(0);
+            }
             this.key.cancel();
             try {
                 this.key.channel().close();
@@ -227,7 +296,7 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
                 this.sessionClosedCallback.sessionClosed(this);
             }
             if (this.key.selector().isOpen()) {
-                this.key.selector().wakeup();
+                wakeup();
             }
         }
     }
@@ -297,6 +366,22 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
         return this.lastAccessTime;
     }
 
+    SelectionKey getSelectionKey() {
+        return this.key;
+    }
+
+    TimerWheel.Entry<IOSessionImpl> getTimeoutEntry() {
+        return this.timeoutEntry;
+    }
+
+    /**
+     * Acknowledges a pending socket timeout change. Subsequent changes
+     * notify the {@link SessionTimeoutCallback} again.
+     */
+    void clearTimeoutUpdate() {
+        this.timeoutUpdatePending.set(false);
+    }
+
     void resetLastRead() {
         final long now = System.currentTimeMillis();
         this.lastReadTime = now;
@@ -361,8 +446,7 @@ public class IOSessionImpl implements IOSession, SocketAccessor {
             }
             buffer.append("][");
             if (this.key.isValid()) {
-                formatOps(buffer, this.interestOpsCallback != null ?
-                        this.currentEventMask : this.key.interestOps());
+                formatOps(buffer, getEventMask());
                 buffer.append(':');
                 formatOps(buffer, this.key.readyOps());
             }
@@ -28,25 +28,35 @@
 package org.apache.http.impl.nio.reactor;
 
 import java.nio.channels.SelectionKey;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.http.util.Args;
 
 /**
  * Helper class, representing an entry on an {@link java.nio.channels.SelectionKey#interestOps(int)
  * interestOps(int)} queue.
+ * <p>
+ * An entry holds the current event mask of an I/O session and is re-used for all its
+ * interest op changes. Changes to the event mask are applied atomically and coalesced
+ * while the entry is queued, so that the I/O reactor applies only the latest event mask.
  *
  * @since 4.1
  */
 class InterestOpEntry {
 
+    private static final int CLOSED = 0x80000000;
+
     private final SelectionKey key;
-    private final int eventMask;
+    private final AtomicInteger eventMask;
+    private final AtomicBoolean queued;
 
     public InterestOpEntry(final SelectionKey key, final int eventMask) {
         super();
         Args.notNull(key, "Selection key");
         this.key = key;
-        this.eventMask = eventMask;
+        this.eventMask = new AtomicInteger(eventMask & ~CLOSED);
+        this.queued = new AtomicBoolean(false);
     }
 
     public SelectionKey getSelectionKey() {
@@ -54,7 +64,61 @@ class InterestOpEntry {
     }
 
     public int getEventMask() {
-        return this.eventMask;
+        return this.eventMask.get() & ~CLOSED;
+    }
+
+    /**
+     * Atomically sets and then clears the given event bits unless the entry has been closed.
+     *
+     * @return the previous event mask or {@code -1} if the entry has been closed.
+     *
+     * @since 4.4.12
+     */
+    int update(final int set, final int clear) {
+        for (;;) {
+            final int current = this.eventMask.get();
+            if ((current & CLOSED) != 0) {
+                return -1;
+            }
+            final int updated = (current | set) & ~clear & ~CLOSED;
+            if (updated == current || this.eventMask.compareAndSet(current, updated)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Closes the entry. No further updates of the event mask are possible.
+     *
+     * @return the last event mask or {@code -1} if the entry has already been closed.
+     *
+     * @since 4.4.12
+     */
+    int close() {
+        final int current = this.eventMask.getAndSet(CLOSED);
+        return (current & CLOSED) != 0 ? -1 : current;
+    }
+
+    /**
+     * Marks the entry as queued.
+     *
+     * @return {@code true} if the entry is to be added to the queue, {@code false}
+     *   if it has already been queued.
+     *
+     * @since 4.4.12
+     */
+    boolean enqueue() {
+        return this.queued.compareAndSet(false, true);
+    }
+
+    /**
+     * Marks the entry as no longer queued and returns the event mask to be applied.
+     *
+     * @since 4.4.12
+     */
+    int dequeue() {
+        this.queued.set(false);
+        return getEventMask();
     }
 
     @Override
@@ -0,0 +1,78 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.Selector;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces {@link Selector#wakeup()} calls, so that the selector of an I/O reactor
+ * is woken up at most once per select cycle and never by the I/O reactor thread itself,
+ * which re-enters the select operation on its own.
+ *
+ * @since 4.4.12
+ */
+final class SelectorWakeup {
+
+    private final Selector selector;
+    private final AtomicBoolean pending;
+
+    private volatile Thread selectorThread;
+
+    SelectorWakeup(final Selector selector) {
+        super();
+        this.selector = selector;
+        this.pending = new AtomicBoolean(false);
+    }
+
+    void setSelectorThread(final Thread selectorThread) {
+        this.selectorThread = selectorThread;
+    }
+
+    /**
+     * Wakes up the selector unless a wakeup is already pending.
+     */
+    void wakeup() {
+        if (Thread.currentThread() == this.selectorThread) {
+            return;
+        }
+        if (this.pending.compareAndSet(false, true)) {
+            this.selector.wakeup();
+        }
+    }
+
+    /**
+     * Resets the pending wakeup. To be called by the I/O reactor thread
+     * once the select operation has returned.
+     */
+    void reset() {
+        if (this.pending.get()) {
+            this.pending.set(false);
+        }
+    }
+
+}
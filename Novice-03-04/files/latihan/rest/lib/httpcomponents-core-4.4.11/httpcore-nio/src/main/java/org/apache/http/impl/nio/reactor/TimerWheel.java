@@ -0,0 +1,261 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import org.apache.http.util.Args;
+
+/**
+ * Hierarchical timing wheel used by I/O reactors to track session timeouts.
+ * <p>
+ * Time is divided into ticks of a fixed duration. Each level of the wheel
+ * has {@code 64} slots, a slot of level {@code n} spanning {@code 64^n}
+ * ticks. Timers due within the span of a level are linked into the slot
+ * they fall in and cascade to the lower level once the wheel reaches that
+ * slot. Scheduling and cancelling a timer is O(1); advancing the wheel
+ * only visits the slots of the elapsed ticks. Timers are never fired
+ * early but may fire up to one tick late.
+ * </p>
+ * <p>
+ * This class is not thread-safe and is expected to be confined to
+ * the I/O reactor thread.
+ * </p>
+ *
+ * @since 4.4.12
+ */
+final class TimerWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    private final long tickDuration;
+    private final long origin;
+    private final Entry<T>[][] wheel;
+    private final Entry<T> expired;
+
+    private long currentTick;
+    private int size;
+
+    TimerWheel(final long tickDuration, final long now) {
+        super();
+        Args.positive(tickDuration, "Tick duration");
+        this.tickDuration = tickDuration;
+        this.origin = now;
+        this.wheel = newWheel();
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                this.wheel[level][slot] = new Entry<T>(null);
+            }
+        }
+        this.expired = new Entry<T>(null);
+        this.currentTick = 0;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Entry<T>[][] newWheel() {
+        return new Entry[LEVELS][SLOTS];
+    }
+
+    long getTickDuration() {
+        return this.tickDuration;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Creates a new timer for the given object. The timer is not scheduled.
+     */
+    static <T> Entry<T> newEntry(final T object) {
+        return new Entry<T>(object);
+    }
+
+    /**
+     * Schedules the timer to expire at the given time, cancelling
+     * any previous schedule of the timer.
+     */
+    void schedule(final Entry<T> entry, final long deadline) {
+        if (entry.isLinked()) {
+            entry.unlink();
+        } else {
+            this.size++;
+        }
+        entry.deadline = deadline;
+        // The slot of the current tick has already been processed
+        insert(entry, this.currentTick + 1);
+    }
+
+    /**
+     * Cancels the timer if scheduled.
+     */
+    void cancel(final Entry<T> entry) {
+        if (entry.isLinked()) {
+            entry.unlink();
+            this.size--;
+        }
+    }
+
+    private void insert(final Entry<T> entry, final long minTick) {
+        final long offset = entry.deadline - this.origin;
+        // Round up so that the timer never fires before its deadline
+        long tick = offset > 0 ? (offset + this.tickDuration - 1) / this.tickDuration : 0;
+        if (tick < minTick) {
+            tick = minTick;
+        }
+        long delta = tick - this.currentTick;
+        if (delta >= MAX_SPAN) {
+            // Beyond the range of the wheel. Park the timer in the farthest
+            // slot; it gets re-inserted with its actual deadline on expiry.
+            delta = MAX_SPAN - 1;
+            tick = this.currentTick + delta;
+        }
+        int level = 0;
+        while (delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        final int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+        this.wheel[level][slot].add(entry);
+    }
+
+    /**
+     * Advances the wheel up to the given time. Timers expired by then can
+     * be obtained with {@link #poll()}.
+     */
+    void advance(final long now) {
+        final long targetTick = (now - this.origin) / this.tickDuration;
+        if (this.size == 0) {
+            if (targetTick > this.currentTick) {
+                this.currentTick = targetTick;
+            }
+            return;
+        }
+        while (this.currentTick < targetTick) {
+            final long tick = this.currentTick + 1;
+            this.currentTick = tick;
+            // Cascade the higher levels whose slot boundary has been reached
+            for (int level = 1; level < LEVELS; level++) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                final int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                cascade(this.wheel[level][slot]);
+            }
+            final Entry<T> head = this.wheel[0][(int) tick & SLOT_MASK];
+            Entry<T> entry = head.next;
+            while (entry != head) {
+                final Entry<T> next = entry.next;
+                entry.unlink();
+                if (entry.deadline > now) {
+                    insert(entry, tick + 1);
+                } else {
+                    this.expired.add(entry);
+                }
+                entry = next;
+            }
+            if (this.size == 0) {
+                this.currentTick = targetTick;
+            }
+        }
+    }
+
+    private void cascade(final Entry<T> head) {
+        Entry<T> entry = head.next;
+        while (entry != head) {
+            final Entry<T> next = entry.next;
+            entry.unlink();
+            // Timers of the current tick go to the slot about to be processed
+            insert(entry, this.currentTick);
+            entry = next;
+        }
+    }
+
+    /**
+     * Removes and returns the object of the next expired timer, or
+     * {@code null} if there are none.
+     */
+    T poll() {
+        final Entry<T> entry = this.expired.next;
+        if (entry == this.expired) {
+            return null;
+        }
+        entry.unlink();
+        this.size--;
+        return entry.object;
+    }
+
+    /**
+     * Timer of the wheel. A timer is linked into the list of a slot while
+     * scheduled. Slot heads are sentinel entries with no object.
+     */
+    static final class Entry<T> {
+
+        private final T object;
+
+        private long deadline;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        Entry(final T object) {
+            this.object = object;
+            if (object == null) {
+                this.prev = this;
+                this.next = this;
+            }
+        }
+
+        T getObject() {
+            return this.object;
+        }
+
+        long getDeadline() {
+            return this.deadline;
+        }
+
+        boolean isLinked() {
+            return this.next != null;
+        }
+
+        private void add(final Entry<T> entry) {
+            entry.prev = this.prev;
+            entry.next = this;
+            this.prev.next = entry;
+            this.prev = entry;
+        }
+
+        private void unlink() {
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = null;
+            this.next = null;
+        }
+
+    }
+
+}
@@ -48,6 +48,13 @@ import org.apache.http.util.Args;
  * from a file. This class is mostly used to stream large files of different
  * types, so one needs to supply the content type of the file to make sure
  * the content can be correctly recognized and processed by the recipient.
+ * <p>
+ * Unless disabled, the content is transferred directly from the file channel
+ * to the connection whenever the content encoder supports it, which is the
+ * case for identity, length delimited and chunk coded content. For plain
+ * connections this results in a zero-copy transfer. Connections protected
+ * by TLS still have to copy the content in order to encrypt it.
+ * </p>
  *
  * @since 4.0
  */
@@ -59,6 +66,7 @@ public class NFileEntity extends AbstractHttpEntity
     private RandomAccessFile accessfile;
     private FileChannel fileChannel;
     private long idx = -1;
+    private long length = -1;
     private boolean useFileChannels;
 
     /**
@@ -87,8 +95,7 @@ public class NFileEntity extends AbstractHttpEntity
      * @since 4.2
      */
     public NFileEntity(final File file) {
-        Args.notNull(file, "File");
-        this.file = file;
+        this(file, (ContentType) null, true);
     }
     /**
      * Creates new instance of NFileEntity from the given source {@link File}
@@ -165,6 +172,7 @@ public class NFileEntity extends AbstractHttpEntity
         }
         if (fileChannel == null) {
             fileChannel = accessfile.getChannel();
+            length = fileChannel.size();
             idx = 0;
         }
 
@@ -179,7 +187,7 @@ public class NFileEntity extends AbstractHttpEntity
         if (transferred > 0) {
             idx += transferred;
         }
-        if (idx >= fileChannel.size()) {
+        if (idx >= length) {
             encoder.complete();
             close();
         }
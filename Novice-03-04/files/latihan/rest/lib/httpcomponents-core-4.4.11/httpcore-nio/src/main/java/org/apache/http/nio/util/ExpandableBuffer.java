@@ -48,7 +48,10 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
     public final static int INPUT_MODE = 0;
     public final static int OUTPUT_MODE = 1;
 
+    private static final ByteBuffer RELEASED = ByteBuffer.allocate(0);
+
     private final ByteBufferAllocator allocator;
+    private final int bufferSize;
 
     private int mode;
     protected ByteBuffer buffer = null;
@@ -63,6 +66,7 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
         super();
         Args.notNull(allocator, "ByteBuffer allocator");
         this.allocator = allocator;
+        this.bufferSize = bufferSize;
         this.buffer = allocator.allocate(bufferSize);
         this.mode = INPUT_MODE;
     }
@@ -94,7 +98,10 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
      * Sets input mode. The buffer can now be written into.
      */
     protected void setInputMode() {
-        if (this.mode != INPUT_MODE) {
+        if (this.buffer == RELEASED) {
+            this.buffer = this.allocator.allocate(this.bufferSize);
+            this.mode = INPUT_MODE;
+        } else if (this.mode != INPUT_MODE) {
             if (this.buffer.hasRemaining()) {
                 this.buffer.compact();
             } else {
@@ -109,6 +116,48 @@ public class ExpandableBuffer implements BufferInfo, org.apache.http.nio.util.Bu
         this.buffer = allocator.allocate(capacity);
         oldbuffer.flip();
         this.buffer.put(oldbuffer);
+        recycle(oldbuffer);
+    }
+
+    private boolean recycle(final ByteBuffer buffer) {
+        if (buffer != RELEASED && this.allocator instanceof PooledByteBufferAllocator) {
+            return ((PooledByteBufferAllocator) this.allocator).release(buffer);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the underlying {@link ByteBuffer} to the allocator if the buffer
+     * is empty and has been obtained from a {@link PooledByteBufferAllocator}.
+     * A new {@link ByteBuffer} is allocated as soon as data is written into
+     * this buffer again.
+     *
+     * @return {@code true} if the buffer has been released.
+     *
+     * @since 4.4.12
+     */
+    public boolean release() {
+        if (this.buffer == RELEASED || !(this.allocator instanceof PooledByteBufferAllocator)) {
+            return false;
+        }
+        if (hasData()) {
+            return false;
+        }
+        final ByteBuffer oldbuffer = this.buffer;
+        this.buffer = RELEASED;
+        this.mode = INPUT_MODE;
+        recycle(oldbuffer);
+        return true;
+    }
+
+    /**
+     * Determines whether the underlying {@link ByteBuffer} has been
+     * {@link #release() released}.
+     *
+     * @since 4.4.12
+     */
+    public boolean isReleased() {
+        return this.buffer == RELEASED;
     }
 
     /**
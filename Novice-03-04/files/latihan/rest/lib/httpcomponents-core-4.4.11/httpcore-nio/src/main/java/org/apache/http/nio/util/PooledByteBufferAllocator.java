@@ -0,0 +1,294 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.nio.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.util.Args;
+
+/**
+ * Allocates direct {@link ByteBuffer} instances from a pool.
+ * <p>
+ * Buffer sizes are rounded up to the nearest power of two, so a buffer may
+ * have a larger capacity than requested. Requests above the maximum pooled
+ * size are served with unpooled buffers. Buffers handed back with
+ * {@link #release(ByteBuffer)} are kept in a shared pool bounded by the total
+ * number of idle bytes. Buffers that do not fit are left to the garbage collector.
+ * </p>
+ * <p>
+ * I/O dispatch threads additionally keep a small cache of buffers of each size
+ * that is consulted before the shared pool. Other threads, which may be short
+ * lived, always use the shared pool.
+ * </p>
+ * <p>
+ * {@link ExpandableBuffer}s backed by this allocator return their memory
+ * to the pool whenever they are {@link ExpandableBuffer#release() released}
+ * while empty, which allows idle connections to hold no buffer memory at all.
+ * </p>
+ *
+ * @since 4.4.12
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class PooledByteBufferAllocator implements ByteBufferAllocator {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int DEFAULT_MAX_SIZE = 256 * 1024;
+    public static final long DEFAULT_MAX_IDLE_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 8;
+
+    private static final ThreadLocal<Boolean> DISPATCH_THREAD = new ThreadLocal<Boolean>();
+
+    private final int minShift;
+    private final int maxShift;
+    private final long maxIdleBytes;
+    private final int threadCacheSize;
+    private final Queue<ByteBuffer>[] pools;
+    private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+
+    private final AtomicLong leasedBytes;
+    private final AtomicLong pooledBytes;
+    private final AtomicLong cachedBytes;
+    private final AtomicLong allocationCount;
+    private final AtomicLong reuseCount;
+    private final AtomicLong unpooledCount;
+
+    /**
+     * @param minSize smallest pooled buffer size, rounded up to a power of two.
+     * @param maxSize largest pooled buffer size, rounded up to a power of two.
+     * @param maxIdleBytes maximum total size of buffers kept in the shared pool.
+     * @param threadCacheSize maximum number of buffers of each size cached per
+     *   I/O dispatch thread. These do not count towards {@code maxIdleBytes}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PooledByteBufferAllocator(
+            final int minSize, final int maxSize, final long maxIdleBytes, final int threadCacheSize) {
+        super();
+        Args.positive(minSize, "Min size");
+        Args.check(maxSize >= minSize, "Max size may not be less than min size");
+        Args.check(maxSize <= 1 << 30, "Max size may not exceed 1 GiB");
+        Args.notNegative(maxIdleBytes, "Max idle bytes");
+        Args.notNegative(threadCacheSize, "Thread cache size");
+        this.minShift = shiftFor(minSize);
+        this.maxShift = shiftFor(maxSize);
+        this.maxIdleBytes = maxIdleBytes;
+        this.threadCacheSize = threadCacheSize;
+        final int classCount = this.maxShift - this.minShift + 1;
+        this.pools = new Queue[classCount];
+        for (int i = 0; i < classCount; i++) {
+            this.pools[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+        this.threadCaches = new ThreadLocal<ArrayDeque<ByteBuffer>[]>() {
+
+            @Override
+            protected ArrayDeque<ByteBuffer>[] initialValue() {
+                final ArrayDeque<ByteBuffer>[] caches = new ArrayDeque[classCount];
+                for (int i = 0; i < classCount; i++) {
+                    caches[i] = new ArrayDeque<ByteBuffer>(threadCacheSize);
+                }
+                return caches;
+            }
+
+        };
+        this.leasedBytes = new AtomicLong();
+        this.pooledBytes = new AtomicLong();
+        this.cachedBytes = new AtomicLong();
+        this.allocationCount = new AtomicLong();
+        this.reuseCount = new AtomicLong();
+        this.unpooledCount = new AtomicLong();
+    }
+
+    public PooledByteBufferAllocator() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_IDLE_BYTES, DEFAULT_THREAD_CACHE_SIZE);
+    }
+
+    /**
+     * Marks the current thread as an I/O dispatch thread, which lets it keep
+     * a per thread cache of released buffers. I/O reactors call this on their
+     * dispatch threads, which live as long as the reactor itself.
+     */
+    public static void markDispatchThread() {
+        DISPATCH_THREAD.set(Boolean.TRUE);
+    }
+
+    private ArrayDeque<ByteBuffer> threadCache(final int index) {
+        return this.threadCacheSize > 0 && DISPATCH_THREAD.get() != null
+                ? this.threadCaches.get()[index] : null;
+    }
+
+    private static int shiftFor(final int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Returns the size class index of the given capacity or {@code -1}
+     * if buffers of that capacity are not pooled.
+     */
+    private int classOf(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            return -1;
+        }
+        final int shift = Integer.numberOfTrailingZeros(capacity);
+        if (shift < this.minShift || shift > this.maxShift) {
+            return -1;
+        }
+        return shift - this.minShift;
+    }
+
+    @Override
+    public ByteBuffer allocate(final int size) {
+        final int shift = Math.max(shiftFor(size), this.minShift);
+        if (shift > this.maxShift) {
+            this.unpooledCount.incrementAndGet();
+            return ByteBuffer.allocateDirect(size);
+        }
+        final int index = shift - this.minShift;
+        final int capacity = 1 << shift;
+        final ArrayDeque<ByteBuffer> cache = threadCache(index);
+        ByteBuffer buffer = cache != null ? cache.pollFirst() : null;
+        if (buffer != null) {
+            this.cachedBytes.addAndGet(-capacity);
+        } else {
+            buffer = this.pools[index].poll();
+            if (buffer != null) {
+                this.pooledBytes.addAndGet(-capacity);
+            }
+        }
+        if (buffer != null) {
+            this.reuseCount.incrementAndGet();
+            buffer.clear();
+        } else {
+            this.allocationCount.incrementAndGet();
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+        this.leasedBytes.addAndGet(capacity);
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to the pool. The buffer may not be used by
+     * the caller any longer once it has been released.
+     *
+     * @return {@code true} if the buffer has been pooled, {@code false}
+     *   if it was not obtained from a pool of this kind or was discarded.
+     */
+    public boolean release(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.isReadOnly()) {
+            return false;
+        }
+        final int capacity = buffer.capacity();
+        final int index = classOf(capacity);
+        if (index < 0) {
+            return false;
+        }
+        this.leasedBytes.addAndGet(-capacity);
+        final ArrayDeque<ByteBuffer> cache = threadCache(index);
+        if (cache != null && cache.size() < this.threadCacheSize) {
+            this.cachedBytes.addAndGet(capacity);
+            cache.addFirst(buffer);
+            return true;
+        }
+        for (;;) {
+            final long current = this.pooledBytes.get();
+            if (current + capacity > this.maxIdleBytes) {
+                return false;
+            }
+            if (this.pooledBytes.compareAndSet(current, current + capacity)) {
+                break;
+            }
+        }
+        this.pools[index].add(buffer);
+        return true;
+    }
+
+    /**
+     * Returns the total capacity of pooled buffers currently handed out
+     * and not yet released.
+     */
+    public long getLeasedBytes() {
+        return this.leasedBytes.get();
+    }
+
+    /**
+     * Returns the total capacity of buffers currently kept in the pool,
+     * including per thread caches.
+     */
+    public long getIdleBytes() {
+        return this.pooledBytes.get() + this.cachedBytes.get();
+    }
+
+    /**
+     * Returns the total capacity of buffers currently kept in the shared pool.
+     */
+    public long getPooledBytes() {
+        return this.pooledBytes.get();
+    }
+
+    /**
+     * Returns the number of pooled buffers allocated from direct memory.
+     */
+    public long getAllocationCount() {
+        return this.allocationCount.get();
+    }
+
+    /**
+     * Returns the number of allocations served by a previously released buffer.
+     */
+    public long getReuseCount() {
+        return this.reuseCount.get();
+    }
+
+    /**
+     * Returns the number of allocations too large to be pooled.
+     */
+    public long getUnpooledCount() {
+        return this.unpooledCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[leased: ");
+        buffer.append(getLeasedBytes());
+        buffer.append("; idle: ");
+        buffer.append(getIdleBytes());
+        buffer.append("; allocated: ");
+        buffer.append(getAllocationCount());
+        buffer.append("; reused: ");
+        buffer.append(getReuseCount());
+        buffer.append("; unpooled: ");
+        buffer.append(getUnpooledCount());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+}
@@ -217,6 +217,7 @@ public class SharedInputBuffer extends ExpandableBuffer implements ContentInputB
         this.endOfStream = true;
         this.lock.lock();
         try {
+            release();
             this.condition.signalAll();
         } finally {
             this.lock.unlock();
@@ -230,6 +231,8 @@ public class SharedInputBuffer extends ExpandableBuffer implements ContentInputB
         this.shutdown = true;
         this.lock.lock();
         try {
+            clear();
+            release();
             this.condition.signalAll();
         } finally {
             this.lock.unlock();
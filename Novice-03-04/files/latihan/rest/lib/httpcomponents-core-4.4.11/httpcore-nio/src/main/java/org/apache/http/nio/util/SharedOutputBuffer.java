@@ -181,6 +181,9 @@ public class SharedOutputBuffer extends ExpandableBuffer implements ContentOutpu
                 if (this.endOfStream && !encoder.isCompleted()) {
                     encoder.complete();
                 }
+                if (encoder.isCompleted()) {
+                    release();
+                }
                 if (!this.endOfStream) {
                     // suspend output events
                     if (this.ioControl != null) {
@@ -206,6 +209,8 @@ public class SharedOutputBuffer extends ExpandableBuffer implements ContentOutpu
         this.shutdown = true;
         this.lock.lock();
         try {
+            clear();
+            release();
             this.condition.signalAll();
         } finally {
             this.lock.unlock();
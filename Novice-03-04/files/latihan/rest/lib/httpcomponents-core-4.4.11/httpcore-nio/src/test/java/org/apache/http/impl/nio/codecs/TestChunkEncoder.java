@@ -27,13 +27,18 @@
 
 package org.apache.http.impl.nio.codecs;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.apache.http.Consts;
 import org.apache.http.WritableByteChannelMock;
 import org.apache.http.impl.io.HttpTransportMetricsImpl;
 import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
 import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -44,6 +49,26 @@ import org.mockito.Mockito;
  */
 public class TestChunkEncoder {
 
+    private File tmpfile;
+
+    protected File createTempFile(final String content) throws IOException {
+        this.tmpfile = File.createTempFile("testFile", ".txt");
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "rw");
+        try {
+            testfile.write(content.getBytes(Consts.ASCII));
+        } finally {
+            testfile.close();
+        }
+        return this.tmpfile;
+    }
+
+    @After
+    public void deleteTempFile() {
+        if (this.tmpfile != null && this.tmpfile.exists()) {
+            this.tmpfile.delete();
+        }
+    }
+
     @Test
     public void testBasicCoding() throws Exception {
         final WritableByteChannelMock channel = new WritableByteChannelMock(64);
@@ -229,4 +254,95 @@ public class TestChunkEncoder {
         }
     }
 
+    @Test
+    public void testCodingFromFile() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        createTempFile("stuff;more stuff");
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "r");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            encoder.write(CodecTestUtils.wrap("12345"));
+            Assert.assertEquals(16, encoder.transfer(fchannel, 0, Long.MAX_VALUE));
+            Assert.assertEquals(0, encoder.transfer(fchannel, 16, Long.MAX_VALUE));
+            encoder.write(CodecTestUtils.wrap("678"));
+            encoder.complete();
+        } finally {
+            testfile.close();
+        }
+
+        outbuf.flush(channel);
+
+        final String s = channel.dump(Consts.ASCII);
+
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertEquals("5\r\n12345\r\n10\r\nstuff;more stuff\r\n3\r\n678\r\n0\r\n\r\n", s);
+    }
+
+    @Test
+    public void testCodingFromFileChannelSaturated() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64, 4);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        outbuf.writeLine("header");
+
+        createTempFile("stuff;more stuff");
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "r");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            long pos = 0;
+            for (int i = 0; i < 20 && pos < fchannel.size(); i++) {
+                pos += encoder.transfer(fchannel, pos, 10);
+                channel.flush();
+            }
+            Assert.assertEquals(16, pos);
+            encoder.complete();
+        } finally {
+            testfile.close();
+        }
+        while (outbuf.hasData()) {
+            outbuf.flush(channel);
+            channel.flush();
+        }
+
+        final String s = channel.dump(Consts.ASCII);
+
+        Assert.assertTrue(encoder.isCompleted());
+        Assert.assertEquals("header\r\na\r\nstuff;more\r\n6\r\n stuff\r\n0\r\n\r\n", s);
+    }
+
+    @Test
+    public void testWriteDuringFileTransfer() throws Exception {
+        final WritableByteChannelMock channel = new WritableByteChannelMock(64, 8);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128);
+        final HttpTransportMetricsImpl metrics = new HttpTransportMetricsImpl();
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, metrics);
+
+        createTempFile("stuff;more stuff");
+        final RandomAccessFile testfile = new RandomAccessFile(this.tmpfile, "r");
+        try {
+            final FileChannel fchannel = testfile.getChannel();
+            Assert.assertEquals(4, encoder.transfer(fchannel, 0, Long.MAX_VALUE));
+            try {
+                encoder.write(CodecTestUtils.wrap("stuff"));
+                Assert.fail("IllegalStateException should have been thrown");
+            } catch (final IllegalStateException ex) {
+                // ignore
+            }
+            try {
+                encoder.complete();
+                Assert.fail("IllegalStateException should have been thrown");
+            } catch (final IllegalStateException ex) {
+                // ignore
+            }
+        } finally {
+            testfile.close();
+        }
+    }
+
 }
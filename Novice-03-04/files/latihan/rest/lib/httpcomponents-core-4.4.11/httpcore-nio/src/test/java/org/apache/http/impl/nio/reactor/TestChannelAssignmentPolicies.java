@@ -0,0 +1,93 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestChannelAssignmentPolicies {
+
+    private static List<IOReactorStats> createStats(final int... sessions) {
+        final List<IOReactorStats> list = new ArrayList<IOReactorStats>();
+        for (final int n : sessions) {
+            final IOReactorStats stats = new IOReactorStats();
+            for (int i = 0; i < n; i++) {
+                stats.sessionAdded();
+            }
+            list.add(stats);
+        }
+        return list;
+    }
+
+    @Test
+    public void testLeastSessions() throws Exception {
+        final List<IOReactorStats> stats = createStats(3, 1, 2);
+        Assert.assertEquals(1, ChannelAssignmentPolicies.LEAST_SESSIONS.select(stats));
+        stats.get(1).channelAdded();
+        stats.get(1).channelAdded();
+        Assert.assertEquals(2, ChannelAssignmentPolicies.LEAST_SESSIONS.select(stats));
+    }
+
+    @Test
+    public void testLeastPendingOutput() throws Exception {
+        final List<IOReactorStats> stats = createStats(1, 5, 4);
+        stats.get(0).outputPending(true);
+        Assert.assertEquals(2, ChannelAssignmentPolicies.LEAST_PENDING_OUTPUT.select(stats));
+        stats.get(2).outputPending(true);
+        stats.get(2).outputPending(true);
+        Assert.assertEquals(1, ChannelAssignmentPolicies.LEAST_PENDING_OUTPUT.select(stats));
+        stats.get(0).outputPending(false);
+        Assert.assertEquals(0, ChannelAssignmentPolicies.LEAST_PENDING_OUTPUT.select(stats));
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() throws Exception {
+        final List<IOReactorStats> stats = createStats(0, 10, 10, 10);
+        final int[] counts = new int[stats.size()];
+        for (int i = 0; i < 1000; i++) {
+            counts[ChannelAssignmentPolicies.POWER_OF_TWO_CHOICES.select(stats)]++;
+        }
+        // The least loaded worker wins whenever it is one of the two choices
+        Assert.assertTrue(counts[0] > 400);
+        Assert.assertEquals(0, ChannelAssignmentPolicies.POWER_OF_TWO_CHOICES.select(createStats(5)));
+    }
+
+    @Test
+    public void testLoopStats() throws Exception {
+        final IOReactorStats stats = new IOReactorStats();
+        stats.loopCompleted(3, 0, 1000);
+        stats.loopCompleted(2, 1000, 4000);
+        Assert.assertEquals(5, stats.getEventCount());
+        Assert.assertEquals(2, stats.getLoopCount());
+        Assert.assertEquals(4000, stats.getLoopTime());
+        Assert.assertEquals(3000, stats.getMaxLoopTime());
+    }
+
+}
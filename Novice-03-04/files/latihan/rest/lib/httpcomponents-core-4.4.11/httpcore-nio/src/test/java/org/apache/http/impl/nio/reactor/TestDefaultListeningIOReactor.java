@@ -29,7 +29,11 @@ package org.apache.http.impl.nio.reactor;
 
 import java.io.IOException;
 import java.net.BindException;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -51,6 +55,7 @@ import org.apache.http.protocol.ResponseContent;
 import org.apache.http.protocol.ResponseDate;
 import org.apache.http.protocol.ResponseServer;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 /**
@@ -121,6 +126,137 @@ public class TestDefaultListeningIOReactor {
         Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioReactor.getStatus());
     }
 
+    @Test
+    public void testLeastSessionsChannelAssignment() throws Exception {
+        final IOEventDispatch eventDispatch = createIOEventDispatch();
+        final IOReactorConfig config = IOReactorConfig.custom().setIoThreadCount(3).build();
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(config);
+        ioReactor.setChannelAssignmentPolicy(ChannelAssignmentPolicies.LEAST_SESSIONS);
+
+        final Thread t = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    ioReactor.execute(eventDispatch);
+                } catch (final IOException ex) {
+                }
+            }
+
+        });
+
+        t.start();
+
+        final ListenerEndpoint endpoint = ioReactor.listen(new InetSocketAddress(0));
+        endpoint.waitFor();
+        final int port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < 6; i++) {
+                sockets.add(new Socket("localhost", port));
+            }
+            final List<IOReactorStats> stats = ioReactor.getDispatcherStats();
+            Assert.assertEquals(3, stats.size());
+            final long deadline = System.currentTimeMillis() + 5000;
+            int total = 0;
+            while (total < 6 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                total = 0;
+                for (final IOReactorStats dispatcherStats : stats) {
+                    total += dispatcherStats.getSessionCount();
+                }
+            }
+            Assert.assertEquals(6, total);
+            for (final IOReactorStats dispatcherStats : stats) {
+                Assert.assertEquals(2, dispatcherStats.getSessionCount());
+                Assert.assertEquals(0, dispatcherStats.getPendingChannelCount());
+                Assert.assertTrue(dispatcherStats.getLoopCount() > 0);
+            }
+        } finally {
+            for (final Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        ioReactor.shutdown(1000);
+        t.join(1000);
+
+        Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioReactor.getStatus());
+    }
+
+    @Test
+    public void testReusePortAcceptors() throws Exception {
+        Assume.assumeTrue(DefaultListeningIOReactor.isReusePortSupported());
+
+        final IOEventDispatch eventDispatch = createIOEventDispatch();
+        final IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(2)
+                .setSoReusePort(true)
+                .build();
+        final DefaultListeningIOReactor ioReactor = new DefaultListeningIOReactor(config);
+
+        final Thread t = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    ioReactor.execute(eventDispatch);
+                } catch (final IOException ex) {
+                }
+            }
+
+        });
+
+        t.start();
+
+        final ListenerEndpoint endpoint = ioReactor.listen(new InetSocketAddress(0));
+        endpoint.waitFor();
+        Assert.assertNull(endpoint.getException());
+        final int port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+        Assert.assertTrue(port > 0);
+
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < 32; i++) {
+                sockets.add(new Socket("localhost", port));
+            }
+            final List<IOReactorStats> stats = ioReactor.getDispatcherStats();
+            final long deadline = System.currentTimeMillis() + 5000;
+            int total = 0;
+            while (total < 32 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                total = 0;
+                for (final IOReactorStats dispatcherStats : stats) {
+                    total += dispatcherStats.getSessionCount();
+                }
+            }
+            Assert.assertEquals(32, total);
+            for (final IOReactorStats dispatcherStats : stats) {
+                Assert.assertTrue(dispatcherStats.getSessionCount() > 0);
+            }
+        } finally {
+            for (final Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        endpoint.close();
+        Assert.assertTrue(endpoint.isClosed());
+        Assert.assertTrue(ioReactor.getEndpoints().isEmpty());
+        Thread.sleep(500);
+        try {
+            new Socket("localhost", port).close();
+            Assert.fail("ConnectException should have been thrown");
+        } catch (final ConnectException expected) {
+        }
+
+        ioReactor.shutdown(1000);
+        t.join(1000);
+
+        Assert.assertEquals(IOReactorStatus.SHUT_DOWN, ioReactor.getStatus());
+    }
+
     @Test
     public void testEndpointAlreadyBoundFatal() throws Exception {
         final IOEventDispatch eventDispatch = createIOEventDispatch();
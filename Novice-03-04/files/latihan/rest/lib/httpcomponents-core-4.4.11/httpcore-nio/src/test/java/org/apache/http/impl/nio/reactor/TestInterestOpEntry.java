@@ -0,0 +1,130 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestInterestOpEntry {
+
+    private Selector selector;
+    private SocketChannel channel;
+    private SelectionKey key;
+
+    @Before
+    public void setUp() throws Exception {
+        this.selector = Selector.open();
+        this.channel = SocketChannel.open();
+        this.channel.configureBlocking(false);
+        this.key = this.channel.register(this.selector, SelectionKey.OP_READ);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.channel.close();
+        this.selector.close();
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        final InterestOpEntry entry = new InterestOpEntry(this.key, SelectionKey.OP_READ);
+        Assert.assertEquals(SelectionKey.OP_READ, entry.update(SelectionKey.OP_WRITE, 0));
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, entry.getEventMask());
+        Assert.assertEquals(SelectionKey.OP_READ | SelectionKey.OP_WRITE, entry.update(0, SelectionKey.OP_READ));
+        Assert.assertEquals(SelectionKey.OP_WRITE, entry.getEventMask());
+        Assert.assertEquals(SelectionKey.OP_WRITE, entry.update(SelectionKey.OP_READ, ~SelectionKey.OP_READ));
+        Assert.assertEquals(SelectionKey.OP_READ, entry.getEventMask());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final InterestOpEntry entry = new InterestOpEntry(this.key, SelectionKey.OP_READ);
+        Assert.assertEquals(SelectionKey.OP_READ, entry.close());
+        Assert.assertEquals(0, entry.getEventMask());
+        Assert.assertEquals(-1, entry.update(SelectionKey.OP_WRITE, 0));
+        Assert.assertEquals(0, entry.getEventMask());
+        Assert.assertEquals(-1, entry.close());
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        final InterestOpEntry entry = new InterestOpEntry(this.key, 0);
+        Assert.assertTrue(entry.enqueue());
+        entry.update(SelectionKey.OP_WRITE, 0);
+        Assert.assertFalse(entry.enqueue());
+        entry.update(SelectionKey.OP_READ, SelectionKey.OP_WRITE);
+        Assert.assertEquals(SelectionKey.OP_READ, entry.dequeue());
+        Assert.assertTrue(entry.enqueue());
+    }
+
+    @Test
+    public void testSessionInterestOpsQueueing() throws Exception {
+        final List<InterestOpEntry> queue = new ArrayList<InterestOpEntry>();
+        final IOReactorStats stats = new IOReactorStats();
+        final IOSessionImpl session = new IOSessionImpl(this.key, new InterestOpsCallback() {
+
+            @Override
+            public void addInterestOps(final InterestOpEntry entry) {
+                queue.add(entry);
+            }
+
+        }, null, null, stats, null);
+        session.setEvent(SelectionKey.OP_WRITE);
+        session.clearEvent(SelectionKey.OP_READ);
+        session.setEvent(SelectionKey.OP_WRITE);
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(SelectionKey.OP_WRITE, session.getEventMask());
+        Assert.assertEquals(1, stats.getPendingOutputCount());
+        // not applied until dequeued by the I/O reactor
+        Assert.assertEquals(SelectionKey.OP_READ, this.key.interestOps());
+
+        final InterestOpEntry entry = queue.remove(0);
+        this.key.interestOps(entry.dequeue());
+        Assert.assertEquals(SelectionKey.OP_WRITE, this.key.interestOps());
+
+        session.setEventMask(SelectionKey.OP_WRITE);
+        Assert.assertEquals(0, queue.size());
+        session.setEventMask(SelectionKey.OP_READ);
+        Assert.assertEquals(1, queue.size());
+        Assert.assertEquals(0, stats.getPendingOutputCount());
+        session.setEvent(SelectionKey.OP_WRITE);
+        session.close();
+        Assert.assertEquals(0, stats.getPendingOutputCount());
+        session.setEvent(SelectionKey.OP_WRITE);
+        Assert.assertEquals(0, stats.getPendingOutputCount());
+        Assert.assertEquals(1, queue.size());
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.nio.reactor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimerWheel {
+
+    private static List<String> expire(final TimerWheel<String> wheel, final long now) {
+        wheel.advance(now);
+        final List<String> expired = new ArrayList<String>();
+        String s;
+        while ((s = wheel.poll()) != null) {
+            expired.add(s);
+        }
+        return expired;
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(10, 1000);
+        final TimerWheel.Entry<String> a = TimerWheel.newEntry("a");
+        final TimerWheel.Entry<String> b = TimerWheel.newEntry("b");
+        wheel.schedule(a, 1025);
+        wheel.schedule(b, 1100);
+        Assert.assertEquals(2, wheel.size());
+        Assert.assertTrue(expire(wheel, 1020).isEmpty());
+        Assert.assertTrue(expire(wheel, 1029).isEmpty());
+        Assert.assertEquals(1, expire(wheel, 1030).size());
+        Assert.assertEquals(1, wheel.size());
+        Assert.assertFalse(a.isLinked());
+        Assert.assertTrue(expire(wheel, 1099).isEmpty());
+        Assert.assertEquals("b", expire(wheel, 1100).get(0));
+        Assert.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDeadlineInThePast() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(10, 1000);
+        wheel.advance(2000);
+        wheel.schedule(TimerWheel.newEntry("a"), 1500);
+        Assert.assertTrue(expire(wheel, 2000).isEmpty());
+        Assert.assertEquals(1, expire(wheel, 2010).size());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(10, 0);
+        final TimerWheel.Entry<String> a = TimerWheel.newEntry("a");
+        wheel.schedule(a, 50000);
+        wheel.cancel(a);
+        Assert.assertEquals(0, wheel.size());
+        Assert.assertFalse(a.isLinked());
+        wheel.cancel(a);
+        Assert.assertEquals(0, wheel.size());
+        Assert.assertTrue(expire(wheel, 100000).isEmpty());
+    }
+
+    @Test
+    public void testReschedule() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(10, 0);
+        final TimerWheel.Entry<String> a = TimerWheel.newEntry("a");
+        wheel.schedule(a, 100);
+        wheel.schedule(a, 100000);
+        Assert.assertEquals(1, wheel.size());
+        Assert.assertTrue(expire(wheel, 99990).isEmpty());
+        Assert.assertEquals(1, expire(wheel, 100000).size());
+        wheel.schedule(a, 100500);
+        wheel.schedule(a, 100200);
+        Assert.assertEquals(1, expire(wheel, 100200).size());
+        Assert.assertTrue(expire(wheel, 200000).isEmpty());
+    }
+
+    @Test
+    public void testExpiredEntryCancel() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(10, 0);
+        final TimerWheel.Entry<String> a = TimerWheel.newEntry("a");
+        wheel.schedule(a, 100);
+        wheel.advance(200);
+        wheel.cancel(a);
+        Assert.assertEquals(0, wheel.size());
+        Assert.assertNull(wheel.poll());
+    }
+
+    @Test
+    public void testBeyondWheelSpan() throws Exception {
+        final TimerWheel<String> wheel = new TimerWheel<String>(1, 0);
+        final long deadline = 3L * (1L << 24) + 12345;
+        wheel.schedule(TimerWheel.newEntry("a"), deadline);
+        long now = 0;
+        while (now < deadline - 1) {
+            now = Math.min(now + 1000003, deadline - 1);
+            Assert.assertTrue(expire(wheel, now).isEmpty());
+        }
+        Assert.assertEquals(1, expire(wheel, deadline).size());
+    }
+
+    @Test
+    public void testRandomDeadlines() throws Exception {
+        final long tick = 7;
+        final TimerWheel<Long> wheel = new TimerWheel<Long>(tick, 0);
+        final Random random = new Random(42);
+        int remaining = 0;
+        for (int i = 0; i < 5000; i++) {
+            final long deadline = random.nextInt(1 << (random.nextInt(24) + 1));
+            wheel.schedule(TimerWheel.newEntry(Long.valueOf(deadline)), deadline);
+            remaining++;
+        }
+        long now = 0;
+        while (remaining > 0) {
+            now += random.nextInt(20000);
+            wheel.advance(now);
+            Long deadline;
+            while ((deadline = wheel.poll()) != null) {
+                Assert.assertTrue(deadline.longValue() <= now);
+                remaining--;
+            }
+            Assert.assertEquals(remaining, wheel.size());
+        }
+    }
+
+    @Test
+    public void testFireWithinOneTick() throws Exception {
+        final long tick = 10;
+        final TimerWheel<Long> wheel = new TimerWheel<Long>(tick, 0);
+        final Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            final long deadline = random.nextInt(1 << 20);
+            wheel.schedule(TimerWheel.newEntry(Long.valueOf(deadline)), deadline);
+        }
+        for (long now = tick; wheel.size() > 0; now += tick) {
+            wheel.advance(now);
+            Long deadline;
+            while ((deadline = wheel.poll()) != null) {
+                Assert.assertTrue(deadline.longValue() <= now);
+                Assert.assertTrue(deadline.longValue() > now - tick);
+            }
+        }
+    }
+
+}
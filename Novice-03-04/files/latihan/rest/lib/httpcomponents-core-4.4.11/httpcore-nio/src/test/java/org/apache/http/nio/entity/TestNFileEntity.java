@@ -30,6 +30,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 
+import org.apache.http.Consts;
+import org.apache.http.WritableByteChannelMock;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.codecs.ChunkEncoder;
+import org.apache.http.impl.nio.codecs.LengthDelimitedEncoder;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
+import org.apache.http.nio.ContentEncoder;
 import org.junit.Assert;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -63,4 +70,53 @@ public class TestNFileEntity {
         }
     }
 
+    private static File createFile(final String name, final String content) throws IOException {
+        final File file = tempFolder.newFile(name);
+        final RandomAccessFile raFile = new RandomAccessFile(file, "rw");
+        try {
+            raFile.write(content.getBytes(Consts.ASCII));
+        } finally {
+            raFile.close();
+        }
+        return file;
+    }
+
+    private static void produce(
+            final NFileEntity fileEntity,
+            final ContentEncoder encoder,
+            final WritableByteChannelMock channel) throws IOException {
+        for (int i = 0; i < 100 && !encoder.isCompleted(); i++) {
+            fileEntity.produceContent(encoder, null);
+            channel.flush();
+        }
+        Assert.assertTrue(encoder.isCompleted());
+    }
+
+    @Test
+    public void testProduceLengthDelimitedContent() throws IOException {
+        final NFileEntity fileEntity = new NFileEntity(createFile("test1.txt", "stuff;more stuff"));
+        final WritableByteChannelMock channel = new WritableByteChannelMock(1024, 5);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final LengthDelimitedEncoder encoder = new LengthDelimitedEncoder(
+                channel, outbuf, new HttpTransportMetricsImpl(), fileEntity.getContentLength());
+        produce(fileEntity, encoder, channel);
+        Assert.assertFalse(outbuf.hasData());
+        Assert.assertEquals("stuff;more stuff", channel.dump(Consts.ASCII));
+    }
+
+    @Test
+    public void testProduceChunkCodedContent() throws IOException {
+        final NFileEntity fileEntity = new NFileEntity(createFile("test2.txt", "stuff;more stuff"));
+        fileEntity.setChunked(true);
+        final WritableByteChannelMock channel = new WritableByteChannelMock(1024, 5);
+        final SessionOutputBufferImpl outbuf = new SessionOutputBufferImpl(1024, 128);
+        final ChunkEncoder encoder = new ChunkEncoder(channel, outbuf, new HttpTransportMetricsImpl());
+        produce(fileEntity, encoder, channel);
+        while (outbuf.hasData()) {
+            outbuf.flush(channel);
+            channel.flush();
+        }
+        Assert.assertEquals("10\r\nstuff;more stuff\r\n0\r\n\r\n", channel.dump(Consts.ASCII));
+    }
+
 }
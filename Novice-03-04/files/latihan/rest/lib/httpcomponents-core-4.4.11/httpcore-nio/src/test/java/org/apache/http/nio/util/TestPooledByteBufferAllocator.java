@@ -0,0 +1,194 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.nio.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.http.Consts;
+import org.apache.http.impl.io.HttpTransportMetricsImpl;
+import org.apache.http.impl.nio.reactor.SessionOutputBufferImpl;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.reactor.SessionOutputBuffer;
+import org.apache.http.util.EncodingUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPooledByteBufferAllocator {
+
+    @Test
+    public void testSizeClasses() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 8192, 1024 * 1024, 4);
+        final ByteBuffer b1 = allocator.allocate(10);
+        Assert.assertTrue(b1.isDirect());
+        Assert.assertEquals(1024, b1.capacity());
+        Assert.assertEquals(1024, b1.remaining());
+        final ByteBuffer b2 = allocator.allocate(1025);
+        Assert.assertEquals(2048, b2.capacity());
+        final ByteBuffer b3 = allocator.allocate(8192);
+        Assert.assertEquals(8192, b3.capacity());
+        final ByteBuffer b4 = allocator.allocate(8193);
+        Assert.assertEquals(8193, b4.capacity());
+        Assert.assertEquals(1024 + 2048 + 8192, allocator.getLeasedBytes());
+        Assert.assertEquals(3, allocator.getAllocationCount());
+        Assert.assertEquals(1, allocator.getUnpooledCount());
+        Assert.assertFalse(allocator.release(b4));
+        Assert.assertFalse(allocator.release(ByteBuffer.allocate(1024)));
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 8192, 1024 * 1024, 4);
+        final ByteBuffer b1 = allocator.allocate(1000);
+        b1.put((byte) 1).flip();
+        Assert.assertTrue(allocator.release(b1));
+        Assert.assertEquals(0, allocator.getLeasedBytes());
+        Assert.assertEquals(1024, allocator.getIdleBytes());
+        final ByteBuffer b2 = allocator.allocate(500);
+        Assert.assertSame(b1, b2);
+        Assert.assertEquals(0, b2.position());
+        Assert.assertEquals(1024, b2.limit());
+        Assert.assertEquals(1, allocator.getReuseCount());
+        Assert.assertEquals(0, allocator.getIdleBytes());
+        Assert.assertEquals(1024, allocator.getLeasedBytes());
+    }
+
+    @Test
+    public void testIdleBytesLimit() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 1024, 2048, 1);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        final ByteBuffer b3 = allocator.allocate(1024);
+        final ByteBuffer b4 = allocator.allocate(1024);
+        Assert.assertTrue(allocator.release(b1));
+        Assert.assertTrue(allocator.release(b2));
+        Assert.assertFalse(allocator.release(b3));
+        Assert.assertFalse(allocator.release(b4));
+        Assert.assertEquals(2048, allocator.getIdleBytes());
+        Assert.assertEquals(0, allocator.getLeasedBytes());
+    }
+
+    @Test
+    public void testSharedPool() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 1024, 4096, 0);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                allocator.release(b1);
+            }
+
+        });
+        thread.start();
+        thread.join();
+        Assert.assertSame(b1, allocator.allocate(1024));
+    }
+
+    @Test
+    public void testThreadCacheOnDispatchThreadsOnly() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(1024, 1024, 2048, 4);
+        final ByteBuffer b1 = allocator.allocate(1024);
+        final ByteBuffer b2 = allocator.allocate(1024);
+        final ByteBuffer b3 = allocator.allocate(1024);
+        final Thread dispatcher = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                PooledByteBufferAllocator.markDispatchThread();
+                final ByteBuffer[] buffers = new ByteBuffer[4];
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = allocator.allocate(1024);
+                }
+                for (final ByteBuffer buffer : buffers) {
+                    allocator.release(buffer);
+                }
+            }
+
+        });
+        dispatcher.start();
+        dispatcher.join();
+        Assert.assertEquals(0, allocator.getPooledBytes());
+        Assert.assertEquals(4096, allocator.getIdleBytes());
+
+        // Buffers cached by a dispatch thread do not take up the shared pool budget
+        Assert.assertTrue(allocator.release(b1));
+        Assert.assertTrue(allocator.release(b2));
+        Assert.assertFalse(allocator.release(b3));
+        Assert.assertEquals(2048, allocator.getPooledBytes());
+        Assert.assertEquals(6144, allocator.getIdleBytes());
+    }
+
+    @Test
+    public void testExpandableBufferRelease() throws Exception {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(16, 1024, 4096, 4);
+        final SimpleOutputBuffer buffer = new SimpleOutputBuffer(16, allocator);
+        buffer.write(EncodingUtils.getAsciiBytes("stuff"));
+        Assert.assertFalse(buffer.release());
+        Assert.assertFalse(buffer.isReleased());
+
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        final WritableByteChannel channel = Channels.newChannel(outStream);
+        final SessionOutputBuffer outbuf = new SessionOutputBufferImpl(1024, 128, Consts.ASCII);
+        final ContentEncoder encoder = new ContentEncoderMock(channel, outbuf, new HttpTransportMetricsImpl());
+        buffer.produceContent(encoder);
+
+        Assert.assertTrue(buffer.release());
+        Assert.assertTrue(buffer.isReleased());
+        Assert.assertFalse(buffer.hasData());
+        Assert.assertEquals(0, buffer.length());
+        Assert.assertEquals(0, allocator.getLeasedBytes());
+        Assert.assertEquals(16, allocator.getIdleBytes());
+
+        buffer.write(EncodingUtils.getAsciiBytes("more stuff"));
+        Assert.assertFalse(buffer.isReleased());
+        Assert.assertEquals(1, allocator.getReuseCount());
+        buffer.produceContent(encoder);
+        Assert.assertEquals("stuffmore stuff", EncodingUtils.getAsciiString(outStream.toByteArray()));
+    }
+
+    @Test
+    public void testExpandableBufferReleaseUnpooled() throws Exception {
+        final SimpleOutputBuffer buffer = new SimpleOutputBuffer(16, HeapByteBufferAllocator.INSTANCE);
+        Assert.assertFalse(buffer.release());
+        Assert.assertFalse(buffer.isReleased());
+    }
+
+    @Test
+    public void testExpandRecyclesBuffer() throws IOException {
+        final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator(16, 1024, 4096, 4);
+        final SimpleOutputBuffer buffer = new SimpleOutputBuffer(16, allocator);
+        buffer.write(new byte[100]);
+        Assert.assertEquals(128, buffer.capacity());
+        Assert.assertEquals(128, allocator.getLeasedBytes());
+        Assert.assertEquals(16, allocator.getIdleBytes());
+    }
+
+}
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +42,7 @@ import javax.net.ssl.SSLServerSocket;
 import org.apache.http.ExceptionLogger;
 import org.apache.http.HttpConnectionFactory;
 import org.apache.http.HttpServerConnection;
+import org.apache.http.concurrent.VirtualThreads;
 import org.apache.http.config.SocketConfig;
 import org.apache.http.impl.DefaultBHttpServerConnection;
 import org.apache.http.protocol.HttpService;
@@ -62,6 +64,8 @@ public class HttpServer {
     private final ExceptionLogger exceptionLogger;
     private final ThreadPoolExecutor listenerExecutorService;
     private final ThreadGroup workerThreads;
+    private final boolean virtualThreads;
+    private final Semaphore connectionPermits;
     private final WorkerPoolExecutor workerExecutorService;
     private final AtomicReference<Status> status;
 
@@ -76,7 +80,9 @@ public class HttpServer {
             final HttpService httpService,
             final HttpConnectionFactory<? extends DefaultBHttpServerConnection> connectionFactory,
             final SSLServerSetupHandler sslSetupHandler,
-            final ExceptionLogger exceptionLogger) {
+            final ExceptionLogger exceptionLogger,
+            final boolean virtualThreads,
+            final int maxConnections) {
         this.port = port;
         this.ifAddress = ifAddress;
         this.socketConfig = socketConfig;
@@ -90,10 +96,14 @@ public class HttpServer {
                 new SynchronousQueue<Runnable>(),
                 new ThreadFactoryImpl("HTTP-listener-" + this.port));
         this.workerThreads = new ThreadGroup("HTTP-workers");
+        this.virtualThreads = virtualThreads;
+        this.connectionPermits = maxConnections > 0 ? new Semaphore(maxConnections) : null;
         this.workerExecutorService = new WorkerPoolExecutor(
                 0, Integer.MAX_VALUE, 1L, TimeUnit.SECONDS,
                 new SynchronousQueue<Runnable>(),
-                new ThreadFactoryImpl("HTTP-worker", this.workerThreads));
+                virtualThreads
+                        ? VirtualThreads.newThreadFactory("HTTP-worker")
+                        : new ThreadFactoryImpl("HTTP-worker", this.workerThreads));
         this.status = new AtomicReference<Status>(Status.READY);
     }
 
@@ -107,6 +117,15 @@ public class HttpServer {
         return localSocket != null ? localSocket.getLocalPort() : -1;
     }
 
+    /**
+     * Returns the number of connections currently being served.
+     *
+     * @since 4.4.12
+     */
+    public int getConnectionCount() {
+        return this.workerExecutorService.getWorkerCount();
+    }
+
     public void start() throws IOException {
         if (this.status.compareAndSet(Status.READY, Status.ACTIVE)) {
             this.serverSocket = this.serverSocketFactory.createServerSocket(
@@ -124,15 +143,26 @@ public class HttpServer {
                     this.httpService,
                     this.connectionFactory,
                     this.exceptionLogger,
-                    this.workerExecutorService);
+                    this.workerExecutorService,
+                    this.connectionPermits);
             this.listenerExecutorService.execute(this.requestListener);
         }
     }
 
     public void stop() {
         if (this.status.compareAndSet(Status.ACTIVE, Status.STOPPING)) {
-            this.listenerExecutorService.shutdown();
-            this.workerExecutorService.shutdown();
+            if (this.connectionPermits != null) {
+                // Wake up the listener if it is waiting for a connection permit
+                this.listenerExecutorService.shutdownNow();
+            } else {
+                this.listenerExecutorService.shutdown();
+            }
+            if (this.virtualThreads) {
+                // Virtual threads cannot be interrupted by their thread group
+                this.workerExecutorService.shutdownNow();
+            } else {
+                this.workerExecutorService.shutdown();
+            }
             final RequestListener local = this.requestListener;
             if (local != null) {
                 try {
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.http.ExceptionLogger;
@@ -49,6 +50,7 @@ class RequestListener implements Runnable {
     private final HttpConnectionFactory<? extends HttpServerConnection> connectionFactory;
     private final ExceptionLogger exceptionLogger;
     private final ExecutorService executorService;
+    private final Semaphore connectionPermits;
     private final AtomicBoolean terminated;
 
     public RequestListener(
@@ -57,13 +59,15 @@ class RequestListener implements Runnable {
             final HttpService httpService,
             final HttpConnectionFactory<? extends HttpServerConnection> connectionFactory,
             final ExceptionLogger exceptionLogger,
-            final ExecutorService executorService) {
+            final ExecutorService executorService,
+            final Semaphore connectionPermits) {
         this.socketConfig = socketConfig;
         this.serversocket = serversocket;
         this.connectionFactory = connectionFactory;
         this.httpService = httpService;
         this.exceptionLogger = exceptionLogger;
         this.executorService = executorService;
+        this.connectionPermits = connectionPermits;
         this.terminated = new AtomicBoolean(false);
     }
 
@@ -71,28 +75,55 @@ class RequestListener implements Runnable {
     public void run() {
         try {
             while (!isTerminated() && !Thread.interrupted()) {
-                final Socket socket = this.serversocket.accept();
-                socket.setSoTimeout(this.socketConfig.getSoTimeout());
-                socket.setKeepAlive(this.socketConfig.isSoKeepAlive());
-                socket.setTcpNoDelay(this.socketConfig.isTcpNoDelay());
-                if (this.socketConfig.getRcvBufSize() > 0) {
-                    socket.setReceiveBufferSize(this.socketConfig.getRcvBufSize());
+                if (this.connectionPermits != null) {
+                    // Excess connections wait in the server socket backlog
+                    this.connectionPermits.acquire();
                 }
-                if (this.socketConfig.getSndBufSize() > 0) {
-                    socket.setSendBufferSize(this.socketConfig.getSndBufSize());
+                boolean dispatched = false;
+                try {
+                    final Socket socket = this.serversocket.accept();
+                    final HttpServerConnection conn;
+                    try {
+                        conn = createConnection(socket);
+                    } catch (final IOException ex) {
+                        // Failure to set up a single connection must not bring down the listener
+                        this.exceptionLogger.log(ex);
+                        socket.close();
+                        continue;
+                    }
+                    final Worker worker = new Worker(
+                            this.httpService, conn, this.exceptionLogger, this.connectionPermits);
+                    this.executorService.execute(worker);
+                    dispatched = true;
+                } finally {
+                    if (!dispatched && this.connectionPermits != null) {
+                        this.connectionPermits.release();
+                    }
                 }
-                if (this.socketConfig.getSoLinger() >= 0) {
-                    socket.setSoLinger(true, this.socketConfig.getSoLinger());
-                }
-                final HttpServerConnection conn = this.connectionFactory.createConnection(socket);
-                final Worker worker = new Worker(this.httpService, conn, this.exceptionLogger);
-                this.executorService.execute(worker);
             }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (final Exception ex) {
             this.exceptionLogger.log(ex);
         }
     }
 
+    private HttpServerConnection createConnection(final Socket socket) throws IOException {
+        socket.setSoTimeout(this.socketConfig.getSoTimeout());
+        socket.setKeepAlive(this.socketConfig.isSoKeepAlive());
+        socket.setTcpNoDelay(this.socketConfig.isTcpNoDelay());
+        if (this.socketConfig.getRcvBufSize() > 0) {
+            socket.setReceiveBufferSize(this.socketConfig.getRcvBufSize());
+        }
+        if (this.socketConfig.getSndBufSize() > 0) {
+            socket.setSendBufferSize(this.socketConfig.getSndBufSize());
+        }
+        if (this.socketConfig.getSoLinger() >= 0) {
+            socket.setSoLinger(true, this.socketConfig.getSoLinger());
+        }
+        return this.connectionFactory.createConnection(socket);
+    }
+
     public boolean isTerminated() {
         return this.terminated.get();
     }
@@ -83,6 +83,8 @@ public class ServerBootstrap {
     private SSLServerSetupHandler sslSetupHandler;
     private HttpConnectionFactory<? extends DefaultBHttpServerConnection> connectionFactory;
     private ExceptionLogger exceptionLogger;
+    private boolean virtualThreads;
+    private int maxConnections;
 
     private ServerBootstrap() {
     }
@@ -357,6 +359,44 @@ public class ServerBootstrap {
         return this;
     }
 
+    /**
+     * Makes the server handle each connection on a virtual thread of its own
+     * rather than on a platform thread. Requires Java 21 or newer.
+     *
+     * @return this
+     *
+     * @see org.apache.http.concurrent.VirtualThreads#isSupported()
+     * @since 4.4.12
+     */
+    public final ServerBootstrap setVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections served concurrently. Once the limit
+     * has been reached, new connections are not accepted and queue up in the
+     * server socket backlog until an existing connection is closed. A value
+     * of zero or less means no limit.
+     * <p>
+     * Each accepted connection is created with the
+     * {@link #setConnectionFactory(HttpConnectionFactory) connection factory}
+     * and counts towards the limit until its worker terminates. Connections
+     * that fail to be set up are reported to the
+     * {@link #setExceptionLogger(ExceptionLogger) exception logger} and do not
+     * affect the listener.
+     * </p>
+     *
+     * @return this
+     *
+     * @see HttpServer#getConnectionCount()
+     * @since 4.4.12
+     */
+    public final ServerBootstrap setMaxConnections(final int maxConnections) {
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
     public HttpServer create() {
 
         HttpProcessor httpProcessorCopy = this.httpProcessor;
@@ -453,7 +493,9 @@ public class ServerBootstrap {
                 httpService,
                 connectionFactoryCopy,
                 this.sslSetupHandler,
-                exceptionLoggerCopy);
+                exceptionLoggerCopy,
+                this.virtualThreads,
+                this.maxConnections);
     }
 
 }
@@ -27,6 +27,7 @@
 package org.apache.http.impl.bootstrap;
 
 import java.io.IOException;
+import java.util.concurrent.Semaphore;
 
 import org.apache.http.ExceptionLogger;
 import org.apache.http.HttpServerConnection;
@@ -42,15 +43,18 @@ class Worker implements Runnable {
     private final HttpService httpservice;
     private final HttpServerConnection conn;
     private final ExceptionLogger exceptionLogger;
+    private final Semaphore connectionPermits;
 
     Worker(
             final HttpService httpservice,
             final HttpServerConnection conn,
-            final ExceptionLogger exceptionLogger) {
+            final ExceptionLogger exceptionLogger,
+            final Semaphore connectionPermits) {
         super();
         this.httpservice = httpservice;
         this.conn = conn;
         this.exceptionLogger = exceptionLogger;
+        this.connectionPermits = connectionPermits;
     }
 
     public HttpServerConnection getConnection() {
@@ -75,6 +79,9 @@ class Worker implements Runnable {
             } catch (final IOException ex) {
                 this.exceptionLogger.log(ex);
             }
+            if (this.connectionPermits != null) {
+                this.connectionPermits.release();
+            }
         }
     }
 
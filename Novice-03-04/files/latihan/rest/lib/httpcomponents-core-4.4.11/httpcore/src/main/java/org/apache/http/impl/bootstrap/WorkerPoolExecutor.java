@@ -67,6 +67,10 @@ class WorkerPoolExecutor extends ThreadPoolExecutor {
         }
     }
 
+    public int getWorkerCount() {
+        return this.workerSet.size();
+    }
+
     public Set<Worker> getWorkers() {
         return new HashSet<Worker>(this.workerSet.keySet());
     }
@@ -41,6 +41,7 @@ import org.apache.http.config.MessageConstraints;
 import org.apache.http.io.HttpMessageParser;
 import org.apache.http.io.SessionInputBuffer;
 import org.apache.http.message.BasicLineParser;
+import org.apache.http.message.LazyHeader;
 import org.apache.http.message.LineParser;
 import org.apache.http.params.HttpParamConfig;
 import org.apache.http.params.HttpParams;
@@ -50,6 +51,12 @@ import org.apache.http.util.CharArrayBuffer;
 /**
  * Abstract base class for HTTP message parsers that obtain input from
  * an instance of {@link SessionInputBuffer}.
+ * <p>
+ * When used with the default {@link BasicLineParser}, {@link #parse()} reads
+ * all header lines of a message into one buffer and represents the headers
+ * as {@link LazyHeader} views of that buffer, whose values are extracted
+ * only when requested.
+ * </p>
  *
  * @since 4.0
  */
@@ -67,6 +74,11 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
     private int state;
     private T message;
 
+    // header lines of the current message, all held in one buffer
+    private CharArrayBuffer headerBuffer;
+    private int[] headerStarts;
+    private int headerCount;
+
     /**
      * Creates an instance of AbstractMessageParser.
      *
@@ -263,16 +275,23 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
             this.state = HEADERS;
             //$FALL-THROUGH$
         case HEADERS:
-            final Header[] headers = AbstractMessageParser.parseHeaders(
-                    this.sessionBuffer,
-                    this.messageConstraints.getMaxHeaderCount(),
-                    this.messageConstraints.getMaxLineLength(),
-                    this.lineParser,
-                    this.headerLines);
+            final Header[] headers;
+            if (this.lineParser.getClass() == BasicLineParser.class) {
+                headers = parseLazyHeaders();
+            } else {
+                headers = AbstractMessageParser.parseHeaders(
+                        this.sessionBuffer,
+                        this.messageConstraints.getMaxHeaderCount(),
+                        this.messageConstraints.getMaxLineLength(),
+                        this.lineParser,
+                        this.headerLines);
+            }
             this.message.setHeaders(headers);
             final T result = this.message;
             this.message = null;
             this.headerLines.clear();
+            this.headerBuffer = null;
+            this.headerCount = 0;
             this.state = HEAD_LINE;
             return result;
         default:
@@ -280,4 +299,70 @@ public abstract class AbstractMessageParser<T extends HttpMessage> implements Ht
         }
     }
 
+    /**
+     * Reads header lines into a buffer shared by all headers of the message.
+     * Continuation lines are folded in place. Lines read so far are retained
+     * in case of a {@link java.io.InterruptedIOException}, so that parsing
+     * can be resumed.
+     */
+    private Header[] parseLazyHeaders() throws HttpException, IOException {
+        final int maxHeaderCount = this.messageConstraints.getMaxHeaderCount();
+        final int maxLineLen = this.messageConstraints.getMaxLineLength();
+        if (this.headerBuffer == null) {
+            this.headerBuffer = new CharArrayBuffer(256);
+            if (this.headerStarts == null) {
+                this.headerStarts = new int[16];
+            }
+            this.headerCount = 0;
+        }
+        final CharArrayBuffer buffer = this.headerBuffer;
+        for (;;) {
+            final int lineStart = buffer.length();
+            final int readLen = this.sessionBuffer.readLine(buffer);
+            final int lineEnd = buffer.length();
+            if (readLen == -1 || lineEnd == lineStart) {
+                break;
+            }
+            final char[] b = buffer.buffer();
+            // Detect LWS-char see HTTP/1.0 or HTTP/1.1 Section 2.2
+            // discussion on folded headers
+            if ((b[lineStart] == ' ' || b[lineStart] == '\t') && this.headerCount > 0) {
+                int i = lineStart;
+                while (i < lineEnd && (b[i] == ' ' || b[i] == '\t')) {
+                    i++;
+                }
+                final int previousStart = this.headerStarts[this.headerCount - 1];
+                if (maxLineLen > 0
+                        && lineStart - previousStart + 1 + lineEnd - i > maxLineLen) {
+                    throw new MessageConstraintException("Maximum line length limit exceeded");
+                }
+                // the folded line directly follows the previous header line
+                b[lineStart] = ' ';
+                System.arraycopy(b, i, b, lineStart + 1, lineEnd - i);
+                buffer.setLength(lineStart + 1 + lineEnd - i);
+            } else {
+                if (this.headerCount == this.headerStarts.length) {
+                    final int[] starts = new int[this.headerCount << 1];
+                    System.arraycopy(this.headerStarts, 0, starts, 0, this.headerCount);
+                    this.headerStarts = starts;
+                }
+                this.headerStarts[this.headerCount++] = lineStart;
+            }
+            if (maxHeaderCount > 0 && this.headerCount >= maxHeaderCount) {
+                throw new MessageConstraintException("Maximum header count exceeded");
+            }
+        }
+        final Header[] headers = new Header[this.headerCount];
+        for (int i = 0; i < this.headerCount; i++) {
+            final int start = this.headerStarts[i];
+            final int end = i + 1 < this.headerCount ? this.headerStarts[i + 1] : buffer.length();
+            try {
+                headers[i] = new LazyHeader(buffer, start, end);
+            } catch (final ParseException ex) {
+                throw new ProtocolException(ex.getMessage());
+            }
+        }
+        return headers;
+    }
+
 }
@@ -0,0 +1,78 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.pool;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.pool.AbstractStripedConnPool;
+import org.apache.http.pool.ConnFactory;
+
+/**
+ * A variant of {@link BasicConnPool} that guards each route with its own lock.
+ * Threads leasing and releasing connections to different hosts do not contend
+ * with each other.
+ *
+ * @see BasicConnPool
+ * @see org.apache.http.pool.PoolConcurrencyPolicy#STRIPED
+ * @since 4.4.12
+ */
+@Contract(threading = ThreadingBehavior.SAFE_CONDITIONAL)
+public class BasicStripedConnPool extends AbstractStripedConnPool<HttpHost, HttpClientConnection, BasicPoolEntry> {
+
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    public BasicStripedConnPool(final ConnFactory<HttpHost, HttpClientConnection> connFactory) {
+        super(connFactory, 2, 20);
+    }
+
+    public BasicStripedConnPool(final SocketConfig sconfig, final ConnectionConfig cconfig) {
+        super(new BasicConnFactory(sconfig, cconfig), 2, 20);
+    }
+
+    public BasicStripedConnPool() {
+        super(new BasicConnFactory(SocketConfig.DEFAULT, ConnectionConfig.DEFAULT), 2, 20);
+    }
+
+    @Override
+    protected BasicPoolEntry createEntry(
+            final HttpHost host,
+            final HttpClientConnection conn) {
+        return new BasicPoolEntry(Long.toString(COUNTER.getAndIncrement()), host, conn);
+    }
+
+    @Override
+    protected boolean validate(final BasicPoolEntry entry) {
+        return !entry.getConnection().isStale();
+    }
+
+}
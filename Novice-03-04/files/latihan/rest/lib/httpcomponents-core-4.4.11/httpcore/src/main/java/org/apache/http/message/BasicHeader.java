@@ -51,6 +51,9 @@ public class BasicHeader implements Header, Cloneable, Serializable {
     private final String name;
     private final String value;
 
+    // case insensitive hash of the name, computed on demand
+    private transient int nameHash;
+
     /**
      * Constructs with name and value.
      *
@@ -86,6 +89,15 @@ public class BasicHeader implements Header, Cloneable, Serializable {
         return value;
     }
 
+    int nameHash() {
+        int h = this.nameHash;
+        if (h == 0) {
+            h = HeaderNames.hash(this.name);
+            this.nameHash = h;
+        }
+        return h;
+    }
+
     @Override
     public String toString() {
         // no need for non-default formatting in toString()
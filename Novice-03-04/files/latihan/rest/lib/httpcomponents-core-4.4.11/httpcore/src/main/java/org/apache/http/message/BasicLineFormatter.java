@@ -282,7 +282,11 @@ public class BasicLineFormatter implements LineFormatter {
         Args.notNull(header, "Header");
         final CharArrayBuffer result;
 
-        if (header instanceof FormattedHeader) {
+        if (header instanceof LazyHeader) {
+            // The header is backed by a region of a shared buffer
+            result = initBuffer(buffer);
+            ((LazyHeader) header).formatTo(result);
+        } else if (header instanceof FormattedHeader) {
             // If the header is backed by a buffer, re-use the buffer
             result = ((FormattedHeader)header).getBuffer();
         } else {
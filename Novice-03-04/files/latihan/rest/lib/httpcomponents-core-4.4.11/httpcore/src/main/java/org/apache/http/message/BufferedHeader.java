@@ -60,6 +60,9 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
      */
     private final int valuePos;
 
+    // case insensitive hash of the name, computed on demand
+    private transient int nameHash;
+
 
     /**
      * Creates a new header from a buffer.
@@ -118,6 +121,15 @@ public class BufferedHeader implements FormattedHeader, Cloneable, Serializable
         return this.buffer;
     }
 
+    int nameHash() {
+        int h = this.nameHash;
+        if (h == 0) {
+            h = HeaderNames.hash(this.name);
+            this.nameHash = h;
+        }
+        return h;
+    }
+
     @Override
     public String toString() {
         return this.buffer.toString();
@@ -27,8 +27,11 @@
 
 package org.apache.http.message;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -41,6 +44,14 @@ import org.apache.http.util.CharArrayBuffer;
  * A class for combining a set of headers.
  * This class allows for multiple headers with the same name and
  * keeps track of the order in which headers were added.
+ * <p>
+ * Header lookups compare case insensitive hashes of header names before
+ * comparing the names themselves. The hashes of headers created by the
+ * classes of this package are computed once and retained. Groups with more
+ * than a few headers build an index of header positions by name hash on the
+ * first lookup after a modification, so that repeated lookups do not scan
+ * the whole group.
+ * </p>
  *
  *
  * @since 4.0
@@ -51,14 +62,24 @@ public class HeaderGroup implements Cloneable, Serializable {
 
     private final Header[] EMPTY = new Header[] {};
 
+    /** Groups smaller than this are scanned rather than indexed. */
+    private static final int INDEX_THRESHOLD = 8;
+
     /** The list of headers for this group, in the order in which they were added */
     private final List<Header> headers;
 
+    /**
+     * The name index of the headers, shared with clones as they share
+     * the header list.
+     */
+    private transient NameIndex index;
+
     /**
      * Constructor for HeaderGroup.
      */
     public HeaderGroup() {
         this.headers = new ArrayList<Header>(16);
+        this.index = new NameIndex();
     }
 
     /**
@@ -66,6 +87,7 @@ public class HeaderGroup implements Cloneable, Serializable {
      */
     public void clear() {
         headers.clear();
+        index.invalidate();
     }
 
     /**
@@ -79,6 +101,7 @@ public class HeaderGroup implements Cloneable, Serializable {
             return;
         }
         headers.add(header);
+        index.invalidate();
     }
 
     /**
@@ -90,7 +113,9 @@ public class HeaderGroup implements Cloneable, Serializable {
         if (header == null) {
             return;
         }
-        headers.remove(header);
+        if (headers.remove(header)) {
+            index.invalidate();
+        }
     }
 
     /**
@@ -104,17 +129,14 @@ public class HeaderGroup implements Cloneable, Serializable {
         if (header == null) {
             return;
         }
-        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
-        //     for (Header header : headers)
-        // as that creates an Iterator that needs to be garbage-collected
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header current = this.headers.get(i);
-            if (current.getName().equalsIgnoreCase(header.getName())) {
-                this.headers.set(i, header);
-                return;
-            }
+        final int i = indexOf(header.getName(), HeaderNames.hash(header));
+        if (i >= 0) {
+            // the name hash at this position is unchanged, so is the index
+            this.headers.set(i, header);
+        } else {
+            this.headers.add(header);
+            this.index.invalidate();
         }
-        this.headers.add(header);
     }
 
     /**
@@ -173,20 +195,116 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return an array of length &ge; 0
      */
     public Header[] getHeaders(final String name) {
-        List<Header> headersFound = null;
+        if (name == null) {
+            return EMPTY;
+        }
+        final int hash = HeaderNames.hash(name);
+        final NameIndex idx = indexed();
+        if (idx != null) {
+            int count = 0;
+            for (int i = idx.first(hash); i >= 0; i = idx.next(i)) {
+                if (matches(this.headers.get(i), name, hash)) {
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return EMPTY;
+            }
+            final Header[] headersFound = new Header[count];
+            int n = 0;
+            for (int i = idx.first(hash); n < count; i = idx.next(i)) {
+                final Header header = this.headers.get(i);
+                if (matches(header, name, hash)) {
+                    headersFound[n++] = header;
+                }
+            }
+            return headersFound;
+        }
         // HTTPCORE-361 : we don't use the for-each syntax, i.e.
         //     for (Header header : headers)
         // as that creates an Iterator that needs to be garbage-collected
+        int count = 0;
+        int first = -1;
         for (int i = 0; i < this.headers.size(); i++) {
+            if (matches(this.headers.get(i), name, hash)) {
+                if (count == 0) {
+                    first = i;
+                }
+                count++;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        final Header[] headersFound = new Header[count];
+        int n = 0;
+        for (int i = first; n < count; i++) {
             final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                if (headersFound == null) {
-                    headersFound = new ArrayList<Header>();
+            if (matches(header, name, hash)) {
+                headersFound[n++] = header;
+            }
+        }
+        return headersFound;
+    }
+
+    private static boolean matches(final Header header, final String name, final int hash) {
+        return HeaderNames.hash(header) == hash && header.getName().equalsIgnoreCase(name);
+    }
+
+    /**
+     * Returns the name index, rebuilt if the group has been modified since
+     * it was last built, or {@code null} if the group is too small to index.
+     */
+    private NameIndex indexed() {
+        final int size = this.headers.size();
+        if (size < INDEX_THRESHOLD) {
+            return null;
+        }
+        if (!this.index.isValid(size)) {
+            this.index.build(this.headers);
+        }
+        return this.index;
+    }
+
+    private int indexOf(final String name, final int hash) {
+        final NameIndex idx = indexed();
+        if (idx != null) {
+            for (int i = idx.first(hash); i >= 0; i = idx.next(i)) {
+                if (matches(this.headers.get(i), name, hash)) {
+                    return i;
                 }
-                headersFound.add(header);
             }
+            return -1;
         }
-        return headersFound != null ? headersFound.toArray(new Header[headersFound.size()]) : EMPTY;
+        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
+        //     for (Header header : headers)
+        // as that creates an Iterator that needs to be garbage-collected
+        for (int i = 0; i < this.headers.size(); i++) {
+            if (matches(this.headers.get(i), name, hash)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(final String name, final int hash) {
+        final NameIndex idx = indexed();
+        if (idx != null) {
+            int last = -1;
+            for (int i = idx.first(hash); i >= 0; i = idx.next(i)) {
+                if (matches(this.headers.get(i), name, hash)) {
+                    last = i;
+                }
+            }
+            return last;
+        }
+        // start at the end of the list and work backwards
+        for (int i = this.headers.size() - 1; i >= 0; i--) {
+            if (matches(this.headers.get(i), name, hash)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -198,16 +316,11 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the first header or {@code null}
      */
     public Header getFirstHeader(final String name) {
-        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
-        //     for (Header header : headers)
-        // as that creates an Iterator that needs to be garbage-collected
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
+        if (name == null) {
+            return null;
         }
-        return null;
+        final int i = indexOf(name, HeaderNames.hash(name));
+        return i >= 0 ? this.headers.get(i) : null;
     }
 
     /**
@@ -219,15 +332,11 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @return the last header or {@code null}
      */
     public Header getLastHeader(final String name) {
-        // start at the end of the list and work backwards
-        for (int i = headers.size() - 1; i >= 0; i--) {
-            final Header header = headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return header;
-            }
+        if (name == null) {
+            return null;
         }
-
-        return null;
+        final int i = lastIndexOf(name, HeaderNames.hash(name));
+        return i >= 0 ? this.headers.get(i) : null;
     }
 
     /**
@@ -249,17 +358,10 @@ public class HeaderGroup implements Cloneable, Serializable {
      * contained, {@code false} otherwise
      */
     public boolean containsHeader(final String name) {
-        // HTTPCORE-361 : we don't use the for-each syntax, i.e.
-        //     for (Header header : headers)
-        // as that creates an Iterator that needs to be garbage-collected
-        for (int i = 0; i < this.headers.size(); i++) {
-            final Header header = this.headers.get(i);
-            if (header.getName().equalsIgnoreCase(name)) {
-                return true;
-            }
+        if (name == null) {
+            return false;
         }
-
-        return false;
+        return indexOf(name, HeaderNames.hash(name)) >= 0;
     }
 
     /**
@@ -270,7 +372,7 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @since 4.0
      */
     public HeaderIterator iterator() {
-        return new BasicListHeaderIterator(this.headers, null);
+        return iterator(null);
     }
 
     /**
@@ -284,7 +386,16 @@ public class HeaderGroup implements Cloneable, Serializable {
      * @since 4.0
      */
     public HeaderIterator iterator(final String name) {
-        return new BasicListHeaderIterator(this.headers, name);
+        final NameIndex idx = this.index;
+        return new BasicListHeaderIterator(this.headers, name) {
+
+            @Override
+            public void remove() {
+                super.remove();
+                idx.invalidate();
+            }
+
+        };
     }
 
     /**
@@ -310,4 +421,60 @@ public class HeaderGroup implements Cloneable, Serializable {
         return this.headers.toString();
     }
 
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.index = new NameIndex();
+    }
+
+    /**
+     * Chains of header positions by name hash. Positions are stored plus one
+     * so that zero marks the end of a chain; each chain is in list order.
+     */
+    static final class NameIndex {
+
+        private int[] buckets = new int[0];
+        private int[] next = new int[0];
+        private int size = -1;
+
+        void invalidate() {
+            this.size = -1;
+        }
+
+        boolean isValid(final int size) {
+            return this.size == size;
+        }
+
+        void build(final List<Header> headers) {
+            final int n = headers.size();
+            final int capacity = Integer.highestOneBit(n) << 2;
+            if (this.buckets.length < capacity) {
+                this.buckets = new int[capacity];
+            } else {
+                Arrays.fill(this.buckets, 0);
+            }
+            if (this.next.length < n) {
+                this.next = new int[capacity];
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                final int b = bucket(HeaderNames.hash(headers.get(i)));
+                this.next[i] = this.buckets[b];
+                this.buckets[b] = i + 1;
+            }
+            this.size = n;
+        }
+
+        int first(final int hash) {
+            return this.buckets[bucket(hash)] - 1;
+        }
+
+        int next(final int pos) {
+            return this.next[pos] - 1;
+        }
+
+        private int bucket(final int hash) {
+            return (hash ^ (hash >>> 16)) & (this.buckets.length - 1);
+        }
+
+    }
+
 }
@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.message;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+
+/**
+ * Case insensitive hashing and canonical instances of header names.
+ *
+ * @since 4.4.12
+ */
+final class HeaderNames {
+
+    private static final String[] COMMON_NAMES = {
+        HttpHeaders.ACCEPT,
+        HttpHeaders.ACCEPT_CHARSET,
+        HttpHeaders.ACCEPT_ENCODING,
+        HttpHeaders.ACCEPT_LANGUAGE,
+        HttpHeaders.ACCEPT_RANGES,
+        HttpHeaders.AGE,
+        HttpHeaders.ALLOW,
+        HttpHeaders.AUTHORIZATION,
+        HttpHeaders.CACHE_CONTROL,
+        HttpHeaders.CONNECTION,
+        HttpHeaders.CONTENT_ENCODING,
+        HttpHeaders.CONTENT_LANGUAGE,
+        HttpHeaders.CONTENT_LENGTH,
+        HttpHeaders.CONTENT_LOCATION,
+        HttpHeaders.CONTENT_MD5,
+        HttpHeaders.CONTENT_RANGE,
+        HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.DATE,
+        HttpHeaders.ETAG,
+        HttpHeaders.EXPECT,
+        HttpHeaders.EXPIRES,
+        HttpHeaders.FROM,
+        HttpHeaders.HOST,
+        HttpHeaders.IF_MATCH,
+        HttpHeaders.IF_MODIFIED_SINCE,
+        HttpHeaders.IF_NONE_MATCH,
+        HttpHeaders.IF_RANGE,
+        HttpHeaders.IF_UNMODIFIED_SINCE,
+        HttpHeaders.LAST_MODIFIED,
+        HttpHeaders.LOCATION,
+        HttpHeaders.MAX_FORWARDS,
+        HttpHeaders.PRAGMA,
+        HttpHeaders.PROXY_AUTHENTICATE,
+        HttpHeaders.PROXY_AUTHORIZATION,
+        HttpHeaders.RANGE,
+        HttpHeaders.REFERER,
+        HttpHeaders.RETRY_AFTER,
+        HttpHeaders.SERVER,
+        HttpHeaders.TE,
+        HttpHeaders.TRAILER,
+        HttpHeaders.TRANSFER_ENCODING,
+        HttpHeaders.UPGRADE,
+        HttpHeaders.USER_AGENT,
+        HttpHeaders.VARY,
+        HttpHeaders.VIA,
+        HttpHeaders.WARNING,
+        HttpHeaders.WWW_AUTHENTICATE,
+        "Cookie",
+        "Set-Cookie",
+        "Keep-Alive",
+        "Origin",
+        "X-Forwarded-For"
+    };
+
+    // common names indexed by length
+    private static final String[][] NAMES_BY_LENGTH;
+
+    static {
+        int maxLen = 0;
+        for (final String name: COMMON_NAMES) {
+            maxLen = Math.max(maxLen, name.length());
+        }
+        final int[] counts = new int[maxLen + 1];
+        for (final String name: COMMON_NAMES) {
+            counts[name.length()]++;
+        }
+        NAMES_BY_LENGTH = new String[maxLen + 1][];
+        for (int i = 0; i <= maxLen; i++) {
+            NAMES_BY_LENGTH[i] = new String[counts[i]];
+        }
+        for (final String name: COMMON_NAMES) {
+            final int len = name.length();
+            NAMES_BY_LENGTH[len][--counts[len]] = name;
+        }
+    }
+
+    private HeaderNames() {
+    }
+
+    static int foldCase(final char ch) {
+        if (ch < 128) {
+            return ch >= 'A' && ch <= 'Z' ? ch + ('a' - 'A') : ch;
+        }
+        // consistent with String#equalsIgnoreCase
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+
+    /**
+     * Returns a hash code of the given name that is equal for names that are
+     * equal ignoring case.
+     */
+    static int hash(final String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + foldCase(name.charAt(i));
+        }
+        return h;
+    }
+
+    static int hash(final char[] b, final int off, final int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + foldCase(b[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Returns the name hash of the given header, cached by the header
+     * implementations of this package.
+     */
+    static int hash(final Header header) {
+        if (header instanceof LazyHeader) {
+            return ((LazyHeader) header).nameHash();
+        } else if (header instanceof BasicHeader) {
+            return ((BasicHeader) header).nameHash();
+        } else if (header instanceof BufferedHeader) {
+            return ((BufferedHeader) header).nameHash();
+        }
+        return hash(header.getName());
+    }
+
+    /**
+     * Returns the canonical instance of a common header name equal to the given
+     * characters or a new {@link String}.
+     */
+    static String toName(final char[] b, final int off, final int len) {
+        if (len < NAMES_BY_LENGTH.length) {
+            final String[] candidates = NAMES_BY_LENGTH[len];
+            for (final String candidate: candidates) {
+                if (regionMatches(candidate, b, off)) {
+                    return candidate;
+                }
+            }
+        }
+        return new String(b, off, len);
+    }
+
+    private static boolean regionMatches(final String s, final char[] b, final int off) {
+        for (int i = s.length() - 1; i >= 0; i--) {
+            if (s.charAt(i) != b[off + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
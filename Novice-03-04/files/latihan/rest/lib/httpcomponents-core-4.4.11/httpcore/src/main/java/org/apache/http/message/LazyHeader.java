@@ -0,0 +1,216 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.message;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+import org.apache.http.FormattedHeader;
+import org.apache.http.HeaderElement;
+import org.apache.http.ParseException;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.util.Args;
+import org.apache.http.util.CharArrayBuffer;
+
+/**
+ * This class represents a raw HTTP header whose content is held in a region of
+ * a buffer that may be shared by all headers of a message, for instance a buffer
+ * holding the entire message head. The header value is only extracted when
+ * requested and is retained afterwards.
+ * <p>
+ * The shared buffer is considered immutable. {@link #getBuffer()} returns
+ * a copy of the header region, which is created on first use.
+ * </p>
+ *
+ * @since 4.4.12
+ */
+public class LazyHeader implements FormattedHeader, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -8227574569516219337L;
+
+    private final CharArrayBuffer buffer;
+    private final int start;
+    private final int end;
+    private final int valuePos;
+    private final String name;
+    private final int nameHash;
+
+    private transient String value;
+    private transient volatile CharArrayBuffer line;
+
+    /**
+     * Creates a new header from a region of the given buffer.
+     *
+     * @param buffer    the buffer containing the header
+     * @param start     the start of the header line (inclusive)
+     * @param end       the end of the header line (exclusive)
+     *
+     * @throws ParseException in case of a parse error
+     */
+    public LazyHeader(final CharArrayBuffer buffer, final int start, final int end) throws ParseException {
+        super();
+        Args.notNull(buffer, "Char array buffer");
+        if (start < 0 || end > buffer.length() || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + buffer.length());
+        }
+        final int colon = buffer.indexOf(':', start, end);
+        if (colon == -1) {
+            throw new ParseException("Invalid header: " + buffer.substring(start, end));
+        }
+        final char[] b = buffer.buffer();
+        int nameStart = start;
+        int nameEnd = colon;
+        while (nameStart < nameEnd && HTTP.isWhitespace(b[nameStart])) {
+            nameStart++;
+        }
+        while (nameEnd > nameStart && HTTP.isWhitespace(b[nameEnd - 1])) {
+            nameEnd--;
+        }
+        if (nameStart == nameEnd) {
+            throw new ParseException("Invalid header: " + buffer.substring(start, end));
+        }
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        this.valuePos = colon + 1;
+        this.name = HeaderNames.toName(b, nameStart, nameEnd - nameStart);
+        this.nameHash = HeaderNames.hash(b, nameStart, nameEnd - nameStart);
+    }
+
+    int nameHash() {
+        return this.nameHash;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String getValue() {
+        String s = this.value;
+        if (s == null) {
+            s = this.buffer.substringTrimmed(this.valuePos, this.end);
+            this.value = s;
+        }
+        return s;
+    }
+
+    /**
+     * Returns the length of the header value, without creating a {@link String}.
+     */
+    public int getValueLength() {
+        final char[] b = this.buffer.buffer();
+        final int from = valueStart(b);
+        int to = this.end;
+        while (to > from && HTTP.isWhitespace(b[to - 1])) {
+            to--;
+        }
+        return to - from;
+    }
+
+    /**
+     * Tests if the header value equals the given string ignoring case,
+     * without creating a {@link String}.
+     */
+    public boolean valueEqualsIgnoreCase(final String s) {
+        if (s == null) {
+            return false;
+        }
+        final String cached = this.value;
+        if (cached != null) {
+            return cached.equalsIgnoreCase(s);
+        }
+        if (getValueLength() != s.length()) {
+            return false;
+        }
+        final char[] b = this.buffer.buffer();
+        final int from = valueStart(b);
+        for (int i = 0; i < s.length(); i++) {
+            if (HeaderNames.foldCase(b[from + i]) != HeaderNames.foldCase(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int valueStart(final char[] b) {
+        int from = this.valuePos;
+        while (from < this.end && HTTP.isWhitespace(b[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    @Override
+    public HeaderElement[] getElements() throws ParseException {
+        final ParserCursor cursor = new ParserCursor(this.start, this.end);
+        cursor.updatePos(this.valuePos);
+        return BasicHeaderValueParser.INSTANCE.parseElements(this.buffer, cursor);
+    }
+
+    @Override
+    public int getValuePos() {
+        return this.valuePos - this.start;
+    }
+
+    @Override
+    public CharArrayBuffer getBuffer() {
+        CharArrayBuffer result = this.line;
+        if (result == null) {
+            result = new CharArrayBuffer(this.end - this.start);
+            result.append(this.buffer, this.start, this.end - this.start);
+            this.line = result;
+        }
+        return result;
+    }
+
+    /**
+     * Appends the header line to the given buffer.
+     */
+    void formatTo(final CharArrayBuffer target) {
+        target.append(this.buffer, this.start, this.end - this.start);
+    }
+
+    @Override
+    public String toString() {
+        return this.buffer.substring(this.start, this.end);
+    }
+
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        // buffer is considered immutable
+        // no need to make a copy of it
+        return super.clone();
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        // do not serialize the content of the shared buffer
+        return new BufferedHeader(getBuffer());
+    }
+
+}
@@ -0,0 +1,765 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.pool;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.util.Args;
+import org.apache.http.util.Asserts;
+
+/**
+ * Abstract synchronous (blocking) pool of connections that uses a separate lock
+ * per route instead of a single pool-wide lock.
+ * <p>
+ * This pool offers the same contract as {@link AbstractConnPool} and the same
+ * extension hooks, but lease and release operations on different routes never
+ * contend with each other. Threads waiting for a connection are woken up only
+ * when a connection of their route is released, or when the total capacity of
+ * the pool becomes available. Total pool statistics are maintained with atomic
+ * counters and can be obtained without locking.
+ * </p>
+ * <p>
+ * When the total limit is reached, an idle connection of another route may be
+ * closed to make room for a new one. Unlike {@link AbstractConnPool}, which
+ * keeps a pool-wide list of idle connections, this pool picks the least recently
+ * used connection of the first route that can be locked without blocking, so
+ * eviction is only approximately LRU across routes.
+ * </p>
+ * <p>
+ * Please note that this class does not maintain its own pool of execution {@link Thread}s.
+ * Therefore, one <b>must</b> call {@link Future#get()} or {@link Future#get(long, TimeUnit)}
+ * method on the {@link Future} object returned by the
+ * {@link #lease(Object, Object, FutureCallback)} method in order for the lease operation
+ * to complete.
+ * </p>
+ *
+ * @param <T> the route type that represents the opposite endpoint of a pooled
+ *   connection.
+ * @param <C> the connection type.
+ * @param <E> the type of the pool entry containing a pooled connection.
+ * @see PoolConcurrencyPolicy
+ * @since 4.4.12
+ */
+@Contract(threading = ThreadingBehavior.SAFE_CONDITIONAL)
+public abstract class AbstractStripedConnPool<T, C, E extends PoolEntry<T, C>>
+                                               implements ConnPool<T, E>, ConnPoolControl<T> {
+
+    private final ConnFactory<T, C> connFactory;
+    private final ConcurrentMap<T, RouteSegment> routeToSegment;
+    private final ConcurrentMap<T, Integer> maxPerRoute;
+    private final Queue<RouteSegment> starved;
+    private final AtomicInteger allocatedCount;
+    private final AtomicInteger leasedCount;
+    private final AtomicInteger availableCount;
+    private final AtomicInteger pendingCount;
+
+    private volatile boolean isShutDown;
+    private volatile int defaultMaxPerRoute;
+    private volatile int maxTotal;
+    private volatile int validateAfterInactivity;
+
+    public AbstractStripedConnPool(
+            final ConnFactory<T, C> connFactory,
+            final int defaultMaxPerRoute,
+            final int maxTotal) {
+        super();
+        this.connFactory = Args.notNull(connFactory, "Connection factory");
+        this.defaultMaxPerRoute = Args.positive(defaultMaxPerRoute, "Max per route value");
+        this.maxTotal = Args.positive(maxTotal, "Max total value");
+        this.routeToSegment = new ConcurrentHashMap<T, RouteSegment>();
+        this.maxPerRoute = new ConcurrentHashMap<T, Integer>();
+        this.starved = new ConcurrentLinkedQueue<RouteSegment>();
+        this.allocatedCount = new AtomicInteger(0);
+        this.leasedCount = new AtomicInteger(0);
+        this.availableCount = new AtomicInteger(0);
+        this.pendingCount = new AtomicInteger(0);
+    }
+
+    /**
+     * Creates a new entry for the given connection with the given route.
+     */
+    protected abstract E createEntry(T route, C conn);
+
+    protected void onLease(final E entry) {
+    }
+
+    protected void onRelease(final E entry) {
+    }
+
+    protected void onReuse(final E entry) {
+    }
+
+    protected boolean validate(final E entry) {
+        return true;
+    }
+
+    public boolean isShutdown() {
+        return this.isShutDown;
+    }
+
+    /**
+     * Shuts down the pool.
+     */
+    public void shutdown() throws IOException {
+        if (this.isShutDown) {
+            return ;
+        }
+        this.isShutDown = true;
+        final Iterator<RouteSegment> it = this.routeToSegment.values().iterator();
+        while (it.hasNext()) {
+            final RouteSegment segment = it.next();
+            segment.lock.lock();
+            try {
+                for (final E entry: segment.leased) {
+                    entry.close();
+                }
+                segment.leased.clear();
+                segment.pool.shutdown();
+                segment.removed = true;
+                segment.condition.signalAll();
+            } finally {
+                segment.lock.unlock();
+            }
+            it.remove();
+        }
+        this.allocatedCount.set(0);
+        this.leasedCount.set(0);
+        this.availableCount.set(0);
+    }
+
+    private RouteSegment getSegment(final T route) {
+        RouteSegment segment = this.routeToSegment.get(route);
+        if (segment == null) {
+            final RouteSegment newSegment = new RouteSegment(route);
+            segment = this.routeToSegment.putIfAbsent(route, newSegment);
+            if (segment == null) {
+                segment = newSegment;
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Locks the segment of the given route making sure it has not been purged
+     * from the route map in the meantime.
+     */
+    private RouteSegment lockSegment(final T route) {
+        for (;;) {
+            final RouteSegment segment = getSegment(route);
+            segment.lock.lock();
+            if (!segment.removed) {
+                return segment;
+            }
+            segment.lock.unlock();
+            Asserts.check(!this.isShutDown, "Connection pool shut down");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Please note that this class does not maintain its own pool of execution
+     * {@link Thread}s. Therefore, one <b>must</b> call {@link Future#get()}
+     * or {@link Future#get(long, TimeUnit)} method on the {@link Future}
+     * returned by this method in order for the lease operation to complete.
+     */
+    @Override
+    public Future<E> lease(final T route, final Object state, final FutureCallback<E> callback) {
+        Args.notNull(route, "Route");
+        Asserts.check(!this.isShutDown, "Connection pool shut down");
+
+        return new Future<E>() {
+
+            private final AtomicBoolean cancelled = new AtomicBoolean(false);
+            private final AtomicBoolean done = new AtomicBoolean(false);
+            private final AtomicReference<E> entryRef = new AtomicReference<E>(null);
+            private final ReentrantLock leaseLock = new ReentrantLock();
+
+            @Override
+            public boolean cancel(final boolean mayInterruptIfRunning) {
+                if (cancelled.compareAndSet(false, true)) {
+                    done.set(true);
+                    final RouteSegment segment = routeToSegment.get(route);
+                    if (segment != null) {
+                        segment.lock.lock();
+                        try {
+                            segment.condition.signalAll();
+                        } finally {
+                            segment.lock.unlock();
+                        }
+                    }
+                    if (callback != null) {
+                        callback.cancelled();
+                    }
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+
+            @Override
+            public boolean isDone() {
+                return done.get();
+            }
+
+            @Override
+            public E get() throws InterruptedException, ExecutionException {
+                try {
+                    return get(0L, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException ex) {
+                    throw new ExecutionException(ex);
+                }
+            }
+
+            @Override
+            public E get(final long timeout, final TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
+                final E entry = entryRef.get();
+                if (entry != null) {
+                    return entry;
+                }
+                leaseLock.lock();
+                try {
+                    for (;;) {
+                        final E leasedEntry = getPoolEntryBlocking(route, state, timeout, timeUnit, this);
+                        if (validateAfterInactivity > 0)  {
+                            if (leasedEntry.getUpdated() + validateAfterInactivity <= System.currentTimeMillis()) {
+                                if (!validate(leasedEntry)) {
+                                    leasedEntry.close();
+                                    release(leasedEntry, false);
+                                    continue;
+                                }
+                            }
+                        }
+                        entryRef.set(leasedEntry);
+                        done.set(true);
+                        onLease(leasedEntry);
+                        if (callback != null) {
+                            callback.completed(leasedEntry);
+                        }
+                        return leasedEntry;
+                    }
+                } catch (final IOException ex) {
+                    done.set(true);
+                    if (callback != null) {
+                        callback.failed(ex);
+                    }
+                    throw new ExecutionException(ex);
+                } finally {
+                    leaseLock.unlock();
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Attempts to lease a connection for the given route and with the given
+     * state from the pool.
+     *
+     * @param route route of the connection.
+     * @param state arbitrary object that represents a particular state
+     *  (usually a security principal or a unique token identifying
+     *  the user whose credentials have been used while establishing the connection).
+     *  May be {@code null}.
+     * @return future for a leased pool entry.
+     */
+    public Future<E> lease(final T route, final Object state) {
+        return lease(route, state, null);
+    }
+
+    private E getPoolEntryBlocking(
+            final T route, final Object state,
+            final long timeout, final TimeUnit timeUnit,
+            final Future<E> future) throws IOException, InterruptedException, TimeoutException {
+
+        final long deadline = timeout > 0 ? System.currentTimeMillis() + timeUnit.toMillis(timeout) : 0;
+        final RouteSegment segment = lockSegment(route);
+        try {
+            final RouteSpecificPool<T, C, E> pool = segment.pool;
+            E entry;
+            for (;;) {
+                Asserts.check(!this.isShutDown, "Connection pool shut down");
+                for (;;) {
+                    entry = pool.getFree(state);
+                    if (entry == null) {
+                        break;
+                    }
+                    if (entry.isExpired(System.currentTimeMillis())) {
+                        entry.close();
+                    }
+                    if (entry.isClosed()) {
+                        pool.free(entry, false);
+                        this.availableCount.decrementAndGet();
+                        this.allocatedCount.decrementAndGet();
+                    } else {
+                        break;
+                    }
+                }
+                if (entry != null) {
+                    this.availableCount.decrementAndGet();
+                    this.leasedCount.incrementAndGet();
+                    segment.leased.add(entry);
+                    onReuse(entry);
+                    return entry;
+                }
+
+                // New connection is needed
+                final int maxPerRoute = getMax(route);
+                // Shrink the pool prior to allocating a new connection
+                final int excess = Math.max(0, pool.getAllocatedCount() + 1 - maxPerRoute);
+                if (excess > 0) {
+                    for (int i = 0; i < excess; i++) {
+                        final E lastUsed = pool.getLastUsed();
+                        if (lastUsed == null) {
+                            break;
+                        }
+                        lastUsed.close();
+                        pool.remove(lastUsed);
+                        this.availableCount.decrementAndGet();
+                        this.allocatedCount.decrementAndGet();
+                    }
+                }
+
+                if (pool.getAllocatedCount() < maxPerRoute) {
+                    // Register interest in the total capacity prior to checking it
+                    // so that a concurrent release cannot slip in unnoticed
+                    if (segment.starved.compareAndSet(false, true)) {
+                        this.starved.add(segment);
+                    }
+                    if (reserveCapacity() || (evictIdle(segment) && reserveCapacity())) {
+                        final C conn;
+                        try {
+                            conn = this.connFactory.create(route);
+                        } catch (final IOException ex) {
+                            this.allocatedCount.decrementAndGet();
+                            throw ex;
+                        }
+                        entry = pool.add(conn);
+                        this.leasedCount.incrementAndGet();
+                        segment.leased.add(entry);
+                        return entry;
+                    }
+                }
+
+                boolean success = false;
+                try {
+                    if (future.isCancelled()) {
+                        throw new InterruptedException("Operation interrupted");
+                    }
+                    pool.queue(future);
+                    this.pendingCount.incrementAndGet();
+                    if (deadline > 0) {
+                        final long remaining = deadline - System.currentTimeMillis();
+                        success = remaining > 0 && segment.condition.await(remaining, TimeUnit.MILLISECONDS);
+                    } else {
+                        segment.condition.await();
+                        success = true;
+                    }
+                    if (future.isCancelled()) {
+                        throw new InterruptedException("Operation interrupted");
+                    }
+                } finally {
+                    pool.unqueue(future);
+                    this.pendingCount.decrementAndGet();
+                }
+                // check for spurious wakeup vs. timeout
+                if (!success && (deadline > 0 && deadline <= System.currentTimeMillis())) {
+                    break;
+                }
+            }
+            throw new TimeoutException("Timeout waiting for connection");
+        } finally {
+            segment.lock.unlock();
+            // Threads of other routes may have failed to evict an idle connection
+            // of this route while its lock was held or may be able to use capacity
+            // this thread has given up on
+            if (!this.starved.isEmpty()) {
+                signalStarved();
+            }
+        }
+    }
+
+    /**
+     * Attempts to reserve one unit of the total pool capacity.
+     */
+    private boolean reserveCapacity() {
+        for (;;) {
+            final int current = this.allocatedCount.get();
+            if (current >= this.maxTotal) {
+                return false;
+            }
+            if (this.allocatedCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes the least recently used idle connection of any route that can be
+     * locked without blocking. The segment held by the calling thread is tried last.
+     */
+    private boolean evictIdle(final RouteSegment current) {
+        if (this.availableCount.get() == 0) {
+            return false;
+        }
+        for (final RouteSegment segment: this.routeToSegment.values()) {
+            if (segment != current && evictLastUsed(segment)) {
+                return true;
+            }
+        }
+        return evictLastUsed(current);
+    }
+
+    private boolean evictLastUsed(final RouteSegment segment) {
+        if (segment.pool.getAvailableCount() == 0 || !segment.lock.tryLock()) {
+            return false;
+        }
+        try {
+            final E lastUsed = segment.pool.getLastUsed();
+            if (lastUsed == null) {
+                return false;
+            }
+            lastUsed.close();
+            segment.pool.remove(lastUsed);
+            this.availableCount.decrementAndGet();
+            this.allocatedCount.decrementAndGet();
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up threads of one route waiting for the total capacity of the pool.
+     * Must not be called while holding a segment lock.
+     */
+    private void signalStarved() {
+        RouteSegment segment;
+        while ((segment = this.starved.poll()) != null) {
+            segment.starved.set(false);
+            segment.lock.lock();
+            try {
+                if (segment.pool.getPendingCount() > 0) {
+                    segment.condition.signalAll();
+                    return;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void release(final E entry, final boolean reusable) {
+        final RouteSegment segment = this.routeToSegment.get(entry.getRoute());
+        if (segment == null) {
+            return;
+        }
+        segment.lock.lock();
+        try {
+            if (segment.leased.remove(entry)) {
+                this.leasedCount.decrementAndGet();
+                segment.pool.free(entry, reusable);
+                if (reusable && !this.isShutDown) {
+                    this.availableCount.incrementAndGet();
+                } else {
+                    entry.close();
+                    this.allocatedCount.decrementAndGet();
+                }
+                onRelease(entry);
+                if (segment.pool.getPendingCount() > 0) {
+                    segment.condition.signalAll();
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        if (!this.starved.isEmpty()) {
+            signalStarved();
+        }
+    }
+
+    private int getMax(final T route) {
+        final Integer v = this.maxPerRoute.get(route);
+        return v != null ? v.intValue() : this.defaultMaxPerRoute;
+    }
+
+    @Override
+    public void setMaxTotal(final int max) {
+        Args.positive(max, "Max value");
+        this.maxTotal = max;
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return this.maxTotal;
+    }
+
+    @Override
+    public void setDefaultMaxPerRoute(final int max) {
+        Args.positive(max, "Max per route value");
+        this.defaultMaxPerRoute = max;
+    }
+
+    @Override
+    public int getDefaultMaxPerRoute() {
+        return this.defaultMaxPerRoute;
+    }
+
+    @Override
+    public void setMaxPerRoute(final T route, final int max) {
+        Args.notNull(route, "Route");
+        if (max > -1) {
+            this.maxPerRoute.put(route, Integer.valueOf(max));
+        } else {
+            this.maxPerRoute.remove(route);
+        }
+    }
+
+    @Override
+    public int getMaxPerRoute(final T route) {
+        Args.notNull(route, "Route");
+        return getMax(route);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Total statistics are assembled from atomic counters without locking
+     * and therefore represent an approximate snapshot of the pool state.
+     * </p>
+     */
+    @Override
+    public PoolStats getTotalStats() {
+        return new PoolStats(
+                this.leasedCount.get(),
+                this.pendingCount.get(),
+                this.availableCount.get(),
+                this.maxTotal);
+    }
+
+    @Override
+    public PoolStats getStats(final T route) {
+        Args.notNull(route, "Route");
+        final RouteSegment segment = this.routeToSegment.get(route);
+        if (segment == null) {
+            return new PoolStats(0, 0, 0, getMax(route));
+        }
+        segment.lock.lock();
+        try {
+            return new PoolStats(
+                    segment.pool.getLeasedCount(),
+                    segment.pool.getPendingCount(),
+                    segment.pool.getAvailableCount(),
+                    getMax(route));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns snapshot of all knows routes
+     * @return the set of routes
+     */
+    public Set<T> getRoutes() {
+        return new HashSet<T>(this.routeToSegment.keySet());
+    }
+
+    /**
+     * Enumerates all available connections.
+     */
+    protected void enumAvailable(final PoolEntryCallback<T, C> callback) {
+        for (final RouteSegment segment: this.routeToSegment.values()) {
+            segment.lock.lock();
+            try {
+                final Iterator<E> it = segment.pool.getAvailable().iterator();
+                while (it.hasNext()) {
+                    final E entry = it.next();
+                    callback.process(entry);
+                    if (entry.isClosed()) {
+                        it.remove();
+                        this.availableCount.decrementAndGet();
+                        this.allocatedCount.decrementAndGet();
+                    }
+                }
+                if (segment.pool.getPendingCount() + segment.pool.getAllocatedCount() == 0) {
+                    segment.removed = true;
+                    this.routeToSegment.remove(segment.route, segment);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        if (!this.starved.isEmpty()) {
+            signalStarved();
+        }
+    }
+
+    /**
+     * Enumerates all leased connections.
+     */
+    protected void enumLeased(final PoolEntryCallback<T, C> callback) {
+        for (final RouteSegment segment: this.routeToSegment.values()) {
+            segment.lock.lock();
+            try {
+                for (final E entry: segment.leased) {
+                    callback.process(entry);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes connections that have been idle longer than the given period
+     * of time and evicts them from the pool.
+     *
+     * @param idletime maximum idle time.
+     * @param timeUnit time unit.
+     */
+    public void closeIdle(final long idletime, final TimeUnit timeUnit) {
+        Args.notNull(timeUnit, "Time unit");
+        long time = timeUnit.toMillis(idletime);
+        if (time < 0) {
+            time = 0;
+        }
+        final long deadline = System.currentTimeMillis() - time;
+        enumAvailable(new PoolEntryCallback<T, C>() {
+
+            @Override
+            public void process(final PoolEntry<T, C> entry) {
+                if (entry.getUpdated() <= deadline) {
+                    entry.close();
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Closes expired connections and evicts them from the pool.
+     */
+    public void closeExpired() {
+        final long now = System.currentTimeMillis();
+        enumAvailable(new PoolEntryCallback<T, C>() {
+
+            @Override
+            public void process(final PoolEntry<T, C> entry) {
+                if (entry.isExpired(now)) {
+                    entry.close();
+                }
+            }
+
+        });
+    }
+
+    /**
+     * @return the number of milliseconds
+     */
+    public int getValidateAfterInactivity() {
+        return this.validateAfterInactivity;
+    }
+
+    /**
+     * @param ms the number of milliseconds
+     */
+    public void setValidateAfterInactivity(final int ms) {
+        this.validateAfterInactivity = ms;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[leased: ");
+        buffer.append(this.leasedCount.get());
+        buffer.append("][available: ");
+        buffer.append(this.availableCount.get());
+        buffer.append("][pending: ");
+        buffer.append(this.pendingCount.get());
+        buffer.append("]");
+        for (final RouteSegment segment: this.routeToSegment.values()) {
+            buffer.append(segment.pool);
+        }
+        return buffer.toString();
+    }
+
+    private final class RouteSegment {
+
+        private final T route;
+        private final ReentrantLock lock;
+        private final Condition condition;
+        private final RouteSpecificPool<T, C, E> pool;
+        private final Set<E> leased;
+        private final AtomicBoolean starved;
+
+        // guarded by lock
+        private boolean removed;
+
+        RouteSegment(final T route) {
+            super();
+            this.route = route;
+            this.lock = new ReentrantLock();
+            this.condition = this.lock.newCondition();
+            this.pool = new RouteSpecificPool<T, C, E>(route) {
+
+                @Override
+                protected E createEntry(final C conn) {
+                    return AbstractStripedConnPool.this.createEntry(route, conn);
+                }
+
+            };
+            this.leased = new HashSet<E>();
+            this.starved = new AtomicBoolean(false);
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.pool;
+
+/**
+ * Defines how a blocking connection pool guards its internal state.
+ *
+ * @since 4.4.12
+ */
+public enum PoolConcurrencyPolicy {
+
+    /**
+     * A single pool-wide lock guards all routes. The total limit is enforced
+     * strictly and idle connections are evicted in strict LRU order
+     * (see {@link AbstractConnPool}).
+     */
+    STRICT,
+
+    /**
+     * Each route is guarded by its own lock and waiting threads are woken up
+     * per route. Idle connections of other routes are evicted in approximate
+     * LRU order when the total limit is reached
+     * (see {@link AbstractStripedConnPool}).
+     */
+    STRIPED
+
+}
@@ -29,6 +29,7 @@ package org.apache.http.pool;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Future;
 
@@ -98,6 +99,14 @@ abstract class RouteSpecificPool<T, C, E extends PoolEntry<T, C>> {
         return null;
     }
 
+    /**
+     * Returns the live list of available entries, most recently used first.
+     * Callers are expected to hold the lock guarding this pool.
+     */
+    public List<E> getAvailable() {
+        return this.available;
+    }
+
     public E getLastUsed() {
         return this.available.isEmpty() ? null : this.available.getLast();
     }
@@ -27,17 +27,24 @@
 
 package org.apache.http.protocol;
 
-import org.apache.http.annotation.ThreadingBehavior;
-import org.apache.http.annotation.Contract;
-
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.TimeZone;
 
+import org.apache.http.FormattedHeader;
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.message.BufferedHeader;
+import org.apache.http.util.CharArrayBuffer;
+
 /**
  * Generates a date in the format required by the HTTP protocol.
+ * <p>
+ * The date is formatted at most once per second and published as an
+ * immutable snapshot, so that concurrent callers do not contend on a lock.
+ * </p>
  *
  * @since 4.0
  */
@@ -51,9 +58,16 @@ public class HttpDateGenerator {
     /** The time zone to use in the date header. */
     public static final TimeZone GMT = TimeZone.getTimeZone("GMT");
 
+    /**
+     * Shared instance.
+     *
+     * @since 4.4.12
+     */
+    public static final HttpDateGenerator INSTANCE = new HttpDateGenerator();
+
     private final DateFormat dateformat;
-    private long dateAsLong = 0L;
-    private String dateAsText = null;
+
+    private volatile CachedDate cachedDate;
 
     public HttpDateGenerator() {
         super();
@@ -61,14 +75,53 @@ public class HttpDateGenerator {
         this.dateformat.setTimeZone(GMT);
     }
 
-    public synchronized String getCurrentDate() {
+    private CachedDate getCachedDate() {
         final long now = System.currentTimeMillis();
-        if (now - this.dateAsLong > 1000) {
-            // Generate new date string
-            this.dateAsText = this.dateformat.format(new Date(now));
-            this.dateAsLong = now;
+        final long second = now / 1000;
+        final CachedDate current = this.cachedDate;
+        if (current != null && current.second == second) {
+            return current;
+        }
+        // Concurrent callers may format the same date more than once, which is
+        // cheaper than making them wait for each other. DateFormat instances
+        // are not thread safe, so each caller formats with a copy
+        final DateFormat df = (DateFormat) this.dateformat.clone();
+        final CachedDate update = new CachedDate(second, df.format(new Date(second * 1000)));
+        this.cachedDate = update;
+        return update;
+    }
+
+    public String getCurrentDate() {
+        return getCachedDate().text;
+    }
+
+    /**
+     * Returns a {@code Date} header with the current date. The header is
+     * backed by a preformatted buffer, which message writers output as is.
+     * The returned header and its buffer must not be modified.
+     *
+     * @since 4.4.12
+     */
+    public FormattedHeader getCurrentDateHeader() {
+        return getCachedDate().header;
+    }
+
+    private static class CachedDate {
+
+        final long second;
+        final String text;
+        final FormattedHeader header;
+
+        CachedDate(final long second, final String text) {
+            this.second = second;
+            this.text = text;
+            final CharArrayBuffer buffer = new CharArrayBuffer(HTTP.DATE_HEADER.length() + 2 + text.length());
+            buffer.append(HTTP.DATE_HEADER);
+            buffer.append(": ");
+            buffer.append(text);
+            this.header = new BufferedHeader(buffer);
         }
-        return this.dateAsText;
+
     }
 
 }
@@ -0,0 +1,421 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.protocol;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.http.annotation.Contract;
+import org.apache.http.annotation.ThreadingBehavior;
+import org.apache.http.util.Args;
+
+/**
+ * {@link UriPatternMatcher} that resolves patterns using radix trees
+ * rather than by testing the request path against every registered pattern.
+ * Prefix patterns ({@code <uri>*}) are kept in one tree and suffix patterns
+ * ({@code *<uri>}) in another one keyed by reversed URIs, so that a lookup
+ * takes time proportional to the length of the request path regardless
+ * of the number of registered patterns. Resolution rules are the same as
+ * those of {@link UriPatternMatcher}: an exact match is preferred, otherwise
+ * the longest matching pattern wins, with prefix patterns taking precedence
+ * over suffix patterns of the same length.
+ * <p>
+ * The trees are immutable and replaced on registration, so lookups
+ * never block. Registration copies only the nodes along the path of the
+ * modified pattern.
+ * </p>
+ * <p>
+ * Please note that this class does not use
+ * {@link #matchUriRequestPattern(String, String)}.
+ * </p>
+ *
+ * @param <T> The type of registered objects.
+ * @since 4.4.12
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class RadixTreeUriPatternMatcher<T> extends UriPatternMatcher<T> {
+
+    private final Lock writeLock;
+
+    private volatile Snapshot<T> snapshot;
+
+    public RadixTreeUriPatternMatcher() {
+        super();
+        this.writeLock = new ReentrantLock();
+        this.snapshot = new Snapshot<T>(
+                new LinkedHashMap<String, T>(),
+                Node.<T>root(),
+                Node.<T>root());
+    }
+
+    @Override
+    public Set<Entry<String, T>> entrySet() {
+        return new HashSet<Entry<String, T>>(this.snapshot.patterns.entrySet());
+    }
+
+    @Override
+    public void register(final String pattern, final T obj) {
+        Args.notNull(pattern, "URI request pattern");
+        this.writeLock.lock();
+        try {
+            final Snapshot<T> current = this.snapshot;
+            final Map<String, T> patterns = new LinkedHashMap<String, T>(current.patterns);
+            patterns.put(pattern, obj);
+            Node<T> prefixes = current.prefixes;
+            if (pattern.endsWith("*")) {
+                prefixes = prefixes.put(pattern.substring(0, pattern.length() - 1), 0, obj);
+            }
+            Node<T> suffixes = current.suffixes;
+            if (pattern.startsWith("*") && pattern.length() > 1) {
+                suffixes = suffixes.put(reverse(pattern.substring(1)), 0, obj);
+            }
+            this.snapshot = new Snapshot<T>(patterns, prefixes, suffixes);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void unregister(final String pattern) {
+        if (pattern == null) {
+            return;
+        }
+        this.writeLock.lock();
+        try {
+            final Snapshot<T> current = this.snapshot;
+            if (!current.patterns.containsKey(pattern)) {
+                return;
+            }
+            final Map<String, T> patterns = new LinkedHashMap<String, T>(current.patterns);
+            patterns.remove(pattern);
+            Node<T> prefixes = current.prefixes;
+            if (pattern.endsWith("*")) {
+                prefixes = prefixes.remove(pattern.substring(0, pattern.length() - 1), 0);
+            }
+            Node<T> suffixes = current.suffixes;
+            if (pattern.startsWith("*") && pattern.length() > 1) {
+                suffixes = suffixes.remove(reverse(pattern.substring(1)), 0);
+            }
+            this.snapshot = new Snapshot<T>(patterns, prefixes, suffixes);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * @deprecated (4.1) do not use
+     */
+    @Override
+    @Deprecated
+    public void setHandlers(final Map<String, T> map) {
+        setObjects(map);
+    }
+
+    /**
+     * @deprecated (4.1) do not use
+     */
+    @Override
+    @Deprecated
+    public void setObjects(final Map<String, T> map) {
+        Args.notNull(map, "Map of handlers");
+        this.writeLock.lock();
+        try {
+            Node<T> prefixes = Node.root();
+            Node<T> suffixes = Node.root();
+            for (final Entry<String, T> entry : map.entrySet()) {
+                final String pattern = entry.getKey();
+                if (pattern.endsWith("*")) {
+                    prefixes = prefixes.put(pattern.substring(0, pattern.length() - 1), 0, entry.getValue());
+                }
+                if (pattern.startsWith("*") && pattern.length() > 1) {
+                    suffixes = suffixes.put(reverse(pattern.substring(1)), 0, entry.getValue());
+                }
+            }
+            this.snapshot = new Snapshot<T>(
+                    new LinkedHashMap<String, T>(map),
+                    prefixes,
+                    suffixes);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a read-only view of the registered objects.
+     *
+     * @deprecated (4.1) do not use
+     */
+    @Override
+    @Deprecated
+    public Map<String, T> getObjects() {
+        return Collections.unmodifiableMap(this.snapshot.patterns);
+    }
+
+    @Override
+    public T lookup(final String path) {
+        Args.notNull(path, "Request path");
+        final Snapshot<T> current = this.snapshot;
+        final T obj = current.patterns.get(path);
+        if (obj != null) {
+            return obj;
+        }
+        final Node<T> prefix = current.prefixes.longestMatch(path, false);
+        final Node<T> suffix = current.suffixes.longestMatch(path, true);
+        if (prefix == null) {
+            return suffix != null ? suffix.value : null;
+        }
+        // Patterns are one character longer than their keys in either tree;
+        // prefix patterns win ties
+        if (suffix == null || prefix.depth >= suffix.depth) {
+            return prefix.value;
+        }
+        return suffix.value;
+    }
+
+    @Override
+    public String toString() {
+        return this.snapshot.patterns.toString();
+    }
+
+    private static String reverse(final String s) {
+        return new StringBuilder(s).reverse().toString();
+    }
+
+    private static class Snapshot<T> {
+
+        final Map<String, T> patterns;
+        final Node<T> prefixes;
+        final Node<T> suffixes;
+
+        Snapshot(
+                final Map<String, T> patterns,
+                final Node<T> prefixes,
+                final Node<T> suffixes) {
+            this.patterns = patterns;
+            this.prefixes = prefixes;
+            this.suffixes = suffixes;
+        }
+
+    }
+
+    /**
+     * Immutable radix tree node. The key of a node is the concatenation of
+     * the labels on the path from the root, {@code depth} being its length.
+     * Children are sorted by the first character of their label.
+     */
+    static final class Node<T> {
+
+        private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+        final String label;
+        final int depth;
+        final T value;
+        final Node<T>[] children;
+
+        Node(final String label, final int depth, final T value, final Node<T>[] children) {
+            this.label = label;
+            this.depth = depth;
+            this.value = value;
+            this.children = children;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Node<T>[] noChildren() {
+            return (Node<T>[]) NO_CHILDREN;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newChildren(final int length) {
+            return (Node<T>[]) new Node<?>[length];
+        }
+
+        static <T> Node<T> root() {
+            return new Node<T>("", 0, null, Node.<T>noChildren());
+        }
+
+        private int indexOf(final char ch) {
+            int low = 0;
+            int high = this.children.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final char c = this.children[mid].label.charAt(0);
+                if (c < ch) {
+                    low = mid + 1;
+                } else if (c > ch) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private Node<T> withValue(final T newValue) {
+            return new Node<T>(this.label, this.depth, newValue, this.children);
+        }
+
+        private Node<T> withChild(final int index, final Node<T> child) {
+            final Node<T>[] newChildren = this.children.clone();
+            newChildren[index] = child;
+            return new Node<T>(this.label, this.depth, this.value, newChildren);
+        }
+
+        private Node<T> withChildInserted(final int index, final Node<T> child) {
+            final Node<T>[] newChildren = Node.<T>newChildren(this.children.length + 1);
+            System.arraycopy(this.children, 0, newChildren, 0, index);
+            newChildren[index] = child;
+            System.arraycopy(this.children, index, newChildren, index + 1, this.children.length - index);
+            return new Node<T>(this.label, this.depth, this.value, newChildren);
+        }
+
+        private Node<T> withChildRemoved(final int index) {
+            final Node<T>[] newChildren = Node.<T>newChildren(this.children.length - 1);
+            System.arraycopy(this.children, 0, newChildren, 0, index);
+            System.arraycopy(this.children, index + 1, newChildren, index, this.children.length - index - 1);
+            return new Node<T>(this.label, this.depth, this.value, newChildren);
+        }
+
+        /**
+         * Returns a copy of this node with the given key, whose first
+         * {@code offset} characters are those of this node's key, mapped to
+         * the given value.
+         */
+        Node<T> put(final String key, final int offset, final T newValue) {
+            if (offset == key.length()) {
+                return withValue(newValue);
+            }
+            final int index = indexOf(key.charAt(offset));
+            if (index < 0) {
+                final Node<T> leaf = new Node<T>(
+                        key.substring(offset), key.length(), newValue, Node.<T>noChildren());
+                return withChildInserted(-(index + 1), leaf);
+            }
+            final Node<T> child = this.children[index];
+            final String childLabel = child.label;
+            final int max = Math.min(childLabel.length(), key.length() - offset);
+            int common = 1;
+            while (common < max && childLabel.charAt(common) == key.charAt(offset + common)) {
+                common++;
+            }
+            if (common == childLabel.length()) {
+                return withChild(index, child.put(key, offset + common, newValue));
+            }
+            // Split the child edge at the end of the common part
+            final Node<T> tail = new Node<T>(
+                    childLabel.substring(common), child.depth, child.value, child.children);
+            final Node<T>[] midChildren = Node.<T>newChildren(1);
+            midChildren[0] = tail;
+            final Node<T> mid = new Node<T>(
+                    childLabel.substring(0, common), offset + common, null, midChildren);
+            return withChild(index, mid.put(key, offset + common, newValue));
+        }
+
+        /**
+         * Returns a copy of this node without the given key, or this node
+         * if the key is not present.
+         */
+        Node<T> remove(final String key, final int offset) {
+            if (offset == key.length()) {
+                return withValue(null);
+            }
+            final int index = indexOf(key.charAt(offset));
+            if (index < 0) {
+                return this;
+            }
+            final Node<T> child = this.children[index];
+            if (!key.startsWith(child.label, offset)) {
+                return this;
+            }
+            final Node<T> newChild = child.remove(key, offset + child.label.length());
+            if (newChild == child) {
+                return this;
+            }
+            if (newChild.value == null) {
+                if (newChild.children.length == 0) {
+                    return withChildRemoved(index);
+                }
+                if (newChild.children.length == 1) {
+                    // Merge the child with its only descendant
+                    final Node<T> grandChild = newChild.children[0];
+                    return withChild(index, new Node<T>(
+                            newChild.label + grandChild.label,
+                            grandChild.depth,
+                            grandChild.value,
+                            grandChild.children));
+                }
+            }
+            return withChild(index, newChild);
+        }
+
+        /**
+         * Finds the node with the longest key that is a prefix of the given
+         * path, or of the reversed path if {@code reverse} is {@code true},
+         * and has a value.
+         */
+        Node<T> longestMatch(final String path, final boolean reverse) {
+            final int len = path.length();
+            Node<T> best = this.value != null ? this : null;
+            Node<T> node = this;
+            int pos = 0;
+            while (pos < len) {
+                final int index = node.indexOf(reverse ? path.charAt(len - 1 - pos) : path.charAt(pos));
+                if (index < 0) {
+                    break;
+                }
+                final Node<T> child = node.children[index];
+                final String childLabel = child.label;
+                final int labelLen = childLabel.length();
+                if (pos + labelLen > len) {
+                    break;
+                }
+                if (reverse) {
+                    for (int i = 1; i < labelLen; i++) {
+                        if (childLabel.charAt(i) != path.charAt(len - 1 - pos - i)) {
+                            return best;
+                        }
+                    }
+                } else if (!path.startsWith(childLabel, pos)) {
+                    break;
+                }
+                pos += labelLen;
+                node = child;
+                if (node.value != null) {
+                    best = node;
+                }
+            }
+            return best;
+        }
+
+    }
+
+}
@@ -47,8 +47,6 @@ import org.apache.http.util.Args;
 @Contract(threading = ThreadingBehavior.SAFE)
 public class ResponseDate implements HttpResponseInterceptor {
 
-    private static final HttpDateGenerator DATE_GENERATOR = new HttpDateGenerator();
-
     public ResponseDate() {
         super();
     }
@@ -60,8 +58,7 @@ public class ResponseDate implements HttpResponseInterceptor {
         final int status = response.getStatusLine().getStatusCode();
         if ((status >= HttpStatus.SC_OK) &&
             !response.containsHeader(HTTP.DATE_HEADER)) {
-            final String httpdate = DATE_GENERATOR.getCurrentDate();
-            response.setHeader(HTTP.DATE_HEADER, httpdate);
+            response.setHeader(HttpDateGenerator.INSTANCE.getCurrentDateHeader());
         }
     }
 
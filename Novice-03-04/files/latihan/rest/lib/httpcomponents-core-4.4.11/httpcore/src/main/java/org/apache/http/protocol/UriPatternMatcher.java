@@ -32,6 +32,8 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.http.annotation.Contract;
 import org.apache.http.annotation.ThreadingBehavior;
@@ -57,10 +59,12 @@ import org.apache.http.util.Args;
 public class UriPatternMatcher<T> {
 
     private final Map<String, T> map;
+    private final ReadWriteLock lock;
 
     public UriPatternMatcher() {
         super();
         this.map = new LinkedHashMap<String, T>();
+        this.lock = new ReentrantReadWriteLock();
     }
 
     /**
@@ -71,8 +75,13 @@ public class UriPatternMatcher<T> {
      * @see Map#entrySet()
      * @since 4.4.9
      */
-    public synchronized Set<Entry<String, T>> entrySet() {
-        return new HashSet<Entry<String, T>>(map.entrySet());
+    public Set<Entry<String, T>> entrySet() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<Entry<String, T>>(map.entrySet());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
@@ -81,9 +90,14 @@ public class UriPatternMatcher<T> {
      * @param pattern the pattern to register the handler for.
      * @param obj the object.
      */
-    public synchronized void register(final String pattern, final T obj) {
+    public void register(final String pattern, final T obj) {
         Args.notNull(pattern, "URI request pattern");
-        this.map.put(pattern, obj);
+        lock.writeLock().lock();
+        try {
+            this.map.put(pattern, obj);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
@@ -91,38 +105,53 @@ public class UriPatternMatcher<T> {
      *
      * @param pattern the pattern to unregister.
      */
-    public synchronized void unregister(final String pattern) {
+    public void unregister(final String pattern) {
         if (pattern == null) {
             return;
         }
-        this.map.remove(pattern);
+        lock.writeLock().lock();
+        try {
+            this.map.remove(pattern);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * @deprecated (4.1) do not use
      */
     @Deprecated
-    public synchronized void setHandlers(final Map<String, T> map) {
+    public void setHandlers(final Map<String, T> map) {
         Args.notNull(map, "Map of handlers");
-        this.map.clear();
-        this.map.putAll(map);
+        lock.writeLock().lock();
+        try {
+            this.map.clear();
+            this.map.putAll(map);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * @deprecated (4.1) do not use
      */
     @Deprecated
-    public synchronized void setObjects(final Map<String, T> map) {
+    public void setObjects(final Map<String, T> map) {
         Args.notNull(map, "Map of handlers");
-        this.map.clear();
-        this.map.putAll(map);
+        lock.writeLock().lock();
+        try {
+            this.map.clear();
+            this.map.putAll(map);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     /**
      * @deprecated (4.1) do not use
      */
     @Deprecated
-    public synchronized Map<String, T> getObjects() {
+    public Map<String, T> getObjects() {
         return this.map;
     }
 
@@ -132,26 +161,31 @@ public class UriPatternMatcher<T> {
      * @param path the request path
      * @return object or {@code null} if no match is found.
      */
-    public synchronized T lookup(final String path) {
+    public T lookup(final String path) {
         Args.notNull(path, "Request path");
-        // direct match?
-        T obj = this.map.get(path);
-        if (obj == null) {
-            // pattern match?
-            String bestMatch = null;
-            for (final String pattern : this.map.keySet()) {
-                if (matchUriRequestPattern(pattern, path)) {
-                    // we have a match. is it any better?
-                    if (bestMatch == null
-                            || (bestMatch.length() < pattern.length())
-                            || (bestMatch.length() == pattern.length() && pattern.endsWith("*"))) {
-                        obj = this.map.get(pattern);
-                        bestMatch = pattern;
+        lock.readLock().lock();
+        try {
+            // direct match?
+            T obj = this.map.get(path);
+            if (obj == null) {
+                // pattern match?
+                String bestMatch = null;
+                for (final String pattern : this.map.keySet()) {
+                    if (matchUriRequestPattern(pattern, path)) {
+                        // we have a match. is it any better?
+                        if (bestMatch == null
+                                || (bestMatch.length() < pattern.length())
+                                || (bestMatch.length() == pattern.length() && pattern.endsWith("*"))) {
+                            obj = this.map.get(pattern);
+                            bestMatch = pattern;
+                        }
                     }
                 }
             }
+            return obj;
+        } finally {
+            lock.readLock().unlock();
         }
-        return obj;
     }
 
     /**
@@ -173,7 +207,12 @@ public class UriPatternMatcher<T> {
 
     @Override
     public String toString() {
-        return this.map.toString();
+        lock.readLock().lock();
+        try {
+            return this.map.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
 }
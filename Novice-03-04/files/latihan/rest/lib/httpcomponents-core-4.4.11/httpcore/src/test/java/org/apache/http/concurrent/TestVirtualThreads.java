@@ -0,0 +1,68 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestVirtualThreads {
+
+    @Test
+    public void testNewThreadFactory() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            try {
+                VirtualThreads.newThreadFactory("test");
+                Assert.fail("UnsupportedOperationException expected");
+            } catch (final UnsupportedOperationException expected) {
+            }
+            return;
+        }
+        final ThreadFactory threadFactory = VirtualThreads.newThreadFactory("test");
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+
+        };
+        final Thread t1 = threadFactory.newThread(task);
+        final Thread t2 = threadFactory.newThread(task);
+        Assert.assertEquals("test-1", t1.getName());
+        Assert.assertEquals("test-2", t2.getName());
+        Assert.assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(t1));
+        t1.start();
+        t2.start();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+}
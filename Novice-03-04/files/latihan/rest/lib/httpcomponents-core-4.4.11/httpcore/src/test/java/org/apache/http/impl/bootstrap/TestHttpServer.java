@@ -0,0 +1,188 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.impl.bootstrap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Consts;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.VirtualThreads;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestHttpServer {
+
+    private HttpServer server;
+
+    @After
+    public void shutDown() throws Exception {
+        if (this.server != null) {
+            this.server.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+
+    private HttpServer createServer(final boolean virtualThreads, final int maxConnections) throws IOException {
+        return ServerBootstrap.bootstrap()
+                .setLocalAddress(InetAddress.getByName("127.0.0.1"))
+                .setVirtualThreads(virtualThreads)
+                .setMaxConnections(maxConnections)
+                .registerHandler("*", new HttpRequestHandler() {
+
+                    @Override
+                    public void handle(
+                            final HttpRequest request,
+                            final HttpResponse response,
+                            final HttpContext context) throws HttpException, IOException {
+                        response.setEntity(new StringEntity("ok"));
+                    }
+
+                })
+                .create();
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getByName("127.0.0.1"), this.server.getLocalPort());
+    }
+
+    private static void sendRequest(final Socket socket) throws IOException {
+        final OutputStream out = socket.getOutputStream();
+        out.write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(Consts.ASCII));
+        out.flush();
+    }
+
+    private static String readResponse(final Socket socket) throws IOException {
+        final InputStream in = socket.getInputStream();
+        final ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int state = 0;
+        while (state < 4) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            head.write(b);
+            state = (b == '\r' && state % 2 == 0) || (b == '\n' && state % 2 == 1) ? state + 1 : 0;
+        }
+        final String s = new String(head.toByteArray(), Consts.ASCII);
+        int contentLength = 0;
+        for (final String line : s.split("\r\n")) {
+            if (line.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        for (int i = 0; i < contentLength; i++) {
+            if (in.read() == -1) {
+                throw new IOException("Connection closed");
+            }
+        }
+        return s.substring(0, s.indexOf("\r\n"));
+    }
+
+    private void awaitConnectionCount(final int expected) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (this.server.getConnectionCount() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, this.server.getConnectionCount());
+    }
+
+    @Test
+    public void testMaxConnections() throws Exception {
+        this.server = createServer(false, 1);
+        this.server.start();
+
+        final Socket socket1 = connect();
+        final Socket socket2 = connect();
+        try {
+            sendRequest(socket1);
+            Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket1));
+            awaitConnectionCount(1);
+
+            // The second connection is queued until the first one gets closed
+            sendRequest(socket2);
+            socket2.setSoTimeout(500);
+            try {
+                readResponse(socket2);
+                Assert.fail("SocketTimeoutException expected");
+            } catch (final SocketTimeoutException expected) {
+            }
+
+            socket1.close();
+            socket2.setSoTimeout(5000);
+            Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket2));
+            awaitConnectionCount(1);
+        } finally {
+            socket1.close();
+            socket2.close();
+        }
+        awaitConnectionCount(0);
+    }
+
+    @Test
+    public void testVirtualThreadKeepAliveConnections() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+        this.server = createServer(true, 0);
+        this.server.start();
+
+        final List<Socket> sockets = new ArrayList<Socket>();
+        try {
+            for (int i = 0; i < 50; i++) {
+                final Socket socket = connect();
+                sockets.add(socket);
+                sendRequest(socket);
+                Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket));
+            }
+            awaitConnectionCount(50);
+            for (final Socket socket : sockets) {
+                sendRequest(socket);
+                Assert.assertEquals("HTTP/1.1 200 OK", readResponse(socket));
+            }
+        } finally {
+            for (final Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        awaitConnectionCount(0);
+    }
+
+}
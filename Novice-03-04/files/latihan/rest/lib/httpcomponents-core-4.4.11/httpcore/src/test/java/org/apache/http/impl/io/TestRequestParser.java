@@ -33,9 +33,14 @@ import org.apache.http.Consts;
 import org.apache.http.Header;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpVersion;
+import org.apache.http.MessageConstraintException;
+import org.apache.http.ProtocolException;
 import org.apache.http.RequestLine;
+import org.apache.http.config.MessageConstraints;
 import org.apache.http.impl.SessionInputBufferMock;
 import org.apache.http.io.SessionInputBuffer;
+import org.apache.http.message.BasicLineFormatter;
+import org.apache.http.message.LazyHeader;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -71,6 +76,58 @@ public class TestRequestParser {
         Assert.assertEquals(3, headers.length);
     }
 
+    @Test
+    public void testFoldedHeaderParsing() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Folded: one\r\n" +
+            " \t two\r\n" +
+            "\tthree\r\n" +
+            "Cookie: c1=stuff\r\n" +
+            "\r\n";
+        final SessionInputBuffer inBuffer = new SessionInputBufferMock(s, Consts.ASCII);
+
+        final DefaultHttpRequestParser parser = new DefaultHttpRequestParser(inBuffer);
+        final HttpRequest httprequest = parser.parse();
+
+        final Header[] headers = httprequest.getAllHeaders();
+        Assert.assertEquals(3, headers.length);
+        Assert.assertTrue(headers[1] instanceof LazyHeader);
+        Assert.assertEquals("localhost", httprequest.getFirstHeader("host").getValue());
+        Assert.assertEquals("one two three", httprequest.getFirstHeader("X-FOLDED").getValue());
+        Assert.assertEquals("X-Folded: one two three", BasicLineFormatter.formatHeader(headers[1], null));
+        Assert.assertEquals("c1=stuff", httprequest.getFirstHeader("Cookie").getValue());
+    }
+
+    @Test
+    public void testHeaderLimits() throws Exception {
+        final String s =
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "X-Folded: one\r\n" +
+            " two\r\n" +
+            "\r\n";
+        try {
+            new DefaultHttpRequestParser(new SessionInputBufferMock(s, Consts.ASCII),
+                    MessageConstraints.custom().setMaxLineLength(16).build()).parse();
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException expected) {
+        }
+        try {
+            new DefaultHttpRequestParser(new SessionInputBufferMock(s, Consts.ASCII),
+                    MessageConstraints.custom().setMaxHeaderCount(2).build()).parse();
+            Assert.fail("MessageConstraintException should have been thrown");
+        } catch (final MessageConstraintException expected) {
+        }
+        try {
+            new DefaultHttpRequestParser(new SessionInputBufferMock(
+                    "GET / HTTP/1.1\r\nstuff\r\n\r\n", Consts.ASCII)).parse();
+            Assert.fail("ProtocolException should have been thrown");
+        } catch (final ProtocolException expected) {
+        }
+    }
+
     @Test
     public void testConnectionClosedException() throws Exception {
         final SessionInputBuffer inBuffer = new SessionInputBufferMock(new byte[] {});
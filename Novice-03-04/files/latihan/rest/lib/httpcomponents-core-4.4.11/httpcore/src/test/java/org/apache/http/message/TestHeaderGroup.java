@@ -34,6 +34,7 @@ import java.io.ObjectOutputStream;
 
 import org.apache.http.Header;
 import org.apache.http.HeaderIterator;
+import org.apache.http.util.CharArrayBuffer;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -121,6 +122,36 @@ public class TestHeaderGroup {
         Assert.assertEquals("value3", headergroup.getLastHeader("name").getValue());
     }
 
+    @Test
+    public void testCaseInsensitiveLookup() throws Exception {
+        final HeaderGroup headergroup = new HeaderGroup();
+        final CharArrayBuffer buf1 = new CharArrayBuffer(32);
+        buf1.append("content-type: text/plain");
+        final CharArrayBuffer buf2 = new CharArrayBuffer(32);
+        buf2.append("X-Custom: stuff");
+        headergroup.setHeaders(new Header[] {
+                new BufferedHeader(buf1),
+                new BasicHeader("CONTENT-LENGTH", "10"),
+                new LazyHeader(buf2, 0, buf2.length()),
+                new BasicHeader("x-custom", "more stuff") });
+
+        Assert.assertEquals("text/plain", headergroup.getFirstHeader("Content-Type").getValue());
+        Assert.assertEquals("10", headergroup.getLastHeader("content-length").getValue());
+        Assert.assertTrue(headergroup.containsHeader("X-CUSTOM"));
+        Assert.assertFalse(headergroup.containsHeader("X-Custom2"));
+        Assert.assertFalse(headergroup.containsHeader(null));
+        Assert.assertNull(headergroup.getFirstHeader(null));
+        final Header[] headers = headergroup.getHeaders("x-CUSTOM");
+        Assert.assertEquals(2, headers.length);
+        Assert.assertEquals("stuff", headers[0].getValue());
+        Assert.assertEquals("more stuff", headers[1].getValue());
+        Assert.assertEquals(0, headergroup.getHeaders(null).length);
+
+        headergroup.updateHeader(new BasicHeader("Content-type", "text/html"));
+        Assert.assertEquals(4, headergroup.getAllHeaders().length);
+        Assert.assertEquals("text/html", headergroup.getFirstHeader("content-type").getValue());
+    }
+
     @Test
     public void testCondensedHeader() {
         final HeaderGroup headergroup = new HeaderGroup();
@@ -167,6 +198,49 @@ public class TestHeaderGroup {
         Assert.assertFalse(i.hasNext());
     }
 
+    @Test
+    public void testIndexedLookups() {
+        final HeaderGroup headergroup = new HeaderGroup();
+        for (int i = 0; i < 20; i++) {
+            headergroup.addHeader(new BasicHeader("name" + (i % 5), "value" + i));
+        }
+        Assert.assertEquals("value1", headergroup.getFirstHeader("NAME1").getValue());
+        Assert.assertEquals("value16", headergroup.getLastHeader("name1").getValue());
+        Assert.assertEquals(4, headergroup.getHeaders("Name1").length);
+        Assert.assertFalse(headergroup.containsHeader("name5"));
+
+        headergroup.updateHeader(new BasicHeader("name1", "updated"));
+        Assert.assertEquals("updated", headergroup.getFirstHeader("name1").getValue());
+
+        headergroup.removeHeader(headergroup.getFirstHeader("name1"));
+        Assert.assertEquals("value6", headergroup.getFirstHeader("name1").getValue());
+        Assert.assertEquals(3, headergroup.getHeaders("name1").length);
+
+        headergroup.addHeader(new BasicHeader("name5", "value20"));
+        Assert.assertTrue(headergroup.containsHeader("name5"));
+
+        final HeaderIterator i = headergroup.iterator("name2");
+        i.nextHeader();
+        i.remove();
+        Assert.assertEquals("value7", headergroup.getFirstHeader("name2").getValue());
+        Assert.assertEquals("value12", headergroup.getHeaders("name2")[1].getValue());
+        Assert.assertEquals("value0", headergroup.getFirstHeader("name0").getValue());
+        Assert.assertEquals("value19", headergroup.getLastHeader("name4").getValue());
+    }
+
+    @Test
+    public void testIndexSharedWithClone() throws Exception {
+        final HeaderGroup orig = new HeaderGroup();
+        for (int i = 0; i < 10; i++) {
+            orig.addHeader(new BasicHeader("name" + i, "value" + i));
+        }
+        final HeaderGroup clone = (HeaderGroup) orig.clone();
+        Assert.assertEquals("value3", orig.getFirstHeader("name3").getValue());
+        clone.removeHeader(clone.getFirstHeader("name0"));
+        Assert.assertEquals("value3", orig.getFirstHeader("name3").getValue());
+        Assert.assertNull(orig.getFirstHeader("name0"));
+    }
+
     @Test
     public void testCloning() throws Exception {
         final HeaderGroup orig = new HeaderGroup();
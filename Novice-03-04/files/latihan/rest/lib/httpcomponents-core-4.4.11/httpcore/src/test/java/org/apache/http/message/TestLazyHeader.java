@@ -0,0 +1,160 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+
+package org.apache.http.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHeaders;
+import org.apache.http.ParseException;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LazyHeader}.
+ *
+ */
+public class TestLazyHeader {
+
+    private static CharArrayBuffer buffer(final String s) {
+        final CharArrayBuffer buf = new CharArrayBuffer(s.length());
+        buf.append(s);
+        return buf;
+    }
+
+    @Test
+    public void testBasicConstructor() throws Exception {
+        final CharArrayBuffer buf = buffer("Host: localhost  Content-Type:  text/plain ");
+        final LazyHeader header1 = new LazyHeader(buf, 0, 17);
+        final LazyHeader header2 = new LazyHeader(buf, 17, buf.length());
+        Assert.assertEquals("Host", header1.getName());
+        Assert.assertEquals("localhost", header1.getValue());
+        Assert.assertEquals(9, header1.getValueLength());
+        Assert.assertEquals(5, header1.getValuePos());
+        Assert.assertEquals("Content-Type", header2.getName());
+        Assert.assertEquals("text/plain", header2.getValue());
+        Assert.assertEquals(13, header2.getValuePos());
+        Assert.assertEquals("Content-Type:  text/plain ", header2.toString());
+    }
+
+    @Test
+    public void testCommonNamesAreShared() throws Exception {
+        final LazyHeader header1 = new LazyHeader(buffer("Content-Length: 10"), 0, 18);
+        final LazyHeader header2 = new LazyHeader(buffer("content-length: 10"), 0, 18);
+        final LazyHeader header3 = new LazyHeader(buffer("X-Custom: 10"), 0, 12);
+        Assert.assertSame(HttpHeaders.CONTENT_LENGTH, header1.getName());
+        Assert.assertEquals("content-length", header2.getName());
+        Assert.assertEquals("X-Custom", header3.getName());
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        try {
+            new LazyHeader(buffer("stuff"), 0, 5);
+            Assert.fail("ParseException should have been thrown");
+        } catch (final ParseException expected) {
+        }
+        try {
+            new LazyHeader(buffer("  : stuff"), 0, 9);
+            Assert.fail("ParseException should have been thrown");
+        } catch (final ParseException expected) {
+        }
+        try {
+            new LazyHeader(buffer("name: value"), 0, 12);
+            Assert.fail("IndexOutOfBoundsException should have been thrown");
+        } catch (final IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void testValueEqualsIgnoreCase() throws Exception {
+        final LazyHeader header = new LazyHeader(buffer("Connection:  Keep-Alive "), 0, 24);
+        Assert.assertTrue(header.valueEqualsIgnoreCase("keep-alive"));
+        Assert.assertFalse(header.valueEqualsIgnoreCase("close"));
+        Assert.assertFalse(header.valueEqualsIgnoreCase("keep-alive2"));
+    }
+
+    @Test
+    public void testGetElements() throws Exception {
+        final CharArrayBuffer buf = buffer("Host: localhostAccept: text/html; q=1, text/plain");
+        final LazyHeader header = new LazyHeader(buf, 15, buf.length());
+        final HeaderElement[] elements = header.getElements();
+        Assert.assertEquals(2, elements.length);
+        Assert.assertEquals("text/html", elements[0].getName());
+        Assert.assertEquals("1", elements[0].getParameterByName("q").getValue());
+        Assert.assertEquals("text/plain", elements[1].getName());
+    }
+
+    @Test
+    public void testGetBuffer() throws Exception {
+        final CharArrayBuffer buf = buffer("Host: localhostAccept: */*");
+        final LazyHeader header = new LazyHeader(buf, 15, buf.length());
+        final CharArrayBuffer copy = header.getBuffer();
+        Assert.assertEquals("Accept: */*", copy.toString());
+        Assert.assertSame(copy, header.getBuffer());
+    }
+
+    @Test
+    public void testFormatting() throws Exception {
+        final CharArrayBuffer buf = buffer("Host: localhostAccept: */*");
+        final Header header = new LazyHeader(buf, 15, buf.length());
+        Assert.assertEquals("Accept: */*",
+                BasicLineFormatter.formatHeader(header, null));
+    }
+
+    @Test
+    public void testCloning() throws Exception {
+        final LazyHeader orig = new LazyHeader(buffer("name1: value1"), 0, 13);
+        final LazyHeader clone = (LazyHeader) orig.clone();
+        Assert.assertEquals(orig.getName(), clone.getName());
+        Assert.assertEquals(orig.getValue(), clone.getValue());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final CharArrayBuffer buf = buffer("Host: localhostname1: value1");
+        final LazyHeader orig = new LazyHeader(buf, 15, buf.length());
+        final ByteArrayOutputStream outbuffer = new ByteArrayOutputStream();
+        final ObjectOutputStream outStream = new ObjectOutputStream(outbuffer);
+        outStream.writeObject(orig);
+        outStream.close();
+        final byte[] raw = outbuffer.toByteArray();
+        final ByteArrayInputStream inBuffer = new ByteArrayInputStream(raw);
+        final ObjectInputStream inStream = new ObjectInputStream(inBuffer);
+        final Header clone = (Header) inStream.readObject();
+        Assert.assertTrue(clone instanceof BufferedHeader);
+        Assert.assertEquals(orig.getName(), clone.getName());
+        Assert.assertEquals(orig.getValue(), clone.getValue());
+    }
+
+}
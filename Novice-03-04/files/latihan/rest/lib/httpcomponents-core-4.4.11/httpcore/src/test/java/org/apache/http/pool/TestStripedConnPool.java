@@ -0,0 +1,501 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.pool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpConnectionMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestStripedConnPool {
+
+    private static final int GRACE_PERIOD = 10000;
+
+    static class LocalConnection implements HttpConnection {
+
+        private volatile boolean open = true;
+        private volatile boolean stale;
+
+        @Override
+        public void close() {
+            this.open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return this.open;
+        }
+
+        @Override
+        public boolean isStale() {
+            return this.stale;
+        }
+
+        @Override
+        public void setSocketTimeout(final int timeout) {
+        }
+
+        @Override
+        public int getSocketTimeout() {
+            return 0;
+        }
+
+        @Override
+        public void shutdown() {
+            this.open = false;
+        }
+
+        @Override
+        public HttpConnectionMetrics getMetrics() {
+            return null;
+        }
+
+    }
+
+    static class LocalConnFactory implements ConnFactory<String, HttpConnection> {
+
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        @Override
+        public HttpConnection create(final String route) throws IOException {
+            if (route.startsWith("broken")) {
+                throw new IOException("Oppsie");
+            }
+            this.count.incrementAndGet();
+            return new LocalConnection();
+        }
+
+        public int getCount() {
+            return this.count.get();
+        }
+
+    }
+
+    static class LocalPoolEntry extends PoolEntry<String, HttpConnection> {
+
+        public LocalPoolEntry(final String route, final HttpConnection conn) {
+            super(null, route, conn);
+        }
+
+        @Override
+        public void close() {
+            try {
+                getConnection().close();
+            } catch (final IOException ignore) {
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !getConnection().isOpen();
+        }
+
+    }
+
+    static class LocalConnPool extends AbstractStripedConnPool<String, HttpConnection, LocalPoolEntry> {
+
+        public LocalConnPool(
+                final ConnFactory<String, HttpConnection> connFactory,
+                final int defaultMaxPerRoute, final int maxTotal) {
+            super(connFactory, defaultMaxPerRoute, maxTotal);
+        }
+
+        @Override
+        protected LocalPoolEntry createEntry(final String route, final HttpConnection conn) {
+            return new LocalPoolEntry(route, conn);
+        }
+
+        @Override
+        protected boolean validate(final LocalPoolEntry entry) {
+            return !entry.getConnection().isStale();
+        }
+    }
+
+    static class GetPoolEntryThread extends Thread {
+
+        private final Future<LocalPoolEntry> future;
+        private final long time;
+        private final TimeUnit timeUnit;
+
+        private volatile LocalPoolEntry entry;
+        private volatile Exception ex;
+
+        GetPoolEntryThread(final Future<LocalPoolEntry> future, final long time, final TimeUnit timeUnit) {
+            super();
+            this.future = future;
+            this.time = time;
+            this.timeUnit = timeUnit;
+            setDaemon(true);
+        }
+
+        GetPoolEntryThread(final Future<LocalPoolEntry> future) {
+            this(future, 1000, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.entry = this.future.get(this.time, this.timeUnit);
+            } catch (final Exception ex) {
+                this.ex = ex;
+            }
+        }
+
+        public LocalPoolEntry getEntry() {
+            return this.entry;
+        }
+
+        public Exception getException() {
+            return this.ex;
+        }
+
+    }
+
+    @Test
+    public void testEmptyPool() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 10);
+        pool.setDefaultMaxPerRoute(5);
+        pool.setMaxPerRoute("somehost", 3);
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(0, totals.getLeased());
+        Assert.assertEquals(10, totals.getMax());
+        Assert.assertEquals(Collections.emptySet(), pool.getRoutes());
+        final PoolStats stats = pool.getStats("somehost");
+        Assert.assertEquals(0, stats.getAvailable());
+        Assert.assertEquals(0, stats.getLeased());
+        Assert.assertEquals(3, stats.getMax());
+        Assert.assertEquals(Collections.emptySet(), pool.getRoutes());
+    }
+
+    @Test
+    public void testInvalidConstruction() throws Exception {
+        try {
+            new LocalConnPool(new LocalConnFactory(), -1, 1);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException expected) {
+        }
+        try {
+            new LocalConnPool(new LocalConnFactory(), 1, -1);
+            Assert.fail("IllegalArgumentException should have been thrown");
+        } catch (final IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testLeaseRelease() throws Exception {
+        final LocalConnFactory connFactory = new LocalConnFactory();
+        final LocalConnPool pool = new LocalConnPool(connFactory, 2, 10);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry1);
+        final LocalPoolEntry entry2 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry2);
+        final LocalPoolEntry entry3 = pool.lease("otherhost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry3);
+
+        PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(3, totals.getLeased());
+
+        pool.release(entry1, true);
+        pool.release(entry2, true);
+        pool.release(entry3, false);
+        Assert.assertTrue(entry1.getConnection().isOpen());
+        Assert.assertFalse(entry3.getConnection().isOpen());
+
+        totals = pool.getTotalStats();
+        Assert.assertEquals(2, totals.getAvailable());
+        Assert.assertEquals(0, totals.getLeased());
+
+        final LocalPoolEntry entry4 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertTrue(entry4 == entry1 || entry4 == entry2);
+        Assert.assertEquals(3, connFactory.getCount());
+    }
+
+    @Test
+    public void testReleaseUnknownEntry() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 10);
+        pool.release(new LocalPoolEntry("somehost", new LocalConnection()), true);
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(0, totals.getLeased());
+    }
+
+    @Test
+    public void testMaxPerRouteWakesWaiter() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 1, 10);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+
+        final Future<LocalPoolEntry> future2 = pool.lease("somehost", null);
+        final GetPoolEntryThread t2 = new GetPoolEntryThread(future2);
+        t2.start();
+        final LocalPoolEntry entry3 = pool.lease("otherhost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry3);
+
+        Thread.sleep(100);
+        Assert.assertFalse(future2.isDone());
+        Assert.assertEquals(1, pool.getStats("somehost").getPending());
+        Assert.assertEquals(1, pool.getTotalStats().getPending());
+
+        pool.release(entry1, true);
+        t2.join(GRACE_PERIOD);
+        Assert.assertTrue(future2.isDone());
+        Assert.assertSame(entry1, t2.getEntry());
+        Assert.assertEquals(0, pool.getTotalStats().getPending());
+    }
+
+    @Test
+    public void testTotalMaxEvictsIdleConnectionOfOtherRoute() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 2);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        final LocalPoolEntry entry2 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        pool.release(entry1, true);
+
+        final LocalPoolEntry entry3 = pool.lease("otherhost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry3);
+        Assert.assertFalse(entry1.getConnection().isOpen());
+        Assert.assertTrue(entry2.getConnection().isOpen());
+
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(2, totals.getLeased());
+        Assert.assertEquals(0, pool.getStats("somehost").getAvailable());
+    }
+
+    @Test
+    public void testTotalMaxWakesWaiterOfOtherRoute() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 2);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        final LocalPoolEntry entry2 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+
+        final Future<LocalPoolEntry> future3 = pool.lease("otherhost", null);
+        final GetPoolEntryThread t3 = new GetPoolEntryThread(future3);
+        t3.start();
+
+        Thread.sleep(100);
+        Assert.assertFalse(future3.isDone());
+
+        pool.release(entry1, false);
+        t3.join(GRACE_PERIOD);
+        Assert.assertTrue(future3.isDone());
+        Assert.assertNotNull(t3.getEntry());
+
+        final Future<LocalPoolEntry> future4 = pool.lease("thirdhost", null);
+        final GetPoolEntryThread t4 = new GetPoolEntryThread(future4);
+        t4.start();
+
+        Thread.sleep(100);
+        Assert.assertFalse(future4.isDone());
+
+        pool.release(entry2, true);
+        t4.join(GRACE_PERIOD);
+        Assert.assertTrue(future4.isDone());
+        Assert.assertNotNull(t4.getEntry());
+        Assert.assertFalse(entry2.getConnection().isOpen());
+
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getAvailable());
+        Assert.assertEquals(2, totals.getLeased());
+    }
+
+    @Test
+    public void testLeaseTimeout() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 1, 1);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry1);
+
+        final Future<LocalPoolEntry> future2 = pool.lease("otherhost", null);
+        final GetPoolEntryThread t2 = new GetPoolEntryThread(future2, 50, TimeUnit.MILLISECONDS);
+        t2.start();
+
+        t2.join(GRACE_PERIOD);
+        Assert.assertTrue(t2.getException() instanceof TimeoutException);
+        Assert.assertFalse(future2.isDone());
+        Assert.assertFalse(future2.isCancelled());
+        Assert.assertEquals(0, pool.getTotalStats().getPending());
+    }
+
+    @Test
+    public void testLeaseIOException() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 1, 1);
+        try {
+            pool.lease("brokenhost", null).get(1, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException should have been thrown");
+        } catch (final ExecutionException expected) {
+            Assert.assertTrue(expected.getCause() instanceof IOException);
+        }
+        // the capacity reserved for the failed connection must have been given back
+        final LocalPoolEntry entry = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry);
+    }
+
+    @Test
+    public void testLeaseCancel() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 1, 1);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotNull(entry1);
+
+        final Future<LocalPoolEntry> future2 = pool.lease("somehost", null);
+        final GetPoolEntryThread t2 = new GetPoolEntryThread(future2);
+        t2.start();
+
+        Thread.sleep(5);
+
+        Assert.assertFalse(future2.isDone());
+        Assert.assertFalse(future2.isCancelled());
+
+        future2.cancel(true);
+        t2.join(GRACE_PERIOD);
+        Assert.assertTrue(future2.isDone());
+        Assert.assertTrue(future2.isCancelled());
+        Assert.assertTrue(t2.getException() instanceof InterruptedException);
+    }
+
+    @Test
+    public void testCloseIdle() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 2);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        final LocalPoolEntry entry2 = pool.lease("otherhost", null).get(1, TimeUnit.SECONDS);
+
+        entry1.updateExpiry(0, TimeUnit.MILLISECONDS);
+        pool.release(entry1, true);
+
+        Thread.sleep(200L);
+
+        entry2.updateExpiry(0, TimeUnit.MILLISECONDS);
+        pool.release(entry2, true);
+
+        pool.closeIdle(50, TimeUnit.MILLISECONDS);
+
+        Assert.assertFalse(entry1.getConnection().isOpen());
+        Assert.assertTrue(entry2.getConnection().isOpen());
+        Assert.assertEquals(1, pool.getTotalStats().getAvailable());
+        Assert.assertEquals(Collections.singleton("otherhost"), pool.getRoutes());
+
+        pool.closeIdle(-1, TimeUnit.MILLISECONDS);
+
+        Assert.assertFalse(entry2.getConnection().isOpen());
+        Assert.assertEquals(0, pool.getTotalStats().getAvailable());
+        Assert.assertEquals(Collections.emptySet(), pool.getRoutes());
+    }
+
+    @Test
+    public void testValidateConnectionStale() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 2);
+        pool.setValidateAfterInactivity(5);
+
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        pool.release(entry1, true);
+        ((LocalConnection) entry1.getConnection()).stale = true;
+
+        Thread.sleep(10);
+
+        final LocalPoolEntry entry2 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        Assert.assertNotSame(entry1, entry2);
+        Assert.assertFalse(entry1.getConnection().isOpen());
+        Assert.assertEquals(1, pool.getTotalStats().getLeased());
+        Assert.assertEquals(0, pool.getTotalStats().getAvailable());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 2);
+        final LocalPoolEntry entry1 = pool.lease("somehost", null).get(1, TimeUnit.SECONDS);
+        final LocalPoolEntry entry2 = pool.lease("otherhost", null).get(1, TimeUnit.SECONDS);
+        pool.release(entry2, true);
+
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(1, totals.getAvailable());
+        Assert.assertEquals(1, totals.getLeased());
+
+        pool.shutdown();
+        Assert.assertTrue(pool.isShutdown());
+        pool.shutdown();
+
+        Assert.assertFalse(entry1.getConnection().isOpen());
+        Assert.assertFalse(entry2.getConnection().isOpen());
+
+        try {
+            pool.lease("somehost", null);
+            Assert.fail("IllegalStateException should have been thrown");
+        } catch (final IllegalStateException expected) {
+        }
+        // Ignored if shut down
+        pool.release(new LocalPoolEntry("somehost", new LocalConnection()), true);
+    }
+
+    @Test
+    public void testConcurrentLeaseRelease() throws Exception {
+        final LocalConnPool pool = new LocalConnPool(new LocalConnFactory(), 2, 10);
+        final int threadCount = 20;
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < threadCount; i++) {
+            final String route = "host" + (i % 8);
+            final Thread t = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int n = 0; n < 500; n++) {
+                            final LocalPoolEntry entry = pool.lease(route, null).get(GRACE_PERIOD, TimeUnit.MILLISECONDS);
+                            pool.release(entry, n % 10 != 0);
+                        }
+                    } catch (final Exception ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+
+            };
+            threads.add(t);
+            t.start();
+        }
+        Assert.assertTrue(latch.await(GRACE_PERIOD * 3, TimeUnit.MILLISECONDS));
+        Assert.assertNull(failure.get());
+
+        final PoolStats totals = pool.getTotalStats();
+        Assert.assertEquals(0, totals.getLeased());
+        Assert.assertEquals(0, totals.getPending());
+        Assert.assertTrue(totals.getAvailable() <= 10);
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.protocol;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.http.FormattedHeader;
+import org.apache.http.message.BasicLineFormatter;
+import org.apache.http.util.CharArrayBuffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHttpDateGenerator {
+
+    @Test
+    public void testCurrentDate() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final String s = generator.getCurrentDate();
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(HttpDateGenerator.PATTERN_RFC1123, Locale.US);
+        dateFormat.setTimeZone(HttpDateGenerator.GMT);
+        final Date date = dateFormat.parse(s);
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - date.getTime()) < 5000);
+        Assert.assertTrue(s.endsWith(" GMT"));
+    }
+
+    @Test
+    public void testCurrentDateHeader() throws Exception {
+        final HttpDateGenerator generator = new HttpDateGenerator();
+        final FormattedHeader header = generator.getCurrentDateHeader();
+        Assert.assertEquals(HTTP.DATE_HEADER, header.getName());
+        final String s = generator.getCurrentDate();
+        if (s.equals(header.getValue())) {
+            Assert.assertEquals("Date: " + s, header.getBuffer().toString());
+        }
+        // The preformatted buffer is written out as is
+        final CharArrayBuffer buffer = BasicLineFormatter.INSTANCE.formatHeader(new CharArrayBuffer(64), header);
+        Assert.assertSame(header.getBuffer(), buffer);
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.http.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRadixTreeUriPatternMatcher {
+
+    @Test
+    public void testRegisterUnregister() throws Exception {
+        final Object h1 = new Object();
+        final Object h2 = new Object();
+        final Object h3 = new Object();
+
+        final UriPatternMatcher<Object> matcher = new RadixTreeUriPatternMatcher<Object>();
+        matcher.register("/h1", h1);
+        matcher.register("/h2*", h2);
+        matcher.register("*.h3", h3);
+        Assert.assertEquals(3, matcher.entrySet().size());
+
+        Assert.assertSame(h1, matcher.lookup("/h1"));
+        Assert.assertSame(h2, matcher.lookup("/h2/stuff"));
+        Assert.assertSame(h3, matcher.lookup("/stuff.h3"));
+        Assert.assertNull(matcher.lookup("/h1/stuff"));
+
+        matcher.unregister("/h1");
+        matcher.unregister("/h2*");
+        matcher.unregister("*.h3");
+        Assert.assertNull(matcher.lookup("/h1"));
+        Assert.assertNull(matcher.lookup("/h2/stuff"));
+        Assert.assertNull(matcher.lookup("/stuff.h3"));
+        Assert.assertEquals(0, matcher.entrySet().size());
+    }
+
+    @Test
+    public void testWildCardMatching() throws Exception {
+        final Object h1 = new Object();
+        final Object h2 = new Object();
+        final Object h3 = new Object();
+        final Object h4 = new Object();
+        final Object def = new Object();
+
+        final UriPatternMatcher<Object> matcher = new RadixTreeUriPatternMatcher<Object>();
+        matcher.register("*", def);
+        matcher.register("/one/*", h1);
+        matcher.register("/one/two/*", h2);
+        matcher.register("/one/two/three/*", h3);
+        matcher.register("*.view", h4);
+
+        Assert.assertSame(h1, matcher.lookup("/one/request"));
+        Assert.assertSame(h2, matcher.lookup("/one/two/request"));
+        Assert.assertSame(h3, matcher.lookup("/one/two/three/request"));
+        Assert.assertSame(h4, matcher.lookup("/that.view"));
+        // Prefix patterns win over suffix patterns of the same length
+        Assert.assertSame(h1, matcher.lookup("/one/that.view"));
+        Assert.assertSame(h2, matcher.lookup("/one/two/that.view"));
+        Assert.assertSame(def, matcher.lookup("default/request"));
+
+        matcher.unregister("/one/two/*");
+        Assert.assertSame(h1, matcher.lookup("/one/two/request"));
+        Assert.assertSame(h3, matcher.lookup("/one/two/three/request"));
+        Assert.assertSame(h1, matcher.lookup("/one/two/that.view"));
+        Assert.assertSame(h4, matcher.lookup("/two/that.view"));
+    }
+
+    @Test
+    public void testSuffixPatternOverPrefixPatternMatch() throws Exception {
+        final Object h1 = new Object();
+        final Object h2 = new Object();
+
+        final UriPatternMatcher<Object> matcher = new RadixTreeUriPatternMatcher<Object>();
+        matcher.register("*tch", h2);
+        matcher.register("/ma*", h1);
+
+        Assert.assertSame(h1, matcher.lookup("/match"));
+    }
+
+    @Test
+    public void testSameResultsAsLinearMatcher() throws Exception {
+        final Random random = new Random(12345L);
+        final String[] segments = { "a", "ab", "abc", "b", "ba", "x.y", ".y", "" };
+        final UriPatternMatcher<String> expected = new UriPatternMatcher<String>();
+        final UriPatternMatcher<String> actual = new RadixTreeUriPatternMatcher<String>();
+        final List<String> patterns = new ArrayList<String>();
+        for (int round = 0; round < 2000; round++) {
+            final StringBuilder buffer = new StringBuilder("/");
+            final int n = random.nextInt(4);
+            for (int i = 0; i < n; i++) {
+                buffer.append(segments[random.nextInt(segments.length)]);
+            }
+            final String path = buffer.toString();
+            final int op = random.nextInt(10);
+            if (op < 3) {
+                final String pattern = random.nextBoolean() ? path + "*" : "*" + path.substring(1);
+                expected.register(pattern, pattern);
+                actual.register(pattern, pattern);
+                patterns.add(pattern);
+            } else if (op < 4 && !patterns.isEmpty()) {
+                final String pattern = patterns.remove(random.nextInt(patterns.size()));
+                expected.unregister(pattern);
+                actual.unregister(pattern);
+            } else {
+                Assert.assertEquals(path, expected.lookup(path), actual.lookup(path));
+            }
+        }
+        Assert.assertEquals(expected.entrySet(), actual.entrySet());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRegisterInvalidInput() throws Exception {
+        final UriPatternMatcher<Object> matcher = new RadixTreeUriPatternMatcher<Object>();
+        matcher.register(null, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLookupInvalidInput() throws Exception {
+        final UriPatternMatcher<Object> matcher = new RadixTreeUriPatternMatcher<Object>();
+        matcher.lookup(null);
+    }
+
+}